@@ -64,6 +64,7 @@
     include("worldedit-$it")
 }
 include("worldedit-libs:core:ap")
+include("worldedit-benchmarks")
 
 
 enableFeaturePreview("TYPESAFE_PROJECT_ACCESSORS")
@@ -0,0 +1,36 @@
+plugins {
+    `java-library`
+    id("buildlogic.common-java")
+    alias(libs.plugins.jmh)
+}
+
+project.description = "Benchmarks"
+
+dependencies {
+    // The CLI provides file-backed registries, so block states exist without a running server
+    jmhImplementation(project(":worldedit-cli"))
+    jmhImplementation(project(":worldedit-core"))
+    jmhImplementation(libs.fastutil)
+    jmhImplementation(libs.log4j.core)
+}
+
+tasks.withType<JavaCompile>()
+    .matching { it.name == "compileJmhJava" }
+    .configureEach {
+        options.encoding = "UTF-8"
+        options.compilerArgs.add("--add-modules=jdk.incubator.vector")
+    }
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    timeOnIteration = "2s"
+    warmup = "2s"
+    jvmArgsAppend = listOf("--add-modules=jdk.incubator.vector", "-Xmx4G")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
+    // Allows e.g. `./gradlew :worldedit-benchmarks:jmh -Pjmh.includes=ParallelQueueExtent`
+    providers.gradleProperty("jmh.includes").orNull?.let { includes = listOf(it) }
+}
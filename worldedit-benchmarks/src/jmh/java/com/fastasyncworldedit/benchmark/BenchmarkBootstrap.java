@@ -0,0 +1,40 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.sk89q.worldedit.cli.CLIPlatform;
+import com.sk89q.worldedit.cli.CLIWorldEdit;
+import com.sk89q.worldedit.internal.Constants;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+
+/**
+ * Brings up the CLI registries and a headless FAWE instance once per benchmark JVM.
+ */
+public final class BenchmarkBootstrap {
+
+    private static boolean initialized;
+
+    private BenchmarkBootstrap() {
+    }
+
+    public static synchronized void init() {
+        if (initialized) {
+            return;
+        }
+        CLIWorldEdit app = new CLIWorldEdit();
+        app.onInitialized();
+        ((CLIPlatform) app.getPlatform()).setDataVersion(Constants.DATA_VERSION_MC_1_19);
+        app.onStarted();
+        try {
+            Fawe.set(new BenchmarkFawe(Files.createTempDirectory("fawe-benchmark").toFile()));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (Exception e) {
+            throw new IllegalStateException("Could not initialise FAWE for benchmarks", e);
+        }
+        initialized = true;
+    }
+
+}
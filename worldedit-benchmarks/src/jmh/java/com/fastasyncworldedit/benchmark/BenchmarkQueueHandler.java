@@ -0,0 +1,18 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.queue.implementation.QueueHandler;
+
+/**
+ * There is no physics or async catcher to toggle outside a server, so unsafe sections are no-ops.
+ */
+final class BenchmarkQueueHandler extends QueueHandler {
+
+    @Override
+    public void startUnsafe(boolean parallel) {
+    }
+
+    @Override
+    public void endUnsafe(boolean parallel) {
+    }
+
+}
@@ -0,0 +1,94 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.util.TaskManager;
+import it.unimi.dsi.fastutil.ints.Int2ObjectMap;
+import it.unimi.dsi.fastutil.ints.Int2ObjectOpenHashMap;
+
+import javax.annotation.Nonnull;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link TaskManager} backed by a single "main" thread ticking every 50ms, mirroring a server tick loop.
+ */
+final class BenchmarkTaskManager extends TaskManager {
+
+    private static final long TICK_MILLIS = 50;
+
+    private final ScheduledExecutorService main;
+    private final ScheduledExecutorService async = Executors.newScheduledThreadPool(2, runnable -> {
+        Thread thread = new Thread(runnable, "FAWE Benchmark Async");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final Int2ObjectMap<ScheduledFuture<?>> tasks = new Int2ObjectOpenHashMap<>();
+    private final AtomicInteger taskId = new AtomicInteger();
+    private volatile Thread mainThread;
+
+    BenchmarkTaskManager() {
+        this.main = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "FAWE Benchmark Main");
+            thread.setDaemon(true);
+            mainThread = thread;
+            return thread;
+        });
+    }
+
+    private int register(ScheduledFuture<?> future) {
+        int id = taskId.incrementAndGet();
+        synchronized (tasks) {
+            tasks.put(id, future);
+        }
+        return id;
+    }
+
+    @Override
+    public int repeat(@Nonnull final Runnable runnable, final int interval) {
+        return register(main.scheduleAtFixedRate(runnable, TICK_MILLIS, interval * TICK_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public int repeatAsync(@Nonnull final Runnable runnable, final int interval) {
+        return register(async.scheduleAtFixedRate(runnable, TICK_MILLIS, interval * TICK_MILLIS, TimeUnit.MILLISECONDS));
+    }
+
+    @Override
+    public void async(@Nonnull final Runnable runnable) {
+        async.execute(runnable);
+    }
+
+    @Override
+    public void task(@Nonnull final Runnable runnable) {
+        main.execute(runnable);
+    }
+
+    @Override
+    public boolean isMainThread() {
+        return Thread.currentThread() == mainThread;
+    }
+
+    @Override
+    public void later(@Nonnull final Runnable runnable, final int delay) {
+        main.schedule(runnable, delay * TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void laterAsync(@Nonnull final Runnable runnable, final int delay) {
+        async.schedule(runnable, delay * TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void cancel(final int task) {
+        ScheduledFuture<?> future;
+        synchronized (tasks) {
+            future = tasks.remove(task);
+        }
+        if (future != null) {
+            future.cancel(false);
+        }
+    }
+
+}
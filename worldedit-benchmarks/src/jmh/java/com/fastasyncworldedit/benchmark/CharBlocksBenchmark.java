@@ -0,0 +1,80 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.queue.implementation.blocks.CharSetBlocks;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Raw section access on {@link com.fastasyncworldedit.core.queue.implementation.blocks.CharBlocks}, below the queue.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class CharBlocksBenchmark {
+
+    private MemoryChunk get;
+    private CharSetBlocks set;
+    private char dirt;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        MemoryWorld world = new MemoryWorld(BlockTypes.STONE.getDefaultState().getOrdinalChar());
+        dirt = BlockTypes.DIRT.getDefaultState().getOrdinalChar();
+        get = new MemoryChunk(world, 0, 0);
+        set = CharSetBlocks.newInstance(0, 0);
+    }
+
+    /**
+     * Section load followed by a linear scan, the access pattern of filters.
+     */
+    @Benchmark
+    public int loadAndScan() {
+        int sum = 0;
+        for (int layer = get.getMinSectionPosition(); layer <= get.getMaxSectionPosition(); layer++) {
+            char[] section = get.load(layer);
+            for (char ordinal : section) {
+                sum += ordinal;
+            }
+        }
+        return sum;
+    }
+
+    /**
+     * Per-coordinate reads, the access pattern of {@code getBlock} callers.
+     */
+    @Benchmark
+    public int getByCoordinate() {
+        int sum = 0;
+        for (int y = 0; y < 256; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    sum += get.get(x, y, z);
+                }
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    public CharSetBlocks setByCoordinate() {
+        for (int y = 0; y < 256; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    set.set(x, y, z, dirt);
+                }
+            }
+        }
+        return set;
+    }
+
+}
@@ -0,0 +1,83 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-block access through a {@link com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder}, the path taken by
+ * non-filter edits (brushes, visitors, pastes through an {@link com.sk89q.worldedit.EditSession}).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ChunkHolderBenchmark {
+
+    private MemoryWorld world;
+    private IQueueExtent<IQueueChunk> queue;
+    private BlockState stone;
+    private BlockState dirt;
+    private int chunkX;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = BlockTypes.DIRT.getDefaultState();
+        world = new MemoryWorld(stone.getOrdinalChar());
+    }
+
+    @Setup(Level.Iteration)
+    public void createQueue() {
+        world.reset();
+        queue = Fawe.instance().getQueueHandler().getQueue(world);
+    }
+
+    @TearDown(Level.Iteration)
+    public void flushQueue() {
+        queue.flush();
+    }
+
+    /**
+     * Fill one section of a not yet touched chunk, so each invocation includes ChunkHolder initialisation.
+     */
+    @Benchmark
+    public IQueueChunk setSection() {
+        IQueueChunk chunk = queue.getOrCreateChunk(chunkX++, 0);
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    chunk.setBlock(x, y, z, dirt);
+                }
+            }
+        }
+        return chunk;
+    }
+
+    @Benchmark
+    public void getSection(Blackhole blackhole) {
+        IQueueChunk chunk = queue.getOrCreateChunk(0, 0);
+        for (int y = 0; y < 16; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    blackhole.consume(chunk.getBlock(x, y, z));
+                }
+            }
+        }
+    }
+
+}
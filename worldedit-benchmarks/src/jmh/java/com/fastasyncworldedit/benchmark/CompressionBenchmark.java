@@ -0,0 +1,211 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.internal.io.FastByteArrayOutputStream;
+import com.fastasyncworldedit.core.internal.io.FastByteArraysInputStream;
+import com.fastasyncworldedit.core.internal.io.FaweInputStream;
+import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
+import com.fastasyncworldedit.core.util.MainUtil;
+import com.fastasyncworldedit.core.util.ZstdCompression;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compression of history-like block change data (delta encoded positions and varint ordinals) with the LZ4 levels of
+ * {@link MainUtil#getCompressedOS} against Zstandard, as a single stream and as the per-chunk frames of chunk indexed history.
+ * <p>
+ * The {@code rawBytes} counter is the uncompressed throughput in bytes per second, {@code rawBytes / compressedBytes} is the
+ * compression ratio.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompressionBenchmark {
+
+    private static final int CHUNKS = 64;
+
+    @Param({"LZ4_1", "LZ4_3", "LZ4_6", "LZ4_9", "ZSTD_1", "ZSTD_3", "ZSTD_9", "ZSTD_3_DICT"})
+    public String codec;
+
+    private List<byte[]> frames;
+    private byte[] stream;
+    private int lz4Level;
+    private ZstdCompression zstd;
+    private byte[] compressedStream;
+    private List<byte[]> compressedFrames;
+
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Bytes {
+
+        public long rawBytes;
+        public long compressedBytes;
+
+    }
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        BenchmarkBootstrap.init();
+        frames = new ArrayList<>(CHUNKS);
+        Random random = new Random(0);
+        for (int i = 0; i < CHUNKS; i++) {
+            frames.add(frame(random));
+        }
+        FastByteArrayOutputStream all = new FastByteArrayOutputStream();
+        for (byte[] frame : frames) {
+            all.write(frame);
+        }
+        stream = all.toByteArray();
+        String[] parts = codec.split("_");
+        int level = Integer.parseInt(parts[1]);
+        if (parts[0].equals("ZSTD")) {
+            // train on other chunks than the ones compressed, like a dictionary trained on earlier edits
+            List<byte[]> samples = new ArrayList<>();
+            Random sampleRandom = new Random(1);
+            for (int i = 0; i < CHUNKS * 4; i++) {
+                samples.add(frame(sampleRandom));
+            }
+            zstd = parts.length > 2 ? ZstdCompression.of(level).withDictionary(samples) : ZstdCompression.of(level);
+        } else {
+            lz4Level = level;
+        }
+        compressedStream = writeStream(new Bytes());
+        compressedFrames = writeFrames(new Bytes());
+    }
+
+    /**
+     * The block changes of a //set over natural terrain within one chunk: positions relative to the previous one, the
+     * previous ordinal and the new one.
+     */
+    private static byte[] frame(Random random) throws IOException {
+        int[] layers = {
+                BlockTypes.STONE.getDefaultState().getOrdinal(),
+                BlockTypes.DIRT.getDefaultState().getOrdinal(),
+                BlockTypes.GRASS_BLOCK.getDefaultState().getOrdinal(),
+                BlockTypes.AIR.getDefaultState().getOrdinal()
+        };
+        int to = BlockTypes.GLASS.getDefaultState().getOrdinal();
+        int ore = BlockTypes.COAL_ORE.getDefaultState().getOrdinal();
+        FastByteArrayOutputStream bytes = new FastByteArrayOutputStream();
+        FaweOutputStream out = new FaweOutputStream(bytes);
+        int surface = 60 + random.nextInt(8);
+        for (int y = 0; y < 96; y++) {
+            for (int z = 0; z < 16; z++) {
+                for (int x = 0; x < 16; x++) {
+                    // non-small positions, rx/rz/ry as little endian shorts
+                    int rx = x == 0 ? -15 : 1;
+                    int rz = x == 0 ? (z == 0 ? -15 : 1) : 0;
+                    int ry = x == 0 && z == 0 ? 1 : 0;
+                    out.write(rx & 0xFF);
+                    out.write((rx >> 8) & 0xFF);
+                    out.write(rz & 0xFF);
+                    out.write((rz >> 8) & 0xFF);
+                    out.write(ry & 0xFF);
+                    out.write((ry >> 8) & 0xFF);
+                    int height = surface + ((x + z) & 3);
+                    int from = y < height - 4 ? (random.nextInt(64) == 0 ? ore : layers[0])
+                            : y < height - 1 ? layers[1] : y < height ? layers[2] : layers[3];
+                    out.writeVarInt(from);
+                    out.writeVarInt(to);
+                }
+            }
+        }
+        out.flush();
+        return bytes.toByteArray();
+    }
+
+    private byte[] writeStream(Bytes bytes) throws IOException {
+        FastByteArrayOutputStream target = new FastByteArrayOutputStream();
+        try (FaweOutputStream out = zstd != null ? zstd.getCompressedOS(target, 531441) : MainUtil.getCompressedOS(
+                target,
+                lz4Level,
+                531441
+        )) {
+            out.write(stream);
+        }
+        bytes.rawBytes += stream.length;
+        bytes.compressedBytes += target.getSize();
+        return target.toByteArray();
+    }
+
+    private List<byte[]> writeFrames(Bytes bytes) {
+        List<byte[]> compressed = new ArrayList<>(frames.size());
+        byte[] buffer = null;
+        for (byte[] frame : frames) {
+            byte[] result;
+            if (zstd != null) {
+                result = zstd.compress(frame, frame.length);
+            } else {
+                // chunk indexed history uses a single LZ4 pass per frame
+                int level = lz4Level <= 3 ? 1 : lz4Level == 9 ? 17 : 9;
+                int maxLength = MainUtil.getMaxCompressedLength(frame.length);
+                if (buffer == null || buffer.length < maxLength) {
+                    buffer = new byte[maxLength];
+                }
+                result = MainUtil.compress(frame, buffer, level);
+            }
+            bytes.rawBytes += frame.length;
+            bytes.compressedBytes += result.length;
+            compressed.add(result);
+        }
+        return compressed;
+    }
+
+    @Benchmark
+    public byte[] compressStream(Bytes bytes) throws IOException {
+        return writeStream(bytes);
+    }
+
+    @Benchmark
+    public long decompressStream(Bytes bytes) throws IOException {
+        long sum = 0;
+        byte[] buffer = new byte[8192];
+        try (FaweInputStream in = MainUtil.getCompressedIS(new FastByteArraysInputStream(new byte[][]{compressedStream}))) {
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                sum += read;
+            }
+        }
+        bytes.rawBytes += sum;
+        bytes.compressedBytes += compressedStream.length;
+        return sum;
+    }
+
+    @Benchmark
+    public List<byte[]> compressFrames(Bytes bytes) {
+        return writeFrames(bytes);
+    }
+
+    @Benchmark
+    public byte[] decompressFrames(Bytes bytes) {
+        byte[] buffer = null;
+        for (int i = 0; i < frames.size(); i++) {
+            int length = frames.get(i).length;
+            byte[] compressed = compressedFrames.get(i);
+            if (zstd != null) {
+                buffer = ZstdCompression.decompress(compressed, buffer != null && buffer.length == length ? buffer : null, length);
+            } else {
+                // the LZ4 decompressor takes the decompressed length from the buffer
+                buffer = MainUtil.decompress(compressed, buffer != null && buffer.length == length ? buffer : null, length, 1);
+            }
+            bytes.rawBytes += length;
+            bytes.compressedBytes += compressed.length;
+        }
+        return buffer;
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.function.operation.ForwardExtentCopy;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code //copy} and {@code //paste} of a cube straddling the ground level into and out of a {@link LinearClipboard}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LinearClipboardBenchmark {
+
+    @Param({"CPU", "MEMORY", "SECTIONED"})
+    public String type;
+
+    @Param({"64"})
+    public int size;
+
+    private MemoryWorld world;
+    private CuboidRegion region;
+    private LinearClipboard clipboard;
+
+    @Setup(Level.Trial)
+    public void setup() throws WorldEditException {
+        BenchmarkBootstrap.init();
+        world = new MemoryWorld(BlockTypes.STONE.getDefaultState().getOrdinalChar());
+        int minY = MemoryWorld.GROUND_LEVEL - size / 2;
+        region = new CuboidRegion(world, BlockVector3.at(0, minY, 0), BlockVector3.at(size - 1, minY + size - 1, size - 1));
+        clipboard = copy();
+    }
+
+    private LinearClipboard newClipboard() {
+        return switch (type) {
+            case "CPU" -> new CPUOptimizedClipboard(region);
+            case "MEMORY" -> new MemoryOptimizedClipboard(region);
+            case "SECTIONED" -> new SectionedClipboard(region);
+            default -> throw new IllegalArgumentException("Unknown clipboard type " + type);
+        };
+    }
+
+    @Benchmark
+    public LinearClipboard copy() throws WorldEditException {
+        ParallelQueueExtent extent = new ParallelQueueExtent(Fawe.instance().getQueueHandler(), world, true, null);
+        LinearClipboard target = newClipboard();
+        ForwardExtentCopy copy = new ForwardExtentCopy(extent, region, target, region.getMinimumPoint());
+        Operations.complete(copy);
+        return target;
+    }
+
+    @Benchmark
+    public void paste() {
+        ParallelQueueExtent extent = new ParallelQueueExtent(Fawe.instance().getQueueHandler(), world, true, null);
+        clipboard.paste(extent, BlockVector3.at(size, region.getMinimumY(), 0), true);
+        Operations.completeBlindly(extent.commit());
+    }
+
+}
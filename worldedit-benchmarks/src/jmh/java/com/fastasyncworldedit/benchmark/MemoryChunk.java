@@ -0,0 +1,156 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.CharGetBlocks;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+
+import javax.annotation.Nullable;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.Future;
+
+/**
+ * {@link com.fastasyncworldedit.core.queue.IChunkGet} stand-in reading from and writing to a {@link MemoryWorld}, in the same
+ * role a platform's chunk GET plays for a real world.
+ */
+final class MemoryChunk extends CharGetBlocks {
+
+    private final MemoryWorld world;
+    private int[] heightMap = new int[256];
+
+    MemoryChunk(MemoryWorld world, int chunkX, int chunkZ) {
+        super(MemoryWorld.MIN_SECTION, MemoryWorld.MAX_SECTION);
+        this.world = world;
+        init(chunkX, chunkZ);
+    }
+
+    @Override
+    public char[] update(int layer, char[] data, boolean aggressive) {
+        if (data == null) {
+            data = new char[4096];
+        }
+        char[] stored = world.sections(getX(), getZ())[layer];
+        synchronized (stored) {
+            System.arraycopy(stored, 0, data, 0, 4096);
+        }
+        return data;
+    }
+
+    @Override
+    public <T extends Future<T>> T call(IQueueExtent<? extends IChunk> owner, IChunkSet set, Runnable finalize) {
+        char[][] sections = world.sections(getX(), getZ());
+        for (int layer = getMinSectionPosition(); layer <= getMaxSectionPosition(); layer++) {
+            char[] toSet = set.loadIfPresent(layer);
+            if (toSet == null) {
+                continue;
+            }
+            char[] stored = sections[layer - getMinSectionPosition()];
+            synchronized (stored) {
+                for (int i = 0; i < 4096; i++) {
+                    char ordinal = toSet[i];
+                    if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                        stored[i] = ordinal;
+                    }
+                }
+            }
+            // Subsequent reads from this GET must see the change
+            trim(false, layer);
+        }
+        finalize.run();
+        return null;
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        return BiomeTypes.PLAINS;
+    }
+
+    @Override
+    public void removeSectionLighting(int layer, boolean sky) {
+    }
+
+    @Override
+    public int getSkyLight(int x, int y, int z) {
+        return 15;
+    }
+
+    @Override
+    public int getEmittedLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public int[] getHeightMap(HeightMapType type) {
+        return heightMap;
+    }
+
+    @Override
+    public void setLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setSkyLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setHeightmapToGet(HeightMapType type, int[] data) {
+        this.heightMap = data;
+    }
+
+    @Override
+    public int getMaxY() {
+        return world.getMaxY();
+    }
+
+    @Override
+    public int getMinY() {
+        return world.getMinY();
+    }
+
+    @Override
+    public Map<BlockVector3, FaweCompoundTag> tiles() {
+        return Collections.emptyMap();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag tile(final int x, final int y, final int z) {
+        return null;
+    }
+
+    @Override
+    public Collection<FaweCompoundTag> entities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag entity(final UUID uuid) {
+        return null;
+    }
+
+    @Override
+    public Set<Entity> getFullEntities() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean isCreateCopy() {
+        return false;
+    }
+
+    @Override
+    public int setCreateCopy(boolean createCopy) {
+        return -1;
+    }
+
+}
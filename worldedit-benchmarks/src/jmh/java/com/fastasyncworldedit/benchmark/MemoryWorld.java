@@ -0,0 +1,94 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.util.MathMan;
+import com.sk89q.worldedit.world.NullWorld;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+
+/**
+ * In-memory world for benchmarks. Chunks are generated lazily as solid {@code ground} below {@link #GROUND_LEVEL} and air
+ * above it, and changes submitted through the queue are written back so repeated edits see each other.
+ */
+public final class MemoryWorld extends NullWorld {
+
+    static final int MIN_SECTION = 0;
+    static final int MAX_SECTION = 15;
+    static final int GROUND_LEVEL = 64;
+
+    private final Long2ObjectMap<char[][]> chunks = new Long2ObjectOpenHashMap<>();
+    private final char ground;
+
+    public MemoryWorld(char ground) {
+        this.ground = ground;
+    }
+
+    @Override
+    public String getName() {
+        return "benchmark";
+    }
+
+    @Override
+    public String getNameUnsafe() {
+        return getName();
+    }
+
+    @Override
+    public String id() {
+        return getName();
+    }
+
+    @Override
+    public int getMinY() {
+        return MIN_SECTION << 4;
+    }
+
+    @Override
+    public int getMaxY() {
+        return (MAX_SECTION << 4) + 15;
+    }
+
+    @Override
+    public IChunkGet get(int x, int z) {
+        return new MemoryChunk(this, x, z);
+    }
+
+    /**
+     * Get the persistent sections of a chunk, generating them on first access.
+     */
+    char[][] sections(int chunkX, int chunkZ) {
+        long pair = MathMan.pairInt(chunkX, chunkZ);
+        synchronized (chunks) {
+            char[][] sections = chunks.get(pair);
+            if (sections == null) {
+                sections = generate();
+                chunks.put(pair, sections);
+            }
+            return sections;
+        }
+    }
+
+    private char[][] generate() {
+        char[][] sections = new char[MAX_SECTION - MIN_SECTION + 1][];
+        for (int layer = MIN_SECTION; layer <= MAX_SECTION; layer++) {
+            char[] section = new char[4096];
+            for (int index = 0; index < 4096; index++) {
+                int y = (layer << 4) + (index >> 8);
+                section[index] = y < GROUND_LEVEL ? ground : (char) BlockTypesCache.ReservedIDs.AIR;
+            }
+            sections[layer - MIN_SECTION] = section;
+        }
+        return sections;
+    }
+
+    /**
+     * Drop all generated and edited chunks, so the next access regenerates them.
+     */
+    public void reset() {
+        synchronized (chunks) {
+            chunks.clear();
+        }
+    }
+
+}
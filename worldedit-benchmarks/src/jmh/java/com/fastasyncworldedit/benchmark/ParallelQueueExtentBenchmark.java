@@ -0,0 +1,81 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.MaxChangedBlocksException;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Region-wide operations through {@link ParallelQueueExtent#apply}, as used by {@code //set}, {@code //replace} and
+ * {@code //count}. Each invocation flips the region between two states so every run changes every block.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ParallelQueueExtentBenchmark {
+
+    @Param({"64", "256"})
+    public int size;
+
+    private MemoryWorld world;
+    private CuboidRegion region;
+    private BlockState stone;
+    private BlockState dirt;
+    private boolean flip;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        stone = BlockTypes.STONE.getDefaultState();
+        dirt = BlockTypes.DIRT.getDefaultState();
+        world = new MemoryWorld(stone.getOrdinalChar());
+        region = new CuboidRegion(world, BlockVector3.at(0, 0, 0), BlockVector3.at(size - 1, MemoryWorld.GROUND_LEVEL - 1, size - 1));
+    }
+
+    @Setup(Level.Iteration)
+    public void resetWorld() {
+        world.reset();
+        flip = false;
+    }
+
+    private ParallelQueueExtent newExtent() {
+        return new ParallelQueueExtent(Fawe.instance().getQueueHandler(), world, true, null);
+    }
+
+    @Benchmark
+    public int setBlocks() throws MaxChangedBlocksException {
+        flip = !flip;
+        return newExtent().setBlocks(region, flip ? dirt : stone);
+    }
+
+    @Benchmark
+    public int replaceBlocks() throws MaxChangedBlocksException {
+        flip = !flip;
+        ParallelQueueExtent extent = newExtent();
+        BlockState from = flip ? stone : dirt;
+        BlockState to = flip ? dirt : stone;
+        return extent.replaceBlocks(region, new BlockTypeMask(extent, from.getBlockType()), to);
+    }
+
+    @Benchmark
+    public int countBlocks() {
+        ParallelQueueExtent extent = newExtent();
+        return extent.countBlocks(region, new BlockTypeMask(extent, BlockTypes.STONE));
+    }
+
+}
@@ -0,0 +1,105 @@
+package com.fastasyncworldedit.benchmark;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.internal.expression.ExpressionException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.math.Vector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.shape.ArbitraryShape;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code //generate} of a shape filling a 512x256x512 region through {@link EditSession#makeShape}, on the calling thread and
+ * split by chunk over the lanes of the edit session's {@link ParallelQueueExtent}, see
+ * {@link ArbitraryShape#generate(EditSession, com.sk89q.worldedit.function.pattern.Pattern, boolean, ParallelQueueExtent)}.
+ * Every invocation evaluates the expression for each position, places the blocks inside the shape and flushes them to the
+ * world, so the results show how the whole generation scales with threads.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2)
+@Measurement(iterations = 3)
+public class ShapeGenerationBenchmark {
+
+    private static final int SIZE = 512;
+
+    @Param({"sphere", "torus"})
+    public String shape;
+
+    @Param({"false", "true"})
+    public boolean parallel;
+
+    @Param({"false", "true"})
+    public boolean hollow;
+
+    private boolean parallelShapeGeneration;
+    private MemoryWorld world;
+    private CuboidRegion region;
+    private Vector3 zero;
+    private Vector3 unit;
+    private String expression;
+    private BlockState dirt;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        BenchmarkBootstrap.init();
+        parallelShapeGeneration = Settings.settings().EXPERIMENTAL.PARALLEL_SHAPE_GENERATION;
+        Settings.settings().EXPERIMENTAL.PARALLEL_SHAPE_GENERATION = parallel;
+        expression = switch (shape) {
+            case "sphere" -> "x^2 + y^2 + z^2 < 1";
+            case "torus" -> "(0.75 - sqrt(x^2 + z^2))^2 + y^2 < 0.25^2";
+            default -> throw new IllegalArgumentException(shape);
+        };
+        dirt = BlockTypes.DIRT.getDefaultState();
+        world = new MemoryWorld(BlockTypes.STONE.getDefaultState().getOrdinalChar());
+        region = new CuboidRegion(world, BlockVector3.ZERO, BlockVector3.at(SIZE - 1, world.getMaxY(), SIZE - 1));
+        // the unit coordinates //generate uses by default, from -1 to 1 across the region
+        zero = region.getCenter();
+        unit = region.getMaximumPoint().toVector3().subtract(zero);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        Settings.settings().EXPERIMENTAL.PARALLEL_SHAPE_GENERATION = parallelShapeGeneration;
+    }
+
+    @Setup(Level.Iteration)
+    public void resetWorld() {
+        world.reset();
+    }
+
+    @Benchmark
+    public int generate() throws WorldEditException, ExpressionException {
+        try (EditSession editSession = WorldEdit.getInstance().newEditSessionBuilder()
+                .world(world)
+                .fastMode(true)
+                .changeSetNull()
+                .limitUnlimited()
+                .checkMemory(false)
+                .combineStages(true)
+                .build()) {
+            return editSession.makeShape(region, zero, unit, dirt, expression, hollow, Integer.MAX_VALUE);
+        }
+    }
+
+}
@@ -63,6 +63,7 @@
 import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
@@ -115,6 +116,11 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
 
     static final MethodHandle PALETTED_CONTAINER_GET;
 
+    // PalettedContainer.data, Data.storage and Data.palette, read per section without reflective Field access
+    static final VarHandle PALETTED_CONTAINER_DATA;
+    static final VarHandle DATA_STORAGE;
+    static final VarHandle DATA_PALETTE;
+
     static {
         final MethodHandles.Lookup lookup = MethodHandles.lookup();
         try {
@@ -130,6 +136,12 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
             fieldPalette = dataClazz.getDeclaredField(Refraction.pickName("palette", "c"));
             fieldPalette.setAccessible(true);
 
+            PALETTED_CONTAINER_DATA = MethodHandles.privateLookupIn(PalettedContainer.class, lookup)
+                    .unreflectVarHandle(fieldData);
+            MethodHandles.Lookup dataLookup = MethodHandles.privateLookupIn(dataClazz, lookup);
+            DATA_STORAGE = dataLookup.unreflectVarHandle(fieldStorage);
+            DATA_PALETTE = dataLookup.unreflectVarHandle(fieldPalette);
+
             fieldTickingFluidCount = LevelChunkSection.class.getDeclaredField(Refraction.pickName("tickingFluidCount", "g"));
             fieldTickingFluidCount.setAccessible(true);
             fieldTickingBlockCount = LevelChunkSection.class.getDeclaredField(Refraction.pickName("tickingBlockCount", "f"));
@@ -509,6 +521,37 @@ public static LevelChunkSection newChunkSection(
         }
     }
 
+    /**
+     * Create a new section with every block set to the given ordinal, using a single value palette rather than building
+     * one from a block array.
+     */
+    @SuppressWarnings("deprecation") // Only deprecated in paper
+    public static LevelChunkSection newUniformChunkSection(
+            final char ordinal,
+            Registry<Biome> biomeRegistry,
+            @Nullable PalettedContainer<Holder<Biome>> biomes
+    ) {
+        final BlockState state = BlockTypesCache.states[ordinal];
+        PalettedContainer<net.minecraft.world.level.block.state.BlockState> dataPaletteBlocks = new PalettedContainer<>(
+                Block.BLOCK_STATE_REGISTRY,
+                ((PaperweightBlockMaterial) state.getMaterial()).getState(),
+                PalettedContainer.Strategy.SECTION_STATES
+        );
+        if (biomes == null) {
+            IdMap<Holder<Biome>> biomeHolderIdMap = biomeRegistry.asHolderIdMap();
+            biomes = new PalettedContainer<>(
+                    biomeHolderIdMap,
+                    biomeHolderIdMap.byIdOrThrow(WorldEditPlugin
+                            .getInstance()
+                            .getBukkitImplAdapter()
+                            .getInternalBiomeId(
+                                    BiomeTypes.PLAINS)),
+                    PalettedContainer.Strategy.SECTION_BIOMES
+            );
+        }
+        return new LevelChunkSection(dataPaletteBlocks, biomes);
+    }
+
     @SuppressWarnings("deprecation") // Only deprecated in paper
     private static LevelChunkSection newChunkSection(
             Registry<Biome> biomeRegistry,
@@ -69,6 +69,7 @@
 import org.enginehub.linbus.tree.LinTagType;
 
 import javax.annotation.Nullable;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
@@ -94,6 +95,9 @@ public class PaperweightGetBlocks extends AbstractBukkitGetBlocks<ServerLevel, L
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
 
+    // Lock-free reads of a section before update falls back to reading it under the section's lock
+    private static final int OPTIMISTIC_READ_ATTEMPTS = 2;
+
     private static final Function<BlockPos, BlockVector3> posNms2We = v -> BlockVector3.at(v.getX(), v.getY(), v.getZ());
     public static final Function<BlockEntity, FaweCompoundTag> NMS_TO_TILE = ((PaperweightFaweAdapter) WorldEditPlugin
             .getInstance()
@@ -452,9 +456,18 @@ protected <T extends Future<T>> T internalCall(
 
                 // setArr is modified by PaperweightPlatformAdapter#newChunkSection. This is in order to write changes to
                 // this chunk GET when #updateGet is called. Future dords, please listen this time.
-                char[] tmp = set.load(layerNo);
-                char[] setArr = new char[tmp.length];
-                System.arraycopy(tmp, 0, setArr, 0, tmp.length);
+                // A section set to a single block is not expanded to an array in the set, and doesn't need its
+                // palette built from one.
+                final char uniformOrdinal = set.getUniformOrdinal(layerNo);
+                final char[] setArr;
+                if (uniformOrdinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                    setArr = new char[4096];
+                    Arrays.fill(setArr, uniformOrdinal);
+                } else {
+                    char[] tmp = set.load(layerNo);
+                    setArr = new char[tmp.length];
+                    System.arraycopy(tmp, 0, setArr, 0, tmp.length);
+                }
 
                 // synchronise on internal section to avoid circular locking with a continuing edit if the chunk was
                 // submitted to keep loaded internal chunks to queue target size.
@@ -486,13 +499,21 @@ protected <T extends Future<T>> T internalCall(
                                 biomeHolderIdMap.byIdOrThrow(adapter.getInternalBiomeId(BiomeTypes.PLAINS)),
                                 PalettedContainer.Strategy.SECTION_BIOMES
                         ) : PaperweightPlatformAdapter.getBiomePalettedContainer(biomes[setSectionIndex], biomeHolderIdMap);
-                        newSection = PaperweightPlatformAdapter.newChunkSection(
-                                layerNo,
-                                setArr,
-                                adapter,
-                                biomeRegistry,
-                                biomeData
-                        );
+                        if (uniformOrdinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                            newSection = PaperweightPlatformAdapter.newUniformChunkSection(
+                                    uniformOrdinal,
+                                    biomeRegistry,
+                                    biomeData
+                            );
+                        } else {
+                            newSection = PaperweightPlatformAdapter.newChunkSection(
+                                    layerNo,
+                                    setArr,
+                                    adapter,
+                                    biomeRegistry,
+                                    biomeData
+                            );
+                        }
                         if (PaperweightPlatformAdapter.setSectionAtomic(
                                 nmsWorld.getWorld().getName(),
                                 chunkPos,
@@ -551,14 +572,22 @@ protected <T extends Future<T>> T internalCall(
                                 existingSection.getBiomes()
                         );
 
-                        newSection = PaperweightPlatformAdapter.newChunkSection(
-                                layerNo,
-                                this::load,
-                                setArr,
-                                adapter,
-                                biomeRegistry,
-                                biomeData != null ? biomeData : (PalettedContainer<Holder<Biome>>) existingSection.getBiomes()
-                        );
+                        if (uniformOrdinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                            newSection = PaperweightPlatformAdapter.newUniformChunkSection(
+                                    uniformOrdinal,
+                                    biomeRegistry,
+                                    biomeData != null ? biomeData : (PalettedContainer<Holder<Biome>>) existingSection.getBiomes()
+                            );
+                        } else {
+                            newSection = PaperweightPlatformAdapter.newChunkSection(
+                                    layerNo,
+                                    this::load,
+                                    setArr,
+                                    adapter,
+                                    biomeRegistry,
+                                    biomeData != null ? biomeData : (PalettedContainer<Holder<Biome>>) existingSection.getBiomes()
+                            );
+                        }
                         if (!PaperweightPlatformAdapter.setSectionAtomic(
                                 nmsWorld.getWorld().getName(),
                                 chunkPos,
@@ -795,6 +824,11 @@ private void updateGet(
         this.blocks[layer] = arr;
     }
 
+    @Override
+    protected String getWorldName() {
+        return serverLevel.getWorld().getName();
+    }
+
     @Override
     public void send() {
         synchronized (sendLock) {
@@ -825,6 +859,12 @@ public char[] update(int layer, char[] data, boolean aggressive) {
         if (data == null || data == FaweCache.INSTANCE.EMPTY_CHAR_4096 || data.length != 4096) {
             data = new char[4096]; // new array, will be populated below
         }
+        // Read without the section's lock first, only taking it if the section keeps being written to while read
+        for (int attempt = 0; attempt < OPTIMISTIC_READ_ATTEMPTS; attempt++) {
+            if (readOptimistically(section, data)) {
+                return data;
+            }
+        }
         Semaphore lock = PaperweightPlatformAdapter.applyLock(section);
         synchronized (lock) {
             // Efficiently convert ChunkSection to raw data
@@ -832,15 +872,15 @@ public char[] update(int layer, char[] data, boolean aggressive) {
                 lock.acquire();
 
                 final PalettedContainer<BlockState> blocks = section.getStates();
-                final Object dataObject = PaperweightPlatformAdapter.fieldData.get(blocks);
-                final BitStorage bits = (BitStorage) PaperweightPlatformAdapter.fieldStorage.get(dataObject);
+                final Object dataObject = PaperweightPlatformAdapter.PALETTED_CONTAINER_DATA.getVolatile(blocks);
+                final BitStorage bits = (BitStorage) PaperweightPlatformAdapter.DATA_STORAGE.get(dataObject);
 
                 if (bits instanceof ZeroBitStorage) {
                     Arrays.fill(data, adapter.adaptToChar(blocks.get(0, 0, 0))); // get(int) is only public on paper
                     return data;
                 }
 
-                final Palette<BlockState> palette = (Palette<BlockState>) PaperweightPlatformAdapter.fieldPalette.get(dataObject);
+                final Palette<BlockState> palette = (Palette<BlockState>) PaperweightPlatformAdapter.DATA_PALETTE.get(dataObject);
 
                 final int bitsPerEntry = bits.getBits();
                 final long[] blockStates = bits.getRaw();
@@ -872,7 +912,7 @@ public char[] update(int layer, char[] data, boolean aggressive) {
                     Arrays.fill(paletteToOrdinal, 0, num_palette, Character.MAX_VALUE);
                 }
                 return data;
-            } catch (IllegalAccessException | InterruptedException e) {
+            } catch (InterruptedException e) {
                 LOGGER.error("Could not read block data from palette", e);
                 throw new RuntimeException(e);
             } finally {
@@ -881,6 +921,87 @@ public char[] update(int layer, char[] data, boolean aggressive) {
         }
     }
 
+    /**
+     * Read the blocks of a section without taking its lock. Resizing a section replaces its container's data, and setting
+     * blocks writes to the data's raw longs and palette in place, so the read is rejected unless the same data is still
+     * installed and its raw longs and palette size read the same once more afterwards.
+     * <p>
+     * Unlike {@link java.util.concurrent.locks.StampedLock#validate(long)}, comparing plain loads again is only a heuristic:
+     * writers do not publish their writes for it, so a write in progress may still go unnoticed. A read racing a write may
+     * also fail, e.g. with a MissingPaletteEntryException for a raw value not yet in the palette, which rejects the read
+     * as well. Either way the caller falls back to reading under the lock.
+     *
+     * @param section section to read
+     * @param data    array to fill with the section's block ordinals
+     * @return if the read was accepted, otherwise the array may have been partially filled
+     */
+    private boolean readOptimistically(LevelChunkSection section, char[] data) {
+        try {
+            return readUnlocked(section, data);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private boolean readUnlocked(LevelChunkSection section, char[] data) {
+        final PalettedContainer<BlockState> blocks = section.getStates();
+        final Object dataObject = PaperweightPlatformAdapter.PALETTED_CONTAINER_DATA.getAcquire(blocks);
+        final BitStorage bits = (BitStorage) PaperweightPlatformAdapter.DATA_STORAGE.get(dataObject);
+        final Palette<BlockState> palette = (Palette<BlockState>) PaperweightPlatformAdapter.DATA_PALETTE.get(dataObject);
+
+        if (bits instanceof ZeroBitStorage) {
+            // A single value palette only changes by replacing the data
+            char ordinal = ordinal(palette.valueFor(0), adapter);
+            VarHandle.acquireFence();
+            if (PaperweightPlatformAdapter.PALETTED_CONTAINER_DATA.getAcquire(blocks) != dataObject) {
+                return false;
+            }
+            Arrays.fill(data, ordinal);
+            return true;
+        }
+
+        final int num_palette;
+        if (palette instanceof LinearPalette || palette instanceof HashMapPalette) {
+            num_palette = palette.getSize();
+        } else {
+            // The section's palette is the global block palette.
+            num_palette = -1;
+        }
+        final long[] raw = bits.getRaw();
+        final long[] blockStates = FaweCache.INSTANCE.BLOCK_STATES.get();
+        System.arraycopy(raw, 0, blockStates, 0, raw.length);
+
+        char[] paletteToOrdinal = FaweCache.INSTANCE.PALETTE_TO_BLOCK_CHAR.get();
+        try {
+            for (int i = 0; i < num_palette; i++) {
+                paletteToOrdinal[i] = ordinal(palette.valueFor(i), adapter);
+            }
+            // Order the reads above before reading the data, palette size and raw longs again
+            VarHandle.acquireFence();
+            if (PaperweightPlatformAdapter.PALETTED_CONTAINER_DATA.getAcquire(blocks) != dataObject
+                    || (num_palette != -1 && palette.getSize() != num_palette)
+                    || !Arrays.equals(raw, 0, raw.length, blockStates, 0, raw.length)) {
+                return false;
+            }
+            if (num_palette == 1) {
+                Arrays.fill(data, paletteToOrdinal[0]);
+                return true;
+            }
+            new BitArrayUnstretched(bits.getBits(), 4096, blockStates).toRaw(data);
+            if (num_palette == -1) {
+                adapter.mapFromGlobalPalette(data);
+            } else {
+                adapter.mapWithPalette(data, paletteToOrdinal);
+            }
+            return true;
+        } finally {
+            if (num_palette > 0) {
+                Arrays.fill(paletteToOrdinal, 0, num_palette, Character.MAX_VALUE);
+            }
+        }
+    }
+
     private char ordinal(BlockState ibd, PaperweightFaweAdapter adapter) {
         if (ibd == null) {
             return BlockTypesCache.ReservedIDs.AIR;
@@ -1038,28 +1159,23 @@ public boolean trim(boolean aggressive) {
                     continue;
                 }
                 LevelChunkSection existing = getSections(true)[layer];
-                try {
-                    final PalettedContainer<BlockState> blocksExisting = existing.getStates();
+                final PalettedContainer<BlockState> blocksExisting = existing.getStates();
 
-                    final Object dataObject = PaperweightPlatformAdapter.fieldData.get(blocksExisting);
-                    final Palette<BlockState> palette = (Palette<BlockState>) PaperweightPlatformAdapter.fieldPalette.get(
-                            dataObject);
-                    int paletteSize;
+                final Object dataObject = PaperweightPlatformAdapter.PALETTED_CONTAINER_DATA.getVolatile(blocksExisting);
+                final Palette<BlockState> palette = (Palette<BlockState>) PaperweightPlatformAdapter.DATA_PALETTE.get(dataObject);
+                int paletteSize;
 
-                    if (palette instanceof LinearPalette || palette instanceof HashMapPalette) {
-                        paletteSize = palette.getSize();
-                    } else {
-                        super.trim(false, i);
-                        continue;
-                    }
-                    if (paletteSize == 1) {
-                        //If the cached palette size is 1 then no blocks can have been changed i.e. do not need to update these chunks.
-                        continue;
-                    }
-                    super.trim(false, i);
-                } catch (IllegalAccessException ignored) {
+                if (palette instanceof LinearPalette || palette instanceof HashMapPalette) {
+                    paletteSize = palette.getSize();
+                } else {
                     super.trim(false, i);
+                    continue;
+                }
+                if (paletteSize == 1) {
+                    //If the cached palette size is 1 then no blocks can have been changed i.e. do not need to update these chunks.
+                    continue;
                 }
+                super.trim(false, i);
             }
             return true;
         }
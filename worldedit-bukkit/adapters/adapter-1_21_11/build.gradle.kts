@@ -2,10 +2,30 @@
 
 plugins {
     id("buildlogic.adapter")
+    alias(libs.plugins.jmh)
 }
 
 dependencies {
     // https://repo.papermc.io/service/rest/repository/browse/maven-public/io/papermc/paper/dev-bundle/
     the<PaperweightUserDependenciesExtension>().paperDevBundle("1.21.11-R0.1-20251223.192256-16")
     compileOnly(libs.paperLib)
+    // PalettedContainerTest unpacks block states as on Paper
+    testImplementation(libs.paperLib)
+}
+
+// The benchmarks run against the dev bundle server, which the adapter itself only compiles against
+configurations.named("jmhImplementation") {
+    extendsFrom(configurations.compileOnly.get())
+}
+
+jmh {
+    jmhVersion = libs.versions.jmh
+    fork = 1
+    warmupIterations = 3
+    iterations = 5
+    timeOnIteration = "2s"
+    warmup = "2s"
+    jvmArgsAppend = listOf("-Xmx2G")
+    resultFormat = "JSON"
+    resultsFile = layout.buildDirectory.file("results/jmh/results.json")
 }
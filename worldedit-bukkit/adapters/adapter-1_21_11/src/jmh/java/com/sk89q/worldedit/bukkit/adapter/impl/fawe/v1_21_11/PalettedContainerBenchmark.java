@@ -0,0 +1,74 @@
+package com.sk89q.worldedit.bukkit.adapter.impl.fawe.v1_21_11;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.Strategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Block state containers of new sections, created directly from the palette indices or unpacked through the codec as in
+ * {@link PaperweightPlatformAdapter#newChunkSection}.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PalettedContainerBenchmark {
+
+    @Param({"1", "16", "64", "256"})
+    public int paletteSize;
+
+    private Strategy<BlockState> strategy;
+    private List<BlockState> palette;
+    private int[] indices;
+    private long[] buffer;
+
+    @Setup(Level.Trial)
+    public void setup() throws Throwable {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        strategy = Strategy.createForBlockStates(Block.BLOCK_STATE_REGISTRY);
+        palette = new ArrayList<>(paletteSize);
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            if (palette.size() == paletteSize) {
+                break;
+            }
+            palette.add(state);
+        }
+        Random random = new Random(1);
+        indices = new int[4096];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = random.nextInt(paletteSize);
+        }
+        buffer = new long[4096];
+        if (PaperweightPlatformAdapter.createBlockStates(strategy, palette, indices) == null) {
+            throw new IllegalStateException("Block state containers cannot be created directly on this server");
+        }
+    }
+
+    @Benchmark
+    public PalettedContainer<BlockState> direct() throws Throwable {
+        return PaperweightPlatformAdapter.createBlockStates(strategy, palette, indices);
+    }
+
+    @Benchmark
+    public PalettedContainer<BlockState> unpack() throws Throwable {
+        return PaperweightPlatformAdapter.unpackBlockStates(strategy, palette, indices, buffer);
+    }
+
+}
@@ -3,6 +3,7 @@
 import ca.spottedleaf.moonrise.patches.chunk_system.level.entity.ChunkEntitySlices;
 import ca.spottedleaf.moonrise.patches.chunk_system.scheduling.ChunkHolderManager;
 import com.fastasyncworldedit.bukkit.adapter.CachedBukkitAdapter;
+import com.fastasyncworldedit.bukkit.adapter.ChunkPacketBatcher;
 import com.fastasyncworldedit.bukkit.adapter.DelegateSemaphore;
 import com.fastasyncworldedit.bukkit.adapter.NMSAdapter;
 import com.fastasyncworldedit.core.Fawe;
@@ -20,20 +21,27 @@
 import com.sk89q.worldedit.world.biome.BiomeTypes;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 import io.papermc.lib.PaperLib;
+import it.unimi.dsi.fastutil.shorts.ShortSet;
 import net.minecraft.core.BlockPos;
 import net.minecraft.core.Holder;
 import net.minecraft.core.IdMap;
 import net.minecraft.core.Registry;
 import net.minecraft.core.RegistryAccess;
+import net.minecraft.core.SectionPos;
+import net.minecraft.network.protocol.Packet;
 import net.minecraft.network.protocol.game.ClientboundLevelChunkWithLightPacket;
+import net.minecraft.network.protocol.game.ClientboundSectionBlocksUpdatePacket;
 import net.minecraft.server.dedicated.DedicatedServer;
 import net.minecraft.server.level.ChunkHolder;
 import net.minecraft.server.level.ChunkMap;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.BitStorage;
 import net.minecraft.util.Mth;
 import net.minecraft.util.ProblemReporter;
+import net.minecraft.util.SimpleBitStorage;
 import net.minecraft.util.ThreadingDetector;
+import net.minecraft.util.ZeroBitStorage;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LevelAccessor;
@@ -42,6 +50,7 @@
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
 import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.chunk.PalettedContainerFactory;
 import net.minecraft.world.level.chunk.PalettedContainerRO;
@@ -57,9 +66,11 @@
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -102,10 +113,30 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
 
+    private static final ChunkPacketBatcher<ServerPlayer, LevelChunk, Packet<?>> PACKET_BATCHER = new ChunkPacketBatcher<>(
+            (player, packet) -> player.connection.send(packet),
+            player -> !player.hasDisconnected(),
+            (player, chunk) -> player.level() == chunk.getLevel()
+                    && nearbyPlayers((ServerLevel) chunk.getLevel(), chunk.getPos()).contains(player)
+    );
+
     private static Field SERVER_LEVEL_ENTITY_MANAGER;
 
     static final MethodHandle PALETTED_CONTAINER_GET;
 
+    // PalettedContainer.data, Data.storage and Data.palette, read per section without reflective Field access
+    static final VarHandle PALETTED_CONTAINER_DATA;
+    static final VarHandle DATA_STORAGE;
+    static final VarHandle DATA_PALETTE;
+
+    // Create block state containers without the codec, null if this server's PalettedContainer is not laid out as expected
+    @Nullable
+    private static final MethodHandle palettedContainerConstructor;
+    @Nullable
+    private static final MethodHandle strategyConfigurationForPaletteSize;
+    @Nullable
+    private static final MethodHandle configurationCreatePalette;
+
     static {
         final MethodHandles.Lookup lookup = MethodHandles.lookup();
         try {
@@ -121,6 +152,12 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
             fieldPalette = dataClazz.getDeclaredField(Refraction.pickName("palette", "c"));
             fieldPalette.setAccessible(true);
 
+            PALETTED_CONTAINER_DATA = MethodHandles.privateLookupIn(PalettedContainer.class, lookup)
+                    .unreflectVarHandle(fieldData);
+            MethodHandles.Lookup dataLookup = MethodHandles.privateLookupIn(dataClazz, lookup);
+            DATA_STORAGE = dataLookup.unreflectVarHandle(fieldStorage);
+            DATA_PALETTE = dataLookup.unreflectVarHandle(fieldPalette);
+
             //noinspection JavaLangInvokeHandleSignature - method is obfuscated
             palettedContainerUnpackSpigot = PaperLib.isPaper() ? null : lookup.findStatic(
                     PalettedContainer.class,
@@ -200,6 +237,64 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
         }
     }
 
+    static {
+        MethodHandle constructor = null;
+        MethodHandle configurationForPaletteSize = null;
+        MethodHandle createPalette = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            // Members are found by their types, as their names differ between Paper and Spigot
+            for (Constructor<?> candidate : PalettedContainer.class.getDeclaredConstructors()) {
+                Class<?>[] parameters = candidate.getParameterTypes();
+                if (parameters.length < 4 || parameters.length > 5 || parameters[0] != Strategy.class
+                        || parameters[2] != BitStorage.class || parameters[3] != Palette.class
+                        || (parameters.length == 5 && !parameters[4].isArray())) {
+                    continue;
+                }
+                candidate.setAccessible(true);
+                constructor = lookup.unreflectConstructor(candidate);
+                if (parameters.length == 5) {
+                    // Paper's anti-xray preset values, unset as when unpacking
+                    constructor = MethodHandles.insertArguments(constructor, 4, (Object) null);
+                }
+                Class<?> configurationClass = parameters[1];
+                for (Method method : Strategy.class.getDeclaredMethods()) {
+                    if (method.getReturnType() == configurationClass && !Modifier.isAbstract(method.getModifiers())
+                            && !Modifier.isStatic(method.getModifiers()) && Arrays.equals(
+                            method.getParameterTypes(),
+                            new Class<?>[]{int.class}
+                    )) {
+                        if (configurationForPaletteSize != null) {
+                            throw new NoSuchMethodException("Ambiguous palette size configuration");
+                        }
+                        method.setAccessible(true);
+                        configurationForPaletteSize = lookup.unreflect(method);
+                    }
+                }
+                for (Method method : configurationClass.getMethods()) {
+                    if (method.getReturnType() == Palette.class && Arrays.equals(
+                            method.getParameterTypes(),
+                            new Class<?>[]{Strategy.class, List.class}
+                    )) {
+                        createPalette = lookup.unreflect(method);
+                    }
+                }
+                break;
+            }
+        } catch (Throwable e) {
+            LOGGER.debug("Could not find PalettedContainer internals, block state containers will be unpacked", e);
+            constructor = null;
+        }
+        if (constructor == null || configurationForPaletteSize == null || createPalette == null) {
+            constructor = null;
+            configurationForPaletteSize = null;
+            createPalette = null;
+        }
+        palettedContainerConstructor = constructor;
+        strategyConfigurationForPaletteSize = configurationForPaletteSize;
+        configurationCreatePalette = createPalette;
+    }
+
     public static LinValueOutput createOutput() {
         return LinValueOutput.createWithContext(
                 ProblemReporter.DISCARDING,
@@ -339,19 +434,99 @@ public static ChunkHolder getPlayerChunk(ServerLevel nmsWorld, final int chunkX,
         }
     }
 
-    @SuppressWarnings("deprecation")
-    public static void sendChunk(IntPair pair, ServerLevel nmsWorld, int chunkX, int chunkZ) {
+    @Nullable
+    private static LevelChunk getSendableChunk(ServerLevel nmsWorld, int chunkX, int chunkZ) {
         ChunkHolder chunkHolder = getPlayerChunk(nmsWorld, chunkX, chunkZ);
         if (chunkHolder == null) {
-            return;
+            return null;
         }
-        LevelChunk levelChunk;
         if (PaperLib.isPaper()) {
             // getChunkAtIfLoadedImmediately is paper only
-            levelChunk = nmsWorld.getChunkSource().getChunkAtIfLoadedImmediately(chunkX, chunkZ);
-        } else {
-            levelChunk = chunkHolder.getTickingChunkFuture().getNow(ChunkHolder.UNLOADED_LEVEL_CHUNK).orElse(null);
+            return nmsWorld.getChunkSource().getChunkAtIfLoadedImmediately(chunkX, chunkZ);
+        }
+        return chunkHolder.getTickingChunkFuture().getNow(ChunkHolder.UNLOADED_LEVEL_CHUNK).orElse(null);
+    }
+
+    public static void sendChunk(IntPair pair, ServerLevel nmsWorld, int chunkX, int chunkZ) {
+        LevelChunk levelChunk = getSendableChunk(nmsWorld, chunkX, chunkZ);
+        if (levelChunk == null) {
+            return;
+        }
+        StampLockHolder lockHolder = new StampLockHolder();
+        NMSAdapter.beginChunkPacketSend(nmsWorld.getWorld().getName(), pair, lockHolder);
+        if (lockHolder.chunkLock == null) {
+            return;
+        }
+        TaskManager.taskManager().task(() -> {
+            try {
+                PACKET_BATCHER.send(
+                        nearbyPlayers(nmsWorld, levelChunk.getPos()),
+                        levelChunk,
+                        createChunkPacket(nmsWorld, levelChunk),
+                        () -> rebuildChunkPacket(pair, nmsWorld, levelChunk),
+                        estimateChunkPacketSize(levelChunk),
+                        true
+                );
+            } finally {
+                NMSAdapter.endChunkPacketSend(nmsWorld.getWorld().getName(), pair, lockHolder);
+            }
+        });
+    }
+
+    @SuppressWarnings("deprecation")
+    private static ClientboundLevelChunkWithLightPacket createChunkPacket(ServerLevel nmsWorld, LevelChunk levelChunk) {
+        if (PaperLib.isPaper()) {
+            return new ClientboundLevelChunkWithLightPacket(
+                    levelChunk,
+                    nmsWorld.getLightEngine(),
+                    null,
+                    null,
+                    false // last false is to not bother with x-ray
+            );
+        }
+        // deprecated on paper - deprecation suppressed
+        return new ClientboundLevelChunkWithLightPacket(
+                levelChunk,
+                nmsWorld.getLightEngine(),
+                null,
+                null
+        );
+    }
+
+    /**
+     * Build the packet of a chunk again once sent after being queued, so it contains the changes made since.
+     *
+     * @return the packet, or null if the chunk was unloaded or is being edited, in which case it is sent once edited
+     */
+    @Nullable
+    private static ClientboundLevelChunkWithLightPacket rebuildChunkPacket(
+            IntPair pair,
+            ServerLevel nmsWorld,
+            LevelChunk levelChunk
+    ) {
+        ChunkPos pos = levelChunk.getPos();
+        if (getSendableChunk(nmsWorld, pos.x, pos.z) != levelChunk) {
+            return null;
+        }
+        StampLockHolder lockHolder = new StampLockHolder();
+        NMSAdapter.beginChunkPacketSend(nmsWorld.getWorld().getName(), pair, lockHolder);
+        if (lockHolder.chunkLock == null) {
+            return null;
+        }
+        try {
+            return createChunkPacket(nmsWorld, levelChunk);
+        } finally {
+            NMSAdapter.endChunkPacketSend(nmsWorld.getWorld().getName(), pair, lockHolder);
         }
+    }
+
+    /**
+     * Send the blocks changed in the sections of a chunk as block changes rather than the whole chunk.
+     *
+     * @param changed the section relative positions changed per section index, null for unchanged sections
+     */
+    public static void sendSectionDeltas(IntPair pair, ServerLevel nmsWorld, int chunkX, int chunkZ, ShortSet[] changed) {
+        LevelChunk levelChunk = getSendableChunk(nmsWorld, chunkX, chunkZ);
         if (levelChunk == null) {
             return;
         }
@@ -363,31 +538,42 @@ public static void sendChunk(IntPair pair, ServerLevel nmsWorld, int chunkX, int
         TaskManager.taskManager().task(() -> {
             try {
                 ChunkPos pos = levelChunk.getPos();
-                ClientboundLevelChunkWithLightPacket packet;
-                if (PaperLib.isPaper()) {
-                    packet = new ClientboundLevelChunkWithLightPacket(
-                            levelChunk,
-                            nmsWorld.getLightEngine(),
-                            null,
-                            null,
-                            false // last false is to not bother with x-ray
-                    );
-                } else {
-                    // deprecated on paper - deprecation suppressed
-                    packet = new ClientboundLevelChunkWithLightPacket(
-                            levelChunk,
-                            nmsWorld.getLightEngine(),
-                            null,
-                            null
+                List<ServerPlayer> players = nearbyPlayers(nmsWorld, pos);
+                if (players.isEmpty()) {
+                    return;
+                }
+                LevelChunkSection[] sections = levelChunk.getSections();
+                for (int layer = 0; layer < changed.length && layer < sections.length; layer++) {
+                    ShortSet positions = changed[layer];
+                    if (positions == null || positions.isEmpty()) {
+                        continue;
+                    }
+                    ClientboundSectionBlocksUpdatePacket packet = new ClientboundSectionBlocksUpdatePacket(
+                            SectionPos.of(pos, levelChunk.getSectionYFromSectionIndex(layer)),
+                            positions,
+                            sections[layer]
                     );
+                    // section position, count and a var long per block
+                    PACKET_BATCHER.send(players, levelChunk, packet, null, 13 + positions.size() * 8, false);
                 }
-                nearbyPlayers(nmsWorld, pos).forEach(p -> p.connection.send(packet));
             } finally {
                 NMSAdapter.endChunkPacketSend(nmsWorld.getWorld().getName(), pair, lockHolder);
             }
         });
     }
 
+    // Serialized sections and at most a block and sky light array per non-empty section, ignoring heightmaps and tiles
+    private static int estimateChunkPacketSize(LevelChunk levelChunk) {
+        int size = 0;
+        for (LevelChunkSection section : levelChunk.getSections()) {
+            size += section.getSerializedSize();
+            if (!section.hasOnlyAir()) {
+                size += 2 * 2048;
+            }
+        }
+        return size;
+    }
+
     private static List<ServerPlayer> nearbyPlayers(ServerLevel serverLevel, ChunkPos coordIntPair) {
         return serverLevel.getChunkSource().chunkMap.getPlayers(coordIntPair, false);
     }
@@ -430,43 +616,23 @@ public static LevelChunkSection newChunkSection(
                 num_palette = createPalette(layer, blockToPalette, paletteToBlock, blocksCopy, get, set, adapter, true);
             }
 
-            boolean singleValue = num_palette == 1;
-            LongStream bits;
-            if (singleValue) {
-                bits = null;
-            } else {
-                int bitsPerEntry = Mth.ceillog2(num_palette);
-                if (bitsPerEntry < 4) {
-                    bitsPerEntry = 4;
-                }
-                final int blockBitArrayEnd = MathMan.longArrayLength(bitsPerEntry, 4096);
-                final BitArrayUnstretched bitArray = new BitArrayUnstretched(bitsPerEntry, 4096, blockStates);
-
-                bitArray.fromRaw(blocksCopy);
-                bits = Arrays.stream(blockStates, 0, blockBitArrayEnd);
-            }
-
-            List<net.minecraft.world.level.block.state.BlockState> palette = new ArrayList<>();
+            var palette = new net.minecraft.world.level.block.state.BlockState[num_palette];
             for (int i = 0; i < num_palette; i++) {
                 int ordinal = paletteToBlock[i];
                 PaperweightBlockMaterial material = (PaperweightBlockMaterial) BlockTypesCache.states[ordinal].getMaterial();
-                palette.add(material.getState());
+                palette[i] = material.getState();
             }
 
             // Create palette with data
-            var packedData = new PalettedContainerRO.PackedData<>(palette, Optional.ofNullable(bits));
-            DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>> result;
-            if (PaperLib.isPaper()) {
-                result = PalettedContainer.unpack(strategy, packedData, Blocks.AIR.defaultBlockState(), null);
-            } else {
-                //noinspection unchecked
-                result = (DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>>)
-                        palettedContainerUnpackSpigot.invokeExact(strategy, packedData);
+            var paletteList = Arrays.asList(palette);
+            var states = createBlockStates(strategy, paletteList, blocksCopy);
+            if (states == null) {
+                states = unpackBlockStates(strategy, paletteList, blocksCopy, blockStates);
             }
             if (biomes == null) {
                 biomes = PalettedContainerFactory.create(registryAccess).createForBiomes();
             }
-            return new LevelChunkSection(result.getOrThrow(), biomes);
+            return new LevelChunkSection(states, biomes);
         } catch (Throwable e) {
             throw new RuntimeException("Failed to create block palette", e);
         } finally {
@@ -477,6 +643,82 @@ public static LevelChunkSection newChunkSection(
         }
     }
 
+    /**
+     * Create a block state container straight from the palette and the palette index of every block, without going through
+     * the codec.
+     *
+     * @return the container, or {@code null} if the palette is too large for a section palette or this server's containers
+     *         cannot be created directly
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static PalettedContainer<net.minecraft.world.level.block.state.BlockState> createBlockStates(
+            Strategy<net.minecraft.world.level.block.state.BlockState> strategy,
+            List<net.minecraft.world.level.block.state.BlockState> palette,
+            int[] indices
+    ) throws Throwable {
+        int size = palette.size();
+        if (palettedContainerConstructor == null || size > 256) {
+            return null;
+        }
+        final BitStorage storage;
+        if (size == 1) {
+            storage = new ZeroBitStorage(4096);
+        } else {
+            // Linear palettes are always 4 bits per entry, larger hash map palettes just as many as they need
+            int bitsPerEntry = Math.max(4, Mth.ceillog2(size));
+            long[] bits = new long[MathMan.longArrayLength(bitsPerEntry, 4096)];
+            new BitArrayUnstretched(bitsPerEntry, 4096, bits).fromRaw(indices);
+            storage = new SimpleBitStorage(bitsPerEntry, 4096, bits);
+        }
+        Object configuration = strategyConfigurationForPaletteSize.invoke(strategy, size);
+        Object nmsPalette = configurationCreatePalette.invoke(configuration, strategy, palette);
+        return (PalettedContainer<net.minecraft.world.level.block.state.BlockState>) palettedContainerConstructor.invoke(
+                strategy,
+                configuration,
+                storage,
+                nmsPalette
+        );
+    }
+
+    /**
+     * Create a block state container from the palette and the palette index of every block by unpacking them with the
+     * codec, as the game does when reading a chunk.
+     *
+     * @param buffer a buffer of at least 4096 longs for the packed palette indices
+     */
+    static PalettedContainer<net.minecraft.world.level.block.state.BlockState> unpackBlockStates(
+            Strategy<net.minecraft.world.level.block.state.BlockState> strategy,
+            List<net.minecraft.world.level.block.state.BlockState> palette,
+            int[] indices,
+            long[] buffer
+    ) throws Throwable {
+        LongStream bits;
+        if (palette.size() == 1) {
+            bits = null;
+        } else {
+            int bitsPerEntry = Mth.ceillog2(palette.size());
+            if (bitsPerEntry < 4) {
+                bitsPerEntry = 4;
+            }
+            final int blockBitArrayEnd = MathMan.longArrayLength(bitsPerEntry, 4096);
+            final BitArrayUnstretched bitArray = new BitArrayUnstretched(bitsPerEntry, 4096, buffer);
+
+            bitArray.fromRaw(indices);
+            bits = Arrays.stream(buffer, 0, blockBitArrayEnd);
+        }
+        var packedData = new PalettedContainerRO.PackedData<>(palette, Optional.ofNullable(bits));
+        DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>> result;
+        if (PaperLib.isPaper()) {
+            result = PalettedContainer.unpack(strategy, packedData, Blocks.AIR.defaultBlockState(), null);
+        } else {
+            //noinspection unchecked
+            result = (DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>>)
+                    palettedContainerUnpackSpigot.invokeExact(strategy, packedData);
+        }
+        return result.getOrThrow();
+    }
+
     @SuppressWarnings("deprecation") // Only deprecated in paper
     private static LevelChunkSection newChunkSection(
             RegistryAccess registryAccess,
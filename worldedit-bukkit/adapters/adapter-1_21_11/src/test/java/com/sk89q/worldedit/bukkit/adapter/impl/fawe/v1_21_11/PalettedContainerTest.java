@@ -0,0 +1,70 @@
+package com.sk89q.worldedit.bukkit.adapter.impl.fawe.v1_21_11;
+
+import net.minecraft.SharedConstants;
+import net.minecraft.server.Bootstrap;
+import net.minecraft.world.level.block.Block;
+import net.minecraft.world.level.block.state.BlockState;
+import net.minecraft.world.level.chunk.PalettedContainer;
+import net.minecraft.world.level.chunk.Strategy;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Verifies that block state containers created directly from the palette indices hold the same states as those unpacked
+ * through the codec, across the single value, linear and hash map palettes.
+ */
+class PalettedContainerTest {
+
+    private static Strategy<BlockState> strategy;
+
+    @BeforeAll
+    static void bootstrap() {
+        SharedConstants.tryDetectVersion();
+        Bootstrap.bootStrap();
+        strategy = Strategy.createForBlockStates(Block.BLOCK_STATE_REGISTRY);
+    }
+
+    @ParameterizedTest(name = "paletteSize={0}")
+    @ValueSource(ints = {1, 16, 17, 256})
+    void testCreatedMatchesUnpacked(int paletteSize) throws Throwable {
+        List<BlockState> palette = new ArrayList<>(paletteSize);
+        for (BlockState state : Block.BLOCK_STATE_REGISTRY) {
+            if (palette.size() == paletteSize) {
+                break;
+            }
+            palette.add(state);
+        }
+        Random random = new Random(paletteSize);
+        int[] indices = new int[4096];
+        for (int i = 0; i < indices.length; i++) {
+            // every palette entry is used at least once
+            indices[i] = i < paletteSize ? i : random.nextInt(paletteSize);
+        }
+
+        PalettedContainer<BlockState> created = PaperweightPlatformAdapter.createBlockStates(strategy, palette, indices.clone());
+        assertNotNull(created, "Block state containers cannot be created directly on this server");
+        PalettedContainer<BlockState> unpacked = PaperweightPlatformAdapter.unpackBlockStates(
+                strategy,
+                palette,
+                indices.clone(),
+                new long[4096]
+        );
+        for (int i = 0; i < 4096; i++) {
+            // indexed y << 8 | z << 4 | x, as the containers are
+            int x = i & 15;
+            int y = i >> 8;
+            int z = i >> 4 & 15;
+            assertSame(palette.get(indices[i]), unpacked.get(x, y, z), "unpacked at " + i);
+            assertSame(unpacked.get(x, y, z), created.get(x, y, z), "created at " + i);
+        }
+    }
+
+}
@@ -117,7 +117,7 @@ protected boolean initNewWorld() throws Exception {
         org.bukkit.generator.ChunkGenerator generator = originalBukkitWorld.getGenerator();
         LevelStorageSource levelStorageSource = LevelStorageSource.createDefault(tempDir);
         ResourceKey<LevelStem> levelStemResourceKey = getWorldDimKey(environment);
-        session = levelStorageSource.createAccess("faweregentempworld", levelStemResourceKey);
+        session = levelStorageSource.createAccess(getTempWorldName(), levelStemResourceKey);
         PrimaryLevelData originalWorldData = originalServerWorld.serverLevelData;
 
         MinecraftServer server = originalServerWorld.getCraftServer().getServer();
@@ -126,7 +126,7 @@ protected boolean initNewWorld() throws Exception {
                 ? originalOpts.withSeed(OptionalLong.of(seed))
                 : originalOpts;
         LevelSettings newWorldSettings = new LevelSettings(
-                "faweregentempworld",
+                getTempWorldName(),
                 originalWorldData.settings.gameType(),
                 originalWorldData.settings.hardcore(),
                 originalWorldData.settings.difficulty(),
@@ -252,7 +252,7 @@ protected IChunkCache<IChunkGet> initSourceQueueCache() {
     private void removeWorldFromWorldsMap() {
         try {
             Map<String, org.bukkit.World> map = (Map<String, org.bukkit.World>) serverWorldsField.get(Bukkit.getServer());
-            map.remove("faweregentempworld");
+            map.remove(getTempWorldName());
         } catch (IllegalAccessException e) {
             throw new RuntimeException(e);
         }
@@ -8,4 +8,6 @@
     // https://repo.papermc.io/service/rest/repository/browse/maven-public/io/papermc/paper/dev-bundle/
     the<PaperweightUserDependenciesExtension>().paperDevBundle("1.21.10-R0.1-20251007.183616-3")
     compileOnly(libs.paperLib)
+    // PalettedContainerTest unpacks block states as on Paper
+    testImplementation(libs.paperLib)
 }
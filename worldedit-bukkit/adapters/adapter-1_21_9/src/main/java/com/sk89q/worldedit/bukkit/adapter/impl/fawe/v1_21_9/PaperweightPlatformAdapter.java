@@ -34,9 +34,12 @@
 import net.minecraft.server.level.ChunkMap;
 import net.minecraft.server.level.ServerLevel;
 import net.minecraft.server.level.ServerPlayer;
+import net.minecraft.util.BitStorage;
 import net.minecraft.util.Mth;
 import net.minecraft.util.ProblemReporter;
+import net.minecraft.util.SimpleBitStorage;
 import net.minecraft.util.ThreadingDetector;
+import net.minecraft.util.ZeroBitStorage;
 import net.minecraft.world.entity.Entity;
 import net.minecraft.world.level.ChunkPos;
 import net.minecraft.world.level.LevelAccessor;
@@ -46,6 +49,7 @@
 import net.minecraft.world.level.block.entity.BlockEntity;
 import net.minecraft.world.level.chunk.LevelChunk;
 import net.minecraft.world.level.chunk.LevelChunkSection;
+import net.minecraft.world.level.chunk.Palette;
 import net.minecraft.world.level.chunk.PalettedContainer;
 import net.minecraft.world.level.chunk.PalettedContainerFactory;
 import net.minecraft.world.level.chunk.PalettedContainerRO;
@@ -63,9 +67,11 @@
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.lang.invoke.VarHandle;
 import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
@@ -113,6 +119,19 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
 
     static final MethodHandle PALETTED_CONTAINER_GET;
 
+    // PalettedContainer.data, Data.storage and Data.palette, read per section without reflective Field access
+    static final VarHandle PALETTED_CONTAINER_DATA;
+    static final VarHandle DATA_STORAGE;
+    static final VarHandle DATA_PALETTE;
+
+    // Create block state containers without the codec, null if this server's PalettedContainer is not laid out as expected
+    @Nullable
+    private static final MethodHandle palettedContainerConstructor;
+    @Nullable
+    private static final MethodHandle strategyConfigurationForPaletteSize;
+    @Nullable
+    private static final MethodHandle configurationCreatePalette;
+
     static {
         final MethodHandles.Lookup lookup = MethodHandles.lookup();
         try {
@@ -128,6 +147,12 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
             fieldPalette = dataClazz.getDeclaredField(Refraction.pickName("palette", "c"));
             fieldPalette.setAccessible(true);
 
+            PALETTED_CONTAINER_DATA = MethodHandles.privateLookupIn(PalettedContainer.class, lookup)
+                    .unreflectVarHandle(fieldData);
+            MethodHandles.Lookup dataLookup = MethodHandles.privateLookupIn(dataClazz, lookup);
+            DATA_STORAGE = dataLookup.unreflectVarHandle(fieldStorage);
+            DATA_PALETTE = dataLookup.unreflectVarHandle(fieldPalette);
+
             //noinspection JavaLangInvokeHandleSignature - method is obfuscated
             palettedContainerUnpackSpigot = PaperLib.isPaper() ? null : lookup.findStatic(
                     PalettedContainer.class,
@@ -207,6 +232,64 @@ public final class PaperweightPlatformAdapter extends NMSAdapter {
         }
     }
 
+    static {
+        MethodHandle constructor = null;
+        MethodHandle configurationForPaletteSize = null;
+        MethodHandle createPalette = null;
+        try {
+            final MethodHandles.Lookup lookup = MethodHandles.lookup();
+            // Members are found by their types, as their names differ between Paper and Spigot
+            for (Constructor<?> candidate : PalettedContainer.class.getDeclaredConstructors()) {
+                Class<?>[] parameters = candidate.getParameterTypes();
+                if (parameters.length < 4 || parameters.length > 5 || parameters[0] != Strategy.class
+                        || parameters[2] != BitStorage.class || parameters[3] != Palette.class
+                        || (parameters.length == 5 && !parameters[4].isArray())) {
+                    continue;
+                }
+                candidate.setAccessible(true);
+                constructor = lookup.unreflectConstructor(candidate);
+                if (parameters.length == 5) {
+                    // Paper's anti-xray preset values, unset as when unpacking
+                    constructor = MethodHandles.insertArguments(constructor, 4, (Object) null);
+                }
+                Class<?> configurationClass = parameters[1];
+                for (Method method : Strategy.class.getDeclaredMethods()) {
+                    if (method.getReturnType() == configurationClass && !Modifier.isAbstract(method.getModifiers())
+                            && !Modifier.isStatic(method.getModifiers()) && Arrays.equals(
+                            method.getParameterTypes(),
+                            new Class<?>[]{int.class}
+                    )) {
+                        if (configurationForPaletteSize != null) {
+                            throw new NoSuchMethodException("Ambiguous palette size configuration");
+                        }
+                        method.setAccessible(true);
+                        configurationForPaletteSize = lookup.unreflect(method);
+                    }
+                }
+                for (Method method : configurationClass.getMethods()) {
+                    if (method.getReturnType() == Palette.class && Arrays.equals(
+                            method.getParameterTypes(),
+                            new Class<?>[]{Strategy.class, List.class}
+                    )) {
+                        createPalette = lookup.unreflect(method);
+                    }
+                }
+                break;
+            }
+        } catch (Throwable e) {
+            LOGGER.debug("Could not find PalettedContainer internals, block state containers will be unpacked", e);
+            constructor = null;
+        }
+        if (constructor == null || configurationForPaletteSize == null || createPalette == null) {
+            constructor = null;
+            configurationForPaletteSize = null;
+            createPalette = null;
+        }
+        palettedContainerConstructor = constructor;
+        strategyConfigurationForPaletteSize = configurationForPaletteSize;
+        configurationCreatePalette = createPalette;
+    }
+
     public static TagValueOutput createOutput() {
         return TagValueOutput.createWithContext(
                 ProblemReporter.DISCARDING,
@@ -448,6 +531,16 @@ public static LevelChunkSection newChunkSection(
                 num_palette = createPalette(layer, blockToPalette, paletteToBlock, blocksCopy, get, set, adapter, false);
             }
 
+            if (num_palette <= 256) {
+                var states = createBlockStates(strategy, getPalette(paletteToBlock, num_palette), blocksCopy);
+                if (states != null) {
+                    if (biomes == null) {
+                        biomes = PalettedContainerFactory.create(registryAccess).createForBiomes();
+                    }
+                    return new LevelChunkSection(states, biomes);
+                }
+            }
+
             int bitsPerEntry = MathMan.log2nlz(num_palette - 1);
             if (bitsPerEntry > 0 && bitsPerEntry < 5) {
                 bitsPerEntry = 4;
@@ -526,43 +619,15 @@ public static LevelChunkSection newChunkSection1_21_10(
                 num_palette = createPalette(layer, blockToPalette, paletteToBlock, blocksCopy, get, set, adapter, true);
             }
 
-            boolean singleValue = num_palette == 1;
-            LongStream bits;
-            if (singleValue) {
-                bits = null;
-            } else {
-                int bitsPerEntry = Mth.ceillog2(num_palette);
-                if (bitsPerEntry < 4) {
-                    bitsPerEntry = 4;
-                }
-                final int blockBitArrayEnd = MathMan.longArrayLength(bitsPerEntry, 4096);
-                final BitArrayUnstretched bitArray = new BitArrayUnstretched(bitsPerEntry, 4096, blockStates);
-
-                bitArray.fromRaw(blocksCopy);
-                bits = Arrays.stream(blockStates, 0, blockBitArrayEnd);
-            }
-
-            List<net.minecraft.world.level.block.state.BlockState> palette = new ArrayList<>();
-            for (int i = 0; i < num_palette; i++) {
-                int ordinal = paletteToBlock[i];
-                PaperweightBlockMaterial material = (PaperweightBlockMaterial) BlockTypesCache.states[ordinal].getMaterial();
-                palette.add(material.getState());
-            }
-
-            // Create palette with data
-            var packedData = new PalettedContainerRO.PackedData<>(palette, Optional.ofNullable(bits));
-            DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>> result;
-            if (PaperLib.isPaper()) {
-                result = PalettedContainer.unpack(strategy, packedData, Blocks.AIR.defaultBlockState(), null);
-            } else {
-                //noinspection unchecked
-                result = (DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>>)
-                        palettedContainerUnpackSpigot.invokeExact(strategy, packedData);
+            List<net.minecraft.world.level.block.state.BlockState> palette = getPalette(paletteToBlock, num_palette);
+            var states = createBlockStates(strategy, palette, blocksCopy);
+            if (states == null) {
+                states = unpackBlockStates(strategy, palette, blocksCopy, blockStates);
             }
             if (biomes == null) {
                 biomes = PalettedContainerFactory.create(registryAccess).createForBiomes();
             }
-            return new LevelChunkSection(result.getOrThrow(), biomes);
+            return new LevelChunkSection(states, biomes);
         } catch (Throwable e) {
             throw new RuntimeException("Failed to create block palette", e);
         } finally {
@@ -573,6 +638,91 @@ public static LevelChunkSection newChunkSection1_21_10(
         }
     }
 
+    private static List<net.minecraft.world.level.block.state.BlockState> getPalette(int[] paletteToBlock, int size) {
+        var palette = new net.minecraft.world.level.block.state.BlockState[size];
+        for (int i = 0; i < size; i++) {
+            BlockState state = BlockTypesCache.states[paletteToBlock[i]];
+            palette[i] = ((PaperweightBlockMaterial) state.getMaterial()).getState();
+        }
+        return Arrays.asList(palette);
+    }
+
+    /**
+     * Create a block state container straight from the palette and the palette index of every block, without going through
+     * the codec.
+     *
+     * @return the container, or {@code null} if the palette is too large for a section palette or this server's containers
+     *         cannot be created directly
+     */
+    @Nullable
+    @SuppressWarnings("unchecked")
+    static PalettedContainer<net.minecraft.world.level.block.state.BlockState> createBlockStates(
+            Strategy<net.minecraft.world.level.block.state.BlockState> strategy,
+            List<net.minecraft.world.level.block.state.BlockState> palette,
+            int[] indices
+    ) throws Throwable {
+        int size = palette.size();
+        if (palettedContainerConstructor == null || size > 256) {
+            return null;
+        }
+        final BitStorage storage;
+        if (size == 1) {
+            storage = new ZeroBitStorage(4096);
+        } else {
+            // Linear palettes are always 4 bits per entry, larger hash map palettes just as many as they need
+            int bitsPerEntry = Math.max(4, Mth.ceillog2(size));
+            long[] bits = new long[MathMan.longArrayLength(bitsPerEntry, 4096)];
+            new BitArrayUnstretched(bitsPerEntry, 4096, bits).fromRaw(indices);
+            storage = new SimpleBitStorage(bitsPerEntry, 4096, bits);
+        }
+        Object configuration = strategyConfigurationForPaletteSize.invoke(strategy, size);
+        Object nmsPalette = configurationCreatePalette.invoke(configuration, strategy, palette);
+        return (PalettedContainer<net.minecraft.world.level.block.state.BlockState>) palettedContainerConstructor.invoke(
+                strategy,
+                configuration,
+                storage,
+                nmsPalette
+        );
+    }
+
+    /**
+     * Create a block state container from the palette and the palette index of every block by unpacking them with the
+     * codec, as the game does when reading a chunk.
+     *
+     * @param buffer a buffer of at least 4096 longs for the packed palette indices
+     */
+    static PalettedContainer<net.minecraft.world.level.block.state.BlockState> unpackBlockStates(
+            Strategy<net.minecraft.world.level.block.state.BlockState> strategy,
+            List<net.minecraft.world.level.block.state.BlockState> palette,
+            int[] indices,
+            long[] buffer
+    ) throws Throwable {
+        LongStream bits;
+        if (palette.size() == 1) {
+            bits = null;
+        } else {
+            int bitsPerEntry = Mth.ceillog2(palette.size());
+            if (bitsPerEntry < 4) {
+                bitsPerEntry = 4;
+            }
+            final int blockBitArrayEnd = MathMan.longArrayLength(bitsPerEntry, 4096);
+            final BitArrayUnstretched bitArray = new BitArrayUnstretched(bitsPerEntry, 4096, buffer);
+
+            bitArray.fromRaw(indices);
+            bits = Arrays.stream(buffer, 0, blockBitArrayEnd);
+        }
+        var packedData = new PalettedContainerRO.PackedData<>(palette, Optional.ofNullable(bits));
+        DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>> result;
+        if (PaperLib.isPaper()) {
+            result = PalettedContainer.unpack(strategy, packedData, Blocks.AIR.defaultBlockState(), null);
+        } else {
+            //noinspection unchecked
+            result = (DataResult<PalettedContainer<net.minecraft.world.level.block.state.BlockState>>)
+                    palettedContainerUnpackSpigot.invokeExact(strategy, packedData);
+        }
+        return result.getOrThrow();
+    }
+
     @SuppressWarnings("deprecation") // Only deprecated in paper
     private static LevelChunkSection newChunkSection(
             RegistryAccess registryAccess,
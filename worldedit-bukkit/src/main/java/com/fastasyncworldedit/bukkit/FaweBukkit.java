@@ -5,6 +5,7 @@
 import com.fastasyncworldedit.bukkit.listener.BrushListener;
 import com.fastasyncworldedit.bukkit.listener.ChunkListener9;
 import com.fastasyncworldedit.bukkit.listener.RenderListener;
+import com.fastasyncworldedit.bukkit.listener.TickListener;
 import com.fastasyncworldedit.bukkit.regions.GriefDefenderFeature;
 import com.fastasyncworldedit.bukkit.regions.GriefPreventionFeature;
 import com.fastasyncworldedit.bukkit.regions.ResidenceFeature;
@@ -75,6 +76,9 @@ public FaweBukkit(Plugin plugin) {
             if (PaperLib.isPaper() && Settings.settings().EXPERIMENTAL.DYNAMIC_CHUNK_RENDERING > 1) {
                 new RenderListener(plugin);
             }
+            if (PaperLib.isPaper()) {
+                new TickListener(plugin);
+            }
         } catch (final Throwable e) {
             e.printStackTrace();
             Bukkit.getServer().shutdown();
@@ -55,6 +55,13 @@ protected AbstractBukkitGetBlocks(
 
     protected abstract void send();
 
+    /**
+     * Get the name of the world of the chunk, used to prioritise its apply by distance to players.
+     *
+     * @since TODO
+     */
+    protected abstract String getWorldName();
+
     protected abstract CompletableFuture<LevelChunk> ensureLoaded(ServerLevel serverLevel);
 
     protected abstract <T extends Future<T>> T internalCall(
@@ -171,7 +178,7 @@ protected <T extends Future<T>> T handleCallFinalizer(
                 }
             };
             //noinspection unchecked - required at compile time
-            return (T) (Future) queueHandler.sync(chain);
+            return (T) (Future) queueHandler.syncChunk(getWorldName(), chunkX, chunkZ, chain);
         } else {
             if (callback != null) {
                 callback.run();
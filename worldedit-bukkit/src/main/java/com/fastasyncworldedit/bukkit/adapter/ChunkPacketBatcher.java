@@ -0,0 +1,147 @@
+package com.fastasyncworldedit.bukkit.adapter;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.util.TaskManager;
+
+import javax.annotation.Nullable;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import java.util.function.BiPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the chunk packets sent to players after edits. Each player is sent at most
+ * {@code queue.packet-bytes-per-player-tick} bytes of chunk packets per tick, the rest being sent in the following ticks.
+ * A full chunk packet queued for a player replaces the packets of the same chunk still queued for them.
+ * <p>
+ * Queued packets are only sent to players still tracking their chunk. Full chunk packets are rebuilt once sent, so they
+ * don't undo changes to the chunk made while they were queued.
+ *
+ * @param <P> the player type
+ * @param <C> the chunk type, equal for the same chunk of the same world
+ * @param <T> the packet type
+ * @since TODO
+ */
+public final class ChunkPacketBatcher<P, C, T> {
+
+    private final BiConsumer<P, T> sender;
+    private final Predicate<P> connected;
+    private final BiPredicate<P, C> tracking;
+    private final Map<P, ArrayDeque<Queued<C, T>>> queued = new LinkedHashMap<>();
+    private final Map<P, Integer> sentThisTick = new HashMap<>();
+    private int taskId = -1;
+
+    /**
+     * Create a batcher sending packets through the given sender.
+     *
+     * @param sender    sends a packet to a player
+     * @param connected if a player is still connected, the packets queued for disconnected players are dropped
+     * @param tracking  if a player is still sent the changes of a chunk, the packets queued of other chunks are dropped
+     */
+    public ChunkPacketBatcher(BiConsumer<P, T> sender, Predicate<P> connected, BiPredicate<P, C> tracking) {
+        this.sender = sender;
+        this.connected = connected;
+        this.tracking = tracking;
+    }
+
+    /**
+     * Send a chunk packet to the given players, or queue it for the players already sent their bytes of this tick.
+     *
+     * @param players the players to send the packet to
+     * @param chunk   the chunk the packet is of
+     * @param packet  the packet
+     * @param rebuild builds the packet again once sent after being queued, returning {@code null} if it may no longer be
+     *                sent. {@code null} to send the packet as it is
+     * @param bytes   the estimated size of the packet
+     * @param full    if the packet contains the whole chunk, replacing the queued packets of the chunk
+     */
+    public synchronized void send(
+            Collection<P> players,
+            C chunk,
+            T packet,
+            @Nullable Supplier<T> rebuild,
+            int bytes,
+            boolean full
+    ) {
+        final int budget = Settings.settings().QUEUE.PACKET_BYTES_PER_PLAYER_TICK;
+        Supplier<T> queuedPacket = rebuild != null ? rebuild : () -> packet;
+        for (P player : players) {
+            ArrayDeque<Queued<C, T>> playerQueue = queued.get(player);
+            if (playerQueue == null) {
+                int sent = sentThisTick.getOrDefault(player, 0);
+                // always send the first packet of a tick, however large
+                if (budget <= 0 || sent == 0 || sent + bytes <= budget) {
+                    sender.accept(player, packet);
+                    if (budget > 0) {
+                        sentThisTick.put(player, sent + bytes);
+                        scheduleTick();
+                    }
+                    continue;
+                }
+                playerQueue = new ArrayDeque<>();
+                queued.put(player, playerQueue);
+            } else if (full) {
+                playerQueue.removeIf(q -> q.chunk.equals(chunk));
+            }
+            playerQueue.add(new Queued<>(chunk, queuedPacket, bytes));
+            scheduleTick();
+        }
+    }
+
+    private void scheduleTick() {
+        if (taskId == -1) {
+            taskId = TaskManager.taskManager().repeat(this::tick, 1);
+        }
+    }
+
+    synchronized void tick() {
+        sentThisTick.clear();
+        final int budget = Settings.settings().QUEUE.PACKET_BYTES_PER_PLAYER_TICK;
+        // packets rebuilt this tick, shared by the players they were queued for
+        Map<Supplier<T>, T> built = new IdentityHashMap<>();
+        Iterator<Map.Entry<P, ArrayDeque<Queued<C, T>>>> iterator = queued.entrySet().iterator();
+        while (iterator.hasNext()) {
+            Map.Entry<P, ArrayDeque<Queued<C, T>>> entry = iterator.next();
+            P player = entry.getKey();
+            if (!connected.test(player)) {
+                iterator.remove();
+                continue;
+            }
+            ArrayDeque<Queued<C, T>> playerQueue = entry.getValue();
+            int sent = 0;
+            Queued<C, T> next;
+            while ((next = playerQueue.peek()) != null && (budget <= 0 || sent == 0 || sent + next.bytes <= budget)) {
+                playerQueue.poll();
+                if (!tracking.test(player, next.chunk)) {
+                    continue;
+                }
+                T packet = built.computeIfAbsent(next.packet, Supplier::get);
+                if (packet == null) {
+                    continue;
+                }
+                sender.accept(player, packet);
+                sent += next.bytes;
+            }
+            sentThisTick.put(player, sent);
+            if (playerQueue.isEmpty()) {
+                iterator.remove();
+            }
+        }
+        if (queued.isEmpty() && sentThisTick.isEmpty()) {
+            TaskManager.taskManager().cancel(taskId);
+            taskId = -1;
+        }
+    }
+
+    private record Queued<C, T>(C chunk, Supplier<T> packet, int bytes) {
+
+    }
+
+}
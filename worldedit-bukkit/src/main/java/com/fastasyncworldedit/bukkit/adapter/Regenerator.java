@@ -1,5 +1,6 @@
 package com.fastasyncworldedit.bukkit.adapter;
 
+import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.queue.IChunk;
 import com.fastasyncworldedit.core.queue.IChunkCache;
 import com.fastasyncworldedit.core.queue.IChunkGet;
@@ -22,25 +23,47 @@
 import org.jetbrains.annotations.NotNull;
 import org.jetbrains.annotations.Nullable;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BiFunction;
 import java.util.function.BooleanSupplier;
 
 /**
- * Represents an abstract regeneration handler.
+ * Represents an abstract regeneration handler. The world created to generate the chunks of a regeneration is kept for a
+ * while afterwards, generating the chunks of later regenerations of the same world with the same seed and biome.
  */
 public abstract class Regenerator {
 
+    // Regenerators whose world was kept after regenerating, to generate the chunks of the next regeneration with the same key
+    private static final Map<GeneratorKey, Deque<Regenerator>> WARM_GENERATORS = new HashMap<>();
+    // Numbers the worlds of regenerators, as several may be kept at once and the server knows its worlds by name
+    private static final AtomicInteger TEMP_WORLDS = new AtomicInteger();
+
     protected final org.bukkit.World originalBukkitWorld;
-    protected final Region region;
-    protected final Extent target;
+    // Not final, released once regenerated as the world of this regenerator may be kept to generate other regenerations
+    protected Region region;
+    protected Extent target;
     protected final RegenOptions options;
 
     //runtime
     protected long seed;
-    protected SingleThreadQueueExtent source;
+    // The regenerator whose world generates the chunks, this one or a warm one of a previous regeneration
+    private Regenerator generator;
+    private GeneratorKey generatorKey;
+    private int warmEpoch;
+    private IChunkCache<IChunkGet> sourceCache;
+    // A source queue per thread reading the generated chunks, so the chunks of the region are generated in parallel
+    private final Map<Thread, SingleThreadQueueExtent> sources = new ConcurrentHashMap<>();
+    private final String tempWorldName = "faweregentempworld" + TEMP_WORLDS.getAndIncrement();
 
     /**
      * Initializes an abstract regeneration handler.
@@ -68,47 +91,139 @@ public boolean regenerate() throws Exception {
             return false;
         }
 
-        try {
-            if (!initNewWorld()) {
+        generatorKey = new GeneratorKey(
+                originalBukkitWorld.getUID(),
+                seed,
+                options.hasBiomeType() ? options.getBiomeType() : null
+        );
+        generator = takeWarmGenerator(generatorKey);
+        if (generator == null) {
+            generator = this;
+            try {
+                if (!initNewWorld()) {
+                    cleanup0();
+                    return false;
+                }
+            } catch (Exception e) {
                 cleanup0();
-                return false;
+                throw e;
             }
-        } catch (Exception e) {
-            cleanup0();
-            throw e;
         }
 
         try {
             copyToWorld();
         } catch (Exception e) {
-            cleanup0();
+            generator.cleanup0();
             throw e;
+        } finally {
+            region = null;
+            target = null;
         }
 
-        cleanup0();
+        keepWarm(generator);
         return true;
     }
 
+    /**
+     * Close the worlds kept to generate the chunks of later regenerations.
+     *
+     * @since TODO
+     */
+    public static void closeWarmGenerators() {
+        List<Regenerator> generators = new ArrayList<>();
+        synchronized (WARM_GENERATORS) {
+            WARM_GENERATORS.values().forEach(generators::addAll);
+            WARM_GENERATORS.clear();
+        }
+        generators.forEach(Regenerator::cleanup0);
+    }
+
+    @Nullable
+    private static Regenerator takeWarmGenerator(GeneratorKey key) {
+        synchronized (WARM_GENERATORS) {
+            Deque<Regenerator> generators = WARM_GENERATORS.get(key);
+            if (generators == null) {
+                return null;
+            }
+            Regenerator generator = generators.poll();
+            if (generators.isEmpty()) {
+                WARM_GENERATORS.remove(key);
+            }
+            return generator;
+        }
+    }
+
+    private static void keepWarm(Regenerator generator) {
+        final int keepAlive = Settings.settings().GENERAL.REGEN_WORLD_KEEP_ALIVE;
+        final int epoch;
+        synchronized (WARM_GENERATORS) {
+            Deque<Regenerator> generators = WARM_GENERATORS.computeIfAbsent(generator.generatorKey, k -> new ArrayDeque<>());
+            if (keepAlive <= 0 || generators.size() >= Settings.settings().GENERAL.REGEN_WORLD_POOL_SIZE) {
+                if (generators.isEmpty()) {
+                    WARM_GENERATORS.remove(generator.generatorKey);
+                }
+                epoch = -1;
+            } else {
+                generators.push(generator);
+                epoch = ++generator.warmEpoch;
+            }
+        }
+        if (epoch == -1) {
+            generator.cleanup0();
+            return;
+        }
+        TaskManager.taskManager().laterAsync(() -> {
+            synchronized (WARM_GENERATORS) {
+                // Taken by a later regeneration since, which keeps it warm again once done
+                if (generator.warmEpoch != epoch) {
+                    return;
+                }
+                Deque<Regenerator> generators = WARM_GENERATORS.get(generator.generatorKey);
+                if (generators == null || !generators.remove(generator)) {
+                    return;
+                }
+                if (generators.isEmpty()) {
+                    WARM_GENERATORS.remove(generator.generatorKey);
+                }
+            }
+            generator.cleanup0();
+        }, keepAlive * 20);
+    }
+
+    /**
+     * Get the name of the world this regenerator creates, to create it and to remove it from the server by. The name is
+     * unique to this regenerator, as worlds of other regenerators may still be kept.
+     *
+     * @return the name of the world to create
+     * @since TODO
+     */
+    protected String getTempWorldName() {
+        return tempWorldName;
+    }
+
     /**
      * Execute tasks on the main thread during regen.
      */
     protected abstract void runTasks(BooleanSupplier shouldKeepTicking);
 
-    private void createSource() {
-
-        source = new SingleThreadQueueExtent(
-                BukkitWorld.HAS_MIN_Y ? originalBukkitWorld.getMinHeight() : 0,
-                BukkitWorld.HAS_MIN_Y ? originalBukkitWorld.getMaxHeight() : 256
-        );
-        source.init(target, initSourceQueueCache(), null);
+    private SingleThreadQueueExtent source() {
+        return sources.computeIfAbsent(Thread.currentThread(), thread -> {
+            SingleThreadQueueExtent source = new SingleThreadQueueExtent(
+                    BukkitWorld.HAS_MIN_Y ? originalBukkitWorld.getMinHeight() : 0,
+                    BukkitWorld.HAS_MIN_Y ? originalBukkitWorld.getMaxHeight() : 256
+            );
+            source.init(target, sourceCache, null);
+            return source;
+        });
     }
 
     private void copyToWorld() {
-        createSource();
+        // Shared by the source queues of all threads, loading each generated chunk once
+        sourceCache = generator.initSourceQueueCache();
         final long timeoutPerTick = TimeUnit.MILLISECONDS.toNanos(10);
         int taskId = TaskManager.taskManager().repeat(() -> {
             final long startTime = System.nanoTime();
-            runTasks(() -> System.nanoTime() - startTime < timeoutPerTick);
+            generator.runTasks(() -> System.nanoTime() - startTime < timeoutPerTick);
         }, 1);
         final Extent writeTarget;
         if (!TaskManager.taskManager().isMainThread() && target instanceof EditSession editSession) {
@@ -135,11 +250,16 @@ private void copyToWorld() {
                 if (chunk != null) {
                     return chunk.getBiomeType(vec.x() & 15, vec.y(), vec.z() & 15);
                 }
-                return source.getBiome(vec);
+                return source().getBiome(vec);
             });
         }
-        writeTarget.setBlocks(region, pattern);
-        TaskManager.taskManager().cancel(taskId);
+        try {
+            writeTarget.setBlocks(region, pattern);
+        } finally {
+            TaskManager.taskManager().cancel(taskId);
+            sources.clear();
+            sourceCache = null;
+        }
     }
 
     private abstract class ChunkwisePattern implements Pattern {
@@ -149,7 +269,7 @@ private abstract class ChunkwisePattern implements Pattern {
 
         @Override
         public @NotNull <T extends IChunk> T applyChunk(final T chunk, @Nullable final Region region) {
-            this.chunk = source.getOrCreateChunk(chunk.getX(), chunk.getZ());
+            this.chunk = source().getOrCreateChunk(chunk.getX(), chunk.getZ());
             return chunk;
         }
 
@@ -167,7 +287,7 @@ private class PlacementPattern extends ChunkwisePattern {
 
         @Override
         public BaseBlock applyBlock(final BlockVector3 position) {
-            return source.getFullBlock(position);
+            return source().getFullBlock(position);
         }
 
         @Override
@@ -176,7 +296,7 @@ public boolean apply(final Extent extent, final BlockVector3 get, final BlockVec
             if (chunk != null) {
                 fullBlock = chunk.getFullBlock(get.x() & 15, get.y(), get.z() & 15);
             } else {
-                fullBlock = source.getFullBlock(get.x(), get.y(), get.z());
+                fullBlock = source().getFullBlock(get.x(), get.y(), get.z());
             }
             return set.setFullBlock(extent, fullBlock);
         }
@@ -197,7 +317,7 @@ private WithBiomePlacementPattern(final BiFunction<BlockVector3, @Nullable IChun
 
         @Override
         public BaseBlock applyBlock(final BlockVector3 position) {
-            return source.getFullBlock(position);
+            return source().getFullBlock(position);
         }
 
         @Override
@@ -206,7 +326,7 @@ public boolean apply(final Extent extent, final BlockVector3 get, final BlockVec
             if (chunk != null) {
                 fullBlock = chunk.getFullBlock(get.x() & 15, get.y(), get.z() & 15);
             } else {
-                fullBlock = source.getFullBlock(get.x(), get.y(), get.z());
+                fullBlock = source().getFullBlock(get.x(), get.y(), get.z());
             }
             return extent.setBlock(set.x(), set.y(), set.z(), fullBlock)
                     && extent.setBiome(set.x(), set.y(), set.z(), biomeGetter.apply(get, chunk));
@@ -273,6 +393,10 @@ public enum Concurrency {
         NONE
     }
 
+    private record GeneratorKey(UUID world, long seed, @Nullable BiomeType biome) {
+
+    }
+
     public class SingleBiomeProvider extends BiomeProvider {
 
         private final org.bukkit.block.Biome biome = BukkitAdapter.adapt(options.getBiomeType());
@@ -0,0 +1,25 @@
+package com.fastasyncworldedit.bukkit.listener;
+
+import com.destroystokyo.paper.event.server.ServerTickEndEvent;
+import com.fastasyncworldedit.core.Fawe;
+import org.bukkit.Bukkit;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.plugin.Plugin;
+
+/**
+ * Reports how long the server worked on each tick to the queue handler. Paper only.
+ */
+public class TickListener implements Listener {
+
+    public TickListener(Plugin plugin) {
+        Bukkit.getPluginManager().registerEvents(this, plugin);
+    }
+
+    @EventHandler(priority = EventPriority.MONITOR)
+    public void onTickEnd(ServerTickEndEvent event) {
+        Fawe.instance().getQueueHandler().recordTickDuration((long) (event.getTickDuration() * 1_000_000));
+    }
+
+}
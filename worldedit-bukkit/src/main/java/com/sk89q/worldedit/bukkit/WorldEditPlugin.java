@@ -21,6 +21,7 @@
 
 import com.fastasyncworldedit.bukkit.BukkitPermissionAttachmentManager;
 import com.fastasyncworldedit.bukkit.FaweBukkit;
+import com.fastasyncworldedit.bukkit.adapter.Regenerator;
 import com.fastasyncworldedit.core.Fawe;
 import com.fastasyncworldedit.core.util.UpdateNotification;
 import com.fastasyncworldedit.core.util.WEManager;
@@ -446,6 +447,9 @@ private void loadAdapter() {
      */
     @Override
     public void onDisable() {
+        //FAWE start - close the worlds kept to regenerate chunks
+        Regenerator.closeWarmGenerators();
+        //FAWE end
         Fawe.instance().onDisable();
         WorldEdit worldEdit = WorldEdit.getInstance();
         worldEdit.getSessionManager().unload();
@@ -0,0 +1,114 @@
+package com.fastasyncworldedit.bukkit.adapter;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.util.TaskManager;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.withSettings;
+
+/**
+ * Verifies that a {@link ChunkPacketBatcher} keeps to the byte budget of each player, replaces the queued packets of a
+ * chunk by a full chunk packet, and only sends queued packets to connected players still tracking their chunk.
+ */
+class ChunkPacketBatcherTest {
+
+    private int budget;
+    private final List<String> sent = new ArrayList<>();
+    private final Set<String> disconnected = new HashSet<>();
+    private final Set<String> untracked = new HashSet<>();
+    private ChunkPacketBatcher<String, String, String> batcher;
+
+    @BeforeAll
+    static void setUpTaskManager() {
+        // ticks are run by the tests
+        mock(TaskManager.class, withSettings().useConstructor());
+    }
+
+    @BeforeEach
+    void setUp() {
+        budget = Settings.settings().QUEUE.PACKET_BYTES_PER_PLAYER_TICK;
+        Settings.settings().QUEUE.PACKET_BYTES_PER_PLAYER_TICK = 100;
+        batcher = new ChunkPacketBatcher<>(
+                (player, packet) -> sent.add(player + ":" + packet),
+                player -> !disconnected.contains(player),
+                (player, chunk) -> !untracked.contains(player + ":" + chunk)
+        );
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().QUEUE.PACKET_BYTES_PER_PLAYER_TICK = budget;
+    }
+
+    private void send(String chunk, String packet, int bytes, boolean full, String... players) {
+        batcher.send(List.of(players), chunk, packet, null, bytes, full);
+    }
+
+    @Test
+    void testBudget() {
+        // the first packet of a tick is always sent, however large
+        send("a", "a1", 150, true, "alice");
+        send("b", "b1", 10, false, "alice", "bob");
+        send("c", "c1", 60, false, "alice", "bob");
+        assertEquals(List.of("alice:a1", "bob:b1", "bob:c1"), sent);
+
+        sent.clear();
+        send("c", "c2", 30, false, "alice");
+        batcher.tick();
+        assertEquals(List.of("alice:b1", "alice:c1", "alice:c2"), sent);
+
+        sent.clear();
+        // alice was sent 100 bytes this tick
+        send("d", "d1", 1, false, "alice", "bob");
+        assertEquals(List.of("bob:d1"), sent);
+        batcher.tick();
+        assertEquals(List.of("bob:d1", "alice:d1"), sent);
+    }
+
+    @Test
+    void testFullPacketReplacesQueuedPackets() {
+        send("a", "a1", 100, true, "alice");
+        send("a", "a2", 10, false, "alice");
+        send("b", "b1", 10, false, "alice");
+        send("a", "a3", 10, false, "alice");
+        batcher.send(List.of("alice"), "a", "a4", () -> "a5", 50, true);
+        assertEquals(List.of("alice:a1"), sent);
+
+        sent.clear();
+        batcher.tick();
+        // the full packet is built again once sent
+        assertEquals(List.of("alice:b1", "alice:a5"), sent);
+    }
+
+    @Test
+    void testDropsPacketsNoLongerSendable() {
+        send("a", "a1", 100, true, "alice", "bob", "carol");
+        send("a", "a2", 10, false, "alice", "bob", "carol");
+        send("b", "b1", 10, false, "alice", "bob", "carol");
+        batcher.send(List.of("alice", "bob", "carol"), "c", "c1", () -> null, 10, true);
+        sent.clear();
+
+        disconnected.add("alice");
+        untracked.add("bob:a");
+        batcher.tick();
+        // the chunk of the last packet was unloaded
+        assertEquals(List.of("bob:b1", "carol:a2", "carol:b1"), sent);
+
+        sent.clear();
+        disconnected.remove("alice");
+        batcher.tick();
+        // the packets queued for alice were dropped once disconnected
+        assertEquals(List.of(), sent);
+    }
+
+}
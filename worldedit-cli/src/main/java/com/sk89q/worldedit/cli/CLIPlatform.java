@@ -44,7 +44,7 @@
 import java.util.Timer;
 import java.util.TimerTask;
 
-class CLIPlatform extends AbstractPlatform {
+public class CLIPlatform extends AbstractPlatform {
 
     private final CLIWorldEdit app;
     private int dataVersion = -1;
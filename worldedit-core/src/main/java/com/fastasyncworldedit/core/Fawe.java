@@ -399,6 +399,8 @@ public void setupConfigs() {
             assert (Zstd.decompress(ob, compressed) == 0);
             LOGGER.info("ZSTD Compression Binding loaded successfully");
         } catch (Throwable e) {
+            Settings.settings().CLIPBOARD.COMPRESSION_CODEC = "LZ4";
+            Settings.settings().HISTORY.COMPRESSION_CODEC = "LZ4";
             if (Settings.settings().CLIPBOARD.COMPRESSION_LEVEL > 6 || Settings.settings().HISTORY.COMPRESSION_LEVEL > 6) {
                 Settings.settings().CLIPBOARD.COMPRESSION_LEVEL = Math.min(6, Settings.settings().CLIPBOARD.COMPRESSION_LEVEL);
                 Settings.settings().HISTORY.COMPRESSION_LEVEL = Math.min(6, Settings.settings().HISTORY.COMPRESSION_LEVEL);
@@ -0,0 +1,526 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.FaweCache;
+import com.fastasyncworldedit.core.extent.processor.heightmap.HeightMapType;
+import com.fastasyncworldedit.core.math.BitArrayUnstretched;
+import com.fastasyncworldedit.core.math.BlockVector3ChunkMap;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.blocks.CharGetBlocks;
+import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.core.util.NbtUtils;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.registry.state.Property;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import com.sk89q.worldedit.world.storage.InvalidFormatException;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinListTag;
+import org.enginehub.linbus.tree.LinLongArrayTag;
+import org.enginehub.linbus.tree.LinNumberTag;
+import org.enginehub.linbus.tree.LinStringTag;
+import org.enginehub.linbus.tree.LinTag;
+import org.enginehub.linbus.tree.LinTagType;
+
+import javax.annotation.Nullable;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+
+/**
+ * A chunk of a region file in the 1.18+ format, its block palettes decoded into ordinal arrays so existing
+ * {@link com.fastasyncworldedit.core.queue.Filter}s can run on it through a
+ * {@link com.fastasyncworldedit.core.extent.filter.block.CharFilterBlock}. Changes are merged back with
+ * {@link #apply(IChunkSet)} and only the changed sections are encoded again by {@link #write()}.
+ *
+ * <p>Light and height maps are not read; a changed chunk has them removed so the server computes them again when the
+ * chunk is next loaded. Entities are stored outside of region chunks and are not available.</p>
+ *
+ * @since TODO
+ */
+public class MCAChunk extends CharGetBlocks {
+
+    private static final Map<String, Character> PALETTE_ORDINALS = new ConcurrentHashMap<>();
+    private static final LinCompoundTag[] PALETTE_ENTRIES = new LinCompoundTag[BlockTypesCache.states.length];
+    private static final int[] EMPTY_HEIGHTMAP = new int[256];
+
+    private final LinCompoundTag chunk;
+    private final List<LinCompoundTag> sections;
+    private final LinCompoundTag[] sectionsByLayer;
+    private final boolean[] changedLayers;
+    private BiomeType[][] biomes;
+    private BlockVector3ChunkMap<FaweCompoundTag> tiles;
+    private boolean tilesChanged;
+    private boolean changed;
+
+    private MCAChunk(
+            LinCompoundTag chunk,
+            List<LinCompoundTag> sections,
+            LinCompoundTag[] sectionsByLayer,
+            char[][] blocks,
+            int minSectionPosition,
+            int maxSectionPosition
+    ) {
+        super(minSectionPosition, maxSectionPosition);
+        this.chunk = chunk;
+        this.sections = sections;
+        this.sectionsByLayer = sectionsByLayer;
+        this.blocks = blocks;
+        this.changedLayers = new boolean[blocks.length];
+        init(
+                chunk.getTag("xPos", LinTagType.intTag()).value(),
+                chunk.getTag("zPos", LinTagType.intTag()).value()
+        );
+    }
+
+    /**
+     * Decode the block sections of a chunk.
+     *
+     * @param chunk the chunk tag, as read from a region file
+     * @return the decoded chunk, or {@code null} if the chunk has no block sections (e.g. it has not been generated yet)
+     * @throws InvalidFormatException if the chunk is not in the 1.18+ format or has blocks this platform doesn't know
+     */
+    @Nullable
+    public static MCAChunk read(LinCompoundTag chunk) throws InvalidFormatException {
+        LinListTag<LinCompoundTag> sectionList = chunk.findListTag("sections", LinTagType.compoundTag());
+        if (sectionList == null || chunk.findTag("xPos", LinTagType.intTag()) == null) {
+            throw new InvalidFormatException("Not a 1.18+ chunk");
+        }
+        List<LinCompoundTag> sections = sectionList.value();
+        int minLayer = Integer.MAX_VALUE;
+        int maxLayer = Integer.MIN_VALUE;
+        for (LinCompoundTag section : sections) {
+            // Sections just outside of the world only hold light
+            if (section.findTag("block_states", LinTagType.compoundTag()) != null) {
+                int layer = getY(section);
+                minLayer = Math.min(minLayer, layer);
+                maxLayer = Math.max(maxLayer, layer);
+            }
+        }
+        if (minLayer > maxLayer) {
+            return null;
+        }
+        LinCompoundTag[] sectionsByLayer = new LinCompoundTag[maxLayer - minLayer + 1];
+        char[][] blocks = new char[sectionsByLayer.length][];
+        for (LinCompoundTag section : sections) {
+            LinCompoundTag blockStates = section.findTag("block_states", LinTagType.compoundTag());
+            if (blockStates != null) {
+                int index = getY(section) - minLayer;
+                sectionsByLayer[index] = section;
+                blocks[index] = readBlockStates(blockStates);
+            }
+        }
+        return new MCAChunk(chunk, sections, sectionsByLayer, blocks, minLayer, maxLayer);
+    }
+
+    private static int getY(LinCompoundTag section) throws InvalidFormatException {
+        if (section.value().get("Y") instanceof LinNumberTag<?> y) {
+            return y.value().intValue();
+        }
+        throw new InvalidFormatException("Section without a numeric Y");
+    }
+
+    private static char[] readBlockStates(LinCompoundTag blockStates) throws InvalidFormatException {
+        List<LinCompoundTag> paletteEntries = blockStates.getListTag("palette", LinTagType.compoundTag()).value();
+        if (paletteEntries.isEmpty()) {
+            throw new InvalidFormatException("Empty block palette");
+        }
+        char[] palette = new char[paletteEntries.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = getOrdinal(paletteEntries.get(i));
+        }
+        char[] section = new char[4096];
+        LinLongArrayTag data = blockStates.findTag("data", LinTagType.longArrayTag());
+        if (palette.length == 1 || data == null) {
+            Arrays.fill(section, palette[0]);
+            return section;
+        }
+        int bitsPerEntry = Math.max(4, MathMan.log2nlz(palette.length - 1));
+        long[] packed = data.value();
+        if (packed.length != (4096 + (64 / bitsPerEntry) - 1) / (64 / bitsPerEntry)) {
+            throw new InvalidFormatException("Block states of length " + packed.length + " for " + palette.length + " entries");
+        }
+        new BitArrayUnstretched(bitsPerEntry, 4096, packed).toRaw(section);
+        for (int i = 0; i < 4096; i++) {
+            int index = section[i];
+            if (index >= palette.length) {
+                throw new InvalidFormatException("Invalid block state table entry: " + index);
+            }
+            section[i] = palette[index];
+        }
+        return section;
+    }
+
+    private static char getOrdinal(LinCompoundTag entry) throws InvalidFormatException {
+        String name = entry.getTag("Name", LinTagType.stringTag()).value();
+        LinCompoundTag properties = entry.findTag("Properties", LinTagType.compoundTag());
+        String key = name;
+        if (properties != null) {
+            StringBuilder builder = new StringBuilder(name).append('[');
+            for (Map.Entry<String, LinTag<?>> property : properties.value().entrySet()) {
+                builder.append(property.getKey()).append('=').append(property.getValue().value()).append(',');
+            }
+            key = builder.append(']').toString();
+        }
+        Character cached = PALETTE_ORDINALS.get(key);
+        if (cached != null) {
+            return cached;
+        }
+        BlockType type = BlockTypes.get(name);
+        if (type == null) {
+            throw new InvalidFormatException("Unknown block type: " + name);
+        }
+        BlockState state = type.getDefaultState();
+        if (properties != null) {
+            for (Map.Entry<String, LinTag<?>> propertyPair : properties.value().entrySet()) {
+                Property<Object> property = type.getProperty(propertyPair.getKey());
+                if (property == null || !(propertyPair.getValue() instanceof LinStringTag value)) {
+                    continue;
+                }
+                try {
+                    state = state.with(property, property.getValueFor(value.value()));
+                } catch (IllegalArgumentException e) {
+                    throw new InvalidFormatException("Invalid block state for " + name + ", " + property.getName() + ": " + value);
+                }
+            }
+        }
+        char ordinal = state.getOrdinalChar();
+        PALETTE_ORDINALS.put(key, ordinal);
+        return ordinal;
+    }
+
+    private static LinCompoundTag getPaletteEntry(char ordinal) {
+        LinCompoundTag entry = PALETTE_ENTRIES[ordinal];
+        if (entry == null) {
+            BlockState state = BlockTypesCache.states[ordinal];
+            LinCompoundTag.Builder builder = LinCompoundTag.builder().putString("Name", state.getBlockType().id());
+            if (!state.getStates().isEmpty()) {
+                LinCompoundTag.Builder properties = LinCompoundTag.builder();
+                state.getStates().forEach((property, value) -> properties.putString(
+                        property.getName(),
+                        value.toString().toLowerCase(Locale.ROOT)
+                ));
+                builder.put("Properties", properties.build());
+            }
+            PALETTE_ENTRIES[ordinal] = entry = builder.build();
+        }
+        return entry;
+    }
+
+    private static LinCompoundTag writeBlockStates(char[] section) {
+        FaweCache.Palette palette = FaweCache.INSTANCE.toPaletteUnstretched(0, section);
+        LinListTag.Builder<LinCompoundTag> paletteEntries = LinListTag.builder(LinTagType.compoundTag());
+        for (int i = 0; i < palette.paletteToBlockLength; i++) {
+            paletteEntries.add(getPaletteEntry((char) palette.paletteToBlock[i]));
+        }
+        LinCompoundTag.Builder blockStates = LinCompoundTag.builder().put("palette", paletteEntries.build());
+        if (palette.paletteToBlockLength > 1) {
+            blockStates.putLongArray("data", Arrays.copyOf(palette.blockStates, palette.blockStatesLength));
+        }
+        return blockStates.build();
+    }
+
+    /**
+     * Get the root tag the chunk was read from.
+     *
+     * @return the chunk tag
+     */
+    public LinCompoundTag getTag() {
+        return chunk;
+    }
+
+    /**
+     * Get the number of ticks players spent in the chunk.
+     *
+     * @return the inhabited time
+     */
+    public long getInhabitedTime() {
+        return getInhabitedTime(chunk);
+    }
+
+    /**
+     * Get the number of ticks players spent in a chunk, without decoding it.
+     *
+     * @param chunk the chunk tag
+     * @return the inhabited time
+     */
+    public static long getInhabitedTime(LinCompoundTag chunk) {
+        if (chunk.value().get("InhabitedTime") instanceof LinNumberTag<?> inhabitedTime) {
+            return inhabitedTime.value().longValue();
+        }
+        return 0;
+    }
+
+    /**
+     * Merge the blocks and block entities set by a filter into the chunk.
+     *
+     * @param set the changes
+     * @return if any block changed
+     */
+    public boolean apply(IChunkSet set) {
+        boolean changedBlocks = false;
+        for (int layer = getMinSectionPosition(); layer <= getMaxSectionPosition(); layer++) {
+            char[] toSet = set.loadIfPresent(layer);
+            char[] section = loadIfPresent(layer);
+            if (toSet == null || section == null) {
+                // Sections without blocks are outside of the world or not generated, leave them to the server
+                continue;
+            }
+            int index = layer - getMinSectionPosition();
+            for (int i = 0; i < 4096; i++) {
+                char ordinal = toSet[i];
+                if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__ || ordinal == section[i]) {
+                    continue;
+                }
+                if (BlockTypesCache.states[ordinal].getBlockType() != BlockTypesCache.states[section[i]].getBlockType()) {
+                    // A block entity stays only as long as its block
+                    removeTile(i & 15, (layer << 4) + (i >> 8), i >> 4 & 15);
+                }
+                section[i] = ordinal;
+                changedLayers[index] = true;
+                changedBlocks = true;
+            }
+        }
+        for (Map.Entry<BlockVector3, FaweCompoundTag> entry : set.tiles().entrySet()) {
+            BlockVector3 position = entry.getKey();
+            if (position.y() >> 4 < getMinSectionPosition() || position.y() >> 4 > getMaxSectionPosition()) {
+                continue;
+            }
+            getTiles().put(position.x(), position.y(), position.z(), entry.getValue());
+            tilesChanged = true;
+        }
+        changed |= changedBlocks || tilesChanged;
+        return changedBlocks;
+    }
+
+    private void removeTile(int x, int y, int z) {
+        if (getTiles().remove(x, y, z) != null) {
+            tilesChanged = true;
+        }
+    }
+
+    /**
+     * Whether {@link #apply(IChunkSet)} changed the chunk.
+     *
+     * @return if the chunk changed
+     */
+    public boolean isChanged() {
+        return changed;
+    }
+
+    /**
+     * Encode the chunk, with the changed sections and block entities.
+     *
+     * @return the chunk tag
+     */
+    public LinCompoundTag write() {
+        if (!changed) {
+            return chunk;
+        }
+        LinListTag.Builder<LinCompoundTag> newSections = LinListTag.builder(LinTagType.compoundTag());
+        for (LinCompoundTag section : sections) {
+            int index = -1;
+            if (section.value().get("Y") instanceof LinNumberTag<?> y) {
+                index = y.value().intValue() - getMinSectionPosition();
+            }
+            if (index >= 0 && index < changedLayers.length && changedLayers[index] && sectionsByLayer[index] == section) {
+                section = section.toBuilder()
+                        .put("block_states", writeBlockStates(blocks[index]))
+                        .remove("BlockLight")
+                        .remove("SkyLight")
+                        .build();
+            }
+            newSections.add(section);
+        }
+        LinCompoundTag.Builder builder = chunk.toBuilder()
+                .put("sections", newSections.build())
+                .remove("Heightmaps")
+                .putByte("isLightOn", (byte) 0);
+        if (tilesChanged) {
+            LinListTag.Builder<LinCompoundTag> blockEntities = LinListTag.builder(LinTagType.compoundTag());
+            int blockX = getX() << 4;
+            int blockZ = getZ() << 4;
+            for (Map.Entry<BlockVector3, FaweCompoundTag> entry : tiles.entrySet()) {
+                LinCompoundTag tag = entry.getValue().linTag();
+                if (tag.findTag("id", LinTagType.stringTag()) == null) {
+                    // The server can't load a block entity without its type
+                    continue;
+                }
+                BlockVector3 position = entry.getKey();
+                blockEntities.add(NbtUtils.withPosition(
+                        tag,
+                        blockX + position.x(),
+                        position.y(),
+                        blockZ + position.z()
+                ));
+            }
+            builder.put("block_entities", blockEntities.build());
+        }
+        return builder.build();
+    }
+
+    private BlockVector3ChunkMap<FaweCompoundTag> getTiles() {
+        if (tiles == null) {
+            tiles = new BlockVector3ChunkMap<>();
+            LinListTag<LinCompoundTag> blockEntities = chunk.findListTag("block_entities", LinTagType.compoundTag());
+            if (blockEntities != null) {
+                for (LinCompoundTag tag : blockEntities.value()) {
+                    LinIntTag x = tag.findTag("x", LinTagType.intTag());
+                    LinIntTag y = tag.findTag("y", LinTagType.intTag());
+                    LinIntTag z = tag.findTag("z", LinTagType.intTag());
+                    if (x != null && y != null && z != null) {
+                        tiles.put(x.value() & 15, y.value(), z.value() & 15, FaweCompoundTag.of(tag));
+                    }
+                }
+            }
+        }
+        return tiles;
+    }
+
+    @Override
+    public Map<BlockVector3, FaweCompoundTag> tiles() {
+        return getTiles();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag tile(final int x, final int y, final int z) {
+        return getTiles().get(x, y, z);
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        int layer = (y >> 4) - getMinSectionPosition();
+        if (layer < 0 || layer >= sectionsByLayer.length || sectionsByLayer[layer] == null) {
+            return null;
+        }
+        if (biomes == null) {
+            biomes = new BiomeType[sectionsByLayer.length][];
+        }
+        BiomeType[] section = biomes[layer];
+        if (section == null) {
+            biomes[layer] = section = readBiomes(sectionsByLayer[layer]);
+        }
+        return section[(y & 15) >> 2 << 4 | (z >> 2) << 2 | x >> 2];
+    }
+
+    private static BiomeType[] readBiomes(LinCompoundTag section) {
+        BiomeType[] biomes = new BiomeType[64];
+        LinCompoundTag biomesTag = section.findTag("biomes", LinTagType.compoundTag());
+        if (biomesTag == null) {
+            return biomes;
+        }
+        List<LinStringTag> paletteEntries = biomesTag.getListTag("palette", LinTagType.stringTag()).value();
+        BiomeType[] palette = new BiomeType[paletteEntries.size()];
+        for (int i = 0; i < palette.length; i++) {
+            palette[i] = BiomeTypes.get(paletteEntries.get(i).value());
+        }
+        LinLongArrayTag data = biomesTag.findTag("data", LinTagType.longArrayTag());
+        if (palette.length == 1 || data == null) {
+            Arrays.fill(biomes, palette.length == 0 ? null : palette[0]);
+            return biomes;
+        }
+        int[] indices = new BitArrayUnstretched(MathMan.log2nlz(palette.length - 1), 64, data.value()).toRaw(new int[64]);
+        for (int i = 0; i < 64; i++) {
+            biomes[i] = indices[i] < palette.length ? palette[indices[i]] : null;
+        }
+        return biomes;
+    }
+
+    @Override
+    public boolean trim(boolean aggressive) {
+        // The decoded sections are the only copy of the chunk
+        return false;
+    }
+
+    @Override
+    public boolean trim(boolean aggressive, int layer) {
+        return false;
+    }
+
+    @Override
+    public <T extends Future<T>> T call(IQueueExtent<? extends IChunk> owner, IChunkSet set, Runnable finalize) {
+        throw new UnsupportedOperationException("Region file chunks are written by MCAQueue");
+    }
+
+    @Override
+    public void removeSectionLighting(int layer, boolean sky) {
+    }
+
+    @Override
+    public int getSkyLight(int x, int y, int z) {
+        return 15;
+    }
+
+    @Override
+    public int getEmittedLight(int x, int y, int z) {
+        return 0;
+    }
+
+    @Override
+    public int[] getHeightMap(HeightMapType type) {
+        return EMPTY_HEIGHTMAP;
+    }
+
+    @Override
+    public void setLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setSkyLightingToGet(char[][] lighting, int startSectionIndex, int endSectionIndex) {
+    }
+
+    @Override
+    public void setHeightmapToGet(HeightMapType type, int[] data) {
+    }
+
+    @Override
+    public int getMaxY() {
+        return (getMaxSectionPosition() << 4) + 15;
+    }
+
+    @Override
+    public int getMinY() {
+        return getMinSectionPosition() << 4;
+    }
+
+    @Override
+    public Collection<FaweCompoundTag> entities() {
+        return Collections.emptyList();
+    }
+
+    @Override
+    public @Nullable FaweCompoundTag entity(final UUID uuid) {
+        return null;
+    }
+
+    @Override
+    public Set<Entity> getFullEntities() {
+        return Collections.emptySet();
+    }
+
+    @Override
+    public boolean isCreateCopy() {
+        return false;
+    }
+
+    @Override
+    public int setCreateCopy(boolean createCopy) {
+        return -1;
+    }
+
+}
@@ -0,0 +1,406 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.internal.io.ByteBufferInputStream;
+import com.fastasyncworldedit.core.internal.io.FastByteArrayOutputStream;
+import com.fastasyncworldedit.core.util.ReflectionUtils;
+import org.enginehub.linbus.stream.LinBinaryIO;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinRootEntry;
+
+import javax.annotation.Nullable;
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.Inflater;
+
+/**
+ * A region file ({@code r.<x>.<z>.mca}) opened to read and rewrite its chunks in place, without the server.
+ *
+ * <p>The file is memory mapped: the header is read and updated through the mapping and chunks are inflated straight from
+ * it. A rewritten chunk keeps its sectors if it still fits in them, otherwise it moves to the first free run of sectors
+ * large enough, or the end of the file, and its old sectors are only freed once the header points at the new ones. Free
+ * sectors at the end of the file are truncated when it is closed.</p>
+ *
+ * <p>Not thread safe, a region file is meant to be processed by a single thread at a time.</p>
+ *
+ * @since TODO
+ */
+public class MCAFile implements Closeable {
+
+    private static final Pattern REGION_FILE = Pattern.compile("r\\.(-?\\d+)\\.(-?\\d+)\\.mca");
+
+    private static final int SECTOR_BYTES = 4096;
+    private static final int HEADER_SECTORS = 2;
+    private static final int HEADER_BYTES = HEADER_SECTORS * SECTOR_BYTES;
+    private static final int CHUNKS = 1024;
+    private static final int MAX_SECTORS = 255;
+    private static final int CHUNK_HEADER_SIZE = 5;
+
+    private static final int VERSION_GZIP = 1;
+    private static final int VERSION_DEFLATE = 2;
+    private static final int VERSION_NONE = 3;
+    private static final int VERSION_EXTERNAL = 0x80;
+
+    private final Path path;
+    private final int regionX;
+    private final int regionZ;
+    private final FileChannel channel;
+    private final MappedByteBuffer header;
+    private final int[] offsets = new int[CHUNKS];
+    private final BitSet usedSectors = new BitSet();
+    private final Inflater inflater = new Inflater();
+    private final Deflater deflater = new Deflater();
+    private final FastByteArrayOutputStream compressed = new FastByteArrayOutputStream();
+    private MappedByteBuffer mapped;
+    private long mappedSize;
+    private long fileSize;
+    private byte[] inflated = new byte[64 * 1024];
+    private boolean modified;
+
+    /**
+     * Open a region file for reading and writing.
+     *
+     * @param path the region file, named {@code r.<x>.<z>.mca}
+     * @throws IOException if the file cannot be opened or is not a region file
+     */
+    public MCAFile(Path path) throws IOException {
+        Matcher matcher = REGION_FILE.matcher(path.getFileName().toString());
+        if (!matcher.matches()) {
+            throw new IOException("Not a region file: " + path);
+        }
+        this.path = path;
+        this.regionX = Integer.parseInt(matcher.group(1));
+        this.regionZ = Integer.parseInt(matcher.group(2));
+        this.channel = FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        try {
+            this.fileSize = channel.size();
+            if (fileSize < HEADER_BYTES) {
+                throw new IOException("Region file " + path + " is truncated");
+            }
+            this.header = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES);
+            remap();
+            readHeader();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Whether a file looks like a region file this class can open, judging by its name and size.
+     *
+     * @param path the file
+     * @return if the file is a region file
+     */
+    public static boolean isRegionFile(Path path) {
+        try {
+            return REGION_FILE.matcher(path.getFileName().toString()).matches() && Files.size(path) >= HEADER_BYTES;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    private void readHeader() {
+        long fileSectors = fileSize / SECTOR_BYTES;
+        usedSectors.set(0, HEADER_SECTORS);
+        for (int i = 0; i < CHUNKS; i++) {
+            int offset = header.getInt(i << 2);
+            int sector = offset >>> 8;
+            int sectors = offset & 0xFF;
+            // Treat chunks pointing into the header or past the end of the file as missing, like the server does
+            if (offset == 0 || sector < HEADER_SECTORS || sectors == 0 || sector + sectors > fileSectors) {
+                continue;
+            }
+            offsets[i] = offset;
+            usedSectors.set(sector, sector + sectors);
+        }
+    }
+
+    private void remap() throws IOException {
+        MappedByteBuffer previous = mapped;
+        mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        mappedSize = fileSize;
+        unmap(previous);
+    }
+
+    private static void unmap(@Nullable MappedByteBuffer buffer) {
+        if (buffer != null) {
+            ReflectionUtils.getUnsafe().invokeCleaner(buffer);
+        }
+    }
+
+    private static int index(int localX, int localZ) {
+        return (localX & 31) | (localZ & 31) << 5;
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public int getRegionX() {
+        return regionX;
+    }
+
+    public int getRegionZ() {
+        return regionZ;
+    }
+
+    /**
+     * Whether the region file stores a chunk.
+     *
+     * @param localX the chunk x coordinate within the region, 0 to 31
+     * @param localZ the chunk z coordinate within the region, 0 to 31
+     * @return if the chunk exists
+     */
+    public boolean hasChunk(int localX, int localZ) {
+        return offsets[index(localX, localZ)] != 0;
+    }
+
+    /**
+     * Whether the region file stores no chunks at all.
+     *
+     * @return if no chunk exists
+     */
+    public boolean isEmpty() {
+        for (int offset : offsets) {
+            if (offset != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Get the time a chunk was last saved.
+     *
+     * @param localX the chunk x coordinate within the region, 0 to 31
+     * @param localZ the chunk z coordinate within the region, 0 to 31
+     * @return the time in seconds since the epoch, or 0 if unknown
+     */
+    public int getTimestamp(int localX, int localZ) {
+        return header.getInt(SECTOR_BYTES + (index(localX, localZ) << 2));
+    }
+
+    /**
+     * Read and decompress a chunk.
+     *
+     * @param localX the chunk x coordinate within the region, 0 to 31
+     * @param localZ the chunk z coordinate within the region, 0 to 31
+     * @return the chunk tag, or {@code null} if the chunk does not exist
+     * @throws IOException if the chunk is corrupt or uses an unsupported compression
+     */
+    @Nullable
+    public LinCompoundTag readChunk(int localX, int localZ) throws IOException {
+        int offset = offsets[index(localX, localZ)];
+        if (offset == 0) {
+            return null;
+        }
+        long position = (long) (offset >>> 8) * SECTOR_BYTES;
+        int available = (offset & 0xFF) * SECTOR_BYTES;
+        if (position + available > mappedSize) {
+            // Moved to the end of the file since it was mapped
+            remap();
+        }
+        ByteBuffer chunk = mapped.slice((int) position, available);
+        int length = chunk.getInt(0);
+        if (length <= 0 || length > available - 4) {
+            throw new IOException("Chunk " + localX + "," + localZ + " of " + path + " has an invalid length of " + length);
+        }
+        int version = chunk.get(4) & 0xFF;
+        ByteBuffer data;
+        if ((version & VERSION_EXTERNAL) != 0) {
+            version &= ~VERSION_EXTERNAL;
+            data = ByteBuffer.wrap(Files.readAllBytes(getExternalPath(localX, localZ)));
+        } else {
+            data = chunk.slice(CHUNK_HEADER_SIZE, length - 1);
+        }
+        InputStream in = switch (version) {
+            case VERSION_DEFLATE -> inflate(data);
+            case VERSION_GZIP -> new GZIPInputStream(new ByteBufferInputStream(data));
+            case VERSION_NONE -> new ByteBufferInputStream(data);
+            default -> throw new IOException(
+                    "Chunk " + localX + "," + localZ + " of " + path + " has an unsupported compression " + version);
+        };
+        try (DataInputStream dataIn = new DataInputStream(in)) {
+            return LinRootEntry.readFrom(LinBinaryIO.read(dataIn)).value();
+        }
+    }
+
+    /**
+     * Inflate a whole zlib stream into the reused buffer, reading straight from the mapping.
+     */
+    private InputStream inflate(ByteBuffer data) throws IOException {
+        inflater.reset();
+        inflater.setInput(data);
+        int length = 0;
+        try {
+            while (!inflater.finished()) {
+                if (length == inflated.length) {
+                    inflated = Arrays.copyOf(inflated, inflated.length << 1);
+                }
+                int read = inflater.inflate(inflated, length, inflated.length - length);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Truncated chunk in " + path);
+                }
+                length += read;
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("Corrupt chunk in " + path, e);
+        }
+        return new ByteArrayInputStream(inflated, 0, length);
+    }
+
+    /**
+     * Compress and write a chunk, replacing any existing one. The chunk stays in its sectors if it fits, otherwise it is
+     * moved to free sectors and its old sectors are freed afterwards.
+     *
+     * @param localX the chunk x coordinate within the region, 0 to 31
+     * @param localZ the chunk z coordinate within the region, 0 to 31
+     * @param chunk  the chunk tag
+     * @throws IOException if the chunk cannot be written
+     */
+    public void writeChunk(int localX, int localZ, LinCompoundTag chunk) throws IOException {
+        compressed.reset();
+        deflater.reset();
+        DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(compressed, deflater, 8192));
+        LinBinaryIO.write(out, new LinRootEntry("", chunk));
+        out.close();
+        byte[] data = compressed.toByteArray();
+
+        Path external = getExternalPath(localX, localZ);
+        int version = VERSION_DEFLATE;
+        int sectors = sectors(data.length);
+        if (sectors > MAX_SECTORS) {
+            // Too large for the region file, the server keeps these in a file of their own
+            Files.write(external, data);
+            version |= VERSION_EXTERNAL;
+            data = new byte[0];
+            sectors = 1;
+        } else {
+            Files.deleteIfExists(external);
+        }
+
+        int index = index(localX, localZ);
+        int previous = offsets[index];
+        int sector;
+        if (previous != 0 && sectors <= (previous & 0xFF)) {
+            sector = previous >>> 8;
+        } else {
+            sector = allocate(sectors);
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(sectors * SECTOR_BYTES);
+        buffer.putInt(data.length + 1).put((byte) version).put(data).clear();
+        long position = (long) sector * SECTOR_BYTES;
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+        fileSize = Math.max(fileSize, position);
+        setOffset(index, sector << 8 | sectors);
+        if (previous != 0) {
+            int previousSector = previous >>> 8;
+            int previousEnd = previousSector + (previous & 0xFF);
+            if (previousSector == sector) {
+                usedSectors.clear(sector + sectors, previousEnd);
+            } else {
+                usedSectors.clear(previousSector, previousEnd);
+            }
+        }
+    }
+
+    /**
+     * Delete a chunk, the server generates it again when it is next loaded.
+     *
+     * @param localX the chunk x coordinate within the region, 0 to 31
+     * @param localZ the chunk z coordinate within the region, 0 to 31
+     * @return if the chunk existed
+     * @throws IOException if an external chunk file cannot be deleted
+     */
+    public boolean deleteChunk(int localX, int localZ) throws IOException {
+        int index = index(localX, localZ);
+        int previous = offsets[index];
+        if (previous == 0) {
+            return false;
+        }
+        setOffset(index, 0);
+        usedSectors.clear(previous >>> 8, (previous >>> 8) + (previous & 0xFF));
+        Files.deleteIfExists(getExternalPath(localX, localZ));
+        return true;
+    }
+
+    private void setOffset(int index, int offset) {
+        offsets[index] = offset;
+        header.putInt(index << 2, offset);
+        header.putInt(SECTOR_BYTES + (index << 2), offset == 0 ? 0 : (int) (System.currentTimeMillis() / 1000L));
+        modified = true;
+    }
+
+    private static int sectors(int compressedLength) {
+        return (compressedLength + CHUNK_HEADER_SIZE + SECTOR_BYTES - 1) / SECTOR_BYTES;
+    }
+
+    /**
+     * Find the first run of free sectors large enough, which may extend past the end of the file.
+     */
+    private int allocate(int sectors) {
+        int start = usedSectors.nextClearBit(HEADER_SECTORS);
+        while (true) {
+            int end = usedSectors.nextSetBit(start);
+            if (end == -1 || end - start >= sectors) {
+                break;
+            }
+            start = usedSectors.nextClearBit(end);
+        }
+        usedSectors.set(start, start + sectors);
+        return start;
+    }
+
+    private Path getExternalPath(int localX, int localZ) {
+        int chunkX = (regionX << 5) + (localX & 31);
+        int chunkZ = (regionZ << 5) + (localZ & 31);
+        return path.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+    }
+
+    /**
+     * Flush the header and truncate any free sectors at the end of the file.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            if (modified) {
+                header.force();
+            }
+            // Some platforms refuse to truncate a file while any part of it is mapped
+            unmap(mapped);
+            unmap(header);
+            long usedSize = (long) usedSectors.length() * SECTOR_BYTES;
+            if (modified && usedSize < fileSize) {
+                channel.truncate(usedSize);
+            }
+            if (modified) {
+                channel.force(false);
+            }
+        } finally {
+            inflater.end();
+            deflater.end();
+            channel.close();
+        }
+    }
+
+}
@@ -0,0 +1,308 @@
+package com.fastasyncworldedit.core.anvil;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.extent.filter.block.CharFilterBlock;
+import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
+import com.fastasyncworldedit.core.queue.Filter;
+import com.fastasyncworldedit.core.queue.implementation.QueueHandler;
+import com.fastasyncworldedit.core.queue.implementation.blocks.CharSetBlocks;
+import com.sk89q.worldedit.extent.NullExtent;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import org.apache.logging.log4j.Logger;
+import org.enginehub.linbus.tree.LinCompoundTag;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * Runs jobs over every chunk in the region files of a world that isn't loaded, without involving the server. Region files
+ * are processed in parallel on the primary pool of the {@link QueueHandler}, each one by a single thread reading,
+ * changing and rewriting its chunks in place.
+ *
+ * <p>The world must not be loaded while a job runs, the server would overwrite the changes or read half written
+ * chunks.</p>
+ *
+ * @since TODO
+ */
+public class MCAQueue {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    // Region files sharing the chunk positions of a region file, removed together with its chunks
+    private static final String[] CHUNK_DATA_FOLDERS = {"entities", "poi"};
+
+    private final Path regionFolder;
+    @Nullable
+    private final QueueHandler handler;
+
+    /**
+     * Create a queue for the region files of a world, run on the primary pool of the {@link QueueHandler}.
+     *
+     * @param regionFolder the {@code region} folder of the world, or of one of its dimensions
+     */
+    public MCAQueue(Path regionFolder) {
+        this(regionFolder, Fawe.instance().getQueueHandler());
+    }
+
+    /**
+     * Create a queue for the region files of a world.
+     *
+     * @param regionFolder the {@code region} folder of the world, or of one of its dimensions
+     * @param handler      the queue handler to run on, or {@code null} for the common pool
+     */
+    public MCAQueue(Path regionFolder, @Nullable QueueHandler handler) {
+        this.regionFolder = regionFolder;
+        this.handler = handler;
+    }
+
+    /**
+     * A job run on every chunk, from any thread.
+     */
+    @FunctionalInterface
+    public interface ChunkFunction {
+
+        /**
+         * Process a chunk.
+         *
+         * @param file   the region file of the chunk
+         * @param localX the chunk x coordinate within the region, 0 to 31
+         * @param localZ the chunk z coordinate within the region, 0 to 31
+         * @param chunk  the chunk tag
+         * @return {@code chunk} to leave the chunk as it is, another tag to replace it with, or {@code null} to delete it
+         * @throws IOException if the chunk cannot be processed, the rest of its region file is skipped
+         */
+        @Nullable
+        LinCompoundTag apply(MCAFile file, int localX, int localZ, LinCompoundTag chunk) throws IOException;
+
+    }
+
+    /**
+     * Run a job on every chunk of every region file. Chunks that cannot be read are logged and skipped, as are region
+     * files that cannot be opened; a region file left without any chunk is deleted. Deleting a chunk deletes its entities
+     * and points of interest too.
+     *
+     * @param function the job, which must be thread safe
+     * @return the number of chunks changed or deleted
+     * @throws IOException if the region folder cannot be listed
+     */
+    public int forEachChunk(ChunkFunction function) throws IOException {
+        List<Path> files;
+        try (Stream<Path> stream = Files.list(regionFolder)) {
+            files = stream.filter(MCAFile::isRegionFile).sorted().toList();
+        }
+        AtomicInteger changed = new AtomicInteger();
+        List<ForkJoinTask<?>> tasks = files.stream()
+                .<ForkJoinTask<?>>map(path -> ForkJoinTask.adapt(() -> {
+                    changed.addAndGet(processFile(path, function));
+                }))
+                .toList();
+        Runnable all = () -> ForkJoinTask.invokeAll(tasks);
+        ForkJoinTask<?> submitted = handler != null ? handler.submit(all) : ForkJoinPool.commonPool().submit(all);
+        submitted.join();
+        return changed.get();
+    }
+
+    private int processFile(Path path, ChunkFunction function) {
+        int changed = 0;
+        BitSet deleted = new BitSet();
+        boolean empty;
+        try (MCAFile file = new MCAFile(path)) {
+            for (int localZ = 0; localZ < 32; localZ++) {
+                for (int localX = 0; localX < 32; localX++) {
+                    if (!file.hasChunk(localX, localZ)) {
+                        continue;
+                    }
+                    LinCompoundTag chunk;
+                    try {
+                        chunk = file.readChunk(localX, localZ);
+                    } catch (IOException e) {
+                        LOGGER.warn("Skipping unreadable chunk {},{} of {}", localX, localZ, path, e);
+                        continue;
+                    }
+                    LinCompoundTag result = function.apply(file, localX, localZ, chunk);
+                    if (result == null) {
+                        file.deleteChunk(localX, localZ);
+                        deleted.set(localX | localZ << 5);
+                        changed++;
+                    } else if (result != chunk) {
+                        file.writeChunk(localX, localZ, result);
+                        changed++;
+                    }
+                }
+            }
+            empty = file.isEmpty();
+        } catch (IOException e) {
+            LOGGER.error("Failed to process region file {}", path, e);
+            return changed;
+        }
+        if (!deleted.isEmpty()) {
+            for (String folder : CHUNK_DATA_FOLDERS) {
+                deleteChunks(regionFolder.resolveSibling(folder).resolve(path.getFileName()), deleted);
+            }
+        }
+        if (empty) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete empty region file {}", path, e);
+            }
+        }
+        return changed;
+    }
+
+    private static void deleteChunks(Path path, BitSet chunks) {
+        if (!MCAFile.isRegionFile(path)) {
+            return;
+        }
+        boolean empty;
+        try (MCAFile file = new MCAFile(path)) {
+            for (int index = chunks.nextSetBit(0); index >= 0; index = chunks.nextSetBit(index + 1)) {
+                file.deleteChunk(index & 31, index >> 5);
+            }
+            empty = file.isEmpty();
+        } catch (IOException e) {
+            LOGGER.error("Failed to delete chunks from {}", path, e);
+            return;
+        }
+        if (empty) {
+            try {
+                Files.deleteIfExists(path);
+            } catch (IOException e) {
+                LOGGER.warn("Failed to delete empty region file {}", path, e);
+            }
+        }
+    }
+
+    /**
+     * Apply a filter to every block of every chunk, like {@link com.fastasyncworldedit.core.queue.IQueueExtent#apply}
+     * does for a loaded world. Each thread works with its own {@link Filter#fork()} of the filter, which is joined once
+     * all region files are done.
+     *
+     * <p>Chunks are filtered one at a time: blocks of neighbouring chunks read as air, and {@link Filter#applyChunk} and
+     * {@link Filter#finishChunk} are not called as there is no loaded chunk to pass. Chunks in formats older than 1.18 or
+     * with blocks unknown to the platform are left untouched.</p>
+     *
+     * @param filter the filter
+     * @param <F>    the filter type
+     * @return the filter
+     * @throws IOException if the region folder cannot be listed
+     */
+    public <F extends Filter> F filterWorld(F filter) throws IOException {
+        Map<Thread, FilterState> states = new ConcurrentHashMap<>();
+        forEachChunk((file, localX, localZ, tag) -> {
+            FilterState state = states.computeIfAbsent(Thread.currentThread(), __ -> new FilterState(filter.fork()));
+            MCAChunk chunk;
+            try {
+                chunk = MCAChunk.read(tag);
+            } catch (DataException e) {
+                LOGGER.debug("Skipping chunk {},{} of {}: {}", localX, localZ, file.getPath(), e.getMessage());
+                return tag;
+            }
+            if (chunk == null) {
+                return tag;
+            }
+            return state.filter(chunk) ? chunk.write() : tag;
+        });
+        filter.join();
+        return filter;
+    }
+
+    /**
+     * The fork of the filter and the filter block of a thread.
+     */
+    private static final class FilterState {
+
+        private final Filter filter;
+        private final ChunkExtent extent = new ChunkExtent();
+        private final ChunkFilterBlock block = new CharFilterBlock(extent);
+
+        private FilterState(Filter filter) {
+            this.filter = filter;
+        }
+
+        private boolean filter(MCAChunk chunk) {
+            CharSetBlocks set = CharSetBlocks.newInstance(chunk.getX(), chunk.getZ());
+            extent.chunk = chunk;
+            try {
+                block.initChunk(chunk.getX(), chunk.getZ());
+                for (int layer = chunk.getMinSectionPosition(); layer <= chunk.getMaxSectionPosition(); layer++) {
+                    if (chunk.hasSection(layer)) {
+                        block.initLayer(chunk, set, layer);
+                        block.filter(filter);
+                    }
+                }
+                return chunk.apply(set) || chunk.isChanged();
+            } finally {
+                extent.chunk = null;
+                set.recycle();
+            }
+        }
+
+    }
+
+    /**
+     * The extent of the filter block, reading the chunk being filtered.
+     */
+    private static final class ChunkExtent extends NullExtent {
+
+        private MCAChunk chunk;
+
+        private boolean contains(int x, int z) {
+            return chunk != null && x >> 4 == chunk.getX() && z >> 4 == chunk.getZ();
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return getBlock(position.x(), position.y(), position.z());
+        }
+
+        @Override
+        public BlockState getBlock(int x, int y, int z) {
+            if (contains(x, z)) {
+                return chunk.getBlock(x & 15, y, z & 15);
+            }
+            return super.getBlock(BlockVector3.at(x, y, z));
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return getFullBlock(position.x(), position.y(), position.z());
+        }
+
+        @Override
+        public BaseBlock getFullBlock(int x, int y, int z) {
+            if (contains(x, z)) {
+                return chunk.getFullBlock(x & 15, y, z & 15);
+            }
+            return super.getFullBlock(BlockVector3.at(x, y, z));
+        }
+
+        @Override
+        public BiomeType getBiome(BlockVector3 position) {
+            if (contains(position.x(), position.z())) {
+                BiomeType biome = chunk.getBiomeType(position.x() & 15, position.y(), position.z() & 15);
+                if (biome != null) {
+                    return biome;
+                }
+            }
+            return super.getBiome(position);
+        }
+
+    }
+
+}
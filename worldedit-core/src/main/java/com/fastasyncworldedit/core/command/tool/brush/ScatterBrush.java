@@ -3,7 +3,7 @@
 import com.fastasyncworldedit.core.function.mask.AdjacentAnyMask;
 import com.fastasyncworldedit.core.function.mask.RadiusMask;
 import com.fastasyncworldedit.core.function.mask.SurfaceMask;
-import com.fastasyncworldedit.core.math.BlockVectorSet;
+import com.fastasyncworldedit.core.math.BitmapBlockVectorSet;
 import com.fastasyncworldedit.core.math.LocalBlockVectorSet;
 import com.fastasyncworldedit.core.util.collection.BlockVector3Set;
 import com.sk89q.worldedit.EditSession;
@@ -56,10 +56,11 @@ public void build(EditSession editSession, BlockVector3 position, Pattern patter
         RecursiveVisitor visitor = new RecursiveVisitor(new MaskIntersection(radius, surface), function -> true,
                 Integer.MAX_VALUE, editSession.getMinY(), editSession.getMaxY()
         );
+        BitmapBlockVectorSet visited = new BitmapBlockVectorSet();
+        visitor.setVisited(visited);
         visitor.visit(position);
         visitor.setDirections(Arrays.asList(BreadthFirstSearch.DIAGONAL_DIRECTIONS));
         Operations.completeBlindly(visitor);
-        BlockVectorSet visited = visitor.getVisited();
         int length = visited.size();
         if (size == 0) {
             length = 1;
@@ -537,6 +537,25 @@ public static class HISTORY {
                 " - levels over 6 require ZSTD 1.4.8+ to be installed to the system"
         })
         public int COMPRESSION_LEVEL = 3;
+        @Comment({
+                "The codec history is compressed with:",
+                " - LZ4 = the passes given by compression-level (default)",
+                " - ZSTD = Zstandard at zstd-level, usually smaller files at a similar speed",
+                " - A compression-level of 0 still stores history uncompressed",
+                " - History written with either codec remains readable after switching",
+        })
+        public String COMPRESSION_CODEC = "LZ4";
+        @Comment({
+                "The Zstandard level, from 1 (fastest) to 22 (smallest)",
+                " - Only used with compression-codec: ZSTD",
+        })
+        public int ZSTD_LEVEL = 3;
+        @Comment({
+                "Train a Zstandard dictionary on the first history written and compress with it from then on:",
+                " - Greatly improves the ratio of small chunk frames",
+                " - Dictionaries are saved to the zstd folder and must not be deleted while history uses them",
+        })
+        public boolean ZSTD_DICTIONARY = true;
         @Comment({
                 "The buffer size for compression:",
                 " - Larger = better ratio but uses more upfront memory",
@@ -569,6 +588,18 @@ public static class HISTORY {
                 " - Reduces history size by ~10%",
         })
         public boolean SMALL_EDITS = false;
+        @Comment({
+                "Store block history on disk in independently compressed chunk frames with an index:",
+                " - Undo and rollback of a small area only read the chunks within it",
+                " - Existing history files remain readable",
+        })
+        public boolean CHUNK_INDEXED = false;
+        @Comment({
+                "Undo and redo the block changes of chunk indexed history on several threads, one chunk at a time:",
+                " - Only used with parallel-threads > 1, when the edit's queue processes its changes and when no blocks are",
+                "   taken from or given to an inventory",
+        })
+        public boolean PARALLEL_UNDO = false;
 
     }
 
@@ -601,8 +632,18 @@ public static class QUEUE {
                 "    -10 = Allocate 10ms less for chunk placement",
                 "Too high can cause lag spikes (you might be okay with this)",
                 "Too low will result in slow edits",
+                "The time FAWE may take per tick never exceeds target-mspt plus this",
         })
         public int EXTRA_TIME_MS = 0;
+        @Comment({
+                "The tick duration (ms) to keep the server within while placing chunks",
+                " - The time FAWE may take per tick shrinks by however much a tick takes longer than this",
+                "   and grows back by 1ms per tick that does not",
+                " - On Paper, a tick lasts as long as the server works on it (its MSPT)",
+                " - Elsewhere, a tick lasts from its start to the start of the next tick, so it is never shorter than 50ms",
+                " - Chunks nearest to players are placed first",
+        })
+        public int TARGET_MSPT = 50;
 
         @Comment({
                 "Loading the right amount of chunks beforehand can speed up operations",
@@ -640,6 +681,21 @@ public static class QUEUE {
         @ComputedFrom(node = "queue.parallel-threads", computer = ConfigOptComputation.THREAD_TARGET_SIZE_COMPUTATION.class)
         public int THREAD_TARGET_SIZE_PERCENT = 100 * 2 / Runtime.getRuntime().availableProcessors();
 
+        @Comment({
+                "Sections with at most this many blocks changed by an edit are sent to players as block changes",
+                " - Sends far less than the whole chunk for small edits, such as brush strokes",
+                " - Chunks with changed biomes, block entities or lighting are always sent whole",
+                " - 0 = Always send whole chunks, 512 is a sensible value",
+        })
+        public int SECTION_DELTA_MAX_BLOCKS = 0;
+
+        @Comment({
+                "How many bytes of chunk packets are sent to a player per tick after edits",
+                " - Packets above the limit are sent in the following ticks, a newer packet of a whole chunk replacing them",
+                " - 0 = No limit, 1048576 (1 MiB) is a sensible value",
+        })
+        public int PACKET_BYTES_PER_PLAYER_TICK = 0;
+
         public static class PROGRESS {
 
             @Comment({"Display constant titles about the progress of a user's edit",
@@ -730,6 +786,20 @@ public static class EXPERIMENTAL {
         })
         public boolean USE_VECTOR_API = false;
 
+        @Comment({
+                "Run flood fills (//fill, //fillr, //drain, //fixwater, //fixlava) on several threads, one level at a time",
+                " - Each thread edits its own chunks, the filled blocks are the same as when filling on a single thread",
+                " - Patterns that depend on the order blocks are placed in may give different results"
+        })
+        public boolean PARALLEL_FLOOD_FILL = false;
+
+        @Comment({
+                "Generate //generate shapes on several threads, each with its own copy of the expression",
+                " - Each thread edits its own chunks",
+                " - Expressions using random() or megabuf() may give different results"
+        })
+        public boolean PARALLEL_SHAPE_GENERATION = false;
+
     }
 
     @Comment({"Web/HTTP connection related settings"})
@@ -814,6 +884,49 @@ public static class CLIPBOARD {
                 " - levels over 6 require ZSTD 1.4.8+ to be installed to the system"
         })
         public int COMPRESSION_LEVEL = 1;
+        @Comment({
+                "Store compressed clipboards in memory as sections with their own palette, like chunks, instead of compressing them",
+                " - Reading and writing blocks does not need to decompress anything",
+                " - Pastes whole chunk sections at once",
+                " - Only used if use-disk is disabled and compression-level is not 0",
+        })
+        public boolean USE_SECTIONS = true;
+        @Comment({
+                "Share schematics loaded by several players or brushes instead of holding a copy for each",
+                " - A schematic is copied once it is changed, e.g. by //paste -o into it, not when it is rotated",
+                " - Schematics nothing uses are kept to be loaded again until memory runs low",
+                " - Only used if use-disk is disabled",
+        })
+        public boolean SHARE_SCHEMATICS = false;
+        @Comment({
+                "Read and write sponge (.schem) schematics on several threads",
+                " - Decompressing, decoding and loading the blocks of a schematic overlap while reading it",
+                " - The blocks of disk and sectioned clipboards are encoded in parallel while writing them",
+        })
+        public boolean PARALLEL_SCHEMATIC_IO = true;
+        @Comment({
+                "Allow pasting sponge v3 (.schem) schematics while they are read with //schem load -p",
+                " - Blocks are pasted as soon as they are decoded, without loading the schematic into a clipboard",
+                " - Biomes and entities are not pasted",
+        })
+        public boolean STREAMED_PASTE = false;
+        @Comment({
+                "The codec clipboards are compressed with:",
+                " - LZ4 = the compression given by compression-level (default)",
+                " - ZSTD = Zstandard at zstd-level",
+                " - A compression-level of 0 still leaves clipboards uncompressed",
+        })
+        public String COMPRESSION_CODEC = "LZ4";
+        @Comment({
+                "The Zstandard level, from 1 (fastest) to 22 (smallest)",
+                " - Only used with compression-codec: ZSTD",
+        })
+        public int ZSTD_LEVEL = 3;
+        @Comment({
+                "Train a Zstandard dictionary on the first clipboards and compress with it from then on",
+                " - Dictionaries are saved to the zstd folder and must not be deleted while clipboards use them",
+        })
+        public boolean ZSTD_DICTIONARY = true;
         @Comment("Number of days to keep history on disk before deleting it")
         public int DELETE_AFTER_DAYS = 1;
         @Comment({
@@ -847,6 +960,7 @@ public static class LIGHTING {
                 " - 0 = None (Do no relighting)",
                 " - 1 = Optimal (Relight changed light sources and changed blocks)",
                 " - 2 = All (Slowly relight every blocks)",
+                " - 3 = Streamed (Optimal, sending chunks to players as they are relit instead of once all are)",
         })
         public int MODE = 1;
         @Comment({"If existing lighting should be removed before relighting"})
@@ -871,6 +985,19 @@ public static class GENERAL {
         })
         public boolean LIMIT_UNLIMITED_SKIPS_CREATURE_SPAWN_EVENTS = true;
 
+        @Comment({
+                "How long (in seconds) a world created to regenerate chunks is kept after regenerating",
+                " - The next regeneration of the same world with the same seed and biome reuses it rather than creating a world",
+                " - Chunks it generated stay loaded in it until it is closed, using more memory for higher values",
+                " - 0 = Create a world for every regeneration, 60 is a sensible value",
+        })
+        public int REGEN_WORLD_KEEP_ALIVE = 0;
+
+        @Comment({
+                "How many worlds created to regenerate chunks are kept per world, seed and biome",
+        })
+        public int REGEN_WORLD_POOL_SIZE = 2;
+
     }
 
 }
@@ -21,6 +21,7 @@
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
@@ -32,12 +33,15 @@
 public class RollbackDatabase extends AsyncNotifyQueue {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
+    private static final int BATCH_SIZE = 4096;
 
     private final String prefix;
     private final File dbLocation;
     private final World world;
     private final ConcurrentLinkedQueue<RollbackOptimizedHistory> historyChanges = new ConcurrentLinkedQueue<>();
     private Connection connection;
+    // whether the bounding boxes and times of edits are kept in an R*Tree, see createSpatialIndex
+    private boolean spatialIndex;
 
     RollbackDatabase(World world) throws SQLException, ClassNotFoundException {
         super((t, e) -> e.printStackTrace());
@@ -97,10 +101,47 @@ public Future<Boolean> init() {
                     stmt.executeUpdate();
                 }
             }
+            spatialIndex = createSpatialIndex();
             return true;
         });
     }
 
+    /**
+     * Create the R*Tree holding the bounding box and time of every edit, kept up to date by triggers on the edits table so
+     * lookups by position do not need to scan every edit of the world.
+     *
+     * @return false if the SQLite build lacks the R*Tree module, lookups then fall back to the edits table
+     */
+    private boolean createSpatialIndex() {
+        String index = this.prefix + "_edits_index";
+        String edits = this.prefix + "_edits";
+        try (Statement stmt = connection.createStatement()) {
+            boolean exists;
+            try (ResultSet result = stmt.executeQuery("SELECT 1 FROM `sqlite_master` WHERE `name`='" + index + "'")) {
+                exists = result.next();
+            }
+            stmt.executeUpdate("CREATE VIRTUAL TABLE IF NOT EXISTS `" + index + "` USING rtree_i32(`id`, `x1`, `x2`, `z1`, " +
+                    "`z2`, `y1`, `y2`, `t1`, `t2`)");
+            String insert = "INSERT INTO `" + index + "` VALUES (new.rowid, new.x1, new.x2, new.z1, new.z2, new.y1, new.y2, " +
+                    "new.time, new.time);";
+            String delete = "DELETE FROM `" + index + "` WHERE `id` = old.rowid;";
+            stmt.executeUpdate("CREATE TRIGGER IF NOT EXISTS `" + index + "_insert` AFTER INSERT ON `" + edits + "` BEGIN " +
+                    insert + " END");
+            stmt.executeUpdate("CREATE TRIGGER IF NOT EXISTS `" + index + "_delete` AFTER DELETE ON `" + edits + "` BEGIN " +
+                    delete + " END");
+            stmt.executeUpdate("CREATE TRIGGER IF NOT EXISTS `" + index + "_update` AFTER UPDATE ON `" + edits + "` BEGIN " +
+                    delete + " " + insert + " END");
+            if (!exists) {
+                stmt.executeUpdate("INSERT INTO `" + index + "` SELECT rowid, x1, x2, z1, z2, y1, y2, time, time FROM `" + edits
+                        + "`");
+            }
+            return true;
+        } catch (SQLException e) {
+            LOGGER.warn("Could not create a spatial index for the edits of {}, looking up edits will be slower", world.getName(), e);
+            return false;
+        }
+    }
+
     public Future<Integer> delete(UUID uuid, int id) {
         return call(() -> {
             try (PreparedStatement stmt = connection.prepareStatement("DELETE FROM`" + this.prefix + "_edits` WHERE `player`=? " +
@@ -180,23 +221,38 @@ public Iterable<Supplier<RollbackOptimizedHistory>> getEdits(
         Future<Integer> future = call(() -> {
             try {
                 int count = 0;
-                String stmtStr = """
-                                SELECT * FROM `%s_edits`
-                                  WHERE `time` > ?
-                                    AND `x2` >= ?
-                                    AND `x1` <= ?
-                                    AND `z2` >= ?
-                                    AND `z1` <= ?
-                                    AND `y2` >= ?
-                                    AND `y1` <= ?
-                                """;
+                String stmtStr;
+                if (spatialIndex) {
+                    stmtStr = """
+                            SELECT `e`.* FROM `%1$s_edits_index` `r`
+                              JOIN `%1$s_edits` `e` ON `e`.`rowid` = `r`.`id`
+                              WHERE `r`.`t2` > ?
+                                AND `r`.`x2` >= ?
+                                AND `r`.`x1` <= ?
+                                AND `r`.`z2` >= ?
+                                AND `r`.`z1` <= ?
+                                AND `r`.`y2` >= ?
+                                AND `r`.`y1` <= ?
+                            """;
+                } else {
+                    stmtStr = """
+                            SELECT * FROM `%1$s_edits` `e`
+                              WHERE `time` > ?
+                                AND `x2` >= ?
+                                AND `x1` <= ?
+                                AND `z2` >= ?
+                                AND `z1` <= ?
+                                AND `y2` >= ?
+                                AND `y1` <= ?
+                            """;
+                }
                 if (uuid != null) {
-                    stmtStr += "\n    AND `player`= ?";
+                    stmtStr += "\n    AND `e`.`player`= ?";
                 }
                 if (ascending) {
-                    stmtStr += "\n  ORDER BY `time` ASC, `id` ASC";
+                    stmtStr += "\n  ORDER BY `e`.`time` ASC, `e`.`id` ASC";
                 } else {
-                    stmtStr += "\n  ORDER BY `time` DESC, `id` DESC";
+                    stmtStr += "\n  ORDER BY `e`.`time` DESC, `e`.`id` DESC";
                 }
                 try (PreparedStatement stmt = connection.prepareStatement(stmtStr.formatted(this.prefix))) {
                     stmt.setInt(1, (int) (minTime / 1000));
@@ -274,6 +330,7 @@ private boolean sendBatch() throws SQLException {
         try (PreparedStatement stmt = connection.prepareStatement("INSERT OR REPLACE INTO`" + this.prefix + "_edits`" +
                 " (`player`,`id`,`time`,`x1`,`x2`,`z1`,`z2`,`y1`,`y2`,`command`,`size`) VALUES(?,?,?,?,?,?,?,?,?,?,?)")) {
             // `player`,`id`,`time`,`x1`,`x2`,`z1`,`z2`,`y1`,`y2`,`command`,`size`) VALUES(?,?,?,?,?,?,?,?,?,?,?)"
+            int batched = 0;
             for (RollbackOptimizedHistory change : copy) {
                 UUID uuid = change.getUUID();
                 byte[] uuidBytes = toBytes(uuid);
@@ -293,8 +350,14 @@ private boolean sendBatch() throws SQLException {
                 stmt.setInt(9, pos2.y() - 128);
                 stmt.setString(10, change.getCommand());
                 stmt.setLong(11, change.longSize());
-                stmt.executeUpdate();
-                stmt.clearParameters();
+                stmt.addBatch();
+                if (++batched == BATCH_SIZE) {
+                    stmt.executeBatch();
+                    batched = 0;
+                }
+            }
+            if (batched > 0) {
+                stmt.executeBatch();
             }
         } finally {
             commit();
@@ -334,12 +397,21 @@ private Connection openConnection() throws SQLException, ClassNotFoundException
         }
         Class.forName("org.sqlite.JDBC");
         connection = DriverManager.getConnection("jdbc:sqlite:" + dbLocation);
+        configure(connection);
         return connection;
     }
 
+    private static void configure(Connection connection) throws SQLException {
+        try (Statement stmt = connection.createStatement()) {
+            // INSERT OR REPLACE must fire the delete trigger of the spatial index for the replaced row
+            stmt.execute("PRAGMA recursive_triggers = ON");
+        }
+    }
+
     private Connection forceConnection() throws SQLException, ClassNotFoundException {
         Class.forName("org.sqlite.JDBC");
         connection = DriverManager.getConnection("jdbc:sqlite:" + dbLocation);
+        configure(connection);
         return connection;
     }
 
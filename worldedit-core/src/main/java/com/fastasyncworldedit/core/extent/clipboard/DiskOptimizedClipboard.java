@@ -7,6 +7,7 @@
 import com.fastasyncworldedit.core.math.IntTriple;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.fastasyncworldedit.core.util.MainUtil;
+import com.fastasyncworldedit.core.util.ZstdCompression;
 import com.fastasyncworldedit.core.util.NbtUtils;
 import com.fastasyncworldedit.core.util.ReflectionUtils;
 import com.google.common.collect.Collections2;
@@ -67,18 +68,24 @@ public class DiskOptimizedClipboard extends LinearClipboard {
     private static final int VERSION_1_HEADER_SIZE = 22; // Header size of "version 1"
     private static final int VERSION_2_HEADER_SIZE = 27; // Header size of "version 2" i.e. when NBT/entities could be saved
     private static final Map<String, LockHolder> LOCK_HOLDER_CACHE = new ConcurrentHashMap<>();
+    // The file is mapped in windows of 1 GiB, as a single mapping can't exceed 2 GiB
+    private static final int WINDOW_SHIFT = 30;
+    private static final int WINDOW_SIZE = 1 << WINDOW_SHIFT;
+    private static final int WINDOW_MASK = WINDOW_SIZE - 1;
 
     private final HashMap<IntTriple, FaweCompoundTag> nbtMap;
     private final File file;
     private final int headerSize;
 
     private RandomAccessFile braf;
+    // The first window, holding the header
     private MappedByteBuffer byteBuffer = null;
+    private MappedByteBuffer[] buffers = null;
 
     private FileChannel fileChannel = null;
     private boolean hasBiomes = false;
-    private boolean canHaveBiomes = true;
-    private int nbtBytesRemaining;
+    // The footer is mapped on its own, so it only needs to fit a single mapping
+    private int nbtBytesRemaining = Integer.MAX_VALUE;
 
     /**
      * Creates a new DiskOptimizedClipboard for the given region. Creates or overwrites a file using the given UUID as a name.
@@ -120,13 +127,6 @@ public DiskOptimizedClipboard(BlockVector3 dimensions) {
     public DiskOptimizedClipboard(BlockVector3 dimensions, File file) {
         super(dimensions, BlockVector3.ZERO);
         headerSize = HEADER_SIZE;
-        if (headerSize + ((long) getVolume() << 1) >= Integer.MAX_VALUE) {
-            throw new IllegalArgumentException(
-                    "Dimensions too large for this clipboard format. Use //lazycopy for large selections.");
-        } else if (headerSize + ((long) getVolume() << 1) + (long) ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1) >= Integer.MAX_VALUE) {
-            LOGGER.error("Dimensions are too large for biomes to be stored in a DiskOptimizedClipboard");
-            canHaveBiomes = false;
-        }
         nbtMap = new HashMap<>();
         try {
             this.file = file;
@@ -142,10 +142,9 @@ public DiskOptimizedClipboard(BlockVector3 dimensions, File file) {
                 e.printStackTrace();
             }
             this.braf = new RandomAccessFile(file, "rw");
-            long fileLength = (long) (getVolume() << 1) + (long) headerSize;
+            long fileLength = ((long) getVolume() << 1) + (long) headerSize;
             braf.setLength(0);
             braf.setLength(fileLength);
-            this.nbtBytesRemaining = nbtBytesRemaining(fileLength);
             init();
             // write getLength() etc
             byteBuffer.putChar(2, (char) (VERSION));
@@ -188,11 +187,9 @@ public DiskOptimizedClipboard(File file, int versionOverride) {
             this.file = file;
             this.braf = new RandomAccessFile(file, "rw");
             braf.setLength(file.length());
-            this.nbtBytesRemaining = nbtBytesRemaining(file.length());
             init();
 
             int biomeLength = ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1);
-            canHaveBiomes = (long) headerSize + biomeLength < Integer.MAX_VALUE;
 
             if (headerSize >= VERSION_2_HEADER_SIZE) {
                 readBiomeStatusFromHeader();
@@ -201,7 +198,7 @@ public DiskOptimizedClipboard(File file, int versionOverride) {
                 if (Settings.settings().CLIPBOARD.SAVE_CLIPBOARD_NBT_TO_DISK && (nbtCount + entitiesCount > 0)) {
                     loadNBTFromFileFooter(nbtCount, entitiesCount, biomeLength);
                 }
-            } else if (canHaveBiomes && braf.length() - headerSize == ((long) getVolume() << 1) + biomeLength) {
+            } else if (braf.length() - headerSize == ((long) getVolume() << 1) + biomeLength) {
                 hasBiomes = true;
             }
             getAndSetOffsetAndOrigin();
@@ -330,28 +327,46 @@ private void init() throws IOException {
                     throw e;
                 }
             }
-            this.byteBuffer = fileChannel.map(FileChannel.MapMode.READ_WRITE, 0, getMappedLength());
+            long length = getMappedLength();
+            MappedByteBuffer[] windows = new MappedByteBuffer[(int) Math.max(1, (length + WINDOW_MASK) >> WINDOW_SHIFT)];
+            for (int i = 0; i < windows.length; i++) {
+                long start = (long) i << WINDOW_SHIFT;
+                // Windows overlap by a byte, so a char never needs to be read from two windows
+                long size = Math.min(length - start, WINDOW_SIZE + 1L);
+                windows[i] = fileChannel.map(FileChannel.MapMode.READ_WRITE, start, size);
+            }
+            this.buffers = windows;
+            this.byteBuffer = windows[0];
         }
     }
 
     private long getMappedLength() throws IOException {
         long blockLength = headerSize + ((long) getVolume() << 1);
         long biomeLength = (long) ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1);
-        long maxDataLength = blockLength + (canHaveBiomes ? biomeLength : 0L);
-        return Math.min(braf.length(), maxDataLength);
+        return Math.min(braf.length(), blockLength + biomeLength);
     }
 
-    private int nbtBytesRemaining(long fileLength) {
-        if (fileLength >= Integer.MAX_VALUE) {
-            return 0;
-        }
-        return Integer.MAX_VALUE - (int) fileLength;
+    private char getOrdinal(long position) {
+        return buffers[(int) (position >>> WINDOW_SHIFT)].getChar((int) (position & WINDOW_MASK));
+    }
+
+    private void putOrdinal(long position, char ordinal) {
+        buffers[(int) (position >>> WINDOW_SHIFT)].putChar((int) (position & WINDOW_MASK), ordinal);
+    }
+
+    private byte getByte(long position) {
+        return buffers[(int) (position >>> WINDOW_SHIFT)].get((int) (position & WINDOW_MASK));
+    }
+
+    private void putByte(long position, byte value) {
+        buffers[(int) (position >>> WINDOW_SHIFT)].put((int) (position & WINDOW_MASK), value);
+    }
+
+    private long getBiomePosition(int index) {
+        return headerSize + ((long) getVolume() << 1) + index;
     }
 
     private boolean initBiome() {
-        if (!canHaveBiomes) {
-            return false;
-        }
         if (!hasBiomes) {
             try {
                 hasBiomes = true;
@@ -362,7 +377,6 @@ private boolean initBiome() {
                 long length =
                         headerSize + ((long) getVolume() << 1) + (long) ((getHeight() >> 2) + 1) * ((getLength() >> 2) + 1) * ((getWidth() >> 2) + 1);
                 this.braf.setLength(length);
-                this.nbtBytesRemaining = nbtBytesRemaining(length);
                 init();
             } catch (IOException e) {
                 e.printStackTrace();
@@ -392,7 +406,7 @@ public boolean setBiome(int x, int y, int z, BiomeType biome) {
     public void setBiome(int index, BiomeType biome) {
         if (initBiome()) {
             try {
-                byteBuffer.put(headerSize + (getVolume() << 1) + index, (byte) biome.getInternalId());
+                putByte(getBiomePosition(index), (byte) biome.getInternalId());
             } catch (IndexOutOfBoundsException e) {
                 LOGGER.info((long) (getHeight() >> 2) * (getLength() >> 2) * (getWidth() >> 2));
                 LOGGER.info(index);
@@ -406,7 +420,7 @@ public BiomeType getBiome(int index) {
         if (!hasBiomes()) {
             return null;
         }
-        int biomeId = byteBuffer.get(headerSize + (getVolume() << 1) + index) & 0xFF;
+        int biomeId = getByte(getBiomePosition(index)) & 0xFF;
         return BiomeTypes.get(biomeId);
     }
 
@@ -415,12 +429,12 @@ public void streamBiomes(IntValueReader task) {
         if (!hasBiomes()) {
             return;
         }
-        int mbbIndex = headerSize + (getVolume() << 1);
+        long biomePosition = getBiomePosition(0);
         try {
             for (int y = 0; y < getHeight(); y++) {
                 for (int z = 0; z < getLength(); z++) {
                     for (int x = 0; x < getWidth(); x++) {
-                        int biome = byteBuffer.get(mbbIndex + getBiomeIndex(x, y, z)) & 0xFF;
+                        int biome = getByte(biomePosition + getBiomeIndex(x, y, z)) & 0xFF;
                         task.applyInt(getIndex(x, y, z), biome);
                     }
                 }
@@ -491,7 +505,9 @@ private void getAndSetOffsetAndOrigin() {
 
     @Override
     public void flush() {
-        byteBuffer.force();
+        for (MappedByteBuffer buffer : buffers) {
+            buffer.force();
+        }
     }
 
     private void closeDirectBuffer(ByteBuffer cb) {
@@ -540,13 +556,18 @@ public void close() {
                     }
                     writeBiomeStatusToHeader();
                 }
-                byteBuffer.force();
+                MappedByteBuffer[] tmpBuffers = buffers;
+                for (MappedByteBuffer buffer : tmpBuffers) {
+                    buffer.force();
+                }
                 fileChannel.close();
                 braf.close();
                 file.setWritable(true);
-                MappedByteBuffer tmpBuffer = byteBuffer;
                 byteBuffer = null;
-                closeDirectBuffer(tmpBuffer);
+                buffers = null;
+                for (MappedByteBuffer buffer : tmpBuffers) {
+                    closeDirectBuffer(buffer);
+                }
                 fileChannel = null;
                 braf = null;
             } else if (fileChannel != null) {
@@ -573,10 +594,11 @@ private void writeNBTToDisk() throws IOException {
             boolean entitiesFit = false;
             // Closing a BAOS does nothing
             ByteArrayOutputStream baOS = new ByteArrayOutputStream();
-            try (NBTOutputStream nbtOS = new NBTOutputStream(MainUtil.getCompressedOS(
-                    baOS,
-                    Settings.settings().CLIPBOARD.COMPRESSION_LEVEL
-            ))) {
+            int compression = Settings.settings().CLIPBOARD.COMPRESSION_LEVEL;
+            ZstdCompression zstd = compression == 0 ? null : ZstdCompression.clipboard();
+            try (NBTOutputStream nbtOS = new NBTOutputStream(zstd != null
+                    ? zstd.getCompressedOS(baOS, Settings.settings().HISTORY.BUFFER_SIZE)
+                    : MainUtil.getCompressedOS(baOS, compression))) {
                 if (!nbtMap.isEmpty()) {
                     try {
                         for (FaweCompoundTag tag : nbtMap.values()) {
@@ -715,8 +737,7 @@ public BaseBlock getFullBlock(int i) {
     @Override
     public BlockState getBlock(int index) {
         try {
-            int diskIndex = headerSize + (index << 1);
-            char ordinal = byteBuffer.getChar(diskIndex);
+            char ordinal = getOrdinal(headerSize + ((long) index << 1));
             return BlockState.getFromOrdinal(ordinal);
         } catch (IndexOutOfBoundsException ignored) {
         }
@@ -737,12 +758,12 @@ public boolean tile(final int x, final int y, final int z, final FaweCompoundTag
     @Override
     public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) {
         try {
-            int index = headerSize + (getIndex(x, y, z) << 1);
+            long position = headerSize + ((long) getIndex(x, y, z) << 1);
             char ordinal = block.getOrdinalChar();
             if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
                 ordinal = BlockTypesCache.ReservedIDs.AIR;
             }
-            byteBuffer.putChar(index, ordinal);
+            putOrdinal(position, ordinal);
             boolean hasNbt = block instanceof BaseBlock && block.hasNbtData();
             if (hasNbt) {
                 setTile(x, y, z, block.getNbtData());
@@ -758,8 +779,7 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B b
     public <B extends BlockStateHolder<B>> boolean setBlock(int i, B block) {
         try {
             char ordinal = block.getOrdinalChar();
-            int index = headerSize + (i << 1);
-            byteBuffer.putChar(index, ordinal);
+            putOrdinal(headerSize + ((long) i << 1), ordinal);
             boolean hasNbt = block instanceof BaseBlock && block.hasNbtData();
             if (hasNbt) {
                 int y = i / getArea();
@@ -775,6 +795,28 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int i, B block) {
         return false;
     }
 
+    @Override
+    public boolean supportsParallelReads() {
+        return true;
+    }
+
+    @Override
+    protected void readOrdinals(int x, int y, int z, int length, char[] buffer) {
+        long position = headerSize + ((long) getIndex(x, y, z) << 1);
+        MappedByteBuffer window = buffers[(int) (position >>> WINDOW_SHIFT)];
+        int offset = (int) (position & WINDOW_MASK);
+        if (offset + (length << 1) <= window.limit()) {
+            for (int i = 0; i < length; i++, offset += 2) {
+                buffer[i] = window.getChar(offset);
+            }
+        } else {
+            // the row crosses into the next window
+            for (int i = 0; i < length; i++, position += 2) {
+                buffer[i] = getOrdinal(position);
+            }
+        }
+    }
+
     private static class LockHolder {
 
         final FileLock lock;
@@ -0,0 +1,466 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.fastasyncworldedit.core.math.IntTriple;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extension.input.InputParseException;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard.ClipboardEntity;
+import com.sk89q.worldedit.extent.clipboard.io.sponge.ReaderUtil;
+import com.sk89q.worldedit.extent.clipboard.io.sponge.VersionedDataFixer;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.world.DataFixer;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.entity.EntityType;
+import com.sk89q.worldedit.world.entity.EntityTypes;
+import com.sk89q.worldedit.world.storage.NBTConversions;
+import net.jpountz.lz4.LZ4Factory;
+import net.jpountz.lz4.LZ4FastDecompressor;
+import org.apache.logging.log4j.Logger;
+import org.enginehub.linbus.stream.LinBinaryIO;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinRootEntry;
+import org.enginehub.linbus.tree.LinTagType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * A read-only clipboard reading an indexed schematic file as it is used. The blocks and biomes of an indexed schematic are
+ * split into regions of 16x16x16 blocks, each compressed on its own and found through an offset table, so opening the file
+ * only reads its header and palettes. Regions are decompressed once read, and only the most recently read ones are kept in
+ * memory. Block entities and entities are read once first needed.
+ * <p>
+ * Coordinates are relative to the minimum point of the schematic, like the storage of a
+ * {@link com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard}. Blocks may be read from several threads at once.
+ * <p>
+ * The file starts with a header of {@link #HEADER_SIZE} bytes: the magic number, format version, data version, the
+ * dimensions, the offset of the minimum point from the origin, the origin, and whether biomes are stored. The compressed
+ * regions follow, ordered by x, then z, then y, each holding the palette indices of its 4096 blocks in y, z, x order, and
+ * of its 64 biome cells if biomes are stored, as big-endian chars. The gzip compressed block entities and entities are
+ * written next, then the footer: the offset of every region and of the block entities, followed by the block and biome
+ * palettes. The file ends with the offset of the footer and the magic number again.
+ *
+ * @since TODO
+ */
+public class IndexedSchematicClipboard extends ReadOnlyClipboard {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    public static final int MAGIC = 0x46415749;
+    public static final short VERSION = 1;
+    public static final int HEADER_SIZE = 47;
+    public static final int TRAILER_SIZE = 12;
+
+    public static final int REGION_BLOCKS = 4096;
+    public static final int REGION_BIOMES = 64;
+
+    // Regions kept decompressed, about 8 KiB each
+    private static final int CACHED_REGIONS = 256;
+
+    private static final LZ4FastDecompressor DECOMPRESSOR = LZ4Factory.fastestInstance().fastDecompressor();
+
+    private final FileChannel channel;
+    private final int regionsX;
+    private final int regionsZ;
+    private final int regionCount;
+    private final long footerOffset;
+    private final BlockVector3 schematicOffset;
+    private final VersionedDataFixer dataFixer;
+    private final char[] blockPalette;
+    private final BiomeType[] biomePalette;
+
+    private final LinkedHashMap<Integer, Section> sections = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Section> eldest) {
+            return size() > CACHED_REGIONS;
+        }
+    };
+
+    // guarded by this, read once first needed
+    private Map<IntTriple, LinCompoundTag> tiles;
+    private List<ClipboardEntity> entities;
+
+    private IndexedSchematicClipboard(
+            FileChannel channel,
+            BlockVector3 dimensions,
+            BlockVector3 schematicOffset,
+            long footerOffset,
+            VersionedDataFixer dataFixer,
+            char[] blockPalette,
+            BiomeType[] biomePalette
+    ) {
+        super(new CuboidRegion(BlockVector3.ZERO, dimensions.subtract(BlockVector3.ONE)));
+        this.channel = channel;
+        this.regionsX = (getWidth() + 15) >> 4;
+        this.regionsZ = (getLength() + 15) >> 4;
+        this.regionCount = regionsX * regionsZ * ((getHeight() + 15) >> 4);
+        this.footerOffset = footerOffset;
+        this.schematicOffset = schematicOffset;
+        this.dataFixer = dataFixer;
+        this.blockPalette = blockPalette;
+        this.biomePalette = biomePalette;
+    }
+
+    /**
+     * The decompressed blocks and biomes of a 16x16x16 region of the schematic.
+     *
+     * @param blocks the ordinals of the blocks
+     * @param biomes the biome palette indices of the 4x4x4 biome cells, or {@code null} if there are no biomes
+     */
+    private record Section(char[] blocks, char[] biomes) {
+
+    }
+
+    /**
+     * Open an indexed schematic, reading its header and palettes only. The channel is closed with the clipboard.
+     *
+     * @param channel the channel to read the schematic from
+     * @return the clipboard reading the schematic
+     * @throws IOException if the schematic could not be read
+     */
+    public static IndexedSchematicClipboard open(FileChannel channel) throws IOException {
+        try {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("Not an indexed schematic");
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("Unsupported indexed schematic version: " + version);
+            }
+            int dataVersion = header.getInt();
+            BlockVector3 dimensions = BlockVector3.at(header.getInt(), header.getInt(), header.getInt());
+            BlockVector3 offset = BlockVector3.at(header.getInt(), header.getInt(), header.getInt());
+            BlockVector3 origin = BlockVector3.at(header.getInt(), header.getInt(), header.getInt());
+            boolean hasBiomes = header.get() != 0;
+
+            long size = channel.size();
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_SIZE);
+            readFully(channel, trailer, size - TRAILER_SIZE);
+            trailer.flip();
+            long footerOffset = trailer.getLong();
+            if (trailer.getInt() != MAGIC) {
+                throw new IOException("Indexed schematic is incomplete");
+            }
+            long regionCount = (long) ((dimensions.x() + 15) >> 4) * ((dimensions.y() + 15) >> 4) * ((dimensions.z() + 15) >> 4);
+            long paletteOffset = footerOffset + (regionCount + 1) * Long.BYTES;
+            ByteBuffer palettes = ByteBuffer.allocate(Math.toIntExact(size - TRAILER_SIZE - paletteOffset));
+            readFully(channel, palettes, paletteOffset);
+
+            Platform platform = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING);
+            VersionedDataFixer dataFixer = ReaderUtil.getVersionedDataFixer(dataVersion, platform, platform.getDataVersion());
+            DataInputStream in = new DataInputStream(new ByteArrayInputStream(palettes.array()));
+            char[] blockPalette = new char[in.readInt()];
+            for (int i = 0; i < blockPalette.length; i++) {
+                String value = dataFixer.fixUp(DataFixer.FixTypes.BLOCK_STATE, in.readUTF());
+                try {
+                    blockPalette[i] = BlockState.get(value).getOrdinalChar();
+                } catch (InputParseException e) {
+                    LOGGER.warn("Invalid BlockState in palette: {}. Block will be replaced with air.", value);
+                    blockPalette[i] = BlockTypes.AIR.getDefaultState().getOrdinalChar();
+                }
+            }
+            BiomeType[] biomePalette = null;
+            if (hasBiomes) {
+                biomePalette = new BiomeType[in.readInt()];
+                for (int i = 0; i < biomePalette.length; i++) {
+                    String value = dataFixer.fixUp(DataFixer.FixTypes.BIOME, in.readUTF());
+                    BiomeType biomeType = BiomeTypes.get(value);
+                    if (biomeType == null) {
+                        biomeType = BiomeTypes.PLAINS;
+                        LOGGER.warn("Invalid biome type in palette: {}. Biome will be replaced with plains.", value);
+                    }
+                    biomePalette[i] = biomeType;
+                }
+            }
+            IndexedSchematicClipboard clipboard = new IndexedSchematicClipboard(
+                    channel,
+                    dimensions,
+                    offset,
+                    footerOffset,
+                    dataFixer,
+                    blockPalette,
+                    biomePalette
+            );
+            clipboard.setOrigin(origin);
+            return clipboard;
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read == -1) {
+                throw new EOFException("Indexed schematic ended unexpectedly");
+            }
+            position += read;
+        }
+    }
+
+    /**
+     * Get the region of the schematic where it was copied, to paste this clipboard at.
+     *
+     * @return the region the schematic was copied from
+     */
+    public Region getSchematicRegion() {
+        BlockVector3 min = getOrigin().add(schematicOffset);
+        return new CuboidRegion(min, min.add(getDimensions()).subtract(BlockVector3.ONE));
+    }
+
+    private int getRegionIndex(int x, int y, int z) {
+        return (x >> 4) + ((z >> 4) + (y >> 4) * regionsZ) * regionsX;
+    }
+
+    private static int getLocalIndex(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    private static int getBiomeIndex(int x, int y, int z) {
+        return (y & 12) << 2 | (z & 12) | (x & 12) >> 2;
+    }
+
+    private boolean contains(int x, int y, int z) {
+        return x >= 0 && y >= 0 && z >= 0 && x < getWidth() && y < getHeight() && z < getLength();
+    }
+
+    private Section getSection(int index) {
+        Section section;
+        synchronized (sections) {
+            section = sections.get(index);
+        }
+        if (section == null) {
+            section = readSection(index);
+            synchronized (sections) {
+                sections.put(index, section);
+            }
+        }
+        return section;
+    }
+
+    private Section readSection(int index) {
+        try {
+            ByteBuffer offsets = ByteBuffer.allocate(Long.BYTES * 2);
+            readFully(channel, offsets, footerOffset + (long) index * Long.BYTES);
+            long start = offsets.getLong(0);
+            long end = offsets.getLong(Long.BYTES);
+            ByteBuffer compressed = ByteBuffer.allocate(Math.toIntExact(end - start));
+            readFully(channel, compressed, start);
+            byte[] raw = new byte[(REGION_BLOCKS + (hasBiomes() ? REGION_BIOMES : 0)) * Character.BYTES];
+            DECOMPRESSOR.decompress(compressed.array(), 0, raw, 0, raw.length);
+            CharBuffer indices = ByteBuffer.wrap(raw).asCharBuffer();
+            char[] blocks = new char[REGION_BLOCKS];
+            for (int i = 0; i < REGION_BLOCKS; i++) {
+                blocks[i] = blockPalette[indices.get()];
+            }
+            char[] biomes = null;
+            if (hasBiomes()) {
+                biomes = new char[REGION_BIOMES];
+                indices.get(biomes);
+            }
+            return new Section(blocks, biomes);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read region " + index + " of indexed schematic", e);
+        }
+    }
+
+    private synchronized Map<IntTriple, LinCompoundTag> getTiles() {
+        if (tiles == null) {
+            readEntities();
+        }
+        return tiles;
+    }
+
+    private synchronized void readEntities() {
+        Map<IntTriple, LinCompoundTag> tiles = new HashMap<>();
+        List<ClipboardEntity> entities = new ArrayList<>();
+        try {
+            ByteBuffer offset = ByteBuffer.allocate(Long.BYTES);
+            readFully(channel, offset, footerOffset + (long) regionCount * Long.BYTES);
+            long start = offset.getLong(0);
+            ByteBuffer data = ByteBuffer.allocate(Math.toIntExact(footerOffset - start));
+            readFully(channel, data, start);
+            LinCompoundTag root = LinRootEntry.readFrom(LinBinaryIO.read(new DataInputStream(new GZIPInputStream(
+                    new ByteArrayInputStream(data.array()))))).value();
+            for (LinCompoundTag tile : root.getListTag("blocks", LinTagType.compoundTag()).value()) {
+                List<LinIntTag> pos = tile.getListTag("pos", LinTagType.intTag()).value();
+                LinCompoundTag nbt = dataFixer.fixUp(
+                        DataFixer.FixTypes.BLOCK_ENTITY,
+                        tile.getTag("nbt", LinTagType.compoundTag())
+                );
+                if (nbt != null) {
+                    tiles.put(new IntTriple(pos.get(0).valueAsInt(), pos.get(1).valueAsInt(), pos.get(2).valueAsInt()), nbt);
+                }
+            }
+            for (LinCompoundTag entity : root.getListTag("entities", LinTagType.compoundTag()).value()) {
+                LinCompoundTag nbt = entity.getTag("nbt", LinTagType.compoundTag());
+                String id = nbt.getTag("id", LinTagType.stringTag()).value();
+                EntityType type = EntityTypes.get(id);
+                if (type == null) {
+                    LOGGER.warn("Invalid entity id: {} - skipping", id);
+                    continue;
+                }
+                nbt = dataFixer.fixUp(DataFixer.FixTypes.ENTITY, nbt);
+                if (nbt == null) {
+                    LOGGER.warn("Failed to fix-up entity {} - skipping", id);
+                    continue;
+                }
+                entities.add(new ClipboardEntity(
+                        NBTConversions.toLocation(
+                                this,
+                                entity.getListTag("pos", LinTagType.doubleTag()),
+                                nbt.getListTag("Rotation", LinTagType.floatTag())
+                        ),
+                        new BaseEntity(type, LazyReference.computed(nbt))
+                ));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to read the entities of indexed schematic", e);
+        }
+        this.tiles = tiles;
+        this.entities = entities;
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        if (!contains(x, y, z)) {
+            return BlockTypes.AIR.getDefaultState();
+        }
+        return BlockState.getFromOrdinal(getSection(getRegionIndex(x, y, z)).blocks[getLocalIndex(x, y, z)]);
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        BlockState state = getBlock(x, y, z);
+        if (state.getMaterial().isTile()) {
+            LinCompoundTag tile = getTiles().get(new IntTriple(x, y, z));
+            if (tile != null) {
+                return state.toBaseBlock(LazyReference.computed(tile));
+            }
+        }
+        return state.toBaseBlock();
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomePalette != null;
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        if (!hasBiomes() || !contains(x, y, z)) {
+            return null;
+        }
+        return biomePalette[getSection(getRegionIndex(x, y, z)).biomes[getBiomeIndex(x, y, z)]];
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        return getBiomeType(position.x(), position.y(), position.z());
+    }
+
+    @Override
+    public synchronized List<? extends Entity> getEntities() {
+        if (entities == null) {
+            readEntities();
+        }
+        return Collections.unmodifiableList(entities);
+    }
+
+    @Override
+    public List<? extends Entity> getEntities(Region region) {
+        return getEntities()
+                .stream()
+                .filter(e -> region.contains(e.getLocation().toBlockPoint())).collect(Collectors.toList());
+    }
+
+    /**
+     * Paste the blocks, block entities and optionally the biomes of this clipboard one region at a time. Each region is
+     * decompressed once and not kept, so pasting doesn't need more memory for a larger schematic.
+     *
+     * @param extent      the extent to paste to
+     * @param position    the position to paste the minimum point of this clipboard at
+     * @param pasteAir    if air should be pasted
+     * @param pasteBiomes if biomes should be pasted
+     */
+    public void pasteRegions(Extent extent, BlockVector3 position, boolean pasteAir, boolean pasteBiomes) {
+        boolean biomes = pasteBiomes && hasBiomes();
+        Map<IntTriple, LinCompoundTag> tiles = getTiles();
+        int index = 0;
+        for (int regionY = 0; regionY < getHeight(); regionY += 16) {
+            for (int regionZ = 0; regionZ < getLength(); regionZ += 16) {
+                for (int regionX = 0; regionX < getWidth(); regionX += 16) {
+                    Section section = readSection(index++);
+                    int maxX = Math.min(regionX + 16, getWidth());
+                    int maxY = Math.min(regionY + 16, getHeight());
+                    int maxZ = Math.min(regionZ + 16, getLength());
+                    for (int y = regionY; y < maxY; y++) {
+                        for (int z = regionZ; z < maxZ; z++) {
+                            for (int x = regionX; x < maxX; x++) {
+                                int xx = position.x() + x;
+                                int yy = position.y() + y;
+                                int zz = position.z() + z;
+                                if (biomes) {
+                                    extent.setBiome(xx, yy, zz, biomePalette[section.biomes[getBiomeIndex(x, y, z)]]);
+                                }
+                                BlockState state = BlockState.getFromOrdinal(section.blocks[getLocalIndex(x, y, z)]);
+                                if (!pasteAir && state.getMaterial().isAir()) {
+                                    continue;
+                                }
+                                LinCompoundTag tile = null;
+                                if (!tiles.isEmpty() && state.getMaterial().isTile()) {
+                                    tile = tiles.get(new IntTriple(x, y, z));
+                                }
+                                if (tile != null) {
+                                    extent.setBlock(xx, yy, zz, state.toBaseBlock(LazyReference.computed(tile)));
+                                } else {
+                                    extent.setBlock(xx, yy, zz, state);
+                                }
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        try {
+            channel.close();
+        } catch (IOException e) {
+            LOGGER.warn("Failed to close indexed schematic", e);
+        }
+    }
+
+}
@@ -36,11 +36,12 @@ public boolean contains(Clipboard clipboard) {
     public synchronized Clipboard getClipboard() {
         if (clipboard == null) {
             try {
-                try (InputStream in = source.openBufferedStream()) {
-                    final ClipboardReader reader = format.getReader(in);
-                    final Clipboard clipboard;
-                    this.clipboard = reader.read(uuid);
-                }
+                this.clipboard = SharedClipboardCache.load(getUri(), () -> {
+                    try (InputStream in = source.openBufferedStream()) {
+                        final ClipboardReader reader = format.getReader(getUri(), in);
+                        return reader.read(uuid);
+                    }
+                });
             } catch (Throwable e) {
                 e.printStackTrace();
             }
@@ -3,15 +3,21 @@
 import com.fastasyncworldedit.core.extent.filter.block.AbstractFilterBlock;
 import com.fastasyncworldedit.core.function.visitor.Order;
 import com.fastasyncworldedit.core.jnbt.streamer.IntValueReader;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.fastasyncworldedit.core.util.ExtentTraverser;
+import com.fastasyncworldedit.core.util.task.FaweThreadUtil;
 import com.google.common.collect.ForwardingIterator;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTUtils;
 import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extent.Extent;
-import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard.ClipboardEntity;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
@@ -20,6 +26,8 @@
 import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.enginehub.linbus.tree.LinCompoundTag;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -153,6 +161,173 @@ public List<? extends Entity> getEntities(Region region) {
                 .filter(e -> region.contains(e.getLocation().toBlockPoint())).collect(Collectors.toList());
     }
 
+    /**
+     * Whether the blocks and biomes of this clipboard may be read from several threads at once while nothing changes it,
+     * which is needed to {@link #pasteSections paste it by chunk section} or write it as a schematic in parallel.
+     *
+     * @return if the clipboard may be read from several threads at once
+     * @since TODO
+     */
+    public boolean supportsParallelReads() {
+        return false;
+    }
+
+    /**
+     * Read the ordinals of a row of blocks along the x-axis. Blocks never set read as
+     * {@link BlockTypesCache.ReservedIDs#__RESERVED__}.
+     *
+     * @param x      the x coordinate of the first block
+     * @param y      the y coordinate of the row
+     * @param z      the z coordinate of the row
+     * @param length the number of blocks to read
+     * @param buffer the buffer to read to, from index 0
+     * @since TODO
+     */
+    protected void readOrdinals(int x, int y, int z, int length, char[] buffer) {
+        for (int i = 0; i < length; i++) {
+            buffer[i] = getBlock(x + i, y, z).getOrdinalChar();
+        }
+    }
+
+    /**
+     * Paste the blocks, block entities and optionally the biomes of this clipboard by writing whole chunk sections, if
+     * the clipboard {@link #supportsParallelReads() supports it} and the extent is an {@link EditSession} that
+     * {@link EditSession#isQueueProcessed() records history and limits as queue processors}. The sections are written
+     * to the queue directly, past any other extent of the edit session, so this must not be called while the edit
+     * session is applying something else, e.g. from a pattern or generator. Chunks are written in parallel, so this
+     * clipboard must not be changed until this returns.
+     *
+     * @param extent      the extent to paste to
+     * @param position    the position to paste the minimum point of this clipboard at
+     * @param pasteAir    if air should be pasted
+     * @param pasteBiomes if biomes should be pasted
+     * @return {@code false} if nothing was pasted as the clipboard or extent is not supported
+     * @since TODO
+     */
+    public boolean pasteSections(Extent extent, BlockVector3 position, boolean pasteAir, boolean pasteBiomes) {
+        if (!supportsParallelReads()) {
+            return false;
+        }
+        // history and limits must see the chunks written, rather than the blocks set through the edit session
+        if (!(extent instanceof EditSession editSession) || !editSession.isQueueProcessed()) {
+            return false;
+        }
+        // blocks are only put into a bag on a single thread
+        if (editSession.getBlockBag() != null) {
+            return false;
+        }
+        // already editing a partition of a parallel queue, e.g. applying a pattern
+        if (FaweThreadUtil.getCurrentExtent() != null) {
+            return false;
+        }
+        ParallelQueueExtent queue = new ExtentTraverser<>(extent).findAndGet(ParallelQueueExtent.class);
+        if (queue == null) {
+            return false;
+        }
+        boolean[] air = null;
+        if (!pasteAir) {
+            air = new boolean[BlockTypesCache.states.length];
+        }
+        boolean[] tiles = new boolean[BlockTypesCache.states.length];
+        for (int i = 0; i < tiles.length; i++) {
+            if (air != null) {
+                air[i] = BlockTypesCache.states[i].getMaterial().isAir();
+            }
+            tiles[i] = BlockTypesCache.states[i].getMaterial().isTile();
+        }
+        boolean[] skipped = air;
+        boolean biomes = pasteBiomes && hasBiomes();
+        List<Runnable> tasks = new ArrayList<>();
+        for (int chunkZ = position.z() >> 4; chunkZ <= (position.z() + getLength() - 1) >> 4; chunkZ++) {
+            for (int chunkX = position.x() >> 4; chunkX <= (position.x() + getWidth() - 1) >> 4; chunkX++) {
+                int cx = chunkX;
+                int cz = chunkZ;
+                tasks.add(() -> {
+                    IChunk chunk = queue.getExtent().getOrCreateChunk(cx, cz);
+                    pasteChunk(chunk, position, skipped, tiles, biomes);
+                });
+            }
+        }
+        queue.applyPartitioned(tasks);
+        return true;
+    }
+
+    private void pasteChunk(
+            IChunk chunk,
+            BlockVector3 position,
+            @Nullable boolean[] air,
+            boolean[] tiles,
+            boolean pasteBiomes
+    ) {
+        int chunkX = chunk.getX() << 4;
+        int chunkZ = chunk.getZ() << 4;
+        // the part of the chunk covered by the clipboard, in chunk coordinates
+        int minX = Math.max(position.x(), chunkX) - chunkX;
+        int maxX = Math.min(position.x() + getWidth() - 1, chunkX + 15) - chunkX;
+        int minZ = Math.max(position.z(), chunkZ) - chunkZ;
+        int maxZ = Math.min(position.z() + getLength() - 1, chunkZ + 15) - chunkZ;
+        int minLayer = Math.max(position.y() >> 4, chunk.getMinSectionPosition());
+        int maxLayer = Math.min((position.y() + getHeight() - 1) >> 4, chunk.getMaxSectionPosition());
+        int clipboardX = chunkX + minX - position.x();
+        int length = maxX - minX + 1;
+        char[] row = new char[16];
+
+        for (int layer = minLayer; layer <= maxLayer; layer++) {
+            int minY = Math.max(position.y(), layer << 4);
+            int maxY = Math.min(position.y() + getHeight() - 1, (layer << 4) + 15);
+            // 0 leaves the block as it is
+            char[] blocks = new char[4096];
+            boolean changed = false;
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = minZ; z <= maxZ; z++) {
+                    readOrdinals(clipboardX, y - position.y(), chunkZ + z - position.z(), length, row);
+                    int index = (y & 15) << 8 | z << 4;
+                    for (int i = 0; i < length; i++) {
+                        char ordinal = row[i];
+                        if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__ || air != null && air[ordinal]) {
+                            continue;
+                        }
+                        int x = minX + i;
+                        blocks[index | x] = ordinal;
+                        changed = true;
+                        if (tiles[ordinal]) {
+                            int clipboardZ = chunkZ + z - position.z();
+                            LinCompoundTag nbt = getFullBlock(clipboardX + i, y - position.y(), clipboardZ).getNbt();
+                            if (nbt != null) {
+                                chunk.tile(x, y, z, FaweCompoundTag.of(nbt.toBuilder()
+                                        .putInt("x", chunkX + x)
+                                        .putInt("y", y)
+                                        .putInt("z", chunkZ + z)
+                                        .build()));
+                            }
+                        }
+                    }
+                }
+            }
+            if (changed) {
+                chunk.setBlocks(layer, blocks);
+            }
+        }
+
+        if (pasteBiomes && minLayer <= maxLayer) {
+            // biomes are stored per 4x4x4 cell
+            int minY = Math.max(position.y(), minLayer << 4);
+            int maxY = Math.min(position.y() + getHeight() - 1, (maxLayer << 4) + 15);
+            for (int y = minY & ~3; y <= maxY; y += 4) {
+                int clipboardY = Math.max(y, minY) - position.y();
+                for (int z = minZ & ~3; z <= maxZ; z += 4) {
+                    int clipboardZ = chunkZ + Math.max(z, minZ) - position.z();
+                    for (int x = minX & ~3; x <= maxX; x += 4) {
+                        BiomeType biome = getBiomeType(chunkX + Math.max(x, minX) - position.x(), clipboardY, clipboardZ);
+                        if (biome != null) {
+                            chunk.setBiome(x, y, z, biome);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private class LinearFilter extends AbstractFilterBlock {
 
         private int index = -1;
@@ -5,6 +5,7 @@
 import com.fastasyncworldedit.core.math.IntTriple;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.fastasyncworldedit.core.util.MainUtil;
+import com.fastasyncworldedit.core.util.ZstdCompression;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.IntTag;
 import com.sk89q.jnbt.Tag;
@@ -46,6 +47,7 @@ public class MemoryOptimizedClipboard extends LinearClipboard {
     private boolean saveOrdinals = false;
 
     private final int compressionLevel;
+    private final ZstdCompression zstd;
 
     public MemoryOptimizedClipboard(Region region) {
         this(region, Settings.settings().CLIPBOARD.COMPRESSION_LEVEL);
@@ -56,6 +58,7 @@ public MemoryOptimizedClipboard(Region region, int compressionLevel) {
         states = new byte[1 + (getVolume() >> BLOCK_SHIFT)][];
         nbtMap = new HashMap<>();
         this.compressionLevel = compressionLevel;
+        this.zstd = compressionLevel == 0 ? null : ZstdCompression.clipboard();
     }
 
 
@@ -127,7 +130,7 @@ private int getOrdinal(int index) {
             saveOrdinals();
             byte[] compressed = states[lastOrdinalsI = i];
             if (compressed != null) {
-                lastOrdinals = MainUtil.decompress(compressed, lastOrdinals, BLOCK_SIZE, compressionLevel);
+                lastOrdinals = decompress(compressed);
             } else {
                 lastOrdinals = null;
                 return 0;
@@ -141,11 +144,23 @@ private int getOrdinal(int index) {
 
     private void saveOrdinals() {
         if (saveOrdinals && lastOrdinals != null) {
-            states[lastOrdinalsI] = MainUtil.compress(lastOrdinals, buffer, compressionLevel);
+            if (zstd != null) {
+                zstd.sample(lastOrdinals, lastOrdinals.length);
+                states[lastOrdinalsI] = zstd.compress(lastOrdinals, lastOrdinals.length);
+            } else {
+                states[lastOrdinalsI] = MainUtil.compress(lastOrdinals, buffer, compressionLevel);
+            }
         }
         saveOrdinals = false;
     }
 
+    private byte[] decompress(byte[] compressed) {
+        if (zstd != null) {
+            return ZstdCompression.decompress(compressed, lastOrdinals, BLOCK_SIZE);
+        }
+        return MainUtil.decompress(compressed, lastOrdinals, BLOCK_SIZE, compressionLevel);
+    }
+
     private int lastI;
     private int lastIMin;
     private int lastIMax;
@@ -165,7 +180,7 @@ private void setOrdinal(int index, int v) {
             saveOrdinals();
             byte[] compressed = states[lastOrdinalsI = i];
             if (compressed != null) {
-                lastOrdinals = MainUtil.decompress(compressed, lastOrdinals, BLOCK_SIZE, compressionLevel);
+                lastOrdinals = decompress(compressed);
             } else {
                 lastOrdinals = null;
             }
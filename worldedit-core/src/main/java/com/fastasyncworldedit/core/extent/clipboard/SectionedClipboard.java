@@ -0,0 +1,339 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.fastasyncworldedit.core.jnbt.streamer.IntValueReader;
+import com.fastasyncworldedit.core.math.BitArray;
+import com.fastasyncworldedit.core.math.IntTriple;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.Tag;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A clipboard storing its blocks in 16x16x16 sections, like chunks do. Each section has its own palette of the block
+ * states it contains and a {@link BitArray} of palette indices, using as few bits per block as the palette allows. A
+ * section of a single block state stores no indices at all, and a section with more than 256 block states stores the
+ * ordinals directly.
+ * <p>
+ * Unlike the {@link MemoryOptimizedClipboard}, blocks are read and written without decompressing anything, and may be
+ * read from several threads at once, so the clipboard can be {@link #pasteSections pasted by chunk section}.
+ *
+ * @since TODO
+ */
+public class SectionedClipboard extends LinearClipboard {
+
+    // Sections with more block states than this store their ordinals as they are
+    private static final int MAX_PALETTE_BITS = 8;
+
+    private final int sectionsX;
+    private final int sectionsZ;
+    private final Section[] sections;
+
+    private byte[] biomes = null;
+
+    private final HashMap<IntTriple, CompoundTag> nbtMap;
+
+    public SectionedClipboard(Region region) {
+        super(region.getDimensions(), region.getMinimumPoint());
+        this.sectionsX = (getWidth() + 15) >> 4;
+        this.sectionsZ = (getLength() + 15) >> 4;
+        this.sections = new Section[sectionsX * sectionsZ * ((getHeight() + 15) >> 4)];
+        this.nbtMap = new HashMap<>();
+    }
+
+    /**
+     * The blocks of a 16x16x16 section.
+     */
+    private static final class Section {
+
+        // the ordinals of the palette, the first entry being the ordinal of blocks never set
+        private char[] palette = new char[]{BlockTypesCache.ReservedIDs.__RESERVED__, 0};
+        private int paletteSize = 1;
+        // null while the palette has a single entry
+        private BitArray indices;
+        private int bits;
+        // set instead of the palette once it outgrows MAX_PALETTE_BITS
+        private char[] ordinals;
+
+        private char get(int index) {
+            if (ordinals != null) {
+                return ordinals[index];
+            }
+            return palette[indices == null ? 0 : indices.get(index)];
+        }
+
+        private void set(int index, char ordinal) {
+            if (ordinals != null) {
+                ordinals[index] = ordinal;
+                return;
+            }
+            int paletteIndex = indexOf(ordinal);
+            if (paletteIndex == -1) {
+                if (paletteSize == 1 << bits && !grow()) {
+                    ordinals[index] = ordinal;
+                    return;
+                }
+                if (paletteSize == palette.length) {
+                    palette = Arrays.copyOf(palette, paletteSize << 1);
+                }
+                paletteIndex = paletteSize++;
+                palette[paletteIndex] = ordinal;
+            }
+            if (indices != null) {
+                indices.set(index, paletteIndex);
+            }
+        }
+
+        private int indexOf(char ordinal) {
+            for (int i = 0; i < paletteSize; i++) {
+                if (palette[i] == ordinal) {
+                    return i;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Make room for another palette entry, or stop using the palette if it would need too many bits.
+         *
+         * @return if the palette is still used
+         */
+        private boolean grow() {
+            if (bits == MAX_PALETTE_BITS) {
+                char[] direct = new char[4096];
+                for (int i = 0; i < 4096; i++) {
+                    direct[i] = get(i);
+                }
+                ordinals = direct;
+                palette = null;
+                indices = null;
+                return false;
+            }
+            BitArray grown = new BitArray(bits + 1, 4096);
+            if (indices != null) {
+                for (int i = 0; i < 4096; i++) {
+                    grown.set(i, indices.get(i));
+                }
+            }
+            indices = grown;
+            bits++;
+            return true;
+        }
+
+    }
+
+    private int getSectionIndex(int x, int y, int z) {
+        return (x >> 4) + ((z >> 4) + (y >> 4) * sectionsZ) * sectionsX;
+    }
+
+    private static int getLocalIndex(int x, int y, int z) {
+        return (y & 15) << 8 | (z & 15) << 4 | (x & 15);
+    }
+
+    private char getOrdinal(int x, int y, int z) {
+        Section section = sections[getSectionIndex(x, y, z)];
+        if (section == null) {
+            return BlockTypesCache.ReservedIDs.__RESERVED__;
+        }
+        return section.get(getLocalIndex(x, y, z));
+    }
+
+    private void setOrdinal(int x, int y, int z, char ordinal) {
+        int sectionIndex = getSectionIndex(x, y, z);
+        Section section = sections[sectionIndex];
+        if (section == null) {
+            if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                return;
+            }
+            sections[sectionIndex] = section = new Section();
+        }
+        section.set(getLocalIndex(x, y, z), ordinal);
+    }
+
+    public int getIndex(int x, int y, int z) {
+        return x + y * getArea() + z * getWidth();
+    }
+
+    public int getBiomeIndex(int x, int y, int z) {
+        int biomeWidth = (getWidth() + 3) >> 2;
+        return (x >> 2) + ((z >> 2) + (y >> 2) * ((getLength() + 3) >> 2)) * biomeWidth;
+    }
+
+    @Override
+    public boolean hasBiomes() {
+        return biomes != null;
+    }
+
+    @Override
+    public boolean setBiome(BlockVector3 position, BiomeType biome) {
+        return setBiome(position.x(), position.y(), position.z(), biome);
+    }
+
+    @Override
+    public boolean setBiome(int x, int y, int z, BiomeType biome) {
+        setBiome(getBiomeIndex(x, y, z), biome);
+        return true;
+    }
+
+    @Override
+    public void setBiome(int index, BiomeType biome) {
+        if (biomes == null) {
+            biomes = new byte[((getHeight() + 3) >> 2) * ((getLength() + 3) >> 2) * ((getWidth() + 3) >> 2)];
+        }
+        biomes[index] = (byte) biome.getInternalId();
+    }
+
+    @Override
+    public void streamBiomes(IntValueReader task) {
+        if (!hasBiomes()) {
+            return;
+        }
+        try {
+            for (int y = 0; y < getHeight(); y++) {
+                for (int z = 0; z < getLength(); z++) {
+                    for (int x = 0; x < getWidth(); x++) {
+                        task.applyInt(getIndex(x, y, z), biomes[getBiomeIndex(x, y, z)] & 0xFF);
+                    }
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public BiomeType getBiome(int index) {
+        if (!hasBiomes()) {
+            return null;
+        }
+        return BiomeTypes.get(biomes[index] & 0xFF);
+    }
+
+    @Override
+    public BiomeType getBiomeType(int x, int y, int z) {
+        return getBiome(getBiomeIndex(x, y, z));
+    }
+
+    @Override
+    public BiomeType getBiome(BlockVector3 position) {
+        return getBiome(getBiomeIndex(position.x(), position.y(), position.z()));
+    }
+
+    @Override
+    public Collection<CompoundTag> getTileEntities() {
+        return nbtMap.values();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int x, int y, int z) {
+        BlockState state = getBlock(x, y, z);
+        if (state.getMaterial().isTile() && !nbtMap.isEmpty()) {
+            return state.toBaseBlock(nbtMap.get(new IntTriple(x, y, z)));
+        }
+        return state.toBaseBlock();
+    }
+
+    @Override
+    public BaseBlock getFullBlock(int index) {
+        int y = index / getArea();
+        int newI = index - y * getArea();
+        int z = newI / getWidth();
+        int x = newI - z * getWidth();
+        return getFullBlock(x, y, z);
+    }
+
+    @Override
+    public BlockState getBlock(int x, int y, int z) {
+        return BlockState.getFromOrdinal(getOrdinal(x, y, z));
+    }
+
+    @Override
+    public BlockState getBlock(int index) {
+        int y = index / getArea();
+        int newI = index - y * getArea();
+        int z = newI / getWidth();
+        int x = newI - z * getWidth();
+        return getBlock(x, y, z);
+    }
+
+    @Override
+    public boolean setTile(int x, int y, int z, CompoundTag tag) {
+        final Map<String, Tag<?, ?>> values = new HashMap<>(tag.getValue());
+        values.put("x", new IntTag(x));
+        values.put("y", new IntTag(y));
+        values.put("z", new IntTag(z));
+        nbtMap.put(new IntTriple(x, y, z), new CompoundTag(values));
+        return true;
+    }
+
+    @Override
+    public boolean tile(final int x, final int y, final int z, final FaweCompoundTag tile) throws WorldEditException {
+        return setTile(x, y, z, new CompoundTag(tile.linTag()));
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) {
+        int ordinal = block.getOrdinal();
+        if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+            ordinal = BlockTypesCache.ReservedIDs.AIR;
+        }
+        setOrdinal(x, y, z, (char) ordinal);
+        boolean hasNbt = block instanceof BaseBlock && block.hasNbtData();
+        if (hasNbt) {
+            setTile(x, y, z, block.getNbtData());
+        }
+        return true;
+    }
+
+    @Override
+    public <B extends BlockStateHolder<B>> boolean setBlock(int index, B block) {
+        int y = index / getArea();
+        int newI = index - y * getArea();
+        int z = newI / getWidth();
+        int x = newI - z * getWidth();
+        return setBlock(x, y, z, block);
+    }
+
+    @Override
+    public boolean supportsParallelReads() {
+        return true;
+    }
+
+    @Override
+    protected void readOrdinals(int x, int y, int z, int length, char[] buffer) {
+        int localIndex = getLocalIndex(x, y, z);
+        for (int i = 0; i < length; ) {
+            // the part of the row within the clipboard section of x + i
+            int sectionLength = Math.min(length - i, 16 - ((x + i) & 15));
+            Section section = sections[getSectionIndex(x + i, y, z)];
+            int index = (localIndex & ~15) | ((x + i) & 15);
+            if (section == null) {
+                Arrays.fill(buffer, i, i + sectionLength, (char) BlockTypesCache.ReservedIDs.__RESERVED__);
+            } else if (section.ordinals != null) {
+                System.arraycopy(section.ordinals, index, buffer, i, sectionLength);
+            } else if (section.indices == null) {
+                Arrays.fill(buffer, i, i + sectionLength, section.palette[0]);
+            } else {
+                for (int j = 0; j < sectionLength; j++) {
+                    buffer[i + j] = section.palette[section.indices.get(index + j)];
+                }
+            }
+            i += sectionLength;
+        }
+    }
+
+}
@@ -0,0 +1,318 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.util.MemUtil;
+import com.sk89q.worldedit.WorldEditException;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.Location;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.lang.ref.Cleaner;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Shares the clipboards of schematic files between everything loading them, e.g. players and schematic brushes, so a
+ * schematic is only held in memory once. Each caller gets its own {@link BlockArrayClipboard}, with its own origin,
+ * reading the same storage. The first change made to one copies the storage, leaving the others untouched.
+ * <p>
+ * Schematics are identified by their file and its size and modification time, a changed file is loaded again. Once
+ * nothing uses a schematic it is kept for a while, to be shared again if it is loaded again, until memory runs low. A
+ * clipboard that becomes unreachable without being closed, e.g. as the holder it was loaded into was dropped, stops using
+ * the schematic once it is garbage collected.
+ *
+ * @since TODO
+ */
+public final class SharedClipboardCache {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    // Unused schematics kept to be loaded again, in least recently used order
+    private static final int MAX_UNUSED = 8;
+
+    private static final LinkedHashMap<Key, Entry> CACHE = new LinkedHashMap<>(16, 0.75f, true);
+    // Releases the references of clipboards that were never closed
+    private static final Cleaner CLEANER = Cleaner.create();
+
+    static {
+        MemUtil.addMemoryLimitedTask(SharedClipboardCache::clearUnused);
+    }
+
+    private SharedClipboardCache() {
+    }
+
+    /**
+     * Loads a clipboard.
+     */
+    @FunctionalInterface
+    public interface ClipboardLoader {
+
+        Clipboard load() throws IOException;
+
+    }
+
+    /**
+     * A reference to the shared storage of a clipboard, held by a {@link BlockArrayClipboard} until it changes.
+     */
+    public interface Reference {
+
+        /**
+         * Copy the shared storage, to be changed without affecting others.
+         *
+         * @return a copy of the storage
+         * @throws IllegalStateException if the reference was released
+         */
+        SimpleClipboard copy();
+
+        /**
+         * Stop using the shared storage. The storage may be closed once every reference to it is released, so it must no
+         * longer be read or copied afterwards.
+         *
+         * @throws IllegalStateException if the reference was already released
+         */
+        void release();
+
+    }
+
+    private record Key(Path path, long size, long lastModified) {
+
+    }
+
+    /**
+     * Get the clipboard of a schematic, sharing its storage with everything else that loaded the same schematic. A
+     * schematic that isn't a file, or in a format that can't be shared, is loaded on its own.
+     *
+     * @param uri    the source of the schematic
+     * @param loader loads the schematic if it isn't loaded yet
+     * @return the clipboard, which must be closed once no longer used
+     * @throws IOException if the schematic could not be loaded
+     */
+    public static Clipboard load(URI uri, ClipboardLoader loader) throws IOException {
+        Key key = getKey(uri);
+        if (key == null) {
+            return loader.load();
+        }
+        Entry entry;
+        synchronized (CACHE) {
+            entry = CACHE.computeIfAbsent(key, Entry::new);
+            entry.references++;
+        }
+        Clipboard clipboard;
+        try {
+            clipboard = entry.acquire(loader);
+        } catch (IOException | RuntimeException e) {
+            entry.release();
+            throw e;
+        }
+        if (clipboard == null) {
+            // not shareable, so every caller loads its own
+            entry.release();
+            return loader.load();
+        }
+        return clipboard;
+    }
+
+    @Nullable
+    private static Key getKey(URI uri) {
+        if (!Settings.settings().CLIPBOARD.SHARE_SCHEMATICS || Settings.settings().CLIPBOARD.USE_DISK
+                || !"file".equals(uri.getScheme())) {
+            return null;
+        }
+        try {
+            Path path = Path.of(uri).toRealPath();
+            BasicFileAttributes attributes = Files.readAttributes(path, BasicFileAttributes.class);
+            if (!attributes.isRegularFile()) {
+                return null;
+            }
+            return new Key(path, attributes.size(), attributes.lastModifiedTime().toMillis());
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Close every schematic which nothing uses, e.g. when memory runs low.
+     */
+    public static void clearUnused() {
+        synchronized (CACHE) {
+            trim(0);
+        }
+    }
+
+    private static void trim(int maxUnused) {
+        int unused = 0;
+        for (Entry entry : CACHE.values()) {
+            if (entry.references == 0) {
+                unused++;
+            }
+        }
+        // least recently used first
+        Iterator<Entry> iterator = CACHE.values().iterator();
+        while (unused > maxUnused && iterator.hasNext()) {
+            Entry entry = iterator.next();
+            if (entry.references == 0) {
+                iterator.remove();
+                entry.close();
+                unused--;
+            }
+        }
+    }
+
+    private static final class Entry {
+
+        private final Key key;
+        // guarded by CACHE
+        private int references;
+        // guarded by this
+        private SimpleClipboard storage;
+        private Region region;
+        private BlockVector3 origin;
+        private boolean shareable = true;
+
+        private Entry(Key key) {
+            this.key = key;
+        }
+
+        @Nullable
+        private synchronized Clipboard acquire(ClipboardLoader loader) throws IOException {
+            if (!shareable) {
+                return null;
+            }
+            if (storage == null) {
+                Clipboard loaded = loader.load();
+                if (loaded instanceof BlockArrayClipboard blockArray && blockArray.getParent() instanceof SimpleClipboard parent) {
+                    storage = parent;
+                    region = blockArray.getRegion();
+                    origin = blockArray.getOrigin();
+                } else if (loaded instanceof SimpleClipboard simple) {
+                    storage = simple;
+                    region = simple.getRegion();
+                    origin = simple.getOrigin();
+                } else {
+                    shareable = false;
+                    synchronized (CACHE) {
+                        CACHE.remove(key, this);
+                        references--;
+                    }
+                    // nobody else has seen it, so this caller may keep it
+                    return loaded;
+                }
+                LOGGER.debug("Loaded shared schematic {}", key.path());
+            }
+            SharedReference reference = new SharedReference(this);
+            BlockArrayClipboard clipboard = new BlockArrayClipboard(region, origin, storage, reference);
+            reference.cleanable = CLEANER.register(clipboard, reference::releaseUnreachable);
+            return clipboard;
+        }
+
+        private void release() {
+            synchronized (CACHE) {
+                if (--references == 0) {
+                    trim(MemUtil.isMemoryLimited() ? 0 : MAX_UNUSED);
+                }
+            }
+        }
+
+        private synchronized SimpleClipboard copy() {
+            if (storage == null) {
+                throw new IllegalStateException("Shared schematic " + key.path() + " was closed");
+            }
+            SimpleClipboard copy = (SimpleClipboard) Clipboard.create(storage.getRegion(), UUID.randomUUID());
+            try {
+                for (int y = 0; y < storage.getHeight(); y++) {
+                    for (int z = 0; z < storage.getLength(); z++) {
+                        for (int x = 0; x < storage.getWidth(); x++) {
+                            copy.setBlock(x, y, z, storage.getFullBlock(x, y, z));
+                        }
+                    }
+                }
+            } catch (WorldEditException e) {
+                throw new RuntimeException(e);
+            }
+            if (storage.hasBiomes()) {
+                for (int y = 0; y < storage.getHeight(); y++) {
+                    for (int z = 0; z < storage.getLength(); z++) {
+                        for (int x = 0; x < storage.getWidth(); x++) {
+                            copy.setBiome(x, y, z, storage.getBiomeType(x, y, z));
+                        }
+                    }
+                }
+            }
+            for (Entity entity : storage.getEntities()) {
+                Location location = entity.getLocation();
+                copy.createEntity(new Location(
+                        copy,
+                        location.x(),
+                        location.y(),
+                        location.z(),
+                        location.getYaw(),
+                        location.getPitch()
+                ), entity.getState());
+            }
+            copy.setOrigin(storage.getOrigin());
+            return copy;
+        }
+
+        private synchronized void close() {
+            // only called once every reference is released, so nothing reads the storage anymore
+            if (storage != null) {
+                storage.close();
+                storage = null;
+            }
+        }
+
+    }
+
+    private static final class SharedReference implements Reference {
+
+        private final Entry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+        // set before the clipboard holding this reference is returned, must not reference the clipboard
+        private Cleaner.Cleanable cleanable;
+
+        private SharedReference(Entry entry) {
+            this.entry = entry;
+        }
+
+        @Override
+        public SimpleClipboard copy() {
+            if (released.get()) {
+                throw new IllegalStateException("The shared schematic " + entry.key.path() + " was released");
+            }
+            // the storage isn't closed before this reference is released
+            return entry.copy();
+        }
+
+        @Override
+        public void release() {
+            if (!released.compareAndSet(false, true)) {
+                throw new IllegalStateException("The shared schematic " + entry.key.path() + " was already released");
+            }
+            entry.release();
+            // no longer needed once released
+            cleanable.clean();
+        }
+
+        private void releaseUnreachable() {
+            if (released.compareAndSet(false, true)) {
+                LOGGER.debug("Released shared schematic {} of a clipboard that was not closed", entry.key.path());
+                entry.release();
+            }
+        }
+
+    }
+
+}
@@ -1,22 +1,30 @@
 package com.fastasyncworldedit.core.extent.clipboard.io;
 
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.SimpleClipboard;
+import com.fastasyncworldedit.core.internal.io.NonCloseableInputStream;
+import com.fastasyncworldedit.core.internal.io.ReadAheadInputStream;
 import com.fastasyncworldedit.core.internal.io.ResettableFileInputStream;
 import com.fastasyncworldedit.core.internal.io.VarIntStreamIterator;
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.fastasyncworldedit.core.util.IOUtil;
 import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.core.util.task.ManagedBlocking;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTConstants;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extension.input.InputParseException;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
@@ -24,12 +32,16 @@
 import com.sk89q.worldedit.extent.clipboard.io.sponge.VersionedDataFixer;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.util.concurrency.LazyReference;
 import com.sk89q.worldedit.world.DataFixer;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.biome.BiomeTypes;
+import com.sk89q.worldedit.world.block.BaseBlock;
 import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 import com.sk89q.worldedit.world.entity.EntityType;
@@ -54,12 +66,17 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.Arrays;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Objects;
 import java.util.OptionalInt;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BooleanSupplier;
 import java.util.function.Function;
 import java.util.zip.GZIPInputStream;
@@ -84,9 +101,14 @@ public class FastSchematicReaderV3 implements ClipboardReader {
     private final InputStream parentStream;
     private final MutableBlockVector3 dimensions = MutableBlockVector3.at(0, 0, 0);
     private final Set<Byte> remainingTags;
+    // Inflates, decodes and loads the blocks in tasks of the queue handler
+    private final boolean pipelined = Settings.settings().CLIPBOARD.PARALLEL_SCHEMATIC_IO && Fawe.instance() != null;
 
     private DataInputStream dataInputStream;
     private NBTInputStream nbtInputStream;
+    private ReadAheadInputStream readAhead;
+    // Streamed pastes need the offset before the first block
+    private boolean awaitOffset;
 
     private VersionedDataFixer dataFixer;
     private BlockVector3 offset;
@@ -174,7 +196,7 @@ public Clipboard read(final UUID uuid, final Function<BlockVector3, Clipboard> c
                 case "Entities" -> readEntities(clipboard);
                 default -> this.nbtInputStream.readTagPayloadLazy(type, 0);
             }
-            if (clipboard == null && this.areDimensionsAvailable()) {
+            if (clipboard == null && this.areDimensionsAvailable() && (!this.awaitOffset || this.offset != null)) {
                 clipboard = createOutput.apply(this.dimensions.toImmutable());
             }
         }
@@ -191,6 +213,7 @@ public Clipboard read(final UUID uuid, final Function<BlockVector3, Clipboard> c
         } else if (this.dataCacheWriter != null || this.paletteCacheWriter != null) {
             readRemainingDataCache(clipboard);
         }
+        this.closeReadAhead();
 
         clipboard.setOrigin(this.offset.multiply(-1));
         if (clipboard instanceof SimpleClipboard simpleClipboard && !this.offset.equals(BlockVector3.ZERO)) {
@@ -199,6 +222,36 @@ public Clipboard read(final UUID uuid, final Function<BlockVector3, Clipboard> c
         return clipboard;
     }
 
+    /**
+     * Paste the schematic into an extent while it is still being read, instead of loading it into a clipboard first. Each
+     * block is placed as soon as it has been decoded, where pasting the {@link #read() clipboard read} at {@code to}
+     * would place it.
+     * <p>
+     * Schematics storing their blocks before their offset are held back like {@link #read()} holds back blocks stored
+     * before the palette, and pasted once the offset has been read.
+     *
+     * @param extent        the extent to paste into
+     * @param to            the position to paste the origin of the schematic at
+     * @param pasteAir      if air should be pasted
+     * @param pasteBiomes   if biomes should be pasted
+     * @param pasteEntities if entities should be pasted
+     * @return the region pasted into
+     * @throws IOException on I/O error
+     * @since TODO
+     */
+    public Region paste(Extent extent, BlockVector3 to, boolean pasteAir, boolean pasteBiomes, boolean pasteEntities)
+            throws IOException {
+        this.awaitOffset = true;
+        Clipboard pasted = this.read(UUID.randomUUID(), dimensions -> new StreamedPaste(
+                extent,
+                dimensions,
+                to.add(this.offset),
+                pasteAir,
+                pasteBiomes,
+                pasteEntities
+        ));
+        return ((StreamedPaste) pasted).getPastedRegion();
+    }
 
     /**
      * Reads all locally cached data (due to reset not being available) and applies them to the clipboard.
@@ -549,6 +602,10 @@ private void readPalette(
 
     private void readPaletteData(DataInputStream stream, PaletteDataApplier applier) throws IOException {
         int length = stream.readInt();
+        if (this.pipelined) {
+            this.readPaletteDataPipelined(stream, length, applier);
+            return;
+        }
         // Write data into clipboard
         int i = 0;
         if (needsVarIntReading(length)) {
@@ -562,6 +619,32 @@ private void readPaletteData(DataInputStream stream, PaletteDataApplier applier)
         }
     }
 
+    /**
+     * Decodes the palette data on another thread, while the data already decoded is applied on this one.
+     */
+    private void readPaletteDataPipelined(DataInputStream stream, int length, PaletteDataApplier applier) throws IOException {
+        PaletteDataDecoder decoder = new PaletteDataDecoder(stream, length, needsVarIntReading(length));
+        Fawe.instance().getQueueHandler().async(decoder);
+        boolean applied = false;
+        try {
+            int index = 0;
+            char[] batch;
+            while ((batch = decoder.take()) != PaletteDataDecoder.END) {
+                for (char ordinal : batch) {
+                    applier.apply(index++, ordinal);
+                }
+            }
+            applied = true;
+        } finally {
+            if (!applied) {
+                decoder.stopped = true;
+            }
+            // the stream may only be read again once the decoder is done with it
+            decoder.awaitDone();
+        }
+        decoder.rethrow();
+    }
+
     /**
      * Reads the CompoundTag containing the palette mapping ({@code index: value}) and passes each entry to the
      * {@link PaletteInitializer}.
@@ -671,9 +754,22 @@ private boolean areDimensionsAvailable() {
      */
     @Override
     public void close() throws IOException {
+        this.closeReadAhead();
         parentStream.close(); // closes all underlying resources implicitly
     }
 
+    /**
+     * Stops inflating the main stream ahead of the reader, if it is, which must happen before the main stream is reset.
+     *
+     * @throws IOException on I/O error.
+     */
+    private void closeReadAhead() throws IOException {
+        if (this.readAhead != null) {
+            this.readAhead.close();
+            this.readAhead = null;
+        }
+    }
+
     /**
      * Resets the main stream to the previously marked position ({@code 0}), if supported (see {@link #supportsReset()}).
      * If the stream is reset, the sub streams (for DataInput and NBT) are re-created to respect the new position.
@@ -682,6 +778,7 @@ public void close() throws IOException {
      */
     private void reset() throws IOException {
         if (this.supportsReset()) {
+            this.closeReadAhead();
             this.parentStream.reset();
             this.parentStream.mark(Integer.MAX_VALUE);
             this.setSubStreams();
@@ -701,7 +798,17 @@ private boolean supportsReset() {
      * @throws IOException on I/O error.
      */
     private void setSubStreams() throws IOException {
-        final FastBufferedInputStream buffer = new FastBufferedInputStream(new GZIPInputStream(this.parentStream));
+        final FastBufferedInputStream buffer;
+        if (this.pipelined) {
+            // The main stream is only closed by this reader, once the inflating task is stopped
+            this.readAhead = new ReadAheadInputStream(
+                    new GZIPInputStream(new NonCloseableInputStream(this.parentStream)),
+                    Fawe.instance().getQueueHandler()::async
+            );
+            buffer = new FastBufferedInputStream(this.readAhead);
+        } else {
+            buffer = new FastBufferedInputStream(new GZIPInputStream(this.parentStream));
+        }
         this.dataInputStream = new DataInputStream(buffer);
         this.nbtInputStream = new NBTInputStream(buffer);
     }
@@ -763,6 +870,285 @@ private static void skipHeader(DataInputStream dataInputStream) throws IOExcepti
         dataInputStream.skipNBytes(1 + 2 + 9); // as above + 9 bytes = "Schematic"
     }
 
+    /**
+     * Decodes the palette indices of a {@code Data} tag into batches, to be applied by another thread.
+     */
+    private static final class PaletteDataDecoder implements Runnable {
+
+        private static final int BATCH_SIZE = 1 << 16;
+        private static final char[] END = new char[0];
+
+        private final DataInputStream stream;
+        private final int length;
+        private final boolean varInt;
+        // Batches decoded ahead, limiting how far the decoder gets ahead
+        private final BlockingQueue<char[]> batches = new ArrayBlockingQueue<>(8);
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile Exception error;
+        // set by the applying thread if it stops before the end
+        private volatile boolean stopped;
+
+        private PaletteDataDecoder(DataInputStream stream, int length, boolean varInt) {
+            this.stream = stream;
+            this.length = length;
+            this.varInt = varInt;
+        }
+
+        @Override
+        public void run() {
+            try {
+                if (decode()) {
+                    put(END);
+                }
+            } catch (IOException | RuntimeException e) {
+                error = e;
+                put(END);
+            } finally {
+                done.countDown();
+            }
+        }
+
+        /**
+         * Queue a batch once there is room for it.
+         *
+         * @return {@code false} if the applying thread stopped
+         */
+        private boolean put(char[] batch) {
+            try {
+                // the applying thread doesn't take any more batches once stopped
+                while (!batches.offer(batch, 50, TimeUnit.MILLISECONDS)) {
+                    if (stopped) {
+                        return false;
+                    }
+                }
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+
+        /**
+         * Decode the data into batches.
+         *
+         * @return {@code false} if the applying thread stopped
+         */
+        private boolean decode() throws IOException {
+            byte[] bytes = new byte[BATCH_SIZE];
+            char[] batch = new char[BATCH_SIZE];
+            int size = 0;
+            int value = 0;
+            int bitsRead = 0;
+            for (int remaining = length; remaining > 0; ) {
+                if (stopped) {
+                    return false;
+                }
+                int read = Math.min(remaining, bytes.length);
+                stream.readFully(bytes, 0, read);
+                remaining -= read;
+                for (int i = 0; i < read; i++) {
+                    byte next = bytes[i];
+                    if (varInt) {
+                        value |= (next & 0x7F) << bitsRead;
+                        if ((next & 0x80) != 0) {
+                            bitsRead += 7;
+                            if (bitsRead > 7 * 5) {
+                                throw new IOException("VarInt too big (probably corrupted data)");
+                            }
+                            continue;
+                        }
+                    } else {
+                        value = next & 0xFF;
+                    }
+                    batch[size++] = (char) value;
+                    value = 0;
+                    bitsRead = 0;
+                    if (size == BATCH_SIZE) {
+                        if (!put(batch)) {
+                            return false;
+                        }
+                        batch = new char[BATCH_SIZE];
+                        size = 0;
+                    }
+                }
+            }
+            if (bitsRead != 0) {
+                throw new IOException("Ran out of bytes while reading VarInt (probably corrupted data)");
+            }
+            return size == 0 || put(Arrays.copyOf(batch, size));
+        }
+
+        private char[] take() throws IOException {
+            try {
+                return ManagedBlocking.take(batches);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException("Interrupted while reading palette data", e);
+            }
+        }
+
+        private void awaitDone() {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    ManagedBlocking.await(done);
+                    break;
+                } catch (InterruptedException e) {
+                    stopped = true;
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        private void rethrow() throws IOException {
+            if (error instanceof IOException e) {
+                throw e;
+            }
+            if (error instanceof RuntimeException e) {
+                throw e;
+            }
+        }
+
+    }
+
+    /**
+     * Places everything read into an extent instead of storing it, at a position relative to the minimum point of the
+     * schematic.
+     */
+    private static final class StreamedPaste implements Clipboard {
+
+        private final Extent extent;
+        private final Region region;
+        private final BlockVector3 position;
+        private final boolean pasteAir;
+        private final boolean pasteBiomes;
+        private final boolean pasteEntities;
+        private BlockVector3 origin = BlockVector3.ZERO;
+
+        private StreamedPaste(
+                Extent extent,
+                BlockVector3 dimensions,
+                BlockVector3 position,
+                boolean pasteAir,
+                boolean pasteBiomes,
+                boolean pasteEntities
+        ) {
+            this.extent = extent;
+            this.region = new CuboidRegion(BlockVector3.ZERO, dimensions.subtract(BlockVector3.ONE));
+            this.position = position;
+            this.pasteAir = pasteAir;
+            this.pasteBiomes = pasteBiomes;
+            this.pasteEntities = pasteEntities;
+        }
+
+        private Region getPastedRegion() {
+            return new CuboidRegion(position, position.add(region.getMaximumPoint()));
+        }
+
+        @Override
+        public Region getRegion() {
+            return region.clone();
+        }
+
+        @Override
+        public BlockVector3 getDimensions() {
+            return region.getDimensions();
+        }
+
+        @Override
+        public BlockVector3 getOrigin() {
+            return origin;
+        }
+
+        @Override
+        public void setOrigin(BlockVector3 origin) {
+            this.origin = origin;
+        }
+
+        @Override
+        public BlockVector3 getMinimumPoint() {
+            return region.getMinimumPoint();
+        }
+
+        @Override
+        public BlockVector3 getMaximumPoint() {
+            return region.getMaximumPoint();
+        }
+
+        @Override
+        public boolean hasBiomes() {
+            return false;
+        }
+
+        @Override
+        public void removeEntity(Entity entity) {
+        }
+
+        @Override
+        public BaseBlock getFullBlock(BlockVector3 position) {
+            return extent.getFullBlock(this.position.add(position));
+        }
+
+        @Override
+        public BlockState getBlock(BlockVector3 position) {
+            return extent.getBlock(this.position.add(position));
+        }
+
+        @Override
+        public BiomeType getBiome(BlockVector3 position) {
+            return extent.getBiome(this.position.add(position));
+        }
+
+        @Override
+        public <T extends BlockStateHolder<T>> boolean setBlock(BlockVector3 position, T block) throws WorldEditException {
+            return setBlock(position.x(), position.y(), position.z(), block);
+        }
+
+        @Override
+        public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B block) throws WorldEditException {
+            if (!pasteAir && block.getBlockType().getMaterial().isAir()) {
+                return false;
+            }
+            return extent.setBlock(position.x() + x, position.y() + y, position.z() + z, block);
+        }
+
+        @Override
+        public boolean tile(int x, int y, int z, FaweCompoundTag tile) throws WorldEditException {
+            return extent.tile(position.x() + x, position.y() + y, position.z() + z, tile);
+        }
+
+        @Override
+        public boolean setBiome(BlockVector3 position, BiomeType biome) {
+            return setBiome(position.x(), position.y(), position.z(), biome);
+        }
+
+        @Override
+        public boolean setBiome(int x, int y, int z, BiomeType biome) {
+            return pasteBiomes && extent.setBiome(position.x() + x, position.y() + y, position.z() + z, biome);
+        }
+
+        @Override
+        public boolean fullySupports3DBiomes() {
+            return extent.fullySupports3DBiomes();
+        }
+
+        @Nullable
+        @Override
+        public Entity createEntity(Location location, BaseEntity entity) {
+            if (!pasteEntities) {
+                return null;
+            }
+            return extent.createEntity(
+                    new Location(extent, location.toVector().add(position.toVector3()), location.getYaw(), location.getPitch()),
+                    entity
+            );
+        }
+
+    }
+
     @ApiStatus.Internal
     @FunctionalInterface
     private interface PositionConsumer {
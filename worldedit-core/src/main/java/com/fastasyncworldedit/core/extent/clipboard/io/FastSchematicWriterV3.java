@@ -1,6 +1,9 @@
 package com.fastasyncworldedit.core.extent.clipboard.io;
 
-import com.fastasyncworldedit.core.function.visitor.Order;
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
+import com.fastasyncworldedit.core.math.MutableBlockVector3;
 import com.fastasyncworldedit.core.util.IOUtil;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTConstants;
@@ -10,12 +13,14 @@
 import com.sk89q.worldedit.entity.Entity;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
 import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 import net.jpountz.lz4.LZ4BlockInputStream;
@@ -26,11 +31,14 @@
 import java.io.ByteArrayOutputStream;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Arrays;
-import java.util.Iterator;
 import java.util.List;
 import java.util.Objects;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Faster, stream-based implementation of {@link com.sk89q.worldedit.extent.clipboard.io.sponge.SpongeSchematicV3Writer} for
@@ -44,6 +52,8 @@ public class FastSchematicWriterV3 implements ClipboardWriter {
     public static final int CURRENT_VERSION = 3;
 
     private static final int MAX_SIZE = Short.MAX_VALUE - Short.MIN_VALUE;
+    // Blocks per slab, the part of the clipboard encoded at once by a thread
+    private static final int SLAB_VOLUME = 1 << 20;
     private final NBTOutputStream outputStream;
 
 
@@ -117,26 +127,40 @@ private void writeBlocks(NBTOutputStream blocks, Clipboard clipboard) throws IOE
             this.writePalette(
                     blocks,
                     BlockTypesCache.states.length,
-                    pos -> {
-                        BaseBlock block = pos.getFullBlock(clipboard);
-                        LinCompoundTag tag;
-                        if ((tag = block.getNbt()) != null) {
-                            tiles[0]++;
-                            try {
-                                tileOut.writeNamedTag("Id", block.getNbtId());
-                                tileOut.writeNamedTag("Pos", new int[]{
-                                        pos.x() - clipboard.getMinimumPoint().x(),
-                                        pos.y() - clipboard.getMinimumPoint().y(),
-                                        pos.z() - clipboard.getMinimumPoint().z()
-                                });
-                                //noinspection deprecation
-                                tileOut.writeNamedTag("Data", new CompoundTag(tag));
-                                tileOut.write(NBTConstants.TYPE_END);
-                            } catch (IOException e) {
-                                throw new RuntimeException("Failed to write tile data", e);
+                    () -> new SlabResolver<BlockState>() {
+                        // The tiles of the slab, written in order once the slab is written
+                        private final ByteArrayOutputStream slabTileBytes = new ByteArrayOutputStream();
+                        private final NBTOutputStream slabTileOut = new NBTOutputStream(slabTileBytes);
+                        private int slabTiles;
+
+                        @Override
+                        public BlockState resolve(BlockVector3 pos) {
+                            BaseBlock block = pos.getFullBlock(clipboard);
+                            LinCompoundTag tag;
+                            if ((tag = block.getNbt()) != null) {
+                                slabTiles++;
+                                try {
+                                    slabTileOut.writeNamedTag("Id", block.getNbtId());
+                                    slabTileOut.writeNamedTag("Pos", new int[]{
+                                            pos.x() - clipboard.getMinimumPoint().x(),
+                                            pos.y() - clipboard.getMinimumPoint().y(),
+                                            pos.z() - clipboard.getMinimumPoint().z()
+                                    });
+                                    //noinspection deprecation
+                                    slabTileOut.writeNamedTag("Data", new CompoundTag(tag));
+                                    slabTileOut.write(NBTConstants.TYPE_END);
+                                } catch (IOException e) {
+                                    throw new RuntimeException("Failed to write tile data", e);
+                                }
                             }
+                            return block.toImmutableState();
+                        }
+
+                        @Override
+                        public void finish() throws IOException {
+                            tiles[0] += slabTiles;
+                            slabTileBytes.writeTo(tileOut);
                         }
-                        return block.toImmutableState();
                     },
                     block -> {
                         char ordinal = block.getOrdinalChar();
@@ -164,9 +188,9 @@ private void writeBlocks(NBTOutputStream blocks, Clipboard clipboard) throws IOE
     }
 
     private void writeBiomes(NBTOutputStream biomes, Clipboard clipboard) throws IOException {
-        this.writePalette(
+        this.<BiomeType>writePalette(
                 biomes, BiomeType.REGISTRY.size(),
-                pos -> pos.getBiome(clipboard),
+                () -> pos -> pos.getBiome(clipboard),
                 biome -> (char) biome.getInternalId(),
                 BiomeType::id,
                 clipboard
@@ -216,7 +240,7 @@ private void writeEntity(NBTOutputStream out, Clipboard clipboard, Entity entity
 
     private <T> void writePalette(
             NBTOutputStream out, int capacity,
-            Function<BlockVector3, T> objectResolver,
+            Supplier<SlabResolver<T>> resolvers,
             Function<T, Character> ordinalResolver,
             Function<T, String> paletteEntryResolver,
             Clipboard clipboard
@@ -227,28 +251,41 @@ private <T> void writePalette(
             int index = 0;
             char[] palette = new char[capacity];
             Arrays.fill(palette, Character.MAX_VALUE);
-            final Iterator<BlockVector3> iterator = clipboard.iterator(Order.YZX);
+            final BlockVector3 min = clipboard.getMinimumPoint();
+            final BlockVector3 max = clipboard.getMaximumPoint();
+            final int slabHeight = Math.max(1, SLAB_VOLUME / (clipboard.getWidth() * clipboard.getLength()));
+            final int parallelism = getParallelism(clipboard);
             // Start Palette tag
             out.writeNamedTagName("Palette", NBTConstants.TYPE_COMPOUND);
-            while (iterator.hasNext()) {
-                BlockVector3 pos = iterator.next();
-                T obj = objectResolver.apply(pos);
-                char ordinal = ordinalResolver.apply(obj);
-                char value = palette[ordinal];
-                if (value == Character.MAX_VALUE) {
-                    palette[ordinal] = value = (char) index++;
-                    if (index >= palette.length) {
-                        throw new IOException("insufficient palette capacity: " + palette.length + ", index: " + index);
+            List<Slab<T>> slabs = new ArrayList<>(parallelism);
+            for (int y = min.y(); y <= max.y(); ) {
+                slabs.clear();
+                for (; slabs.size() < parallelism && y <= max.y(); y += slabHeight) {
+                    slabs.add(new Slab<>(resolvers.get(), y, Math.min(max.y(), y + slabHeight - 1)));
+                }
+                forEach(slabs, slab -> slab.resolve(min, max, ordinalResolver, capacity));
+                // Palette indices are given in order of first occurrence, so this can't be parallel
+                for (Slab<T> slab : slabs) {
+                    char[] values = slab.values;
+                    for (int i = 0; i < values.length; i++) {
+                        char ordinal = values[i];
+                        char value = palette[ordinal];
+                        if (value == Character.MAX_VALUE) {
+                            palette[ordinal] = value = (char) index++;
+                            if (index >= palette.length) {
+                                throw new IOException("insufficient palette capacity: " + palette.length + ", index: " + index);
+                            }
+                            out.writeNamedTag(paletteEntryResolver.apply(slab.getObject(ordinal)), value);
+                        }
+                        values[i] = value;
                     }
-                    out.writeNamedTag(paletteEntryResolver.apply(obj), value);
                 }
-                if ((value & -128) != 0) {
-                    dataBytesUsed++;
-                    dataOut.write(value & 127 | 128);
-                    value >>>= 7;
+                forEach(slabs, Slab::encode);
+                for (Slab<T> slab : slabs) {
+                    dataOut.write(slab.data, 0, slab.dataLength);
+                    dataBytesUsed += slab.dataLength;
+                    slab.resolver.finish();
                 }
-                dataOut.write(value);
-                dataBytesUsed++;
             }
             // End Palette tag
             out.write(NBTConstants.TYPE_END);
@@ -265,6 +302,32 @@ private <T> void writePalette(
         }
     }
 
+    /**
+     * Get the number of slabs to encode at once, which is 1 unless the clipboard may be read from several threads.
+     */
+    private static int getParallelism(Clipboard clipboard) {
+        Clipboard storage = clipboard instanceof BlockArrayClipboard blockArray ? blockArray.getParent() : clipboard;
+        if (!Settings.settings().CLIPBOARD.PARALLEL_SCHEMATIC_IO || Fawe.instance() == null
+                || !(storage instanceof LinearClipboard linear && linear.supportsParallelReads())) {
+            return 1;
+        }
+        return Math.max(1, Settings.settings().QUEUE.PARALLEL_THREADS);
+    }
+
+    private static <T> void forEach(List<Slab<T>> slabs, Consumer<Slab<T>> action) {
+        if (slabs.size() == 1) {
+            action.accept(slabs.get(0));
+            return;
+        }
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(slabs.size());
+        for (Slab<T> slab : slabs) {
+            tasks.add(Fawe.instance().getQueueHandler().submit(() -> action.accept(slab)));
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            task.join();
+        }
+    }
+
     private void writeMetadata(NBTOutputStream metadata, Clipboard clipboard) throws IOException {
         metadata.writeNamedTag("Date", System.currentTimeMillis());
         metadata.writeLazyCompoundTag("WorldEdit", out -> {
@@ -292,4 +355,85 @@ public void close() throws IOException {
         this.outputStream.close();
     }
 
+    /**
+     * Resolves the objects at the positions of a slab, possibly on another thread than the one writing the schematic.
+     */
+    @FunctionalInterface
+    private interface SlabResolver<T> {
+
+        T resolve(BlockVector3 position);
+
+        /**
+         * Called on the writing thread once the data of the slab has been written, in the order of the slabs.
+         *
+         * @throws IOException on I/O error
+         */
+        default void finish() throws IOException {
+        }
+
+    }
+
+    /**
+     * A range of layers of the clipboard, read into ordinals which are then replaced with their palette index and encoded
+     * as var-ints.
+     */
+    private static final class Slab<T> {
+
+        private final SlabResolver<T> resolver;
+        private final int minY;
+        private final int maxY;
+        private char[] values;
+        // An object of each ordinal found in the slab
+        private Object[] objects;
+        private byte[] data;
+        private int dataLength;
+
+        private Slab(SlabResolver<T> resolver, int minY, int maxY) {
+            this.resolver = resolver;
+            this.minY = minY;
+            this.maxY = maxY;
+        }
+
+        private void resolve(BlockVector3 min, BlockVector3 max, Function<T, Character> ordinalResolver, int capacity) {
+            values = new char[(maxY - minY + 1) * (max.z() - min.z() + 1) * (max.x() - min.x() + 1)];
+            objects = new Object[capacity];
+            MutableBlockVector3 position = new MutableBlockVector3();
+            int i = 0;
+            for (int y = minY; y <= maxY; y++) {
+                for (int z = min.z(); z <= max.z(); z++) {
+                    for (int x = min.x(); x <= max.x(); x++) {
+                        T object = resolver.resolve(position.setComponents(x, y, z));
+                        char ordinal = ordinalResolver.apply(object);
+                        values[i++] = ordinal;
+                        if (objects[ordinal] == null) {
+                            objects[ordinal] = object;
+                        }
+                    }
+                }
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private T getObject(char ordinal) {
+            return (T) objects[ordinal];
+        }
+
+        private void encode() {
+            objects = null;
+            data = new byte[values.length * 3];
+            int length = 0;
+            for (char value : values) {
+                int remaining = value;
+                while ((remaining & -128) != 0) {
+                    data[length++] = (byte) (remaining & 127 | 128);
+                    remaining >>>= 7;
+                }
+                data[length++] = (byte) remaining;
+            }
+            values = null;
+            dataLength = length;
+        }
+
+    }
+
 }
@@ -0,0 +1,79 @@
+package com.fastasyncworldedit.core.extent.clipboard.io;
+
+import com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardReader;
+import com.sk89q.worldedit.math.BlockVector3;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Reads indexed schematics written by {@link IndexedSchematicWriter}. The schematic is not read into a clipboard, but
+ * opened as an {@link IndexedSchematicClipboard} reading it as it is used. Schematics that are not read from a file are
+ * copied to a temporary file first, deleted once the clipboard is closed.
+ *
+ * @since TODO
+ */
+public class IndexedSchematicReader implements ClipboardReader {
+
+    private final InputStream inputStream;
+    @Nullable
+    private final Path path;
+
+    /**
+     * Create a reader copying the schematic to a temporary file.
+     *
+     * @param inputStream the stream to read the schematic from
+     */
+    public IndexedSchematicReader(InputStream inputStream) {
+        this(inputStream, null);
+    }
+
+    /**
+     * Create a reader opening the schematic file directly if its path is known.
+     *
+     * @param inputStream the stream to read the schematic from if there is no path
+     * @param path        the path of the schematic file, or {@code null} if unknown
+     */
+    public IndexedSchematicReader(InputStream inputStream, @Nullable Path path) {
+        this.inputStream = inputStream;
+        this.path = path;
+    }
+
+    @Override
+    public Clipboard read(UUID uuid, Function<BlockVector3, Clipboard> createOutput) throws IOException {
+        FileChannel channel;
+        if (path != null) {
+            channel = FileChannel.open(path, StandardOpenOption.READ);
+        } else {
+            Path temp = Files.createTempFile("faweindexedschem", null);
+            try {
+                try (OutputStream out = Files.newOutputStream(temp)) {
+                    inputStream.transferTo(out);
+                }
+                channel = FileChannel.open(temp, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE);
+            } catch (IOException e) {
+                Files.deleteIfExists(temp);
+                throw e;
+            }
+        }
+        IndexedSchematicClipboard clipboard = IndexedSchematicClipboard.open(channel);
+        return new BlockArrayClipboard(clipboard.getSchematicRegion(), clipboard);
+    }
+
+    @Override
+    public void close() throws IOException {
+        inputStream.close();
+    }
+
+}
@@ -0,0 +1,236 @@
+package com.fastasyncworldedit.core.extent.clipboard.io;
+
+import com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard;
+import com.google.common.io.CountingOutputStream;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.entity.Entity;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.extent.clipboard.io.ClipboardWriter;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.util.Location;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import net.jpountz.lz4.LZ4Compressor;
+import net.jpountz.lz4.LZ4Factory;
+import org.enginehub.linbus.stream.LinBinaryIO;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinDoubleTag;
+import org.enginehub.linbus.tree.LinFloatTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinListTag;
+import org.enginehub.linbus.tree.LinRootEntry;
+import org.enginehub.linbus.tree.LinTagType;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.zip.GZIPOutputStream;
+
+import static com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard.HEADER_SIZE;
+import static com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard.MAGIC;
+import static com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard.REGION_BIOMES;
+import static com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard.REGION_BLOCKS;
+import static com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard.VERSION;
+
+/**
+ * Writes clipboards as indexed schematics, read lazily by {@link IndexedSchematicClipboard}. The file is written as a
+ * stream, one 16x16x16 region at a time, so writing needs no more memory for a larger clipboard.
+ *
+ * @since TODO
+ */
+public class IndexedSchematicWriter implements ClipboardWriter {
+
+    private static final LZ4Compressor COMPRESSOR = LZ4Factory.fastestInstance().fastCompressor();
+
+    private final CountingOutputStream counter;
+    private final DataOutputStream out;
+
+    public IndexedSchematicWriter(OutputStream outputStream) {
+        this.counter = new CountingOutputStream(new BufferedOutputStream(Objects.requireNonNull(outputStream, "outputStream")));
+        this.out = new DataOutputStream(counter);
+    }
+
+    @Override
+    public void write(Clipboard clipboard) throws IOException {
+        clipboard.flush();
+        BlockVector3 min = clipboard.getMinimumPoint();
+        BlockVector3 origin = clipboard.getOrigin();
+        BlockVector3 offset = min.subtract(origin);
+        boolean hasBiomes = clipboard.hasBiomes();
+        int width = clipboard.getWidth();
+        int height = clipboard.getHeight();
+        int length = clipboard.getLength();
+
+        out.writeInt(MAGIC);
+        out.writeShort(VERSION);
+        out.writeInt(WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING).getDataVersion());
+        out.writeInt(width);
+        out.writeInt(height);
+        out.writeInt(length);
+        out.writeInt(offset.x());
+        out.writeInt(offset.y());
+        out.writeInt(offset.z());
+        out.writeInt(origin.x());
+        out.writeInt(origin.y());
+        out.writeInt(origin.z());
+        out.writeBoolean(hasBiomes);
+        if (counter.getCount() != HEADER_SIZE) {
+            throw new IllegalStateException("Header size mismatch");
+        }
+
+        // palette index + 1 by ordinal and biome id, 0 if not in the palette yet
+        char[] blockIndices = new char[BlockTypesCache.states.length];
+        List<String> blockPalette = new ArrayList<>();
+        char[] biomeIndices = new char[BiomeType.REGISTRY.size()];
+        List<String> biomePalette = new ArrayList<>();
+
+        int regionsX = (width + 15) >> 4;
+        int regionsZ = (length + 15) >> 4;
+        int regionsY = (height + 15) >> 4;
+        long[] offsets = new long[regionsX * regionsY * regionsZ + 1];
+        LinListTag.Builder<LinCompoundTag> tiles = LinListTag.builder(LinTagType.compoundTag());
+        CharBuffer indices = CharBuffer.allocate(REGION_BLOCKS + (hasBiomes ? REGION_BIOMES : 0));
+        int index = 0;
+        for (int regionY = 0; regionY < height; regionY += 16) {
+            for (int regionZ = 0; regionZ < length; regionZ += 16) {
+                for (int regionX = 0; regionX < width; regionX += 16) {
+                    indices.clear();
+                    for (int y = regionY; y < regionY + 16; y++) {
+                        for (int z = regionZ; z < regionZ + 16; z++) {
+                            for (int x = regionX; x < regionX + 16; x++) {
+                                if (x >= width || y >= height || z >= length) {
+                                    indices.put((char) 0);
+                                    continue;
+                                }
+                                BlockState state = clipboard.getBlock(min.x() + x, min.y() + y, min.z() + z);
+                                char ordinal = state.getOrdinalChar();
+                                if (ordinal == BlockTypesCache.ReservedIDs.__RESERVED__) {
+                                    ordinal = BlockTypesCache.ReservedIDs.AIR;
+                                    state = BlockState.getFromOrdinal(ordinal);
+                                }
+                                if (blockIndices[ordinal] == 0) {
+                                    blockPalette.add(state.getAsString());
+                                    blockIndices[ordinal] = (char) blockPalette.size();
+                                }
+                                indices.put((char) (blockIndices[ordinal] - 1));
+                                if (state.getMaterial().isTile()) {
+                                    BaseBlock block = clipboard.getFullBlock(min.x() + x, min.y() + y, min.z() + z);
+                                    LinCompoundTag nbt = block.getNbt();
+                                    if (nbt != null) {
+                                        tiles.add(LinCompoundTag.builder()
+                                                .put("pos", LinListTag.of(LinTagType.intTag(), List.of(
+                                                        LinIntTag.of(x),
+                                                        LinIntTag.of(y),
+                                                        LinIntTag.of(z)
+                                                )))
+                                                .put("nbt", nbt)
+                                                .build());
+                                    }
+                                }
+                            }
+                        }
+                    }
+                    if (hasBiomes) {
+                        // biomes are stored per 4x4x4 cell, read at the cell's first block within the clipboard
+                        for (int y = regionY; y < regionY + 16; y += 4) {
+                            for (int z = regionZ; z < regionZ + 16; z += 4) {
+                                for (int x = regionX; x < regionX + 16; x += 4) {
+                                    BiomeType biome = null;
+                                    if (x < width && y < height && z < length) {
+                                        biome = clipboard.getBiomeType(min.x() + x, min.y() + y, min.z() + z);
+                                    }
+                                    if (biome == null) {
+                                        indices.put((char) 0);
+                                        continue;
+                                    }
+                                    int id = biome.getInternalId();
+                                    if (biomeIndices[id] == 0) {
+                                        biomePalette.add(biome.id());
+                                        biomeIndices[id] = (char) biomePalette.size();
+                                    }
+                                    indices.put((char) (biomeIndices[id] - 1));
+                                }
+                            }
+                        }
+                    }
+                    offsets[index++] = counter.getCount();
+                    ByteBuffer raw = ByteBuffer.allocate(indices.capacity() * Character.BYTES);
+                    raw.asCharBuffer().put(indices.flip());
+                    out.write(COMPRESSOR.compress(raw.array()));
+                }
+            }
+        }
+        if (hasBiomes && biomePalette.isEmpty()) {
+            // every cell is stored as index 0
+            biomePalette.add("minecraft:plains");
+        }
+
+        offsets[index] = counter.getCount();
+        LinListTag.Builder<LinCompoundTag> entities = LinListTag.builder(LinTagType.compoundTag());
+        for (Entity entity : clipboard.getEntities()) {
+            BaseEntity state = entity.getState();
+            if (state == null) {
+                continue;
+            }
+            Location location = entity.getLocation();
+            LinCompoundTag.Builder nbt = state.getNbt() != null ? state.getNbt().toBuilder() : LinCompoundTag.builder();
+            entities.add(LinCompoundTag.builder()
+                    .put("pos", LinListTag.of(LinTagType.doubleTag(), List.of(
+                            LinDoubleTag.of(location.x() - min.x()),
+                            LinDoubleTag.of(location.y() - min.y()),
+                            LinDoubleTag.of(location.z() - min.z())
+                    )))
+                    .put("nbt", nbt
+                            .putString("id", state.getType().id())
+                            .put("Rotation", LinListTag.of(LinTagType.floatTag(), List.of(
+                                    LinFloatTag.of(location.getYaw()),
+                                    LinFloatTag.of(location.getPitch())
+                            )))
+                            .build())
+                    .build());
+        }
+        ByteArrayOutputStream nbtBytes = new ByteArrayOutputStream();
+        try (DataOutputStream nbtOut = new DataOutputStream(new GZIPOutputStream(nbtBytes))) {
+            LinBinaryIO.write(nbtOut, new LinRootEntry("", LinCompoundTag.builder()
+                    .put("blocks", tiles.build())
+                    .put("entities", entities.build())
+                    .build()));
+        }
+        nbtBytes.writeTo(out);
+
+        long footerOffset = counter.getCount();
+        for (long regionOffset : offsets) {
+            out.writeLong(regionOffset);
+        }
+        out.writeInt(blockPalette.size());
+        for (String state : blockPalette) {
+            out.writeUTF(state);
+        }
+        if (hasBiomes) {
+            out.writeInt(biomePalette.size());
+            for (String biome : biomePalette) {
+                out.writeUTF(biome);
+            }
+        }
+        out.writeLong(footerOffset);
+        out.writeInt(MAGIC);
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.close();
+    }
+
+}
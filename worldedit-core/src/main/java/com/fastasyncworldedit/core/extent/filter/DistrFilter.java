@@ -2,6 +2,7 @@
 
 import com.fastasyncworldedit.core.extent.filter.block.FilterBlock;
 import com.fastasyncworldedit.core.function.mask.ABlockMask;
+import com.fastasyncworldedit.core.queue.SectionFilter;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
@@ -14,7 +15,7 @@
 import java.util.Collections;
 import java.util.List;
 
-public class DistrFilter extends ForkedFilter<DistrFilter> {
+public class DistrFilter extends ForkedFilter<DistrFilter> implements SectionFilter {
 
     private final int[] counter = new int[BlockTypesCache.states.length];
 
@@ -47,6 +48,30 @@ public final void applyBlock(FilterBlock block) {
         counter[ordinal]++;
     }
 
+    @Override
+    public final void applySection(char[] ordinals, int start, int end) {
+        // Count runs instead of single blocks, sections mostly consist of long runs of the same state and a uniform
+        // section ends up as a single increment
+        int ordinal = ordinals[start];
+        int run = 1;
+        for (int i = start + 1; i < end; i++) {
+            int next = ordinals[i];
+            if (next == ordinal) {
+                run++;
+            } else {
+                counter[ordinal] += run;
+                ordinal = next;
+                run = 1;
+            }
+        }
+        counter[ordinal] += run;
+        int reserved = counter[BlockTypesCache.ReservedIDs.__RESERVED__];
+        if (reserved != 0) {
+            counter[BlockTypesCache.ReservedIDs.AIR] += reserved;
+            counter[BlockTypesCache.ReservedIDs.__RESERVED__] = 0;
+        }
+    }
+
     public int getTotal(ABlockMask mask) {
         int total = 0;
         for (int i = 0; i < counter.length; i++) {
@@ -0,0 +1,58 @@
+package com.fastasyncworldedit.core.extent.filter;
+
+import com.fastasyncworldedit.core.extent.filter.block.FilterBlock;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.UniformSectionFilter;
+import com.sk89q.worldedit.world.block.BlockState;
+
+/**
+ * Sets every block it is applied to to the same state and counts the blocks set. Sections that are filtered in full
+ * are stored as uniform sections.
+ *
+ * @since TODO
+ */
+public class FillFilter extends ForkedFilter<FillFilter> implements UniformSectionFilter {
+
+    private final char ordinal;
+    private int total;
+
+    public FillFilter(BlockState state) {
+        super(null);
+        this.ordinal = state.getOrdinalChar();
+    }
+
+    private FillFilter(FillFilter root) {
+        super(root);
+        this.ordinal = root.ordinal;
+    }
+
+    @Override
+    public FillFilter init() {
+        return new FillFilter(this);
+    }
+
+    @Override
+    public void join(FillFilter filter) {
+        this.total += filter.getTotal();
+    }
+
+    @Override
+    public final void applyBlock(FilterBlock block) {
+        block.setOrdinal(ordinal);
+        total++;
+    }
+
+    @Override
+    public boolean fillSection(IChunkSet set, int layer) {
+        if (!set.setUniformSection(layer, ordinal)) {
+            return false;
+        }
+        total += 4096;
+        return true;
+    }
+
+    public int getTotal() {
+        return total;
+    }
+
+}
@@ -83,6 +83,17 @@ public VectorizedMaskFilter(final T other, final Mask root, AtomicInteger change
             this.vectorizedMask = Objects.requireNonNull(SimdSupport.vectorizedTargetMask(root), "invalid vectorizable mask");
         }
 
+        /**
+         * Create a filter using an already built vectorized mask of the root mask. Vectorized masks are immutable, so forks
+         * share the vectorized mask instead of building it again.
+         *
+         * @since TODO
+         */
+        public VectorizedMaskFilter(final T other, final Mask root, final VectorizedMask vectorizedMask, AtomicInteger changes) {
+            super(other, root, changes);
+            this.vectorizedMask = Objects.requireNonNull(vectorizedMask, "invalid vectorizable mask");
+        }
+
         @Override
         public void applyVector(final VectorFacade get, final VectorFacade set, final VectorMask<Short> mask) {
             final T parent = getParent();
@@ -98,7 +109,7 @@ public void applyVector(final VectorFacade get, final VectorFacade set, final Ve
         @Override
         public MaskFilter<?> newInstance(final Filter other) {
             if (other instanceof VectorizedFilter o) {
-                return new VectorizedMaskFilter<>(o, mask);
+                return new VectorizedMaskFilter<>(o, mask, vectorizedMask, new AtomicInteger());
             }
             return super.newInstance(other);
         }
@@ -106,7 +117,7 @@ public MaskFilter<?> newInstance(final Filter other) {
         @SuppressWarnings("unchecked")
         @Override
         public Filter fork() {
-            return new VectorizedMaskFilter<>((T) getParent().fork(), mask.copy(), changes);
+            return new VectorizedMaskFilter<>((T) getParent().fork(), mask.copy(), vectorizedMask, changes);
         }
 
     }
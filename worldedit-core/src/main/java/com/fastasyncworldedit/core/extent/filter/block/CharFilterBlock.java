@@ -7,6 +7,8 @@
 import com.fastasyncworldedit.core.queue.IBlocks;
 import com.fastasyncworldedit.core.queue.IChunkGet;
 import com.fastasyncworldedit.core.queue.IChunkSet;
+import com.fastasyncworldedit.core.queue.SectionFilter;
+import com.fastasyncworldedit.core.queue.UniformSectionFilter;
 import com.fastasyncworldedit.core.queue.implementation.Flood;
 import com.fastasyncworldedit.core.queue.implementation.blocks.CharGetBlocks;
 import com.sk89q.worldedit.WorldEditException;
@@ -80,7 +82,8 @@ public synchronized final ChunkFilterBlock initLayer(IBlocks iget, IChunkSet ise
             getArr = iget.load(layer);
         }
         this.set = iset;
-        if (set.hasSection(layer)) {
+        // uniform sections are only expanded once a block is set in them, so filling them again keeps them uniform
+        if (set.hasSection(layer) && set.getUniformOrdinal(layer) == BlockTypesCache.ReservedIDs.__RESERVED__) {
             setArr = set.load(layer);
             delegate = FULL;
         } else {
@@ -128,6 +131,10 @@ public synchronized void filter(Filter filter, int x, int y, int z) {
 
     @Override
     public synchronized void filter(Filter filter, int startY, int endY) {
+        if (filter instanceof SectionFilter sectionFilter) {
+            sectionFilter.applySection(getArr, startY << 8, (endY + 1) << 8);
+            return;
+        }
         for (y = startY, index = startY << 8; y <= endY; y++) {
             for (z = 0; z < 16; z++) {
                 for (x = 0; x < 16; x++, index++) {
@@ -174,6 +181,13 @@ public synchronized final void filter(Filter filter, Region region) {
 
     @Override
     public synchronized void filter(Filter filter) {
+        if (filter instanceof SectionFilter sectionFilter) {
+            sectionFilter.applySection(getArr, 0, 4096);
+            return;
+        }
+        if (filter instanceof UniformSectionFilter uniformFilter && uniformFilter.fillSection(set, layer)) {
+            return;
+        }
         for (y = 0, index = 0; y < 16; y++) {
             for (z = 0; z < 16; z++) {
                 for (x = 0; x < 16; x++, index++) {
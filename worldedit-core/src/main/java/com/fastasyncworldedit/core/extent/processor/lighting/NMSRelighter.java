@@ -4,12 +4,12 @@
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.math.BlockVectorSet;
 import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.fastasyncworldedit.core.queue.implementation.ParallelLanes;
 import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkHolder;
 import com.fastasyncworldedit.core.util.MathMan;
 import com.fastasyncworldedit.core.util.TaskManager;
 import com.fastasyncworldedit.core.util.task.RunnableVal;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
-import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.registry.state.DirectionalProperty;
 import com.sk89q.worldedit.registry.state.EnumProperty;
 import com.sk89q.worldedit.registry.state.Property;
@@ -17,7 +17,11 @@
 import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockTypes;
 import com.sk89q.worldedit.world.registry.BlockMaterial;
+import it.unimi.dsi.fastutil.ints.IntArrayFIFOQueue;
 import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayFIFOQueue;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nonnull;
@@ -25,13 +29,10 @@
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.Iterator;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
-import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -42,6 +43,8 @@ public class NMSRelighter implements Relighter {
     private static final Logger LOGGER = LogManagerCompat.getLogger();
 
     private static final int DISPATCH_SIZE = 64;
+    // Fewest chunks of a batch each thread propagates sky light for
+    private static final int MIN_PARALLEL_CHUNKS = 4;
     private static final DirectionalProperty stairDirection;
     private static final EnumProperty stairHalf;
     private static final EnumProperty stairShape;
@@ -56,7 +59,6 @@ public class NMSRelighter implements Relighter {
 
     private final IQueueExtent<?> queue;
     private final Map<Long, RelightSkyEntry> skyToRelight;
-    private final Object present = new Object();
     private final Map<Long, Integer> chunksToSend;
     private final ConcurrentLinkedQueue<RelightSkyEntry> extendSkyToRelight = new ConcurrentLinkedQueue<>();
     private final Map<Long, long[][][] /* z y x */> lightQueue;
@@ -131,6 +133,25 @@ private void set(int x, int y, int z, long[][][] map) {
         m2[y >> 6] |= 1L << (y & 63);
     }
 
+    /**
+     * Pack a world position into a long: 26 bits for x and z and 12 bits for y.
+     */
+    private static long pack(int x, int y, int z) {
+        return ((long) x & 0x3FFFFFF) << 38 | ((long) z & 0x3FFFFFF) << 12 | (y & 0xFFF);
+    }
+
+    private static int unpackX(long packed) {
+        return (int) (packed >> 38);
+    }
+
+    private static int unpackY(long packed) {
+        return (int) (packed << 52 >> 52);
+    }
+
+    private static int unpackZ(long packed) {
+        return (int) (packed << 26 >> 38);
+    }
+
     public void addLightUpdate(int x, int y, int z) {
         long index = MathMan.pairInt(x >> 4, z >> 4);
         if (lightLock.compareAndSet(false, true)) {
@@ -211,10 +232,12 @@ public void updateBlockLight(Map<Long, long[][][]> map) {
         if (size == 0) {
             return;
         }
-        Queue<BlockVector3> lightPropagationQueue = new LinkedList<>();
-        Queue<LightRemovalNode> lightRemovalQueue = new LinkedList<>();
-        Map<BlockVector3, Object> visited = new HashMap<>(32);
-        Map<BlockVector3, Object> removalVisited = new HashMap<>(32);
+        // Positions are packed into longs, see pack(int, int, int), with removal levels queued alongside them
+        LongArrayFIFOQueue lightPropagationQueue = new LongArrayFIFOQueue();
+        LongArrayFIFOQueue lightRemovalQueue = new LongArrayFIFOQueue();
+        IntArrayFIFOQueue lightRemovalLevels = new IntArrayFIFOQueue();
+        LongOpenHashSet visited = new LongOpenHashSet(32);
+        LongOpenHashSet removalVisited = new LongOpenHashSet(32);
 
         // Make sure BlockTypes is initialised so we can check block characteristics later if needed
         BlockTypes.STONE.getMaterial();
@@ -255,13 +278,14 @@ public void updateBlockLight(Map<Long, long[][][]> map) {
                                     int newLevel = iChunk.getBrightness(lx, y, lz);
                                     if (oldLevel != newLevel) {
                                         iChunk.setBlockLight(lx, y, lz, newLevel);
-                                        BlockVector3 node = BlockVector3.at(x, y, z);
+                                        long node = pack(x, y, z);
                                         if (newLevel < oldLevel) {
-                                            removalVisited.put(node, present);
-                                            lightRemovalQueue.add(new LightRemovalNode(node, oldLevel));
+                                            removalVisited.add(node);
+                                            lightRemovalQueue.enqueue(node);
+                                            lightRemovalLevels.enqueue(oldLevel);
                                         } else {
-                                            visited.put(node, present);
-                                            lightPropagationQueue.add(node);
+                                            visited.add(node);
+                                            lightPropagationQueue.enqueue(node);
                                         }
                                     }
                                 }
@@ -274,70 +298,78 @@ public void updateBlockLight(Map<Long, long[][][]> map) {
         }
 
         while (!lightRemovalQueue.isEmpty()) {
-            LightRemovalNode val = lightRemovalQueue.poll();
-            BlockVector3 node = val.pos();
-            int lightLevel = val.previous();
+            long node = lightRemovalQueue.dequeueLong();
+            int lightLevel = lightRemovalLevels.dequeueInt();
+            int x = unpackX(node);
+            int y = unpackY(node);
+            int z = unpackZ(node);
 
             this.computeRemoveBlockLight(
-                    node.x() - 1,
-                    node.y(),
-                    node.z(),
+                    x - 1,
+                    y,
+                    z,
                     lightLevel,
                     lightRemovalQueue,
+                    lightRemovalLevels,
                     lightPropagationQueue,
                     removalVisited,
                     visited
             );
             this.computeRemoveBlockLight(
-                    node.x() + 1,
-                    node.y(),
-                    node.z(),
+                    x + 1,
+                    y,
+                    z,
                     lightLevel,
                     lightRemovalQueue,
+                    lightRemovalLevels,
                     lightPropagationQueue,
                     removalVisited,
                     visited
             );
-            if (node.y() > minY) {
+            if (y > minY) {
                 this.computeRemoveBlockLight(
-                        node.x(),
-                        node.y() - 1,
-                        node.z(),
+                        x,
+                        y - 1,
+                        z,
                         lightLevel,
                         lightRemovalQueue,
+                        lightRemovalLevels,
                         lightPropagationQueue,
                         removalVisited,
                         visited
                 );
             }
-            if (node.y() < maxY) {
+            if (y < maxY) {
                 this.computeRemoveBlockLight(
-                        node.x(),
-                        node.y() + 1,
-                        node.z(),
+                        x,
+                        y + 1,
+                        z,
                         lightLevel,
                         lightRemovalQueue,
+                        lightRemovalLevels,
                         lightPropagationQueue,
                         removalVisited,
                         visited
                 );
             }
             this.computeRemoveBlockLight(
-                    node.x(),
-                    node.y(),
-                    node.z() - 1,
+                    x,
+                    y,
+                    z - 1,
                     lightLevel,
                     lightRemovalQueue,
+                    lightRemovalLevels,
                     lightPropagationQueue,
                     removalVisited,
                     visited
             );
             this.computeRemoveBlockLight(
-                    node.x(),
-                    node.y(),
-                    node.z() + 1,
+                    x,
+                    y,
+                    z + 1,
                     lightLevel,
                     lightRemovalQueue,
+                    lightRemovalLevels,
                     lightPropagationQueue,
                     removalVisited,
                     visited
@@ -345,27 +377,30 @@ public void updateBlockLight(Map<Long, long[][][]> map) {
         }
 
         while (!lightPropagationQueue.isEmpty()) {
-            BlockVector3 node = lightPropagationQueue.poll();
-            ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(node.x() >> 4, node.z() >> 4);
+            long node = lightPropagationQueue.dequeueLong();
+            int x = unpackX(node);
+            int y = unpackY(node);
+            int z = unpackZ(node);
+            ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(x >> 4, z >> 4);
             if (!iChunk.isInit()) {
-                iChunk.init(queue, node.x() >> 4, node.z() >> 4);
+                iChunk.init(queue, x >> 4, z >> 4);
             }
-            int lightLevel = iChunk.getEmittedLight(node.x() & 15, node.y(), node.z() & 15);
-            BlockState state = this.queue.getBlock(node.x(), node.y(), node.z());
+            int lightLevel = iChunk.getEmittedLight(x & 15, y, z & 15);
+            BlockState state = this.queue.getBlock(x, y, z);
             String id = state.getBlockType().id().toLowerCase(Locale.ROOT);
             if (lightLevel <= 1) {
                 continue;
             }
             if (id.contains("slab")) {
                 boolean top = state.getState(slabHalf).equalsIgnoreCase("top");
-                computeSlab(node.x(), node.y(), node.z(), lightLevel, lightPropagationQueue, visited, top);
+                computeSlab(x, y, z, lightLevel, lightPropagationQueue, visited, top);
             } else if (id.contains("stair")) {
                 boolean top = state.getState(stairHalf).equalsIgnoreCase("top");
                 Direction direction = getStairDir(state);
                 String shape = getStairShape(state);
-                computeStair(node.x(), node.y(), node.z(), lightLevel, lightPropagationQueue, visited, top, direction, shape);
+                computeStair(x, y, z, lightLevel, lightPropagationQueue, visited, top, direction, shape);
             } else {
-                computeNormal(node.x(), node.y(), node.z(), lightLevel, lightPropagationQueue, visited);
+                computeNormal(x, y, z, lightLevel, lightPropagationQueue, visited);
             }
         }
     }
@@ -375,8 +410,8 @@ private void computeStair(
             int y,
             int z,
             int currentLight,
-            Queue<BlockVector3> queue,
-            Map<BlockVector3, Object> visited,
+            LongArrayFIFOQueue queue,
+            LongOpenHashSet visited,
             boolean top,
             Direction direction,
             String shape
@@ -594,8 +629,8 @@ private void computeSlab(
             int y,
             int z,
             int currentLight,
-            Queue<BlockVector3> queue,
-            Map<BlockVector3, Object> visited,
+            LongArrayFIFOQueue queue,
+            LongOpenHashSet visited,
             boolean top
     ) {
         {
@@ -634,8 +669,8 @@ private void computeUpDown(
             int y,
             int z,
             int currentLight,
-            Queue<BlockVector3> queue,
-            Map<BlockVector3, Object> visited,
+            LongArrayFIFOQueue queue,
+            LongOpenHashSet visited,
             boolean top
     ) {
         BlockState state = this.queue.getBlock(x, y - 1, z);
@@ -653,8 +688,8 @@ private void computeNormal(
             int y,
             int z,
             int currentLight,
-            Queue<BlockVector3> queue,
-            Map<BlockVector3, Object> visited
+            LongArrayFIFOQueue queue,
+            LongOpenHashSet visited
     ) {
         {
             // Block East
@@ -787,10 +822,11 @@ private void computeRemoveBlockLight(
             int y,
             int z,
             int currentLight,
-            Queue<LightRemovalNode> queue,
-            Queue<BlockVector3> spreadQueue,
-            Map<BlockVector3, Object> visited,
-            Map<BlockVector3, Object> spreadVisited
+            LongArrayFIFOQueue queue,
+            IntArrayFIFOQueue queueLight,
+            LongArrayFIFOQueue spreadQueue,
+            LongOpenHashSet visited,
+            LongOpenHashSet spreadVisited
     ) {
         ChunkHolder<?> iChunk = (ChunkHolder<?>) this.queue.getOrCreateChunk(x >> 4, z >> 4);
         if (!iChunk.isInit()) {
@@ -798,22 +834,17 @@ private void computeRemoveBlockLight(
         }
         int current = iChunk.getEmittedLight(x & 15, y, z & 15);
         if (current != 0 && current < currentLight) {
-            iChunk.setBlockLight(x, y, z, 0);
-            if (current > 1) {
-                visited.computeIfAbsent(
-                        BlockVector3.at(x, y, z), k -> {
-                            queue.add(new LightRemovalNode(k, current));
-                            return present;
-                        }
-                );
+            iChunk.setBlockLight(x & 15, y, z & 15, 0);
+            long node = pack(x, y, z);
+            if (current > 1 && visited.add(node)) {
+                queue.enqueue(node);
+                queueLight.enqueue(current);
             }
         } else if (current >= currentLight) {
-            spreadVisited.computeIfAbsent(
-                    BlockVector3.at(x, y, z), k -> {
-                        spreadQueue.add(k);
-                        return present;
-                    }
-            );
+            long node = pack(x, y, z);
+            if (spreadVisited.add(node)) {
+                spreadQueue.enqueue(node);
+            }
         }
     }
 
@@ -822,8 +853,8 @@ private void computeSpreadBlockLight(
             int y,
             int z,
             int currentLight,
-            Queue<BlockVector3> queue,
-            Map<BlockVector3, Object> visited
+            LongArrayFIFOQueue queue,
+            LongOpenHashSet visited
     ) {
         BlockMaterial material = this.queue.getBlock(x, y, z).getMaterial();
         boolean solidNeedsLight = (!material.isSolid() || !material.isFullCube()) && material.getLightOpacity() > 0 && material.getLightValue() == 0;
@@ -836,14 +867,10 @@ private void computeSpreadBlockLight(
             int current = iChunk.getEmittedLight(x & 15, y, z & 15);
             if (currentLight > current) {
                 iChunk.setBlockLight(x & 15, y, z & 15, currentLight);
-                visited.computeIfAbsent(
-                        BlockVector3.at(x, y, z), k -> {
-                            if (correctedLight > 1) {
-                                queue.add(k);
-                            }
-                            return present;
-                        }
-                );
+                long node = pack(x, y, z);
+                if (visited.add(node) && correctedLight > 1) {
+                    queue.enqueue(node);
+                }
             }
         }
     }
@@ -918,10 +945,14 @@ public void flush() {
     }
 
     public synchronized void sendChunks() {
+        sendChunks(chunksToSend, true);
+    }
+
+    private void sendChunks(Map<Long, Integer> chunks, boolean finish) {
         RunnableVal<Object> runnable = new RunnableVal<>() {
             @Override
             public void run(Object value) {
-                Iterator<Map.Entry<Long, Integer>> iter = chunksToSend.entrySet().iterator();
+                Iterator<Map.Entry<Long, Integer>> iter = chunks.entrySet().iterator();
                 while (iter.hasNext()) {
                     Map.Entry<Long, Integer> entry = iter.next();
                     long pair = entry.getKey();
@@ -934,7 +965,9 @@ public void run(Object value) {
                     Fawe.platform().getPlatformAdapter().sendChunk(chunk.getOrCreateGet(), bitMask, true);
                     iter.remove();
                 }
-                finished.set(true);
+                if (finish) {
+                    finished.set(true);
+                }
             }
         };
         if (Settings.settings().LIGHTING.ASYNC) {
@@ -956,20 +989,50 @@ public synchronized void fixSkyLighting() {
             iter.remove();
         }
         Collections.sort(chunksList);
+        LongOpenHashSet pending = null;
+        if (relightMode == RelightMode.STREAMED) {
+            pending = new LongOpenHashSet(chunksList.size());
+            for (RelightSkyEntry chunk : chunksList) {
+                pending.add(MathMan.pairInt(chunk.x, chunk.z));
+            }
+        }
         int size = chunksList.size();
-        if (size > DISPATCH_SIZE) {
-            int amount = (size + DISPATCH_SIZE - 1) / DISPATCH_SIZE;
-            for (int i = 0; i < amount; i++) {
-                int start = i * DISPATCH_SIZE;
-                int end = Math.min(size, start + DISPATCH_SIZE);
-                List<RelightSkyEntry> sub = chunksList.subList(start, end);
-                fixSkyLighting(sub);
+        for (int start = 0; start < size; start += DISPATCH_SIZE) {
+            List<RelightSkyEntry> sub = chunksList.subList(start, Math.min(size, start + DISPATCH_SIZE));
+            fixSkyLighting(sub);
+            if (pending != null) {
+                streamChunks(sub, pending);
             }
-        } else {
-            fixSkyLighting(chunksList);
         }
     }
 
+    /**
+     * Send a batch of chunks as soon as its sky light is fixed, together with the block light queued so far. Chunks next to
+     * one still pending may yet be changed by its relighting, so they are left to be sent once everything is relit.
+     */
+    private void streamChunks(List<RelightSkyEntry> batch, LongOpenHashSet pending) {
+        for (RelightSkyEntry chunk : batch) {
+            pending.remove(MathMan.pairInt(chunk.x, chunk.z));
+        }
+        fixBlockLighting();
+        Map<Long, Integer> relit = new Long2ObjectOpenHashMap<>(batch.size());
+        for (RelightSkyEntry chunk : batch) {
+            if (pending.contains(MathMan.pairInt(chunk.x + 1, chunk.z)) || pending.contains(MathMan.pairInt(chunk.x - 1, chunk.z))
+                    || pending.contains(MathMan.pairInt(chunk.x, chunk.z + 1)) || pending.contains(MathMan.pairInt(
+                    chunk.x,
+                    chunk.z - 1
+            ))) {
+                continue;
+            }
+            long pair = MathMan.pairInt(chunk.x, chunk.z);
+            Integer bitMask = chunksToSend.remove(pair);
+            if (bitMask != null) {
+                relit.put(pair, bitMask);
+            }
+        }
+        sendChunks(relit, false);
+    }
+
     public void fill(byte[] mask, ChunkHolder<?> iChunk, int y, byte reason) {
         if (y >= 16) {
             Arrays.fill(mask, (byte) 15);
@@ -1012,109 +1075,149 @@ private void fixSkyLighting(List<RelightSkyEntry> sorted) {
                 }
             }
         }
-        for (int y = maxY; y > minY; y--) {
-            for (RelightSkyEntry chunk : chunks) { // Propagate skylight
-                int layer = (y - minY) >> 4;
-                byte[] mask = chunk.mask;
-                int bx = chunk.x << 4;
-                int bz = chunk.z << 4;
-                ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(chunk.x, chunk.z);
-                if (chunk.fix[layer] != SkipReason.NONE) {
-                    if ((y & 15) == 0 && layer != 0 && chunk.fix[layer - 1] == SkipReason.NONE) {
-                        fill(mask, iChunk, y, chunk.fix[layer]);
+        // Everything that goes through the queue is done up front, so the chunks can be propagated on several threads
+        ChunkHolder<?>[] holders = new ChunkHolder<?>[chunks.length];
+        for (int i = 0; i < chunks.length; i++) {
+            RelightSkyEntry chunk = chunks[i];
+            ChunkHolder<?> iChunk = (ChunkHolder<?>) queue.getOrCreateChunk(chunk.x, chunk.z);
+            if (!iChunk.isInit()) {
+                iChunk.init(queue, chunk.x, chunk.z);
+            }
+            iChunk.getOrCreateGet();
+            iChunk.getOrCreateSet();
+            holders[i] = iChunk;
+        }
+        int threads = Math.min(Settings.settings().QUEUE.PARALLEL_THREADS, chunks.length / MIN_PARALLEL_CHUNKS);
+        final BlockVectorSet removeSet = chunkSet;
+        try (ParallelLanes lanes = ParallelLanes.unbound(threads)) {
+            int count = lanes.size();
+            LongArrayList[] lightUpdates = new LongArrayList[count];
+            for (int i = 0; i < count; i++) {
+                lightUpdates[i] = new LongArrayList();
+            }
+            for (int y = maxY; y > minY; y--) {
+                final int layerY = y;
+                // Columns only read and write their own chunk, so each lane propagates a range of chunks
+                lanes.run(lane -> {
+                    int end = (lane + 1) * chunks.length / count;
+                    for (int i = lane * chunks.length / count; i < end; i++) {
+                        propagateSkyLight(chunks[i], holders[i], layerY, removeSet, lightUpdates[lane]);
                     }
-                    continue;
-                }
-                if (!iChunk.isInit()) {
-                    iChunk.init(queue, chunk.x, chunk.z);
-                }
-                chunk.smooth = false;
-
-                if (remove && (y & 15) == 15 && chunkSet.contains(chunk.x, 0, chunk.z)) {
-                    iChunk.removeSectionLighting(y >> 4, true);
+                });
+                for (LongArrayList updates : lightUpdates) {
+                    for (int i = 0; i < updates.size(); i++) {
+                        long node = updates.getLong(i);
+                        addLightUpdate(unpackX(node), unpackY(node), unpackZ(node));
+                    }
+                    updates.clear();
                 }
-
-                for (int j = 0; j < 256; j++) {
-                    int x = j & 15;
-                    int z = j >> 4;
-                    byte value = mask[j];
-                    BlockState state = iChunk.getBlock(x, y, z);
-                    BlockMaterial material = state.getMaterial();
-                    int opacity = material.getLightOpacity();
-                    int brightness = material.getLightValue();
-                    if (brightness > 0 && brightness != iChunk.getEmittedLight(x, y, z)) {
-                        addLightUpdate(bx + x, y, bz + z);
+                // Smoothing exchanges light across chunk borders and stays in order, as it reads the previous chunks' results
+                for (RelightSkyEntry chunk : chunks) { // Smooth forwards
+                    if (chunk.smooth) {
+                        smoothSkyLight(chunk, y, true);
                     }
-
-                    switch (value) {
-                        case 0:
-                            if (opacity > 1) {
-                                iChunk.setSkyLight(x, y, z, 0);
-                                continue;
-                            }
-                            break;
-                        case 1:
-                        case 2:
-                        case 3:
-                        case 4:
-                        case 5:
-                        case 6:
-                        case 7:
-                        case 8:
-                        case 9:
-                        case 10:
-                        case 11:
-                        case 12:
-                        case 13:
-                        case 14:
-                            if (opacity >= value) {
-                                mask[j] = 0;
-                                if (!isStairOrTrueTop(state, true) || !(isSlabOrTrueValue(
-                                        state,
-                                        "top"
-                                ) || isSlabOrTrueValue(state, "double"))) {
-                                    iChunk.setSkyLight(x, y, z, value);
-                                } else {
-                                    iChunk.setSkyLight(x, y, z, 0);
-                                }
-                                continue;
-                            }
-                            if (opacity <= 1) {
-                                mask[j] = --value;
-                            } else {
-                                mask[j] = value = (byte) Math.max(0, value - opacity);
-                            }
-                            break;
-                        case 15:
-                            if (opacity > 0) {
-                                value -= (byte) opacity;
-                                mask[j] = value;
-                            }
-                            if (!isStairOrTrueTop(state, true) || !(isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(
-                                    state,
-                                    "double"
-                            ))) {
-                                iChunk.setSkyLight(x, y, z, value + opacity);
-                            } else {
-                                iChunk.setSkyLight(x, y, z, value);
-                            }
-                            continue;
+                }
+                for (int i = chunks.length - 1; i >= 0; i--) { // Smooth backwards
+                    RelightSkyEntry chunk = chunks[i];
+                    if (chunk.smooth) {
+                        smoothSkyLight(chunk, y, false);
                     }
-                    chunk.smooth = true;
-                    iChunk.setSkyLight(x, y, z, value);
                 }
             }
-            for (RelightSkyEntry chunk : chunks) { // Smooth forwards
-                if (chunk.smooth) {
-                    smoothSkyLight(chunk, y, true);
-                }
+        }
+    }
+
+    private void propagateSkyLight(
+            RelightSkyEntry chunk,
+            ChunkHolder<?> iChunk,
+            int y,
+            BlockVectorSet removeSet,
+            LongArrayList lightUpdates
+    ) {
+        int layer = (y - minY) >> 4;
+        byte[] mask = chunk.mask;
+        int bx = chunk.x << 4;
+        int bz = chunk.z << 4;
+        if (chunk.fix[layer] != SkipReason.NONE) {
+            if ((y & 15) == 0 && layer != 0 && chunk.fix[layer - 1] == SkipReason.NONE) {
+                fill(mask, iChunk, y, chunk.fix[layer]);
             }
-            for (int i = chunks.length - 1; i >= 0; i--) { // Smooth backwards
-                RelightSkyEntry chunk = chunks[i];
-                if (chunk.smooth) {
-                    smoothSkyLight(chunk, y, false);
-                }
+            return;
+        }
+        chunk.smooth = false;
+
+        if (removeSet != null && (y & 15) == 15 && removeSet.contains(chunk.x, 0, chunk.z)) {
+            iChunk.removeSectionLighting(y >> 4, true);
+        }
+
+        for (int j = 0; j < 256; j++) {
+            int x = j & 15;
+            int z = j >> 4;
+            byte value = mask[j];
+            BlockState state = iChunk.getBlock(x, y, z);
+            BlockMaterial material = state.getMaterial();
+            int opacity = material.getLightOpacity();
+            int brightness = material.getLightValue();
+            if (brightness > 0 && brightness != iChunk.getEmittedLight(x, y, z)) {
+                lightUpdates.add(pack(bx + x, y, bz + z));
             }
+
+            switch (value) {
+                case 0:
+                    if (opacity > 1) {
+                        iChunk.setSkyLight(x, y, z, 0);
+                        continue;
+                    }
+                    break;
+                case 1:
+                case 2:
+                case 3:
+                case 4:
+                case 5:
+                case 6:
+                case 7:
+                case 8:
+                case 9:
+                case 10:
+                case 11:
+                case 12:
+                case 13:
+                case 14:
+                    if (opacity >= value) {
+                        mask[j] = 0;
+                        if (!isStairOrTrueTop(state, true) || !(isSlabOrTrueValue(
+                                state,
+                                "top"
+                        ) || isSlabOrTrueValue(state, "double"))) {
+                            iChunk.setSkyLight(x, y, z, value);
+                        } else {
+                            iChunk.setSkyLight(x, y, z, 0);
+                        }
+                        continue;
+                    }
+                    if (opacity <= 1) {
+                        mask[j] = --value;
+                    } else {
+                        mask[j] = value = (byte) Math.max(0, value - opacity);
+                    }
+                    break;
+                case 15:
+                    if (opacity > 0) {
+                        value -= (byte) opacity;
+                        mask[j] = value;
+                    }
+                    if (!isStairOrTrueTop(state, true) || !(isSlabOrTrueValue(state, "top") || isSlabOrTrueValue(
+                            state,
+                            "double"
+                    ))) {
+                        iChunk.setSkyLight(x, y, z, value + opacity);
+                    } else {
+                        iChunk.setSkyLight(x, y, z, value);
+                    }
+                    continue;
+            }
+            chunk.smooth = true;
+            iChunk.setSkyLight(x, y, z, value);
         }
     }
 
@@ -1221,10 +1324,6 @@ private void smoothSkyLight(RelightSkyEntry chunk, int y, boolean direction) {
         }
     }
 
-    private record LightRemovalNode(BlockVector3 pos, int previous) {
-
-    }
-
     private static class RelightSkyEntry implements Comparable<RelightSkyEntry> {
 
         private static final Comparator<RelightSkyEntry> COMPARATOR = Comparator
@@ -6,7 +6,8 @@
 public enum RelightMode {
     NONE(0), // no relighting
     OPTIMAL(1), // relight changed light sources and changed blocks
-    ALL(2); // relight every single block
+    ALL(2), // relight every single block
+    STREAMED(3); // relight as optimal, sending chunks to players as they are relit rather than once all are
 
     private static final Map<Integer, RelightMode> map = new HashMap<>();
 
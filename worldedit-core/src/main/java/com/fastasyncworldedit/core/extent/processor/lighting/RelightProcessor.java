@@ -23,22 +23,28 @@ public RelightProcessor(Relighter relighter) {
 
     @Override
     public IChunkSet processSet(IChunk chunk, IChunkGet get, IChunkSet set) {
-        if (Settings.settings().LIGHTING.MODE == 2) {
-            relighter.addChunk(chunk.getX(), chunk.getZ(), null, chunk.getBitMask());
-        } else if (Settings.settings().LIGHTING.MODE == 1) {
-            byte[] fix = new byte[get.getSectionCount()];
-            boolean relight = false;
-            for (int i = get.getMaxSectionPosition(); i >= get.getMinSectionPosition(); i--) {
-                if (!set.hasSection(i)) {
-                    // Array index cannot be < 0 so "add" the min
-                    fix[i - get.getMinSectionPosition()] = Relighter.SkipReason.AIR;
-                    continue;
+        RelightMode mode = RelightMode.valueOf(Settings.settings().LIGHTING.MODE);
+        if (mode == null) {
+            return set;
+        }
+        switch (mode) {
+            case ALL -> relighter.addChunk(chunk.getX(), chunk.getZ(), null, chunk.getBitMask());
+            // streamed relighting only differs in when relit chunks are sent
+            case OPTIMAL, STREAMED -> {
+                byte[] fix = new byte[get.getSectionCount()];
+                boolean relight = false;
+                for (int i = get.getMaxSectionPosition(); i >= get.getMinSectionPosition(); i--) {
+                    if (!set.hasSection(i)) {
+                        // Array index cannot be < 0 so "add" the min
+                        fix[i - get.getMinSectionPosition()] = Relighter.SkipReason.AIR;
+                        continue;
+                    }
+                    relight = true;
+                    break;
+                }
+                if (relight) {
+                    relighter.addChunk(chunk.getX(), chunk.getZ(), fix, chunk.getBitMask());
                 }
-                relight = true;
-                break;
-            }
-            if (relight) {
-                relighter.addChunk(chunk.getX(), chunk.getZ(), fix, chunk.getBitMask());
             }
         }
         return set;
@@ -91,7 +91,7 @@ public boolean spawn(Random random, int x, int z) throws WorldEditException {
                 holder.getClipboards().get(ThreadLocalRandom.current().nextInt(clipboards.size()));
         Transform transform = holder.getTransform();
         if (transform.isIdentity()) {
-            clipboard.paste(extent, mutable, false);
+            clipboard.paste(extent, mutable, false, false, false, false);
         } else {
             clipboard.paste(extent, mutable, false, MutatingOperationTransformHolder.transform(transform, true));
         }
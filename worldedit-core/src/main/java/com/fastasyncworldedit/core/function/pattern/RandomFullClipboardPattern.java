@@ -66,7 +66,7 @@ public boolean apply(Extent extent, BlockVector3 get, BlockVector3 set) throws W
         Clipboard clipboard = holder.getClipboard();
         Transform newTransform = holder.getTransform();
         if (newTransform.isIdentity()) {
-            clipboard.paste(extent, set, false, true, false);
+            clipboard.paste(extent, set, false, true, false, false);
         } else {
             newTransform = MutatingOperationTransformHolder.transform(newTransform, true);
             clipboard.paste(extent, set, false, newTransform);
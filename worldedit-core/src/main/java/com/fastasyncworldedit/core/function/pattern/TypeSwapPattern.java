@@ -10,6 +10,7 @@
 import com.sk89q.worldedit.world.block.BlockType;
 import com.sk89q.worldedit.world.block.BlockTypes;
 
+import javax.annotation.Nullable;
 import java.util.regex.Pattern;
 
 /**
@@ -78,7 +79,15 @@ public BaseBlock applyBlock(final BlockVector3 position) {
         return newState == null ? existing : newState.toBaseBlock();
     }
 
-    private BlockState getNewBlock(BlockState existing) {
+    /**
+     * Get the block state the given existing state would be swapped to by this pattern.
+     *
+     * @param existing the existing block state
+     * @return the new block state, or {@code null} if the block is left unchanged
+     * @since TODO
+     */
+    @Nullable
+    public BlockState getNewBlock(BlockState existing) {
         String oldId = existing.getBlockType().id();
         String newId = oldId;
         if (inputPattern != null) {
@@ -6,24 +6,43 @@
 import com.fastasyncworldedit.core.database.RollbackDatabase;
 import com.fastasyncworldedit.core.history.changeset.FaweStreamChangeSet;
 import com.fastasyncworldedit.core.history.changeset.SimpleChangeSetSummary;
+import com.fastasyncworldedit.core.internal.io.ByteBufferInputStream;
+import com.fastasyncworldedit.core.internal.io.FastByteArrayOutputStream;
 import com.fastasyncworldedit.core.internal.io.FaweInputStream;
 import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
 import com.fastasyncworldedit.core.math.IntPair;
 import com.fastasyncworldedit.core.util.MainUtil;
+import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.core.util.ZstdCompression;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.extension.platform.Actor;
 import com.sk89q.worldedit.function.operation.ChangeSetExecutor;
+import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.World;
+import it.unimi.dsi.fastutil.longs.Long2ObjectLinkedOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.apache.logging.log4j.Logger;
 
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.EOFException;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
@@ -40,6 +59,20 @@ public class DiskStorageHistory extends FaweStreamChangeSet {
     private static final Logger LOGGER = LogManagerCompat.getLogger();
     private static final Map<String, Map<UUID, Integer>> NEXT_INDEX = new ConcurrentHashMap<>();
 
+    // "FAWE", never the first bytes of a legacy block file as those start with the compression mode (10 + level)
+    private static final int INDEXED_MAGIC = 0x46415745;
+    private static final int INDEXED_FORMAT = 1;
+    // magic, format, frame compression, mode, version, origin x, origin z
+    private static final int INDEXED_HEADER_SIZE = 16;
+    // chunk x, chunk z, length, compressed length
+    private static final int FRAME_HEADER_SIZE = 16;
+    // chunk x, chunk z, offset
+    private static final int INDEX_ENTRY_SIZE = 16;
+    // frame count, index offset, magic
+    private static final int FOOTER_SIZE = 16;
+    // the block changes of open frames buffered at most, in history buffer sizes, before the least recent frames are written
+    private static final int MAX_BUFFERED_FRAMES = 4;
+
     private UUID uuid;
     private File bdFile;
     private File bioFile;
@@ -58,6 +91,31 @@ public class DiskStorageHistory extends FaweStreamChangeSet {
      * { short rel x, short rel z, unsigned byte y, short combinedFrom, short combinedTo }
      */
     private FaweOutputStream osBD;
+    /*
+     * Chunk indexed block data
+     *
+     * [header]
+     * {int magic, byte format, byte frame compression, byte mode, byte version, int origin x, int origin z}
+     *
+     * [frames]...
+     * {int chunk x, int chunk z, int length, int compressed length, [contents of a single chunk]}
+     *
+     * [index]
+     * {int chunk x, int chunk z, long frame offset}... {int frame count, long index offset, int magic}
+     *
+     * Positions are delta encoded from the origin again at the start of every frame. Changes are buffered per chunk, so
+     * writers not ordered by chunk still write a frame per chunk rather than per change.
+     */
+    private FileChannel bdChannel;
+    private Long2ObjectLinkedOpenHashMap<OpenFrame> openFrames;
+    private long bufferedBytes;
+    private int frameCompression;
+    private ZstdCompression frameZstd;
+    private byte[] compressBuffer;
+    private LongArrayList frameChunks;
+    private LongArrayList frameOffsets;
+    // the regions block changes are read from, only set on the views returned by #restrictTo
+    private Region[] readRegions;
     // biome
     private FaweOutputStream osBIO;
     // NBT From
@@ -145,7 +203,7 @@ public void undo(Actor actor, Region[] regions) {
             return;
         }
         try (EditSession session = toEditSession(actor, regions)) {
-            session.setBlocks(this, ChangeSetExecutor.Type.UNDO);
+            session.setBlocks(restrictTo(regions), ChangeSetExecutor.Type.UNDO);
         }
     }
 
@@ -161,7 +219,23 @@ public void redo(Actor actor, Region[] regions) {
             return;
         }
         EditSession session = toEditSession(actor, regions);
-        session.setBlocks(this, ChangeSetExecutor.Type.REDO);
+        session.setBlocks(restrictTo(regions), ChangeSetExecutor.Type.REDO);
+    }
+
+    /**
+     * Get a read-only view of the files of this closed edit that only reads the block changes of the chunks intersecting
+     * the given regions, if the block changes are chunk indexed.
+     *
+     * @param regions the regions to read, or null to read every chunk
+     * @return the view, or this edit if every chunk is read
+     */
+    private DiskStorageHistory restrictTo(@Nullable Region[] regions) {
+        if (regions == null) {
+            return this;
+        }
+        DiskStorageHistory view = new DiskStorageHistory(bdFile.getParentFile(), getWorld(), uuid, index);
+        view.readRegions = regions;
+        return view;
     }
 
     public void redo(Actor actor) {
@@ -238,6 +312,9 @@ public void close() throws IOException {
                     osBD.close();
                     osBD = null;
                 }
+                if (bdChannel != null) {
+                    closeIndexed();
+                }
                 if (osBIO != null) {
                     osBIO.close();
                     osBIO = null;
@@ -299,16 +376,146 @@ public long getSizeOnDisk() {
     }
 
     @Override
-    public FaweOutputStream getBlockOS(int x, int y, int z) throws IOException {
+    public synchronized FaweOutputStream getBlockOS(int x, int y, int z) throws IOException {
         if (osBD != null) {
             return osBD;
         }
-        synchronized (this) {
+        if (bdChannel == null) {
             bdFile.getParentFile().mkdirs();
             bdFile.createNewFile();
-            osBD = getCompressedOS(new FileOutputStream(bdFile));
-            writeHeader(osBD, x, y, z);
-            return osBD;
+            if (!Settings.settings().HISTORY.CHUNK_INDEXED) {
+                osBD = getCompressedOS(new FileOutputStream(bdFile));
+                writeHeader(osBD, x, y, z);
+                return osBD;
+            }
+            openIndexed(x, y, z);
+        }
+        return getFrame(x >> 4, z >> 4).os;
+    }
+
+    @Override
+    public synchronized void add(int x, int y, int z, int combinedFrom, int combinedTo) {
+        if (osBD != null) {
+            super.add(x, y, z, combinedFrom, combinedTo);
+            return;
+        }
+        blockSize++;
+        try {
+            FaweOutputStream os = getBlockOS(x, y, z);
+            if (os == osBD) {
+                posDel.write(os, x - getOriginX(), y, z - getOriginZ());
+                idDel.writeChange(os, combinedFrom, combinedTo);
+                return;
+            }
+            OpenFrame frame = openFrames.get(MathMan.pairInt(x >> 4, z >> 4));
+            int before = frame.buffer.getSize();
+            frame.positions.write(os, x - getOriginX(), y, z - getOriginZ());
+            idDel.writeChange(os, combinedFrom, combinedTo);
+            int size = frame.buffer.getSize();
+            bufferedBytes += size - before;
+            int bufferSize = Settings.settings().HISTORY.BUFFER_SIZE;
+            if (size >= bufferSize) {
+                finishFrame(frame);
+            }
+            while (bufferedBytes > (long) bufferSize * MAX_BUFFERED_FRAMES) {
+                finishFrame(openFrames.get(openFrames.firstLongKey()));
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private OpenFrame getFrame(int chunkX, int chunkZ) {
+        long pair = MathMan.pairInt(chunkX, chunkZ);
+        OpenFrame frame = openFrames.getAndMoveToLast(pair);
+        if (frame == null) {
+            frame = new OpenFrame(chunkX, chunkZ, createPositionDelegate());
+            openFrames.putAndMoveToLast(pair, frame);
+        }
+        return frame;
+    }
+
+    private void openIndexed(int x, int y, int z) throws IOException {
+        int compression = getCompressionLevel();
+        // a single LZ4 pass per frame, frames are too small for the layered streams to pay off
+        frameCompression = compression == 0 ? 0 : compression <= 3 ? 1 : compression == 9 ? 17 : 9;
+        frameZstd = compression == 0 ? null : ZstdCompression.history();
+        if (frameZstd != null) {
+            frameCompression = ZstdCompression.STREAM_MODE;
+        }
+        openFrames = new Long2ObjectLinkedOpenHashMap<>();
+        bufferedBytes = 0;
+        frameChunks = new LongArrayList();
+        frameOffsets = new LongArrayList();
+        FastByteArrayOutputStream headerBytes = new FastByteArrayOutputStream(INDEXED_HEADER_SIZE);
+        FaweOutputStream header = new FaweOutputStream(headerBytes);
+        header.writeInt(INDEXED_MAGIC);
+        header.write(INDEXED_FORMAT);
+        header.write(frameCompression);
+        writeHeader(header, x, y, z);
+        bdChannel = FileChannel.open(
+                bdFile.toPath(),
+                StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING
+        );
+        writeFully(ByteBuffer.wrap(headerBytes.toByteArray()));
+    }
+
+    private void finishFrame(OpenFrame openFrame) throws IOException {
+        openFrames.remove(MathMan.pairInt(openFrame.chunkX, openFrame.chunkZ));
+        openFrame.os.flush();
+        int length = openFrame.buffer.getSize();
+        bufferedBytes -= length;
+        if (length == 0) {
+            return;
+        }
+        byte[] raw = openFrame.buffer.toByteArray();
+        byte[] compressed = raw;
+        if (frameZstd != null) {
+            frameZstd.sample(raw, length);
+            compressed = frameZstd.compress(raw, length);
+        } else if (frameCompression != 0) {
+            int maxLength = MainUtil.getMaxCompressedLength(length);
+            if (compressBuffer == null || compressBuffer.length < maxLength) {
+                compressBuffer = new byte[maxLength];
+            }
+            compressed = MainUtil.compress(raw, compressBuffer, frameCompression);
+        }
+        frameChunks.add(MathMan.pairInt(openFrame.chunkX, openFrame.chunkZ));
+        frameOffsets.add(bdChannel.position());
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_HEADER_SIZE + compressed.length);
+        frame.putInt(openFrame.chunkX).putInt(openFrame.chunkZ).putInt(length).putInt(compressed.length).put(compressed).flip();
+        writeFully(frame);
+    }
+
+    private void closeIndexed() throws IOException {
+        try {
+            while (!openFrames.isEmpty()) {
+                finishFrame(openFrames.get(openFrames.firstLongKey()));
+            }
+            int frames = frameOffsets.size();
+            ByteBuffer index = ByteBuffer.allocate(frames * INDEX_ENTRY_SIZE + FOOTER_SIZE);
+            long indexOffset = bdChannel.position();
+            for (int i = 0; i < frames; i++) {
+                long pair = frameChunks.getLong(i);
+                index.putInt(MathMan.unpairIntX(pair)).putInt(MathMan.unpairIntY(pair)).putLong(frameOffsets.getLong(i));
+            }
+            index.putInt(frames).putLong(indexOffset).putInt(INDEXED_MAGIC).flip();
+            writeFully(index);
+        } finally {
+            bdChannel.close();
+            bdChannel = null;
+            openFrames = null;
+            frameChunks = null;
+            frameOffsets = null;
+            frameZstd = null;
+            compressBuffer = null;
+        }
+    }
+
+    private void writeFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            bdChannel.write(buffer);
         }
     }
 
@@ -375,6 +582,9 @@ public FaweInputStream getBlockIS() throws IOException {
             return null;
         }
         try {
+            if (isChunkIndexed()) {
+                return getIndexedBlockIS(readRegions);
+            }
             FaweInputStream is = MainUtil.getCompressedIS(new FileInputStream(bdFile));
             readHeader(is);
             return is;
@@ -384,6 +594,279 @@ public FaweInputStream getBlockIS() throws IOException {
         }
     }
 
+    /**
+     * Check if the block history file is stored in chunk indexed frames, rather than as a single compressed stream.
+     *
+     * @since TODO
+     */
+    public boolean isChunkIndexed() {
+        if (!bdFile.exists() || bdFile.length() < INDEXED_HEADER_SIZE) {
+            return false;
+        }
+        try (FileInputStream fis = new FileInputStream(bdFile)) {
+            return new FaweInputStream(fis).readInt() == INDEXED_MAGIC;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Open the block changes of the frames whose chunks intersect any of the given regions.
+     *
+     * @param regions the regions to read, or null to read every frame
+     */
+    private FaweInputStream getIndexedBlockIS(@Nullable Region[] regions) throws IOException {
+        FileChannel channel = FileChannel.open(bdFile.toPath(), StandardOpenOption.READ);
+        try {
+            FrameReader reader = new FrameReader(channel);
+            FaweInputStream header = new FaweInputStream(new ByteBufferInputStream(reader.map(0, INDEXED_HEADER_SIZE)));
+            header.skipFully(5);
+            int compression = header.read();
+            readHeader(header);
+            LongArrayList offsets = new LongArrayList();
+            reader.forEachFrame((chunkX, chunkZ, offset) -> {
+                if (regions == null || intersects(regions, chunkX, chunkZ)) {
+                    offsets.add(offset);
+                }
+            });
+            return new FaweInputStream(new FrameInputStream(reader, offsets.toLongArray(), compression, posDel));
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Split the block changes into one partition per chunk. A chunk may have been written to several frames, those are
+     * read in the order they were written. Block changes still being written are not partitioned, as closing them here
+     * would log the edit again.
+     */
+    @Nullable
+    @Override
+    public List<Iterable<Change>> getBlockPartitions(final boolean dir) {
+        synchronized (this) {
+            if (osBD != null || bdChannel != null) {
+                return null;
+            }
+        }
+        if (!isChunkIndexed()) {
+            return null;
+        }
+        try {
+            final Region[] regions = readRegions;
+            final FrameReader reader;
+            try (FileChannel channel = FileChannel.open(bdFile.toPath(), StandardOpenOption.READ)) {
+                reader = new FrameReader(channel);
+            }
+            // the mapping stays valid once the channel is closed, but unmapped files need the channel for every frame
+            if (reader.mapped == null) {
+                return null;
+            }
+            FaweInputStream header = new FaweInputStream(new ByteBufferInputStream(reader.map(0, INDEXED_HEADER_SIZE)));
+            header.skipFully(5);
+            final int compression = header.read();
+            readHeader(header);
+            Long2ObjectLinkedOpenHashMap<LongArrayList> chunks = new Long2ObjectLinkedOpenHashMap<>();
+            reader.forEachFrame((chunkX, chunkZ, offset) -> {
+                if (regions == null || intersects(regions, chunkX, chunkZ)) {
+                    long pair = MathMan.pairInt(chunkX, chunkZ);
+                    LongArrayList frames = chunks.get(pair);
+                    if (frames == null) {
+                        chunks.put(pair, frames = new LongArrayList());
+                    }
+                    frames.add(offset);
+                }
+            });
+            List<Iterable<Change>> partitions = new ArrayList<>(chunks.size());
+            for (LongArrayList frames : chunks.values()) {
+                final long[] offsets = frames.toLongArray();
+                partitions.add(() -> {
+                    FaweStreamPositionDelegate positions = createPositionDelegate();
+                    FaweInputStream is = new FaweInputStream(new FrameInputStream(reader, offsets, compression, positions));
+                    return (Iterator<Change>) (Iterator<?>) getBlockIterator(is, positions, dir);
+                });
+            }
+            return partitions;
+        } catch (IOException e) {
+            LOGGER.error("Could not load block history file {}", bdFile, e);
+            return null;
+        }
+    }
+
+    private static boolean intersects(Region[] regions, int chunkX, int chunkZ) {
+        for (Region region : regions) {
+            BlockVector3 min = region.getMinimumPoint();
+            BlockVector3 max = region.getMaximumPoint();
+            if (chunkX >= min.x() >> 4 && chunkX <= max.x() >> 4 && chunkZ >= min.z() >> 4 && chunkZ <= max.z() >> 4) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @FunctionalInterface
+    private interface FrameConsumer {
+
+        void accept(int chunkX, int chunkZ, long offset);
+
+    }
+
+    /**
+     * The buffered block changes of a chunk not yet written as a frame, delta encoding its positions on its own.
+     */
+    private static final class OpenFrame {
+
+        private final int chunkX;
+        private final int chunkZ;
+        private final FaweStreamPositionDelegate positions;
+        private final FastByteArrayOutputStream buffer = new FastByteArrayOutputStream();
+        private final FaweOutputStream os = new FaweOutputStream(buffer);
+
+        private OpenFrame(int chunkX, int chunkZ, FaweStreamPositionDelegate positions) {
+            this.chunkX = chunkX;
+            this.chunkZ = chunkZ;
+            this.positions = positions;
+        }
+
+    }
+
+    /**
+     * Random access to the frames of a chunk indexed block file, memory mapped where the file allows.
+     */
+    private static final class FrameReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private final MappedByteBuffer mapped;
+
+        private FrameReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            this.mapped = size <= Integer.MAX_VALUE ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size) : null;
+        }
+
+        private ByteBuffer map(long offset, int length) throws IOException {
+            if (offset < 0 || offset + length > size) {
+                throw new EOFException();
+            }
+            if (mapped != null) {
+                return mapped.slice((int) offset, length);
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+        }
+
+        private void forEachFrame(FrameConsumer consumer) throws IOException {
+            if (size >= INDEXED_HEADER_SIZE + FOOTER_SIZE) {
+                ByteBuffer footer = map(size - FOOTER_SIZE, FOOTER_SIZE);
+                int frames = footer.getInt();
+                long indexOffset = footer.getLong();
+                if (footer.getInt() == INDEXED_MAGIC && indexOffset + (long) frames * INDEX_ENTRY_SIZE + FOOTER_SIZE == size) {
+                    ByteBuffer index = map(indexOffset, frames * INDEX_ENTRY_SIZE);
+                    for (int i = 0; i < frames; i++) {
+                        consumer.accept(index.getInt(), index.getInt(), index.getLong());
+                    }
+                    return;
+                }
+            }
+            // No index, the edit was never closed (e.g. the server stopped), so walk the frames that made it to disk
+            long offset = INDEXED_HEADER_SIZE;
+            while (offset + FRAME_HEADER_SIZE <= size) {
+                ByteBuffer frame = map(offset, FRAME_HEADER_SIZE);
+                int chunkX = frame.getInt();
+                int chunkZ = frame.getInt();
+                frame.getInt();
+                int compressedLength = frame.getInt();
+                long next = offset + FRAME_HEADER_SIZE + compressedLength;
+                if (compressedLength < 0 || next > size) {
+                    break;
+                }
+                consumer.accept(chunkX, chunkZ, offset);
+                offset = next;
+            }
+        }
+
+    }
+
+    /**
+     * Reads the decompressed contents of a sequence of frames as one stream. Position delta encoding starts over at
+     * every frame, and as frames always hold whole changes, the delegates are reset when moving onto the next one.
+     */
+    private final class FrameInputStream extends InputStream {
+
+        private final FrameReader reader;
+        private final long[] offsets;
+        private final int compression;
+        private final FaweStreamPositionDelegate positions;
+        private byte[] frame = new byte[0];
+        private int next;
+        private int position;
+        private int limit;
+
+        private FrameInputStream(FrameReader reader, long[] offsets, int compression, FaweStreamPositionDelegate positions) {
+            this.reader = reader;
+            this.offsets = offsets;
+            this.compression = compression;
+            this.positions = positions;
+        }
+
+        private boolean nextFrame() throws IOException {
+            while (next < offsets.length) {
+                long offset = offsets[next++];
+                ByteBuffer header = reader.map(offset, FRAME_HEADER_SIZE);
+                header.position(8);
+                int length = header.getInt();
+                int compressedLength = header.getInt();
+                if (length <= 0) {
+                    continue;
+                }
+                if (frame.length < length) {
+                    frame = new byte[length];
+                }
+                ByteBuffer data = reader.map(offset + FRAME_HEADER_SIZE, compressedLength);
+                if (compression == 0) {
+                    data.get(frame, 0, length);
+                } else if (compression == ZstdCompression.STREAM_MODE) {
+                    ZstdCompression.decompress(data, frame, length);
+                } else {
+                    MainUtil.decompress(data, frame, length);
+                }
+                position = 0;
+                limit = length;
+                positions.reset();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (position >= limit && !nextFrame()) {
+                return -1;
+            }
+            return frame[position++] & 0xFF;
+        }
+
+        @Override
+        public int read(@Nonnull byte[] bytes, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (position >= limit && !nextFrame()) {
+                return -1;
+            }
+            len = Math.min(len, limit - position);
+            System.arraycopy(frame, position, bytes, off, len);
+            position += len;
+            return len;
+        }
+
+        @Override
+        public void close() throws IOException {
+            reader.channel.close();
+        }
+
+    }
+
     @Override
     public FaweInputStream getBiomeIS() throws IOException {
         if (!bioFile.exists()) {
@@ -461,6 +944,18 @@ public IntPair readHeader() {
         int ox = getOriginX();
         int oz = getOriginZ();
         if (ox == 0 && oz == 0 && bdFile.exists()) {
+            if (isChunkIndexed()) {
+                try (FaweInputStream fis = new FaweInputStream(new FileInputStream(bdFile))) {
+                    // skip magic, format, frame compression, mode and version
+                    fis.skipFully(8);
+                    ox = fis.readInt();
+                    oz = fis.readInt();
+                    setOrigin(ox, oz);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
+                return new IntPair(ox, oz);
+            }
             try (FileInputStream fis = new FileInputStream(bdFile)) {
                 final FaweInputStream gis = MainUtil.getCompressedIS(fis);
                 // skip mode
@@ -173,8 +173,12 @@ public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChu
                 blocksGet = FaweCache.INSTANCE.EMPTY_CHAR_4096;
             }
             // assume "set" is a copy and doesn't get modified further
+            // a uniform section is read as its single ordinal rather than expanding it to an array
+            final char uniformTo = set.getUniformOrdinal(layer);
             // loadIfPresent shouldn't be null if set.hasSection(layer) is true
-            char[] blocksSet = Objects.requireNonNull(set.loadIfPresent(layer));
+            char[] blocksSet = uniformTo == BlockTypesCache.ReservedIDs.__RESERVED__
+                    ? Objects.requireNonNull(set.loadIfPresent(layer))
+                    : null;
 
             // Account for negative layers
             int by = layer << 4;
@@ -183,7 +187,7 @@ public final synchronized IChunkSet processSet(IChunk chunk, IChunkGet get, IChu
                 for (int z = 0; z < 16; z++) {
                     int zz = z + bz;
                     for (int x = 0; x < 16; x++, index++) {
-                        final int combinedTo = blocksSet[index];
+                        final int combinedTo = blocksSet == null ? uniformTo : blocksSet[index];
                         if (combinedTo != BlockTypesCache.ReservedIDs.__RESERVED__) {
                             int xx = bx + x;
                             int from = blocksGet[index];
@@ -324,7 +328,7 @@ public EditSession toEditSession(Actor actor, Region[] regions) {
                 .limitUnprocessed(actor)
                 .actor(actor);
         if (!actor.getLimit().RESTRICT_HISTORY_TO_REGIONS) {
-            builder = builder.allowedRegionsEverywhere();
+            builder = regions == null ? builder.allowedRegionsEverywhere() : builder.allowedRegions(regions);
         }
         EditSession editSession = builder.build();
         editSession.setSize(1);
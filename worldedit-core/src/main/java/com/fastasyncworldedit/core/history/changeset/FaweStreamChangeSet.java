@@ -13,6 +13,7 @@
 import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
 import com.fastasyncworldedit.core.util.MainUtil;
 import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.core.util.ZstdCompression;
 import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
@@ -95,6 +96,13 @@ public interface FaweStreamPositionDelegate {
 
         int readZ(FaweInputStream in) throws IOException;
 
+        /**
+         * Forget the last written or read position, so the next position is encoded relative to the origin again.
+         *
+         * @since TODO
+         */
+        void reset();
+
     }
 
     public interface FaweStreamIdDelegate {
@@ -153,8 +161,18 @@ public void readCombined(FaweInputStream is, MutableFullBlockChange change) thro
                 }
             };
         }
+        posDel = createPositionDelegate();
+    }
+
+    /**
+     * Create a position delegate for the mode of this change set that does not share its last position with
+     * {@link #posDel}, so that several parts of the block changes may be read at the same time.
+     *
+     * @since TODO
+     */
+    protected FaweStreamPositionDelegate createPositionDelegate() {
         if (mode == 1 || mode == 4) { // small
-            posDel = new FaweStreamPositionDelegate() {
+            return new FaweStreamPositionDelegate() {
                 int lx;
                 int ly;
                 int lz;
@@ -196,9 +214,16 @@ public int readY(FaweInputStream in) {
                 public int readZ(FaweInputStream in) throws IOException {
                     return lz = lz + ((((buffer[2] & 0xFF) | ((MathMan.unpair16y(buffer[3])) << 8)) << 20) >> 20);
                 }
+
+                @Override
+                public void reset() {
+                    lx = 0;
+                    ly = 0;
+                    lz = 0;
+                }
             };
         } else {
-            posDel = new FaweStreamPositionDelegate() {
+            return new FaweStreamPositionDelegate() {
                 final byte[] buffer = new byte[6];
                 int lx;
                 int ly;
@@ -252,6 +277,13 @@ public int readY(FaweInputStream is) throws IOException {
                 public int readZ(FaweInputStream is) throws IOException {
                     return lz = lz + ((buffer[2] & 0xFF) | (buffer[3]) << 8);
                 }
+
+                @Override
+                public void reset() {
+                    lx = 0;
+                    ly = 0;
+                    lz = 0;
+                }
             };
         }
     }
@@ -287,9 +319,22 @@ public void readHeader(InputStream is) throws IOException {
     }
 
     public FaweOutputStream getCompressedOS(OutputStream os) throws IOException {
+        ZstdCompression zstd = compression == 0 ? null : ZstdCompression.history();
+        if (zstd != null) {
+            return zstd.getCompressedOS(os, Settings.settings().HISTORY.BUFFER_SIZE);
+        }
         return MainUtil.getCompressedOS(os, compression);
     }
 
+    /**
+     * Get the compression level this change set was created with, see {@link Settings.HISTORY#COMPRESSION_LEVEL}.
+     *
+     * @since TODO
+     */
+    public int getCompressionLevel() {
+        return compression;
+    }
+
     @Override
     public boolean isEmpty() {
         if (blockSize > 0) {
@@ -443,7 +488,23 @@ public void addEntityCreate(final FaweCompoundTag tag) {
     }
 
     public Iterator<MutableBlockChange> getBlockIterator(final boolean dir) throws IOException {
-        final FaweInputStream is = getBlockIS();
+        return getBlockIterator(getBlockIS(), posDel, dir);
+    }
+
+    /**
+     * Read block changes from the given stream, decoding their positions with the given delegate. The stream is closed
+     * once the last change was read.
+     *
+     * @param is     the block change stream, may be null
+     * @param posDel the position delegate, see {@link #createPositionDelegate()}
+     * @param dir    true to read the changes for a redo
+     * @since TODO
+     */
+    protected Iterator<MutableBlockChange> getBlockIterator(
+            @Nullable final FaweInputStream is,
+            final FaweStreamPositionDelegate posDel,
+            final boolean dir
+    ) {
         if (is == null) {
             return Collections.emptyIterator();
         }
@@ -990,6 +1051,31 @@ public boolean accepts(final Change change) {
 
     @Override
     public Iterator<Change> getIterator(final boolean dir) {
+        return getIterator(dir, true);
+    }
+
+    /**
+     * Get the block partitions of this change set, see {@link #getIterator(boolean, boolean)}. Each partition only holds
+     * changes within a single chunk, and no two partitions hold changes of the same chunk, so the partitions may be applied
+     * in parallel as long as the changes of each partition are applied in order.
+     *
+     * @param dir true to read the changes for a redo
+     * @return the partitions, or null if the block changes of this change set cannot be partitioned
+     * @since TODO
+     */
+    @Nullable
+    public List<Iterable<Change>> getBlockPartitions(final boolean dir) {
+        return null;
+    }
+
+    /**
+     * Get an iterator over the changes of this change set.
+     *
+     * @param dir    true to read the changes for a redo
+     * @param blocks false to leave out block changes, e.g. as they are read from {@link #getBlockPartitions(boolean)}
+     * @since TODO
+     */
+    public Iterator<Change> getIterator(final boolean dir, final boolean blocks) {
         try {
             close();
             final Iterator<MutableTileChange> tileCreate = getTileIterator(getTileCreateIS(), true);
@@ -998,7 +1084,7 @@ public Iterator<Change> getIterator(final boolean dir) {
             final Iterator<MutableEntityChange> entityCreate = getEntityIterator(getEntityCreateIS(), true);
             final Iterator<MutableEntityChange> entityRemove = getEntityIterator(getEntityRemoveIS(), false);
 
-            final Iterator<MutableBlockChange> blockChange = getBlockIterator(dir);
+            final Iterator<MutableBlockChange> blockChange = blocks ? getBlockIterator(dir) : Collections.emptyIterator();
 
             final Iterator<MutableBiomeChange> biomeChange = getBiomeIterator(dir);
 
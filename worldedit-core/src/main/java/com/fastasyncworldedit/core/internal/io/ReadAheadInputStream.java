@@ -0,0 +1,170 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import com.fastasyncworldedit.core.util.task.ManagedBlocking;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An {@link InputStream} reading its parent in a task of an executor, ahead of what has been read from it. Wrapping a
+ * decompressing stream, e.g. a {@link java.util.zip.GZIPInputStream}, decompresses the data while the data already
+ * decompressed is being processed.
+ * <p>
+ * Closing the stream stops the task and closes the parent.
+ *
+ * @since TODO
+ */
+public class ReadAheadInputStream extends InputStream {
+
+    private static final int CHUNK_SIZE = 1 << 16;
+    // Chunks read ahead, limiting how far the task gets ahead of the reader
+    private static final int MAX_CHUNKS = 16;
+    private static final byte[] END = new byte[0];
+
+    private final InputStream parent;
+    private final BlockingQueue<byte[]> chunks = new ArrayBlockingQueue<>(MAX_CHUNKS);
+    private final CountDownLatch done = new CountDownLatch(1);
+    private volatile IOException error;
+    private volatile boolean closed;
+
+    private byte[] chunk = new byte[0];
+    private int position;
+
+    /**
+     * Start reading a stream ahead.
+     *
+     * @param parent   the stream to read ahead
+     * @param executor the executor to read the stream in, e.g. a pool of the
+     *                 {@link com.fastasyncworldedit.core.queue.implementation.QueueHandler}
+     */
+    public ReadAheadInputStream(InputStream parent, Executor executor) {
+        this.parent = parent;
+        executor.execute(this::readAhead);
+    }
+
+    private void readAhead() {
+        try {
+            byte[] next;
+            do {
+                if (closed) {
+                    return;
+                }
+                byte[] buffer = new byte[CHUNK_SIZE];
+                int length = parent.readNBytes(buffer, 0, CHUNK_SIZE);
+                next = length == 0 ? END : length == CHUNK_SIZE ? buffer : Arrays.copyOf(buffer, length);
+            } while (put(next) && next != END);
+        } catch (IOException e) {
+            error = e;
+            put(END);
+        } finally {
+            done.countDown();
+        }
+    }
+
+    /**
+     * Queue a chunk once there is room for it.
+     *
+     * @return {@code false} if the stream was closed
+     */
+    private boolean put(byte[] next) {
+        try {
+            // nothing takes chunks anymore once closed
+            while (!chunks.offer(next, 50, TimeUnit.MILLISECONDS)) {
+                if (closed) {
+                    return false;
+                }
+            }
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    /**
+     * Get the next chunk if the current one has been read.
+     *
+     * @return {@code false} if the end of the stream has been reached
+     */
+    private boolean fill() throws IOException {
+        if (position < chunk.length) {
+            return true;
+        }
+        if (chunk == END) {
+            return false;
+        }
+        try {
+            chunk = ManagedBlocking.take(chunks);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        position = 0;
+        if (chunk == END) {
+            if (error != null) {
+                throw new IOException(error);
+            }
+            return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!fill()) {
+            return -1;
+        }
+        return chunk[position++] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        if (len == 0) {
+            return 0;
+        }
+        if (!fill()) {
+            return -1;
+        }
+        int read = Math.min(len, chunk.length - position);
+        System.arraycopy(chunk, position, b, off, read);
+        position += read;
+        return read;
+    }
+
+    @Override
+    public int available() {
+        return chunk.length - position;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        // the parent may only be closed once the task is done with it
+        boolean interrupted = false;
+        while (true) {
+            try {
+                ManagedBlocking.await(done);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        chunks.clear();
+        chunk = END;
+        parent.close();
+    }
+
+}
@@ -2,29 +2,48 @@
 
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extent.filter.block.DelegateFilter;
+import com.fastasyncworldedit.core.function.mask.ABlockMask;
 import com.fastasyncworldedit.core.function.mask.InverseMask;
 import com.fastasyncworldedit.core.function.mask.SingleBlockStateMask;
+import com.fastasyncworldedit.core.function.pattern.TypeSwapPattern;
+import com.fastasyncworldedit.core.math.random.TrueRandom;
 import com.fastasyncworldedit.core.queue.Filter;
+import com.sk89q.worldedit.function.mask.BlockTypeMask;
 import com.sk89q.worldedit.function.mask.ExistingBlockMask;
 import com.sk89q.worldedit.function.mask.InverseSingleBlockStateMask;
 import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.mask.MaskIntersection;
+import com.sk89q.worldedit.function.mask.MaskUnion;
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.function.pattern.RandomPattern;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
 import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import jdk.incubator.vector.ShortVector;
 import jdk.incubator.vector.VectorMask;
 import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
 import org.apache.logging.log4j.Logger;
 
 import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.function.BinaryOperator;
+import java.util.function.Predicate;
 
 public class SimdSupport {
 
     private static final Logger LOGGER = LogManagerCompat.getLogger();
     private static final boolean VECTOR_API_PRESENT;
     private static final boolean JAVA_25_OR_NEWER = Runtime.version().feature() >= 25;
+    /**
+     * Maximum number of ordinal ranges a block mask is compared against before falling back to a table lookup.
+     */
+    private static final int MAX_RANGE_COMPARISONS = 4;
+    private static final int RANDOM_TABLE_SIZE = 1 << 12;
 
     static {
         boolean vectorApiPresent = false;
@@ -73,10 +92,94 @@ public static boolean useVectorApi() {
                 }
                 yield (set, get, species) -> base.compareVector(set, get, species).not();
             }
+            case ABlockMask blockMask -> vectorizedTargetMask(ordinalTable(blockMask::test));
+            case BlockTypeMask typeMask -> vectorizedTargetMask(ordinalTable(state -> typeMask.test(state.getBlockType())));
+            case MaskUnion union -> vectorizedTargetMask(union.getMasksArray(), VectorMask::or);
+            case MaskIntersection intersection -> vectorizedTargetMask(intersection.getMasksArray(), VectorMask::and);
             default -> null;
         };
     }
 
+    private static @Nullable VectorizedMask vectorizedTargetMask(Mask[] masks, BinaryOperator<VectorMask<Short>> combiner) {
+        final VectorizedMask[] vectorized = new VectorizedMask[masks.length];
+        for (int i = 0; i < masks.length; i++) {
+            vectorized[i] = vectorizedTargetMask(masks[i]);
+            if (vectorized[i] == null) {
+                return null;
+            }
+        }
+        if (vectorized.length == 1) {
+            return vectorized[0];
+        }
+        return (set, get, species) -> {
+            VectorMask<Short> result = vectorized[0].compareVector(set, get, species);
+            for (int i = 1; i < vectorized.length; i++) {
+                result = combiner.apply(result, vectorized[i].compareVector(set, get, species));
+            }
+            return result;
+        };
+    }
+
+    private static boolean[] ordinalTable(Predicate<BlockState> predicate) {
+        final BlockState[] states = BlockTypesCache.states;
+        final boolean[] table = new boolean[states.length];
+        for (int ordinal = 0; ordinal < states.length; ordinal++) {
+            table[ordinal] = states[ordinal] != null && predicate.test(states[ordinal]);
+        }
+        return table;
+    }
+
+    private static VectorizedMask vectorizedTargetMask(boolean[] table) {
+        // States of a block type have consecutive ordinals, so most masks are a handful of ordinal ranges
+        final int[] ranges = ordinalRanges(table);
+        if (ranges == null) {
+            return (set, get, species) -> get.lookup(species, table);
+        }
+        if (ranges.length == 0) {
+            return (set, get, species) -> species.maskAll(false);
+        }
+        return (set, get, species) -> {
+            final ShortVector ordinals = get.get(species);
+            VectorMask<Short> result = inRange(ordinals, ranges[0], ranges[1]);
+            for (int i = 2; i < ranges.length; i += 2) {
+                result = result.or(inRange(ordinals, ranges[i], ranges[i + 1]));
+            }
+            return result;
+        };
+    }
+
+    /**
+     * {@return the inclusive start and end ordinals of each run of {@code true} in the table, or {@code null} if there are
+     * more than {@link #MAX_RANGE_COMPARISONS} runs}
+     */
+    private static @Nullable int[] ordinalRanges(boolean[] table) {
+        final IntArrayList ranges = new IntArrayList();
+        int ordinal = 0;
+        while (ordinal < table.length) {
+            if (!table[ordinal]) {
+                ordinal++;
+                continue;
+            }
+            if (ranges.size() == MAX_RANGE_COMPARISONS * 2) {
+                return null;
+            }
+            final int start = ordinal;
+            while (ordinal < table.length && table[ordinal]) {
+                ordinal++;
+            }
+            ranges.add(start);
+            ranges.add(ordinal - 1);
+        }
+        return ranges.toIntArray();
+    }
+
+    private static VectorMask<Short> inRange(ShortVector ordinals, int start, int end) {
+        if (start == end) {
+            return ordinals.compare(VectorOperators.EQ, (short) start);
+        }
+        return ordinals.compare(VectorOperators.UGE, (short) start).and(ordinals.compare(VectorOperators.ULE, (short) end));
+    }
+
     private static VectorizedMask vectorizedTargetMaskNonAir() {
         // everything > VOID_AIR is not air
         return (set, get, species) -> get.get(species).compare(VectorOperators.UGT, BlockTypesCache.ReservedIDs.VOID_AIR);
@@ -105,10 +208,74 @@ private static VectorizedMask vectorizedTargetMaskInverse(char ordinal) {
                     blockStateHolder,
                     blockStateHolder.getOrdinalChar()
             );
+            case RandomPattern random -> vectorizedRandomPattern(random);
+            case TypeSwapPattern typeSwap -> new VectorizedLookupPattern<>(typeSwap, typeSwapTable(typeSwap));
             default -> null;
         };
     }
 
+    /**
+     * Get the ordinal a pattern always places, if it is a plain block.
+     *
+     * @return the ordinal, or {@code 0} if the pattern is not a plain block
+     */
+    private static char constantOrdinal(Pattern pattern) {
+        return switch (pattern) {
+            case BaseBlock block -> block.getNbtReference() == null ? block.getOrdinalChar() : 0;
+            case BlockStateHolder<?> blockStateHolder -> blockStateHolder.getOrdinalChar();
+            default -> 0;
+        };
+    }
+
+    private static @Nullable VectorizedFilter vectorizedRandomPattern(RandomPattern pattern) {
+        // Other random implementations depend on the position, which is not known per lane
+        if (!(pattern.getCollection().getRandom() instanceof TrueRandom)) {
+            return null;
+        }
+        final Map<Pattern, Double> weights = pattern.getWeights();
+        final char[] ordinals = new char[weights.size()];
+        final double[] cumulative = new double[weights.size()];
+        double total = 0;
+        int i = 0;
+        for (Map.Entry<Pattern, Double> entry : weights.entrySet()) {
+            ordinals[i] = constantOrdinal(entry.getKey());
+            if (ordinals[i] == 0) {
+                return null;
+            }
+            total += entry.getValue();
+            cumulative[i++] = total;
+        }
+        if (total <= 0) {
+            return null;
+        }
+        // Spread the ordinals over a power of two sized table, so picking one is a mask of a random number
+        final char[] table = new char[RANDOM_TABLE_SIZE];
+        int child = 0;
+        for (int entry = 0; entry < RANDOM_TABLE_SIZE; entry++) {
+            final double point = (entry + 0.5) / RANDOM_TABLE_SIZE * total;
+            while (child < cumulative.length - 1 && point >= cumulative[child]) {
+                child++;
+            }
+            table[entry] = ordinals[child];
+        }
+        return new VectorizedRandomPattern<>(pattern, table);
+    }
+
+    private static char[] typeSwapTable(TypeSwapPattern pattern) {
+        final BlockState[] states = BlockTypesCache.states;
+        final char[] table = new char[states.length];
+        for (int ordinal = 0; ordinal < states.length; ordinal++) {
+            if (states[ordinal] == null) {
+                continue;
+            }
+            final BlockState swapped = pattern.getNewBlock(states[ordinal]);
+            if (swapped != null) {
+                table[ordinal] = swapped.getOrdinalChar();
+            }
+        }
+        return table;
+    }
+
     private static final class VectorizedPattern<T extends Filter> extends DelegateFilter<T> implements VectorizedFilter {
 
         private final char ordinal;
@@ -133,4 +300,88 @@ public void applyVector(final VectorFacade get, final VectorFacade set, final Ve
 
     }
 
+    /**
+     * Places the ordinal a lookup table maps the existing ordinal to, leaving lanes that map to {@code 0} untouched.
+     */
+    private static final class VectorizedLookupPattern<T extends Filter> extends DelegateFilter<T> implements VectorizedFilter {
+
+        private final char[] table;
+        private final char[] scratch = new char[ShortVector.SPECIES_PREFERRED.length()];
+
+        public VectorizedLookupPattern(final T parent, char[] table) {
+            super(parent);
+            this.table = table;
+        }
+
+        @Override
+        public Filter newInstance(final Filter other) {
+            return new VectorizedLookupPattern<>(other, table);
+        }
+
+        @Override
+        public Filter fork() {
+            // the scratch array must not be shared between threads
+            return newInstance(getParent().fork());
+        }
+
+        @Override
+        public void applyVector(final VectorFacade get, final VectorFacade set, final VectorMask<Short> mask) {
+            final VectorSpecies<Short> species = mask.vectorSpecies();
+            ShortVector replacement = get.lookup(species, table, scratch);
+            VectorMask<Short> replaced = mask.and(replacement.compare(VectorOperators.NE, (short) 0));
+            ShortVector s = set.getOrZero(species);
+            s = s.blend(replacement, replaced);
+            set.setOrIgnore(s);
+        }
+
+    }
+
+    /**
+     * Places ordinals picked uniformly from a table, using a per-lane xorshift generator.
+     */
+    private static final class VectorizedRandomPattern<T extends Filter> extends DelegateFilter<T> implements VectorizedFilter {
+
+        private final char[] table;
+        private final short[] seeds = new short[ShortVector.SPECIES_PREFERRED.length()];
+        private final char[] scratch = new char[ShortVector.SPECIES_PREFERRED.length()];
+
+        public VectorizedRandomPattern(final T parent, char[] table) {
+            super(parent);
+            this.table = table;
+            SplittableRandom random = new SplittableRandom();
+            for (int i = 0; i < seeds.length; i++) {
+                // xorshift must never be seeded with 0
+                seeds[i] = (short) (random.nextInt(0xFFFF) + 1);
+            }
+        }
+
+        @Override
+        public Filter newInstance(final Filter other) {
+            return new VectorizedRandomPattern<>(other, table);
+        }
+
+        @Override
+        public Filter fork() {
+            // the seeds and scratch array must not be shared between threads
+            return newInstance(getParent().fork());
+        }
+
+        @Override
+        public void applyVector(final VectorFacade get, final VectorFacade set, final VectorMask<Short> mask) {
+            final VectorSpecies<Short> species = mask.vectorSpecies();
+            ShortVector x = ShortVector.fromArray(species, seeds, 0);
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 7));
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHR, 9));
+            x = x.lanewise(VectorOperators.XOR, x.lanewise(VectorOperators.LSHL, 8));
+            x.intoArray(seeds, 0);
+            for (int i = 0; i < species.length(); i++) {
+                scratch[i] = table[seeds[i] & (RANDOM_TABLE_SIZE - 1)];
+            }
+            ShortVector s = set.getOrZero(species);
+            s = s.blend(ShortVector.fromCharArray(species, scratch, 0), mask);
+            set.setOrIgnore(s);
+        }
+
+    }
+
 }
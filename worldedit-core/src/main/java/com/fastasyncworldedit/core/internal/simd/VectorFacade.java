@@ -3,6 +3,7 @@
 import com.fastasyncworldedit.core.queue.IBlocks;
 import com.sk89q.worldedit.world.block.BlockTypesCache;
 import jdk.incubator.vector.ShortVector;
+import jdk.incubator.vector.VectorMask;
 import jdk.incubator.vector.VectorSpecies;
 import org.jetbrains.annotations.ApiStatus;
 
@@ -31,6 +32,44 @@ public ShortVector getOrZero(VectorSpecies<Short> species) {
         return ShortVector.fromCharArray(species, this.data, this.index);
     }
 
+    /**
+     * Looks up the ordinals at the current position in the given table.
+     *
+     * @param species the species to use
+     * @param table   a value for each block state ordinal
+     * @return a mask with the lanes set whose ordinal maps to {@code true}
+     */
+    public VectorMask<Short> lookup(VectorSpecies<Short> species, boolean[] table) {
+        if (this.data == null) {
+            load();
+        }
+        long bits = 0;
+        for (int i = 0; i < species.length(); i++) {
+            if (table[this.data[this.index + i]]) {
+                bits |= 1L << i;
+            }
+        }
+        return VectorMask.fromLong(species, bits);
+    }
+
+    /**
+     * Looks up the ordinals at the current position in the given table.
+     *
+     * @param species the species to use
+     * @param table   a value for each block state ordinal
+     * @param scratch an array of at least {@code species.length()} elements, overwritten by this method
+     * @return a vector of the values the ordinals map to
+     */
+    public ShortVector lookup(VectorSpecies<Short> species, char[] table, char[] scratch) {
+        if (this.data == null) {
+            load();
+        }
+        for (int i = 0; i < species.length(); i++) {
+            scratch[i] = table[this.data[this.index + i]];
+        }
+        return ShortVector.fromCharArray(species, scratch, 0);
+    }
+
     public void setOrIgnore(ShortVector vector) {
         if (this.data == null) {
             if (vector.eq((short) BlockTypesCache.ReservedIDs.__RESERVED__).allTrue()) {
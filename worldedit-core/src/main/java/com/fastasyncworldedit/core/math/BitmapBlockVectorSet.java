@@ -0,0 +1,620 @@
+package com.fastasyncworldedit.core.math;
+
+import com.fastasyncworldedit.core.util.MathMan;
+import com.fastasyncworldedit.core.util.collection.BlockVector3Set;
+import com.sk89q.worldedit.math.BlockVector3;
+import it.unimi.dsi.fastutil.HashCommon;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.objects.ObjectIterator;
+
+import javax.annotation.Nonnull;
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A memory optimized Set for storing {@link BlockVector3}s with no bounds on its coordinates.
+ *
+ * <p>
+ * Positions are grouped by chunk, keyed by the packed chunk coordinates. Each chunk stores a 4096 bit bitmap for every
+ * 16x16x16 section containing at least one position, so a dense set uses about one bit per position, and membership tests
+ * are a hash lookup (skipped for repeated lookups in the same chunk) and a bit test. Sets can be combined section by
+ * section with {@link #union(BitmapBlockVectorSet)} and {@link #intersection(BitmapBlockVectorSet)}.
+ * </p>
+ *
+ * @since TODO
+ */
+public class BitmapBlockVectorSet extends AbstractCollection<BlockVector3> implements BlockVector3Set {
+
+    private static final int SECTION_WORDS = 64;
+    private static final long[][] NO_SECTIONS = new long[0][];
+
+    private final Long2ObjectOpenHashMap<Column> columns;
+    private int size;
+    // the column of the last lookup, flood fills mostly stay within a chunk
+    private Column lastColumn;
+
+    public BitmapBlockVectorSet() {
+        this.columns = new Long2ObjectOpenHashMap<>(4);
+    }
+
+    private BitmapBlockVectorSet(BitmapBlockVectorSet other) {
+        this.columns = new Long2ObjectOpenHashMap<>(other.columns.size());
+        for (ObjectIterator<Long2ObjectMap.Entry<Column>> iter = other.columns.long2ObjectEntrySet().fastIterator();
+             iter.hasNext(); ) {
+            Long2ObjectMap.Entry<Column> entry = iter.next();
+            this.columns.put(entry.getLongKey(), entry.getValue().copy());
+        }
+        this.size = other.size;
+    }
+
+    /**
+     * A chunk column: the bitmaps of the sections from {@code minSection} upwards, null for empty sections.
+     */
+    private static final class Column {
+
+        private final long key;
+        private int minSection;
+        private long[][] sections = NO_SECTIONS;
+        private int size;
+
+        private Column(long key) {
+            this.key = key;
+        }
+
+        private long[] get(int sectionY) {
+            int index = sectionY - minSection;
+            return index >= 0 && index < sections.length ? sections[index] : null;
+        }
+
+        private long[] getOrCreate(int sectionY) {
+            if (sections.length == 0) {
+                minSection = sectionY;
+                sections = new long[1][];
+            } else if (sectionY < minSection) {
+                int shift = minSection - sectionY;
+                long[][] grown = new long[sections.length + shift][];
+                System.arraycopy(sections, 0, grown, shift, sections.length);
+                sections = grown;
+                minSection = sectionY;
+            } else if (sectionY - minSection >= sections.length) {
+                sections = Arrays.copyOf(sections, sectionY - minSection + 1);
+            }
+            int index = sectionY - minSection;
+            long[] bits = sections[index];
+            if (bits == null) {
+                bits = sections[index] = new long[SECTION_WORDS];
+            }
+            return bits;
+        }
+
+        private Column copy() {
+            Column copy = new Column(key);
+            copy.minSection = minSection;
+            copy.size = size;
+            copy.sections = new long[sections.length][];
+            for (int i = 0; i < sections.length; i++) {
+                if (sections[i] != null) {
+                    copy.sections[i] = sections[i].clone();
+                }
+            }
+            return copy;
+        }
+
+    }
+
+    /**
+     * Visitor of the positions of a set, called with the coordinates so that no vector is allocated per position.
+     */
+    @FunctionalInterface
+    public interface BlockVisitor {
+
+        void visit(int x, int y, int z);
+
+    }
+
+    private static int bitIndex(int x, int y, int z) {
+        return ((y & 15) << 8) | ((z & 15) << 4) | (x & 15);
+    }
+
+    private static boolean isEmpty(long[] bits) {
+        for (long word : bits) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int cardinality(long[] bits) {
+        int count = 0;
+        for (long word : bits) {
+            count += Long.bitCount(word);
+        }
+        return count;
+    }
+
+    private Column getColumn(int cx, int cz) {
+        long key = MathMan.pairInt(cx, cz);
+        // a single read, lookups from several threads must not see the key of one column and the bits of another
+        Column column = lastColumn;
+        if (column != null && column.key == key) {
+            return column;
+        }
+        column = columns.get(key);
+        if (column != null) {
+            lastColumn = column;
+        }
+        return column;
+    }
+
+    private Column getOrCreateColumn(int cx, int cz) {
+        Column column = getColumn(cx, cz);
+        if (column == null) {
+            long key = MathMan.pairInt(cx, cz);
+            column = new Column(key);
+            columns.put(key, column);
+            lastColumn = column;
+        }
+        return column;
+    }
+
+    private void removeColumn(long key) {
+        columns.remove(key);
+        lastColumn = null;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Get the position at the given index of the iteration order.
+     *
+     * @param index the index, from 0 to {@link #size()}
+     * @return the position, or null if the index is out of bounds
+     */
+    public BlockVector3 get(int index) {
+        if (index < 0 || index >= size) {
+            return null;
+        }
+        for (ObjectIterator<Long2ObjectMap.Entry<Column>> iter = columns.long2ObjectEntrySet().fastIterator(); iter.hasNext(); ) {
+            Long2ObjectMap.Entry<Column> entry = iter.next();
+            Column column = entry.getValue();
+            if (index >= column.size) {
+                index -= column.size;
+                continue;
+            }
+            for (int i = 0; i < column.sections.length; i++) {
+                long[] bits = column.sections[i];
+                if (bits == null) {
+                    continue;
+                }
+                int count = cardinality(bits);
+                if (index >= count) {
+                    index -= count;
+                    continue;
+                }
+                for (int w = 0; w < SECTION_WORDS; w++) {
+                    long word = bits[w];
+                    int wordCount = Long.bitCount(word);
+                    if (index >= wordCount) {
+                        index -= wordCount;
+                        continue;
+                    }
+                    for (; index > 0; index--) {
+                        word &= word - 1;
+                    }
+                    int bit = (w << 6) | Long.numberOfTrailingZeros(word);
+                    long key = entry.getLongKey();
+                    return BlockVector3.at(
+                            (MathMan.unpairIntX(key) << 4) | (bit & 15),
+                            ((column.minSection + i) << 4) | (bit >> 8),
+                            (MathMan.unpairIntY(key) << 4) | ((bit >> 4) & 15)
+                    );
+                }
+            }
+        }
+        return null;
+    }
+
+    @Override
+    public boolean contains(int x, int y, int z) {
+        Column column = getColumn(x >> 4, z >> 4);
+        if (column == null) {
+            return false;
+        }
+        long[] bits = column.get(y >> 4);
+        if (bits == null) {
+            return false;
+        }
+        int index = bitIndex(x, y, z);
+        return (bits[index >> 6] & (1L << index)) != 0;
+    }
+
+    @Override
+    public boolean contains(Object o) {
+        if (o instanceof BlockVector3 v) {
+            return contains(v.x(), v.y(), v.z());
+        }
+        return false;
+    }
+
+    @Override
+    public boolean add(BlockVector3 vector) {
+        return add(vector.x(), vector.y(), vector.z());
+    }
+
+    @Override
+    public boolean add(int x, int y, int z) {
+        Column column = getOrCreateColumn(x >> 4, z >> 4);
+        long[] bits = column.getOrCreate(y >> 4);
+        int index = bitIndex(x, y, z);
+        long word = bits[index >> 6];
+        long mask = 1L << index;
+        if ((word & mask) != 0) {
+            return false;
+        }
+        bits[index >> 6] = word | mask;
+        column.size++;
+        size++;
+        return true;
+    }
+
+    public boolean remove(int x, int y, int z) {
+        int cx = x >> 4;
+        int cz = z >> 4;
+        Column column = getColumn(cx, cz);
+        if (column == null) {
+            return false;
+        }
+        int sectionY = y >> 4;
+        long[] bits = column.get(sectionY);
+        if (bits == null) {
+            return false;
+        }
+        int index = bitIndex(x, y, z);
+        long word = bits[index >> 6];
+        long mask = 1L << index;
+        if ((word & mask) == 0) {
+            return false;
+        }
+        bits[index >> 6] = word & ~mask;
+        size--;
+        if (--column.size == 0) {
+            removeColumn(MathMan.pairInt(cx, cz));
+        } else if (isEmpty(bits)) {
+            column.sections[sectionY - column.minSection] = null;
+        }
+        return true;
+    }
+
+    @Override
+    public boolean remove(Object o) {
+        if (o instanceof BlockVector3 v) {
+            return remove(v.x(), v.y(), v.z());
+        }
+        return false;
+    }
+
+    @Override
+    public void setOffset(final int x, final int z) {
+        // Do nothing
+    }
+
+    @Override
+    public void setOffset(final int x, final int y, final int z) {
+        // Do nothing
+    }
+
+    @Override
+    public boolean containsRadius(final int x, final int y, final int z, final int radius) {
+        if (radius <= 0) {
+            return contains(x, y, z);
+        }
+        for (int xx = -radius; xx <= radius; xx++) {
+            int rx = x + xx;
+            for (int yy = -radius; yy <= radius; yy++) {
+                int ry = y + yy;
+                for (int zz = -radius; zz <= radius; zz++) {
+                    if (contains(rx, ry, z + zz)) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Visit each position contained in the set, without allocating a vector per position.
+     *
+     * @param visitor visitor to use
+     */
+    public void forEach(BlockVisitor visitor) {
+        forEach(1, 0, visitor);
+    }
+
+    /**
+     * Visit each position contained in one partition of the set. The chunks are spread over the partitions by a hash of
+     * their coordinates, so each chunk is in exactly one partition, and the partitions can be visited by several threads at
+     * once as long as the set is not modified.
+     *
+     * @param partitions the number of partitions
+     * @param partition  the partition to visit, from 0 to {@code partitions}
+     * @param visitor    visitor to use
+     */
+    public void forEach(int partitions, int partition, BlockVisitor visitor) {
+        for (ObjectIterator<Long2ObjectMap.Entry<Column>> iter = columns.long2ObjectEntrySet().fastIterator(); iter.hasNext(); ) {
+            Long2ObjectMap.Entry<Column> entry = iter.next();
+            long key = entry.getLongKey();
+            if (partitions > 1 && Math.floorMod(HashCommon.mix(key), partitions) != partition) {
+                continue;
+            }
+            int bx = MathMan.unpairIntX(key) << 4;
+            int bz = MathMan.unpairIntY(key) << 4;
+            Column column = entry.getValue();
+            for (int i = 0; i < column.sections.length; i++) {
+                long[] bits = column.sections[i];
+                if (bits == null) {
+                    continue;
+                }
+                int by = (column.minSection + i) << 4;
+                for (int w = 0; w < SECTION_WORDS; w++) {
+                    long word = bits[w];
+                    while (word != 0) {
+                        int bit = (w << 6) | Long.numberOfTrailingZeros(word);
+                        word &= word - 1;
+                        visitor.visit(bx | (bit & 15), by | (bit >> 8), bz | ((bit >> 4) & 15));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Add every position of the given set to this set.
+     *
+     * @param other the set to add
+     * @return if this set changed
+     */
+    public boolean union(BitmapBlockVectorSet other) {
+        boolean modified = false;
+        for (ObjectIterator<Long2ObjectMap.Entry<Column>> iter = other.columns.long2ObjectEntrySet().fastIterator();
+             iter.hasNext(); ) {
+            Long2ObjectMap.Entry<Column> entry = iter.next();
+            Column from = entry.getValue();
+            if (from.size == 0) {
+                continue;
+            }
+            Column to = columns.get(entry.getLongKey());
+            if (to == null) {
+                columns.put(entry.getLongKey(), from.copy());
+                size += from.size;
+                modified = true;
+                continue;
+            }
+            for (int i = 0; i < from.sections.length; i++) {
+                long[] fromBits = from.sections[i];
+                if (fromBits == null) {
+                    continue;
+                }
+                long[] toBits = to.getOrCreate(from.minSection + i);
+                int added = 0;
+                for (int w = 0; w < SECTION_WORDS; w++) {
+                    long word = toBits[w];
+                    long union = word | fromBits[w];
+                    added += Long.bitCount(union ^ word);
+                    toBits[w] = union;
+                }
+                if (added != 0) {
+                    to.size += added;
+                    size += added;
+                    modified = true;
+                }
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Remove every position that is not contained in the given set from this set.
+     *
+     * @param other the set to intersect with
+     * @return if this set changed
+     */
+    public boolean intersection(BitmapBlockVectorSet other) {
+        boolean modified = false;
+        for (ObjectIterator<Long2ObjectMap.Entry<Column>> iter = columns.long2ObjectEntrySet().fastIterator(); iter.hasNext(); ) {
+            Long2ObjectMap.Entry<Column> entry = iter.next();
+            Column to = entry.getValue();
+            Column from = other.columns.get(entry.getLongKey());
+            if (from == null) {
+                size -= to.size;
+                modified |= to.size != 0;
+                iter.remove();
+                continue;
+            }
+            for (int i = 0; i < to.sections.length; i++) {
+                long[] toBits = to.sections[i];
+                if (toBits == null) {
+                    continue;
+                }
+                long[] fromBits = from.get(to.minSection + i);
+                int removed = 0;
+                if (fromBits == null) {
+                    removed = cardinality(toBits);
+                    to.sections[i] = null;
+                } else {
+                    for (int w = 0; w < SECTION_WORDS; w++) {
+                        long word = toBits[w];
+                        long intersection = word & fromBits[w];
+                        removed += Long.bitCount(word ^ intersection);
+                        toBits[w] = intersection;
+                    }
+                    if (removed != 0 && isEmpty(toBits)) {
+                        to.sections[i] = null;
+                    }
+                }
+                if (removed != 0) {
+                    to.size -= removed;
+                    size -= removed;
+                    modified = true;
+                }
+            }
+            if (to.size == 0) {
+                iter.remove();
+            }
+        }
+        lastColumn = null;
+        return modified;
+    }
+
+    @Nonnull
+    @Override
+    public Iterator<BlockVector3> iterator() {
+        final ObjectIterator<Long2ObjectMap.Entry<Column>> entries = columns.long2ObjectEntrySet().fastIterator();
+        return new Iterator<>() {
+            final MutableBlockVector3 mutable = new MutableBlockVector3();
+            Column column;
+            int bx;
+            int bz;
+            int section = -1;
+            long[] bits;
+            int wordIndex = SECTION_WORDS;
+            long word;
+            // the bitmap and bit of the last returned position, for remove
+            long[] lastBits;
+            int lastBit = -1;
+            Column lastColumn;
+
+            private boolean advance() {
+                while (word == 0) {
+                    if (++wordIndex < SECTION_WORDS) {
+                        word = bits[wordIndex];
+                        continue;
+                    }
+                    do {
+                        while (column == null || ++section >= column.sections.length) {
+                            if (!entries.hasNext()) {
+                                return false;
+                            }
+                            Long2ObjectMap.Entry<Column> entry = entries.next();
+                            column = entry.getValue();
+                            bx = MathMan.unpairIntX(entry.getLongKey()) << 4;
+                            bz = MathMan.unpairIntY(entry.getLongKey()) << 4;
+                            section = -1;
+                        }
+                        bits = column.sections[section];
+                    } while (bits == null);
+                    wordIndex = 0;
+                    word = bits[0];
+                }
+                return true;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return advance();
+            }
+
+            @Override
+            public BlockVector3 next() {
+                if (!advance()) {
+                    throw new NoSuchElementException("End of iterator");
+                }
+                int bit = (wordIndex << 6) | Long.numberOfTrailingZeros(word);
+                word &= word - 1;
+                lastBits = bits;
+                lastBit = bit;
+                lastColumn = column;
+                return mutable.setComponents(
+                        bx | (bit & 15),
+                        ((column.minSection + section) << 4) | (bit >> 8),
+                        bz | ((bit >> 4) & 15)
+                );
+            }
+
+            @Override
+            public void remove() {
+                if (lastBit == -1) {
+                    throw new IllegalStateException();
+                }
+                // empty sections and columns are kept, they are skipped by lookups and iteration
+                lastBits[lastBit >> 6] &= ~(1L << lastBit);
+                lastColumn.size--;
+                size--;
+                lastBit = -1;
+            }
+        };
+    }
+
+    @Override
+    public boolean containsAll(Collection<?> c) {
+        for (Object o : c) {
+            if (!contains(o)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends BlockVector3> c) {
+        if (c instanceof BitmapBlockVectorSet other) {
+            return union(other);
+        }
+        boolean result = false;
+        for (BlockVector3 v : c) {
+            result |= add(v);
+        }
+        return result;
+    }
+
+    @Override
+    public boolean retainAll(@Nonnull Collection<?> c) {
+        if (c instanceof BitmapBlockVectorSet other) {
+            return intersection(other);
+        }
+        boolean modified = false;
+        Iterator<BlockVector3> it = iterator();
+        while (it.hasNext()) {
+            if (!c.contains(it.next())) {
+                it.remove();
+                modified = true;
+            }
+        }
+        return modified;
+    }
+
+    @Override
+    public boolean removeAll(Collection<?> c) {
+        boolean result = false;
+        for (Object o : c) {
+            result |= remove(o);
+        }
+        return result;
+    }
+
+    @Override
+    public void clear() {
+        columns.clear();
+        size = 0;
+        lastColumn = null;
+    }
+
+    @Override
+    public BitmapBlockVectorSet copy() {
+        return new BitmapBlockVectorSet(this);
+    }
+
+}
@@ -10,6 +10,7 @@
 import com.sk89q.worldedit.util.SideEffectSet;
 import com.sk89q.worldedit.world.biome.BiomeType;
 import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -36,6 +37,31 @@ default boolean setBiome(BlockVector3 position, BiomeType biome) {
 
     void setBlocks(int layer, char[] data);
 
+    /**
+     * Set every block of a section to the same block, without storing a block array for the section. Implementations
+     * that do not support this return {@code false}, in which case the blocks must be set individually.
+     *
+     * @param layer   the section to set
+     * @param ordinal the ordinal of the block to set
+     * @return if the section was set
+     * @since TODO
+     */
+    default boolean setUniformSection(int layer, char ordinal) {
+        return false;
+    }
+
+    /**
+     * Get the ordinal every block of a section is set to, if it was set by {@link #setUniformSection(int, char)} and has
+     * not been loaded as a block array since.
+     *
+     * @param layer the section to get the ordinal of
+     * @return the ordinal, or {@link BlockTypesCache.ReservedIDs#__RESERVED__} if the section is not uniform
+     * @since TODO
+     */
+    default char getUniformOrdinal(int layer) {
+        return BlockTypesCache.ReservedIDs.__RESERVED__;
+    }
+
     boolean isEmpty();
 
     @Override
@@ -0,0 +1,21 @@
+package com.fastasyncworldedit.core.queue;
+
+/**
+ * A filter that only reads block ordinals and can consume a whole chunk section at once, instead of being called
+ * once per block. Filter blocks use this when every block of a section (or of a range of its y levels) is to be
+ * filtered.
+ *
+ * @since TODO
+ */
+public interface SectionFilter extends Filter {
+
+    /**
+     * Apply the filter to a range of a section's ordinals. Indices are in the {@code y << 8 | z << 4 | x} layout.
+     *
+     * @param ordinals the ordinals of the section, must not be modified
+     * @param start    the first index to apply to (inclusive)
+     * @param end      the last index to apply to (exclusive)
+     */
+    void applySection(char[] ordinals, int start, int end);
+
+}
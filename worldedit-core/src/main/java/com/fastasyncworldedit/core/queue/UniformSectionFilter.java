@@ -0,0 +1,20 @@
+package com.fastasyncworldedit.core.queue;
+
+/**
+ * A filter that sets every block it is applied to to the same block. Filter blocks use this when every block of a
+ * section is filtered, so the section can be stored as a single ordinal instead of a block array.
+ *
+ * @since TODO
+ */
+public interface UniformSectionFilter extends Filter {
+
+    /**
+     * Apply the filter to every block of a section, typically using {@link IChunkSet#setUniformSection(int, char)}.
+     *
+     * @param set   the chunk set to write to
+     * @param layer the section to fill
+     * @return if the section was filled, otherwise the section is filtered block by block
+     */
+    boolean fillSection(IChunkSet set, int layer);
+
+}
@@ -0,0 +1,157 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.internal.exception.FaweException;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.IntConsumer;
+
+/**
+ * Runs rounds of tasks in parallel, one task per lane and round. When created by a {@link ParallelQueueExtent}, every lane
+ * edits through its own queue for all rounds, so work that assigns each chunk to a single lane never edits a chunk from two
+ * threads, and the queues are only flushed once by {@link #close()} instead of after every round.
+ *
+ * @since TODO
+ */
+public final class ParallelLanes implements AutoCloseable {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    // The lane the current thread runs, only set while it runs one so nothing is left on pooled threads
+    private static final ThreadLocal<Integer> CURRENT_LANE = new ThreadLocal<>();
+
+    @Nullable
+    private final ParallelQueueExtent parallelQueueExtent;
+    @Nullable
+    private final QueueHandler handler;
+    @Nullable
+    private final IQueueExtent<IQueueChunk>[] queues;
+    @Nullable
+    private final boolean[] faweExceptionReasonsUsed;
+    private final int count;
+
+    @SuppressWarnings("unchecked")
+    ParallelLanes(
+            @Nullable ParallelQueueExtent parallelQueueExtent,
+            @Nullable QueueHandler handler,
+            int count,
+            @Nullable boolean[] faweExceptionReasonsUsed
+    ) {
+        this.parallelQueueExtent = parallelQueueExtent;
+        this.handler = handler;
+        this.count = Math.max(1, count);
+        this.faweExceptionReasonsUsed = faweExceptionReasonsUsed;
+        if (parallelQueueExtent != null) {
+            this.queues = new IQueueExtent[this.count];
+            for (int i = 0; i < this.count; i++) {
+                this.queues[i] = parallelQueueExtent.getNewQueue();
+            }
+        } else {
+            this.queues = null;
+        }
+    }
+
+    /**
+     * Create lanes that are not bound to queues and run on the pool of the {@link QueueHandler}, like the lanes of a
+     * {@link ParallelQueueExtent}, or on the common pool if FAWE is not loaded. Anything the tasks edit must be thread safe.
+     *
+     * @param count the number of lanes
+     * @return the lanes
+     */
+    public static ParallelLanes unbound(int count) {
+        Fawe fawe = Fawe.instance();
+        return new ParallelLanes(null, fawe != null ? fawe.getQueueHandler() : null, count, null);
+    }
+
+    /**
+     * Get the number of lanes.
+     *
+     * @return the number of lanes
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Run a round: the given task once for every lane, in parallel, and wait for all of them to finish.
+     *
+     * @param task the task, called with the lane index from 0 to {@link #size()}
+     */
+    public void run(IntConsumer task) {
+        if (count == 1) {
+            runLane(task, 0);
+            return;
+        }
+        ForkJoinTask<?>[] tasks = new ForkJoinTask[count];
+        for (int i = 0; i < count; i++) {
+            final int lane = i;
+            tasks[i] = ForkJoinTask.adapt(() -> runLane(task, lane));
+        }
+        Runnable round = () -> ForkJoinTask.invokeAll(tasks);
+        ForkJoinTask<?> submitted = handler != null ? handler.submit(round) : ForkJoinPool.commonPool().submit(round);
+        submitted.join();
+    }
+
+    private void runLane(IntConsumer task, int lane) {
+        Integer previous = CURRENT_LANE.get();
+        CURRENT_LANE.set(lane);
+        try {
+            runLaneTask(task, lane);
+        } finally {
+            if (previous == null) {
+                CURRENT_LANE.remove();
+            } else {
+                CURRENT_LANE.set(previous);
+            }
+        }
+    }
+
+    private void runLaneTask(IntConsumer task, int lane) {
+        if (queues == null) {
+            task.accept(lane);
+            return;
+        }
+        parallelQueueExtent.enter(queues[lane]);
+        try {
+            task.accept(lane);
+        } catch (Throwable t) {
+            if (t instanceof FaweException faweException) {
+                Fawe.handleFaweException(faweExceptionReasonsUsed, faweException, LOGGER);
+            } else if (t.getCause() instanceof FaweException faweException) {
+                Fawe.handleFaweException(faweExceptionReasonsUsed, faweException, LOGGER);
+            } else {
+                throw t;
+            }
+        } finally {
+            parallelQueueExtent.exit();
+        }
+    }
+
+    /**
+     * Get the lane the current thread runs, to look up state created for every lane of a run, e.g. in an array created
+     * before the run and dropped once it ends.
+     *
+     * @return the index of the lane the current thread runs, or -1 if it does not run one
+     * @since TODO
+     */
+    public static int currentLane() {
+        Integer lane = CURRENT_LANE.get();
+        return lane != null ? lane : -1;
+    }
+
+    /**
+     * Flush the queues of the lanes.
+     */
+    @Override
+    public void close() {
+        if (queues != null) {
+            run(lane -> queues[lane].flush());
+        }
+    }
+
+}
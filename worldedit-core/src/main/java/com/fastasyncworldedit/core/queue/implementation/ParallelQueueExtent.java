@@ -7,6 +7,7 @@
 import com.fastasyncworldedit.core.extent.clipboard.WorldCopyClipboard;
 import com.fastasyncworldedit.core.extent.filter.CountFilter;
 import com.fastasyncworldedit.core.extent.filter.DistrFilter;
+import com.fastasyncworldedit.core.extent.filter.FillFilter;
 import com.fastasyncworldedit.core.extent.filter.LinkedFilter;
 import com.fastasyncworldedit.core.extent.filter.block.ChunkFilterBlock;
 import com.fastasyncworldedit.core.extent.processor.BatchProcessorHolder;
@@ -168,6 +169,43 @@ public <T extends Filter> T apply(Region region, T filter, boolean full) {
         return filter;
     }
 
+    /**
+     * Run the given partitions in parallel, each with the queue of the thread it runs on. A partition must only edit chunks
+     * no other partition edits, e.g. the block changes of a single chunk when undoing an edit.
+     *
+     * @param partitions the partitions to run, in no particular order
+     * @since TODO
+     */
+    public void applyPartitioned(List<? extends Runnable> partitions) {
+        final int size = Math.min(partitions.size(), Settings.settings().QUEUE.PARALLEL_THREADS);
+        if (size <= 1) {
+            for (Runnable partition : partitions) {
+                partition.run();
+            }
+            getExtent().flush();
+            return;
+        }
+        ForkJoinTask<?> task = this.handler.submit(new PartitionTask(partitions, this, this.faweExceptionReasonsUsed));
+        // wait for task to finish
+        try {
+            task.join();
+        } catch (Throwable e) {
+            LOGGER.catching(e);
+        }
+    }
+
+    /**
+     * Create lanes to run rounds of tasks in parallel with, each lane editing through its own queue until the lanes are
+     * closed. A lane must only edit chunks no other lane edits.
+     *
+     * @param count the number of lanes
+     * @return the lanes, to be closed once all rounds ran
+     * @since TODO
+     */
+    public ParallelLanes createLanes(int count) {
+        return new ParallelLanes(this, this.handler, count, this.faweExceptionReasonsUsed);
+    }
+
     @Override
     protected Operation commitBefore() {
         return new Operation() {
@@ -205,6 +243,10 @@ public <B extends BlockStateHolder<B>> int setBlocks(Region region, B block) thr
 
     @Override
     public int setBlocks(Region region, Pattern pattern) throws MaxChangedBlocksException {
+        if (pattern instanceof BlockState state) {
+            // Sections entirely within the region are stored as uniform sections rather than set block by block
+            return this.changes = apply(region, new FillFilter(state), true).getTotal();
+        }
         VectorizedFilter vectorizedPattern = SimdSupport.vectorizedPattern(pattern);
         var filter = LinkedFilter.of(vectorizedPattern == null ? pattern : vectorizedPattern, new CountFilter());
         return this.changes = apply(region, filter, true).getRight().getTotal();
@@ -261,8 +303,10 @@ public Clipboard lazyCopy(Region region) {
      */
     @Override
     public int countBlocks(Region region, Set<BaseBlock> searchBlocks) {
-        Mask mask = new BlockMask(this, searchBlocks);
-        return countBlocks(region, mask);
+        // Build a histogram of the region's ordinals section by section and sum up the matching states, rather than
+        // testing the mask block by block
+        BlockMask mask = new BlockMask(this, searchBlocks);
+        return apply(region, new DistrFilter(), mask.replacesAir()).getTotal(mask);
     }
 
     /**
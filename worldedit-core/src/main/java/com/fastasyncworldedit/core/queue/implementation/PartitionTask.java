@@ -0,0 +1,110 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.internal.exception.FaweException;
+import com.fastasyncworldedit.core.queue.IQueueChunk;
+import com.fastasyncworldedit.core.queue.IQueueExtent;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import org.apache.logging.log4j.Logger;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Runs a list of partitions on the fork join pool, each with the queue of the thread it runs on. The list is split in halves
+ * until a single partition is left, the queues are flushed once every partition ran.
+ */
+class PartitionTask extends RecursiveAction implements Runnable {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    private final CommonState commonState;
+    private final int from;
+    private final int to;
+
+    @Override
+    public void run() {
+        compute();
+    }
+
+    private record CommonState(
+            List<? extends Runnable> partitions,
+            ParallelQueueExtent parallelQueueExtent,
+            ConcurrentMap<Thread, IQueueExtent<IQueueChunk>> queueCache,
+            boolean[] faweExceptionReasonsUsed
+    ) {
+
+    }
+
+    PartitionTask(
+            final List<? extends Runnable> partitions,
+            final ParallelQueueExtent parallelQueueExtent,
+            final boolean[] faweExceptionReasonsUsed
+    ) {
+        this(new CommonState(partitions, parallelQueueExtent, new ConcurrentHashMap<>(), faweExceptionReasonsUsed),
+                0, partitions.size()
+        );
+    }
+
+    private PartitionTask(final CommonState commonState, final int from, final int to) {
+        this.commonState = commonState;
+        this.from = from;
+        this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+        if (this.to - this.from > 1) {
+            int middle = (this.from + this.to) >>> 1;
+            invokeAll(new PartitionTask(this.commonState, this.from, middle), new PartitionTask(this.commonState, middle, this.to));
+        } else if (this.to > this.from) {
+            processPartition(this.commonState.partitions.get(this.from));
+        }
+        if (this.from == 0 && this.to == this.commonState.partitions.size()) {
+            onCompletion();
+        }
+    }
+
+    private void processPartition(Runnable partition) {
+        final IQueueExtent<IQueueChunk> queue = this.commonState.queueCache.computeIfAbsent(
+                Thread.currentThread(),
+                __ -> this.commonState.parallelQueueExtent.getNewQueue()
+        );
+        this.commonState.parallelQueueExtent.enter(queue);
+        try {
+            partition.run();
+        } catch (Throwable t) {
+            if (t instanceof FaweException faweException) {
+                Fawe.handleFaweException(this.commonState.faweExceptionReasonsUsed, faweException, LOGGER);
+            } else if (t.getCause() instanceof FaweException faweException) {
+                Fawe.handleFaweException(this.commonState.faweExceptionReasonsUsed, faweException, LOGGER);
+            } else {
+                throw t;
+            }
+        } finally {
+            this.commonState.parallelQueueExtent.exit();
+        }
+    }
+
+    private void onCompletion() {
+        final Collection<IQueueExtent<IQueueChunk>> values = this.commonState.queueCache.values();
+        ForkJoinTask<?>[] tasks = new ForkJoinTask[values.size()];
+        int i = values.size() - 1;
+        for (final IQueueExtent<IQueueChunk> value : values) {
+            tasks[i] = ForkJoinTask.adapt(value::flush).fork();
+            i--;
+        }
+        for (ForkJoinTask<?> task : tasks) {
+            if (task.tryUnfork()) {
+                task.invoke();
+            } else {
+                task.join();
+            }
+        }
+    }
+
+}
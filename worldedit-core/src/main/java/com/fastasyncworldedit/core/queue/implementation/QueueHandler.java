@@ -11,13 +11,23 @@
 import com.fastasyncworldedit.core.queue.IQueueExtent;
 import com.fastasyncworldedit.core.queue.Trimable;
 import com.fastasyncworldedit.core.queue.implementation.chunk.ChunkCache;
+import com.fastasyncworldedit.core.util.MathMan;
 import com.fastasyncworldedit.core.util.MemUtil;
 import com.fastasyncworldedit.core.util.TaskManager;
 import com.fastasyncworldedit.core.util.collection.CleanableThreadLocal;
 import com.fastasyncworldedit.core.util.task.FaweForkJoinWorkerThreadFactory;
 import com.fastasyncworldedit.core.wrappers.WorldWrapper;
 import com.google.common.util.concurrent.Futures;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.Player;
+import com.sk89q.worldedit.extension.platform.Actor;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.MultiUserPlatform;
+import com.sk89q.worldedit.extension.platform.NoCapablePlatformException;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.World;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
 import org.jetbrains.annotations.ApiStatus;
 
 import java.lang.ref.WeakReference;
@@ -26,6 +36,7 @@
 import java.util.Map;
 import java.util.Queue;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
@@ -33,8 +44,10 @@
 import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
 import java.util.concurrent.FutureTask;
+import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Supplier;
 
 /**
@@ -43,6 +56,12 @@
 @SuppressWarnings({"unchecked", "rawtypes"})
 public abstract class QueueHandler implements Trimable, Runnable {
 
+    // Distance in chunks beyond which chunk applies are no longer prioritised by distance to players
+    private static final int MAX_CHUNK_DISTANCE = 1024;
+    // Each chunk of distance to players delays a chunk apply behind this many applies submitted after it, so applies of far
+    // chunks are still completed while those of chunks near players keep being submitted
+    private static final int CHUNK_DISTANCE_WEIGHT = 64;
+
     /**
      * Primary queue should be used for tasks that are unlikely to wait on other tasks, IO, etc. (i.e. spend most of their
      * time utilising CPU.
@@ -85,15 +104,25 @@ public abstract class QueueHandler implements Trimable, Runnable {
      * after completing all tasks in the syncTasks queue
      */
     private final ConcurrentLinkedQueue<FutureTask> syncWhenFree = new ConcurrentLinkedQueue<>();
+    /**
+     * Queue for chunk applies to be completed on the main thread, after the tasks in the syncTasks queue. Those of chunks
+     * nearest to players are completed first.
+     */
+    private final PriorityBlockingQueue<ChunkTask<?>> chunkTasks = new PriorityBlockingQueue<>();
+    private final AtomicLong chunkSequence = new AtomicLong();
+    // The order of the last apply submitted per chunk, so the applies of a chunk are completed in the order submitted
+    private final Map<ChunkKey, Long> lastChunkOrder = new ConcurrentHashMap<>();
+    // The chunks players are in per world name, packed by MathMan#pairInt and updated once a second
+    private volatile Map<String, long[]> playerChunks = Map.of();
 
     private final Map<World, WeakReference<IChunkCache<IChunkGet>>> chunkGetCache = new HashMap<>();
     private final CleanableThreadLocal<IQueueExtent<IQueueChunk>> queuePool = new CleanableThreadLocal<>(QueueHandler.this::create);
     /**
-     * Used to calculate elapsed time in milliseconds and ensure block placement doesn't lag the
-     * server
+     * Used to measure how long main thread tasks take and ensure block placement doesn't lag the server
      */
-    private long last;
-    private long allocate = 50;
+    private final TickBudget tickBudget = new TickBudget();
+    // How long the server worked on its last tick as reported by the platform, -1 if it does not report it
+    private long lastTickDuration = -1;
 
     protected QueueHandler() {
         TaskManager.taskManager().repeat(this, 1);
@@ -109,23 +138,64 @@ public void run() {
         if (!Fawe.isMainThread()) {
             throw new IllegalStateException("Not main thread");
         }
-        if (!syncTasks.isEmpty()) {
-            long currentAllocate = getAllocate();
-
+        long target = TimeUnit.MILLISECONDS.toNanos(Math.max(1, Settings.settings().QUEUE.TARGET_MSPT));
+        long extra = TimeUnit.MILLISECONDS.toNanos(Settings.settings().QUEUE.EXTRA_TIME_MS);
+        tickBudget.startTick(System.nanoTime(), lastTickDuration, target, target + extra);
+        if (Fawe.instance().getTimer().getTick() % 20 == 0) {
+            updatePlayerChunks();
+        }
+        if (!syncTasks.isEmpty() || !chunkTasks.isEmpty()) {
             if (!MemUtil.isMemoryFree()) {
                 // TODO reduce mem usage
                 // FaweCache trim
                 // Preloader trim
             }
 
-            operate(syncTasks, last, currentAllocate);
+            operate(syncTasks, false);
+            operate(chunkTasks, true);
         } else if (!syncWhenFree.isEmpty()) {
-            operate(syncWhenFree, last, getAllocate());
+            operate(syncWhenFree, false);
         } else {
             // trim??
         }
     }
 
+    /**
+     * Record how long the server worked on the tick that just ended, not counting the time it then waits for the next tick.
+     * Platforms able to measure this call it at the end of every tick, so the main thread tasks are budgeted against the
+     * actual tick duration. Otherwise, the time from the start of one tick to the next is used, which never falls below
+     * the 50ms a tick is scheduled to last.
+     *
+     * @param nanos the duration of the tick in nanoseconds
+     * @since TODO
+     */
+    @ApiStatus.Internal
+    public void recordTickDuration(long nanos) {
+        if (!Fawe.isMainThread()) {
+            throw new IllegalStateException("Not main thread");
+        }
+        lastTickDuration = nanos;
+    }
+
+    /**
+     * Get a snapshot of the main thread work of this queue handler.
+     *
+     * @return the current backlog, budget and throughput of main thread tasks
+     * @since TODO
+     */
+    public QueueMetrics getMetrics() {
+        return new QueueMetrics(
+                syncTasks.size(),
+                chunkTasks.size(),
+                syncWhenFree.size(),
+                tickBudget.getBudget() / 1e6,
+                tickBudget.getChunkCost() / 1e6,
+                tickBudget.getTaskCost() / 1e6,
+                tickBudget.getThroughput(),
+                tickBudget.getCompleted()
+        );
+    }
+
     /**
      * Get if the {@code blockingExecutor} is saturated with tasks or not. Under-utilisation implies the queue has space for
      * more submissions.
@@ -136,45 +206,69 @@ public boolean isUnderutilized() {
         return blockingExecutor.getActiveCount() < blockingExecutor.getMaximumPoolSize();
     }
 
-    private long getAllocate() {
-        long now = System.currentTimeMillis();
-        double targetTPS = 18 - Math.max(Settings.settings().QUEUE.EXTRA_TIME_MS * 0.05, 0);
-        long diff = 50 + this.last - (this.last = now);
-        long absDiff = Math.abs(diff);
-        if (diff == 0) {
-            allocate = Math.min(50, allocate + 1);
-        } else if (diff < 0) {
-            allocate = Math.max(5, allocate + diff);
-        } else if (!Fawe.instance().getTimer().isAbove(targetTPS)) {
-            allocate = Math.max(5, allocate - 1);
-        }
-        return allocate - absDiff;
-    }
-
-    private void operate(Queue<FutureTask> queue, long start, long currentAllocate) {
+    private void operate(Queue<? extends FutureTask> queue, boolean chunks) {
         boolean wait = false;
-        do {
+        while (tickBudget.fits(System.nanoTime(), chunks)) {
             Runnable task = queue.poll();
             if (task == null) {
-                if (wait) {
-                    synchronized (syncTasks) {
-                        try {
-                            queue.wait(1);
-                        } catch (InterruptedException e) {
-                            e.printStackTrace();
-                        }
+                if (!wait) {
+                    break;
+                }
+                synchronized (queue) {
+                    try {
+                        queue.wait(1);
+                    } catch (InterruptedException e) {
+                        e.printStackTrace();
                     }
-                    task = queue.poll();
-                    wait = false;
-                } else {
+                }
+                task = queue.poll();
+                wait = false;
+                if (task == null) {
                     break;
                 }
             }
-            if (task != null) {
-                task.run();
-                wait = true;
+            long start = System.nanoTime();
+            task.run();
+            tickBudget.record(System.nanoTime() - start, chunks);
+            wait = true;
+        }
+    }
+
+    private void updatePlayerChunks() {
+        Platform platform;
+        try {
+            platform = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.GAME_HOOKS);
+        } catch (NoCapablePlatformException e) {
+            return;
+        }
+        if (!(platform instanceof MultiUserPlatform multiUserPlatform)) {
+            return;
+        }
+        Map<String, LongArrayList> chunks = new HashMap<>();
+        for (Actor actor : multiUserPlatform.getConnectedUsers()) {
+            if (actor instanceof Player player) {
+                Location location = player.getLocation();
+                chunks.computeIfAbsent(player.getWorld().getName(), k -> new LongArrayList())
+                        .add(MathMan.pairInt(location.getBlockX() >> 4, location.getBlockZ() >> 4));
+            }
+        }
+        Map<String, long[]> playerChunks = new HashMap<>();
+        chunks.forEach((world, list) -> playerChunks.put(world, list.toLongArray()));
+        this.playerChunks = playerChunks;
+    }
+
+    // The distance in chunks to the nearest player in the world, at most MAX_CHUNK_DISTANCE
+    private int distanceToPlayers(String world, int chunkX, int chunkZ) {
+        long[] chunks = playerChunks.get(world);
+        int distance = MAX_CHUNK_DISTANCE;
+        if (chunks != null) {
+            for (long chunk : chunks) {
+                int dx = Math.abs(MathMan.unpairIntX(chunk) - chunkX);
+                int dz = Math.abs(MathMan.unpairIntY(chunk) - chunkZ);
+                distance = Math.min(distance, Math.max(dx, dz));
             }
-        } while (System.currentTimeMillis() - start < currentAllocate);
+        }
+        return distance;
     }
 
     /**
@@ -327,6 +421,36 @@ public <T> Future<T> syncWhenFree(Supplier<T> supplier) {
         return sync(supplier, syncWhenFree);
     }
 
+    /**
+     * Submit a chunk apply to be run on the main thread. Does not guarantee to be run on the next tick as FAWE will only
+     * operate within the tick budget. Completed after the tasks submitted via any {@code QueueHandler#sync} method, those of
+     * chunks nearest to players first. Applies submitted for the same chunk are completed in the order submitted.
+     * <p>
+     * Chunk applies are only started once every task queued via {@code QueueHandler#sync} has been completed, including
+     * tasks queued after the apply, so a steady stream of sync tasks delays chunk applies. Sync tasks are short requests
+     * that other threads are waiting on, e.g. to load a chunk an edit is about to read, so they go first.
+     *
+     * @param world  Name of the world of the chunk
+     * @param chunkX Chunk x coordinate
+     * @param chunkZ Chunk z coordinate
+     * @param call   Task to run
+     * @param <T>    Value type
+     * @return Future representing task
+     * @since TODO
+     */
+    public <T> Future<T> syncChunk(String world, int chunkX, int chunkZ, Callable<T> call) throws Exception {
+        if (Fawe.isMainThread()) {
+            return Futures.immediateFuture(call.call());
+        }
+        ChunkKey key = new ChunkKey(world, MathMan.pairInt(chunkX, chunkZ));
+        long order = chunkSequence.getAndIncrement() + (long) distanceToPlayers(world, chunkX, chunkZ) * CHUNK_DISTANCE_WEIGHT;
+        order = lastChunkOrder.merge(key, order, (previous, next) -> Math.max(previous + 1, next));
+        final ChunkTask<T> result = new ChunkTask<>(call, key, order);
+        chunkTasks.add(result);
+        notifySync(chunkTasks);
+        return result;
+    }
+
     private <T> Future<T> sync(Runnable run, T value, Queue<FutureTask> queue) {
         if (Fawe.isMainThread()) {
             run.run();
@@ -551,4 +675,31 @@ public ExecutorService getForkJoinPoolSecondary() {
         return forkJoinPoolSecondary;
     }
 
+    private record ChunkKey(String world, long chunk) {
+
+    }
+
+    private final class ChunkTask<T> extends FutureTask<T> implements Comparable<ChunkTask<?>> {
+
+        private final ChunkKey key;
+        private final long order;
+
+        private ChunkTask(Callable<T> call, ChunkKey key, long order) {
+            super(call);
+            this.key = key;
+            this.order = order;
+        }
+
+        @Override
+        protected void done() {
+            lastChunkOrder.remove(key, order);
+        }
+
+        @Override
+        public int compareTo(ChunkTask<?> other) {
+            return Long.compare(order, other.order);
+        }
+
+    }
+
 }
@@ -0,0 +1,27 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+/**
+ * A snapshot of the main thread work of the {@link QueueHandler}.
+ *
+ * @param syncBacklog      the number of tasks waiting to be run on the main thread
+ * @param chunkBacklog     the number of chunk applies waiting to be run on the main thread
+ * @param whenFreeBacklog  the number of tasks waiting to be run on the main thread when there is time left
+ * @param budgetMillis     the time main thread tasks may take per tick
+ * @param chunkApplyMillis the moving average of the time a chunk apply takes on the main thread
+ * @param taskMillis       the moving average of the time another main thread task takes
+ * @param tasksPerSecond   the moving average of the number of main thread tasks run per second
+ * @param completed        the number of main thread tasks run since the server started
+ * @since TODO
+ */
+public record QueueMetrics(
+        int syncBacklog,
+        int chunkBacklog,
+        int whenFreeBacklog,
+        double budgetMillis,
+        double chunkApplyMillis,
+        double taskMillis,
+        double tasksPerSecond,
+        long completed
+) {
+
+}
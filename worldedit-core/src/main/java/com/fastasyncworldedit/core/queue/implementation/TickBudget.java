@@ -0,0 +1,103 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The time the main thread tasks of the {@link QueueHandler} may take per tick. The budget shrinks by however much a tick
+ * overran the target tick duration and grows back by a millisecond per tick that did not, and the cost of tasks is
+ * measured to only start those expected to fit in what is left of it. A tick lasts as long as the server worked on it,
+ * where the platform reports that, and otherwise from the start of one tick to the next, including the time the server
+ * waited for the next tick. Not thread safe, only used on the main thread.
+ */
+final class TickBudget {
+
+    static final long MIN_BUDGET = TimeUnit.MILLISECONDS.toNanos(2);
+    private static final long GROWTH = TimeUnit.MILLISECONDS.toNanos(1);
+    // weight of the latest measurement in the moving averages
+    private static final double ALPHA = 0.2;
+
+    private long budget = TimeUnit.MILLISECONDS.toNanos(10);
+    private long tickStart;
+    private int completedThisTick;
+    private long completed;
+    private double chunkCost = TimeUnit.MILLISECONDS.toNanos(1);
+    private double taskCost = TimeUnit.MILLISECONDS.toNanos(1);
+    private double throughput;
+
+    /**
+     * Start a tick, adapting the budget to how long the last tick took.
+     *
+     * @param now      the current {@link System#nanoTime()}
+     * @param lastTick how long the server worked on the last tick in nanoseconds, or -1 if the platform does not report it
+     * @param target   the tick duration to keep ticks within, in nanoseconds
+     * @param max      the maximum budget, in nanoseconds
+     */
+    void startTick(long now, long lastTick, long target, long max) {
+        if (tickStart != 0) {
+            long elapsed = now - tickStart;
+            long tick = lastTick >= 0 ? lastTick : elapsed;
+            if (tick > target) {
+                budget -= tick - target;
+            } else {
+                budget += GROWTH;
+            }
+            throughput = average(throughput, completedThisTick * 1e9 / Math.max(1, elapsed));
+        }
+        budget = Math.max(MIN_BUDGET, Math.min(Math.max(MIN_BUDGET, max), budget));
+        tickStart = now;
+        completedThisTick = 0;
+    }
+
+    /**
+     * Get if a task is expected to fit in what is left of this tick's budget. The first task of a tick always fits, so the
+     * queue keeps progressing however slow the server is.
+     *
+     * @param now   the current {@link System#nanoTime()}
+     * @param chunk if the task applies a chunk
+     * @return if the task should be started this tick
+     */
+    boolean fits(long now, boolean chunk) {
+        return completedThisTick == 0 || now - tickStart + (chunk ? chunkCost : taskCost) <= budget;
+    }
+
+    /**
+     * Record a task that ran this tick.
+     *
+     * @param nanos how long the task took
+     * @param chunk if the task applied a chunk
+     */
+    void record(long nanos, boolean chunk) {
+        if (chunk) {
+            chunkCost = average(chunkCost, nanos);
+        } else {
+            taskCost = average(taskCost, nanos);
+        }
+        completedThisTick++;
+        completed++;
+    }
+
+    private static double average(double average, double value) {
+        return average + ALPHA * (value - average);
+    }
+
+    long getBudget() {
+        return budget;
+    }
+
+    double getChunkCost() {
+        return chunkCost;
+    }
+
+    double getTaskCost() {
+        return taskCost;
+    }
+
+    double getThroughput() {
+        return throughput;
+    }
+
+    long getCompleted() {
+        return completed;
+    }
+
+}
@@ -59,6 +59,8 @@ public static CharSetBlocks newInstance(int x, int z) {
     public HashSet<FaweCompoundTag> entities;
     public HashSet<UUID> entityRemoves;
     public EnumMap<HeightMapType, int[]> heightMaps;
+    // Ordinal each section is uniformly set to, without a block array, or __RESERVED__ if not uniform
+    private char[] uniform;
     private boolean fastMode = false;
     private int bitMask = -1;
     private SideEffectSet sideEffectSet = SideEffectSet.defaults();
@@ -141,7 +143,95 @@ public <T extends BlockStateHolder<T>> boolean setBlock(int x, int y, int z, T h
     public void setBlocks(int layer, char[] data) {
         updateSectionIndexRange(layer);
         layer -= minSectionPosition;
-        this.blocks[layer] = data;
+        synchronized (sectionLocks[layer]) {
+            this.blocks[layer] = data;
+            if (uniform != null) {
+                uniform[layer] = BlockTypesCache.ReservedIDs.__RESERVED__;
+            }
+        }
+    }
+
+    @Override
+    public boolean setUniformSection(int layer, char ordinal) {
+        updateSectionIndexRange(layer);
+        layer -= minSectionPosition;
+        synchronized (sectionLocks[layer]) {
+            if (uniform == null) {
+                uniform = new char[sectionCount];
+            }
+            this.blocks[layer] = null;
+            uniform[layer] = ordinal;
+        }
+        return true;
+    }
+
+    @Override
+    public char getUniformOrdinal(int layer) {
+        layer -= minSectionPosition;
+        if (uniform == null || layer < 0 || layer >= uniform.length) {
+            return BlockTypesCache.ReservedIDs.__RESERVED__;
+        }
+        return uniform[layer];
+    }
+
+    @Override
+    public char[] update(int layer, char[] data, boolean aggressive) {
+        // Called with the section lock held when a section without an array is loaded, expand a uniform section
+        if (data == null && uniform != null) {
+            char ordinal = uniform[layer];
+            if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                data = new char[4096];
+                Arrays.fill(data, ordinal);
+                uniform[layer] = BlockTypesCache.ReservedIDs.__RESERVED__;
+                return data;
+            }
+        }
+        return super.update(layer, data, aggressive);
+    }
+
+    @Override
+    public boolean hasSection(int layer) {
+        return super.hasSection(layer) || getUniformOrdinal(layer) != BlockTypesCache.ReservedIDs.__RESERVED__;
+    }
+
+    @Nullable
+    @Override
+    public char[] loadIfPresent(int layer) {
+        if (getUniformOrdinal(layer) != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            return load(layer);
+        }
+        return super.loadIfPresent(layer);
+    }
+
+    @Override
+    public boolean trim(boolean aggressive) {
+        if (uniform != null) {
+            for (char ordinal : uniform) {
+                if (ordinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                    return false;
+                }
+            }
+        }
+        return super.trim(aggressive);
+    }
+
+    @Override
+    public boolean trim(boolean aggressive, int layer) {
+        if (uniform != null && uniform[layer] != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            return false;
+        }
+        return super.trim(aggressive, layer);
+    }
+
+    @Override
+    public void reset(int layer) {
+        int index = layer - minSectionPosition;
+        synchronized (sectionLocks[index]) {
+            if (uniform != null) {
+                uniform[index] = BlockTypesCache.ReservedIDs.__RESERVED__;
+            }
+        }
+        super.reset(layer);
     }
 
     @Override
@@ -341,6 +431,7 @@ public IChunkSet reset() {
         light = null;
         skyLight = null;
         heightMaps = null;
+        uniform = null;
         super.reset();
         return null;
     }
@@ -363,6 +454,7 @@ public ThreadUnsafeCharBlocks createCopy() {
                 System.arraycopy(blocks[i], 0, blocksCopy[i], 0, FaweCache.INSTANCE.BLOCKS_PER_LAYER);
             }
         }
+        char[] uniformCopy = uniform == null ? null : uniform.clone();
         BiomeType[][] biomesCopy;
         if (biomes == null) {
             biomesCopy = null;
@@ -389,6 +481,7 @@ public ThreadUnsafeCharBlocks createCopy() {
                 entities != null ? new HashSet<>(entities) : null,
                 entityRemoves != null ? new HashSet<>(entityRemoves) : null,
                 heightMaps != null ? new EnumMap<>(heightMaps) : null,
+                uniformCopy,
                 defaultOrdinal(),
                 fastMode,
                 bitMask,
@@ -465,6 +558,11 @@ private void resizeSectionsArrays(int diff, boolean appendNew) {
         }
         blocks = tmpBlocks;
         sectionLocks = tmpSectionLocks;
+        if (uniform != null) {
+            char[] tmpUniform = new char[sectionCount];
+            System.arraycopy(uniform, 0, tmpUniform, destPos, uniform.length);
+            uniform = tmpUniform;
+        }
         if (biomes != null) {
             BiomeType[][] tmpBiomes = new BiomeType[sectionCount][64];
             System.arraycopy(biomes, 0, tmpBiomes, destPos, biomes.length);
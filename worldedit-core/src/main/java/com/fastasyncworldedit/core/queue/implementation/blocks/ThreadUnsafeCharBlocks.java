@@ -42,6 +42,8 @@ public class ThreadUnsafeCharBlocks implements IChunkSet, IBlocks {
     private final int chunkX;
     private final int chunkZ;
     private char[][] blocks;
+    // Ordinal each section is uniformly set to, without a block array, or __RESERVED__ if not uniform
+    private char[] uniform;
     private int minSectionPosition;
     private int maxSectionPosition;
     private int sectionCount;
@@ -73,6 +75,7 @@ public class ThreadUnsafeCharBlocks implements IChunkSet, IBlocks {
             HashSet<FaweCompoundTag> entities,
             HashSet<UUID> entityRemoves,
             Map<HeightMapType, int[]> heightMaps,
+            @Nullable char[] uniform,
             char defaultOrdinal,
             boolean fastMode,
             int bitMask,
@@ -91,6 +94,7 @@ public class ThreadUnsafeCharBlocks implements IChunkSet, IBlocks {
         this.entities = entities;
         this.entityRemoves = entityRemoves;
         this.heightMaps = heightMaps;
+        this.uniform = uniform;
         this.defaultOrdinal = defaultOrdinal;
         this.fastMode = fastMode;
         this.bitMask = bitMask;
@@ -101,6 +105,9 @@ public class ThreadUnsafeCharBlocks implements IChunkSet, IBlocks {
 
     @Override
     public boolean hasSection(int layer) {
+        if (getUniformOrdinal(layer) != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            return true;
+        }
         layer -= minSectionPosition;
         return layer >= 0 && layer < blocks.length && blocks[layer] != null && blocks[layer].length == FaweCache.INSTANCE.BLOCKS_PER_LAYER;
     }
@@ -112,6 +119,7 @@ public char[] load(int layer) {
         char[] arr = blocks[layer];
         if (arr == null) {
             arr = blocks[layer] = new char[FaweCache.INSTANCE.BLOCKS_PER_LAYER];
+            expandUniform(layer, arr);
         }
         return arr;
     }
@@ -122,10 +130,42 @@ public char[] loadIfPresent(int layer) {
         if (layer < minSectionPosition || layer > maxSectionPosition) {
             return null;
         }
+        if (getUniformOrdinal(layer) != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            return load(layer);
+        }
         layer -= minSectionPosition;
         return blocks[layer];
     }
 
+    @Override
+    public boolean setUniformSection(int layer, char ordinal) {
+        updateSectionIndexRange(layer);
+        layer -= minSectionPosition;
+        if (uniform == null) {
+            uniform = new char[sectionCount];
+        }
+        blocks[layer] = null;
+        uniform[layer] = ordinal;
+        return true;
+    }
+
+    @Override
+    public char getUniformOrdinal(int layer) {
+        layer -= minSectionPosition;
+        if (uniform == null || layer < 0 || layer >= uniform.length) {
+            return BlockTypesCache.ReservedIDs.__RESERVED__;
+        }
+        return uniform[layer];
+    }
+
+    // Fill a newly created section array with the section's uniform ordinal, if it has one, as it is now stored in the array
+    private void expandUniform(int index, char[] arr) {
+        if (uniform != null && uniform[index] != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            Arrays.fill(arr, uniform[index]);
+            uniform[index] = BlockTypesCache.ReservedIDs.__RESERVED__;
+        }
+    }
+
     @Override
     public Map<BlockVector3, FaweCompoundTag> tiles() {
         return tiles == null ? Collections.emptyMap() : tiles;
@@ -200,6 +240,10 @@ public int getZ() {
 
     public char get(int x, int y, int z) {
         int layer = (y >> 4);
+        char uniformOrdinal = getUniformOrdinal(layer);
+        if (uniformOrdinal != BlockTypesCache.ReservedIDs.__RESERVED__) {
+            return uniformOrdinal;
+        }
         if (!hasSection(layer)) {
             return defaultOrdinal;
         }
@@ -246,7 +290,12 @@ public void set(int x, int y, int z, char value) {
         final int layer = (y >> 4) - minSectionPosition;
         final int index = (y & 15) << 8 | z << 4 | x;
         try {
-            blocks[layer][index] = value;
+            char[] arr = blocks[layer];
+            if (arr == null && uniform != null && uniform[layer] != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                arr = blocks[layer] = new char[FaweCache.INSTANCE.BLOCKS_PER_LAYER];
+                expandUniform(layer, arr);
+            }
+            arr[index] = value;
         } catch (ArrayIndexOutOfBoundsException exception) {
             LOGGER.error("Tried setting block at coordinates (" + x + "," + y + "," + z + ")");
             assert Fawe.platform() != null;
@@ -267,6 +316,9 @@ public void setBlocks(int layer, char[] data) {
         updateSectionIndexRange(layer);
         layer -= minSectionPosition;
         this.blocks[layer] = data;
+        if (uniform != null) {
+            uniform[layer] = BlockTypesCache.ReservedIDs.__RESERVED__;
+        }
     }
 
     @Override
@@ -447,6 +499,7 @@ public boolean hasLight() {
     @Override
     public IChunkSet reset() {
         blocks = new char[sectionCount][];
+        uniform = null;
         biomes = new BiomeType[sectionCount][];
         light = new char[sectionCount][];
         skyLight = new char[sectionCount][];
@@ -467,6 +520,9 @@ public boolean hasBiomes(int layer) {
     public IChunkSet createCopy() {
         char[][] blocksCopy = new char[sectionCount][];
         for (int i = 0; i < sectionCount; i++) {
+            if (uniform != null && uniform[i] != BlockTypesCache.ReservedIDs.__RESERVED__) {
+                continue;
+            }
             blocksCopy[i] = new char[FaweCache.INSTANCE.BLOCKS_PER_LAYER];
             if (blocks[i] != null) {
                 System.arraycopy(blocks[i], 0, blocksCopy[i], 0, FaweCache.INSTANCE.BLOCKS_PER_LAYER);
@@ -498,6 +554,7 @@ public IChunkSet createCopy() {
                 entities != null ? new HashSet<>(entities) : null,
                 entityRemoves != null ? new HashSet<>(entityRemoves) : null,
                 heightMaps != null ? new HashMap<>(heightMaps) : null,
+                uniform != null ? uniform.clone() : null,
                 defaultOrdinal,
                 fastMode,
                 bitMask,
@@ -545,6 +602,11 @@ private void resizeSectionsArrays(int layer, int diff, boolean appendNew) {
         int destPos = appendNew ? 0 : diff;
         System.arraycopy(blocks, 0, tmpBlocks, destPos, blocks.length);
         blocks = tmpBlocks;
+        if (uniform != null) {
+            char[] tmpUniform = new char[sectionCount];
+            System.arraycopy(uniform, 0, tmpUniform, destPos, uniform.length);
+            uniform = tmpUniform;
+        }
         if (biomes != null) {
             BiomeType[][] tmpBiomes = new BiomeType[sectionCount][64];
             System.arraycopy(biomes, 0, tmpBiomes, destPos, biomes.length);
@@ -1,7 +1,7 @@
 package com.fastasyncworldedit.core.regions;
 
 import com.fastasyncworldedit.core.configuration.Caption;
-import com.fastasyncworldedit.core.math.BlockVectorSet;
+import com.fastasyncworldedit.core.math.BitmapBlockVectorSet;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.extent.Extent;
 import com.sk89q.worldedit.function.mask.Mask;
@@ -18,7 +18,7 @@
 public class FuzzyRegion extends AbstractRegion {
 
     private final Mask mask;
-    private final BlockVectorSet set = new BlockVectorSet();
+    private final BitmapBlockVectorSet set = new BitmapBlockVectorSet();
     private int minX;
     private int minY;
     private int minZ;
@@ -134,7 +134,7 @@ public void setExtent(EditSession extent) {
 
     @Override
     public boolean containsEntireCuboid(int bx, int tx, int by, int ty, int bz, int tz) {
-        // TODO optimize (switch from BlockVectorSet to the new bitset)
+        // TODO optimize (test the section bitmaps of the set)
         return false;
     }
 
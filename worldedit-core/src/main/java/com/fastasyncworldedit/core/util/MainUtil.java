@@ -64,6 +64,7 @@
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
+import java.nio.ByteBuffer;
 import java.nio.channels.Channels;
 import java.nio.channels.FileChannel;
 import java.nio.channels.ReadableByteChannel;
@@ -285,6 +286,19 @@ public static byte[] decompress(byte[] bytes, byte[] buffer, int length, int lev
         return buffer;
     }
 
+    /**
+     * Decompress LZ4 data written by {@link #compress(byte[], byte[], int)} straight from a (possibly memory-mapped)
+     * buffer, without copying it onto the heap first.
+     *
+     * @param bytes  the compressed data, read from its current position
+     * @param buffer the array to decompress into, at least {@code length} long
+     * @param length the decompressed length
+     * @since TODO
+     */
+    public static void decompress(ByteBuffer bytes, byte[] buffer, int length) {
+        DECOMPRESSOR.decompress(bytes, bytes.position(), ByteBuffer.wrap(buffer), 0, length);
+    }
+
     /**
      * Note: The returned stream is not thread safe.
      */
@@ -334,6 +348,9 @@ public static FaweInputStream getCompressedIS(InputStream is) throws IOException
 
     public static FaweInputStream getCompressedIS(InputStream is, int buffer) throws IOException {
         int mode = (byte) is.read();
+        if (mode == ZstdCompression.STREAM_MODE) {
+            return ZstdCompression.getCompressedIS(is, buffer);
+        }
         is = new FastBufferedInputStream(is, buffer);
         if (mode == 0) {
             return new FaweInputStream(is);
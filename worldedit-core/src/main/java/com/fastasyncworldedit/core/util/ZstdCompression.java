@@ -0,0 +1,319 @@
+package com.fastasyncworldedit.core.util;
+
+import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.internal.io.FaweInputStream;
+import com.fastasyncworldedit.core.internal.io.FaweOutputStream;
+import com.github.luben.zstd.Zstd;
+import com.github.luben.zstd.ZstdDictCompress;
+import com.github.luben.zstd.ZstdDictDecompress;
+import com.github.luben.zstd.ZstdDictTrainer;
+import com.github.luben.zstd.ZstdInputStream;
+import com.github.luben.zstd.ZstdOutputStream;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import it.unimi.dsi.fastutil.io.FastBufferedInputStream;
+import it.unimi.dsi.fastutil.io.FastBufferedOutputStream;
+import org.apache.logging.log4j.Logger;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Zstandard compression of history and clipboard data. Each store may train a dictionary on the first data it compresses and
+ * use it from then on. Compressed data refers to its dictionary by id, so dictionaries are saved to the {@code zstd} folder
+ * and must be kept for as long as data compressed with them exists.
+ *
+ * @since TODO
+ */
+public final class ZstdCompression {
+
+    /**
+     * The first byte of streams written by {@link #getCompressedOS(OutputStream, int)}, telling
+     * {@link MainUtil#getCompressedIS(InputStream)} apart from the LZ4 compression levels.
+     */
+    public static final int STREAM_MODE = 64;
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+    // zstd's own default dictionary size
+    private static final int DICTIONARY_SIZE = 112640;
+    private static final int SAMPLE_SIZE = 16384;
+    private static final int SAMPLE_BUFFER_SIZE = DICTIONARY_SIZE * 100;
+    private static final Map<Integer, ZstdDictDecompress> DICTIONARIES = new ConcurrentHashMap<>();
+
+    private static volatile ZstdCompression history;
+    private static volatile ZstdCompression clipboard;
+
+    private final String name;
+    private final int level;
+    private volatile Dictionary dictionary;
+    private volatile ZstdDictTrainer trainer;
+
+    private record Dictionary(int id, ZstdDictCompress compress) {
+
+    }
+
+    private ZstdCompression(String name, int level, boolean train) {
+        this.name = name;
+        this.level = Math.max(1, Math.min(22, level));
+        if (train) {
+            this.dictionary = loadLatest();
+            if (this.dictionary == null) {
+                this.trainer = new ZstdDictTrainer(SAMPLE_BUFFER_SIZE, DICTIONARY_SIZE);
+            }
+        }
+    }
+
+    /**
+     * Get the Zstandard compression of history, see {@link Settings.HISTORY#COMPRESSION_CODEC}.
+     *
+     * @return the compression, or null if history is compressed with LZ4
+     */
+    @Nullable
+    public static ZstdCompression history() {
+        if (!"ZSTD".equalsIgnoreCase(Settings.settings().HISTORY.COMPRESSION_CODEC)) {
+            return null;
+        }
+        if (history == null) {
+            synchronized (ZstdCompression.class) {
+                if (history == null) {
+                    history = new ZstdCompression(
+                            "history",
+                            Settings.settings().HISTORY.ZSTD_LEVEL,
+                            Settings.settings().HISTORY.ZSTD_DICTIONARY
+                    );
+                }
+            }
+        }
+        return history;
+    }
+
+    /**
+     * Get the Zstandard compression of clipboards, see {@link Settings.CLIPBOARD#COMPRESSION_CODEC}.
+     *
+     * @return the compression, or null if clipboards are compressed with LZ4
+     */
+    @Nullable
+    public static ZstdCompression clipboard() {
+        if (!"ZSTD".equalsIgnoreCase(Settings.settings().CLIPBOARD.COMPRESSION_CODEC)) {
+            return null;
+        }
+        if (clipboard == null) {
+            synchronized (ZstdCompression.class) {
+                if (clipboard == null) {
+                    clipboard = new ZstdCompression(
+                            "clipboard",
+                            Settings.settings().CLIPBOARD.ZSTD_LEVEL,
+                            Settings.settings().CLIPBOARD.ZSTD_DICTIONARY
+                    );
+                }
+            }
+        }
+        return clipboard;
+    }
+
+    /**
+     * Create a compression that is not bound to a store and does not use a dictionary, e.g. for benchmarks.
+     *
+     * @param level the Zstandard level
+     */
+    public static ZstdCompression of(int level) {
+        return new ZstdCompression("custom", level, false);
+    }
+
+    /**
+     * Train a dictionary on the given samples and use it from then on, without saving it.
+     *
+     * @param samples the samples, each at most 16 KiB are used
+     * @return this
+     */
+    public ZstdCompression withDictionary(Iterable<byte[]> samples) {
+        ZstdDictTrainer trainer = new ZstdDictTrainer(SAMPLE_BUFFER_SIZE, DICTIONARY_SIZE);
+        for (byte[] sample : samples) {
+            if (!trainer.addSample(Arrays.copyOf(sample, Math.min(sample.length, SAMPLE_SIZE)))) {
+                break;
+            }
+        }
+        byte[] dict = trainer.trainSamples();
+        int id = (int) Zstd.getDictIdFromDict(dict);
+        DICTIONARIES.put(id, new ZstdDictDecompress(dict));
+        this.dictionary = new Dictionary(id, new ZstdDictCompress(dict, level));
+        this.trainer = null;
+        return this;
+    }
+
+    /**
+     * Offer uncompressed data to train the dictionary of this store on. Once enough data was seen, the dictionary is trained
+     * asynchronously and used for everything compressed afterwards.
+     *
+     * @param bytes  the data
+     * @param length the length of the data
+     */
+    public void sample(byte[] bytes, int length) {
+        ZstdDictTrainer trainer = this.trainer;
+        if (trainer == null || length <= 0) {
+            return;
+        }
+        synchronized (this) {
+            if (this.trainer != trainer) {
+                return;
+            }
+            if (trainer.addSample(Arrays.copyOf(bytes, Math.min(length, SAMPLE_SIZE)))) {
+                return;
+            }
+            this.trainer = null;
+        }
+        TaskManager.taskManager().async(() -> train(trainer));
+    }
+
+    private void train(ZstdDictTrainer trainer) {
+        try {
+            byte[] dict = trainer.trainSamples();
+            int id = (int) Zstd.getDictIdFromDict(dict);
+            File folder = folder();
+            folder.mkdirs();
+            Files.write(new File(folder, name + "-" + Integer.toUnsignedString(id) + ".dict").toPath(), dict);
+            DICTIONARIES.put(id, new ZstdDictDecompress(dict));
+            this.dictionary = new Dictionary(id, new ZstdDictCompress(dict, level));
+            LOGGER.info("Trained a Zstandard dictionary for {} compression", name);
+        } catch (Throwable e) {
+            LOGGER.error("Could not train a Zstandard dictionary for {} compression", name, e);
+        }
+    }
+
+    @Nullable
+    private Dictionary loadLatest() {
+        File[] files = folder().listFiles((dir, file) -> file.startsWith(name + "-") && file.endsWith(".dict"));
+        if (files == null || files.length == 0) {
+            return null;
+        }
+        File latest = files[0];
+        for (File file : files) {
+            if (file.lastModified() > latest.lastModified()) {
+                latest = file;
+            }
+        }
+        try {
+            byte[] dict = Files.readAllBytes(latest.toPath());
+            int id = (int) Zstd.getDictIdFromDict(dict);
+            DICTIONARIES.putIfAbsent(id, new ZstdDictDecompress(dict));
+            return new Dictionary(id, new ZstdDictCompress(dict, level));
+        } catch (IOException e) {
+            LOGGER.error("Could not load Zstandard dictionary {}", latest, e);
+            return null;
+        }
+    }
+
+    private static File folder() {
+        return MainUtil.getFile(Fawe.platform().getDirectory(), "zstd");
+    }
+
+    private static ZstdDictDecompress getDictionary(int id) {
+        return DICTIONARIES.computeIfAbsent(id, __ -> {
+            String suffix = "-" + Integer.toUnsignedString(id) + ".dict";
+            File[] files = folder().listFiles((dir, file) -> file.endsWith(suffix));
+            if (files == null || files.length == 0) {
+                throw new IllegalStateException("Missing Zstandard dictionary " + Integer.toUnsignedString(id));
+            }
+            try {
+                return new ZstdDictDecompress(Files.readAllBytes(files[0].toPath()));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        });
+    }
+
+    /**
+     * Compress the given data as a single frame, prefixed with the id of the dictionary used (0 for none).
+     *
+     * @param bytes  the data
+     * @param length the length of the data
+     * @return the compressed data
+     */
+    public byte[] compress(byte[] bytes, int length) {
+        Dictionary dictionary = this.dictionary;
+        byte[] src = length == bytes.length ? bytes : Arrays.copyOf(bytes, length);
+        byte[] compressed = dictionary == null ? Zstd.compress(src, level) : Zstd.compress(src, dictionary.compress);
+        int id = dictionary == null ? 0 : dictionary.id;
+        byte[] result = new byte[compressed.length + 4];
+        result[0] = (byte) (id >>> 24);
+        result[1] = (byte) (id >>> 16);
+        result[2] = (byte) (id >>> 8);
+        result[3] = (byte) id;
+        System.arraycopy(compressed, 0, result, 4, compressed.length);
+        return result;
+    }
+
+    /**
+     * Decompress data written by {@link #compress(byte[], int)}.
+     *
+     * @param bytes  the compressed data
+     * @param buffer the array to decompress into, allocated if null
+     * @param length the decompressed length
+     * @return the array decompressed into
+     */
+    public static byte[] decompress(byte[] bytes, @Nullable byte[] buffer, int length) {
+        return decompress(ByteBuffer.wrap(bytes), buffer, length);
+    }
+
+    /**
+     * Decompress data written by {@link #compress(byte[], int)} from a (possibly memory-mapped) buffer.
+     *
+     * @param bytes  the compressed data, from its current position to its limit
+     * @param buffer the array to decompress into, allocated if null
+     * @param length the decompressed length
+     * @return the array decompressed into
+     */
+    public static byte[] decompress(ByteBuffer bytes, @Nullable byte[] buffer, int length) {
+        if (buffer == null) {
+            buffer = new byte[length];
+        }
+        int id = bytes.getInt();
+        byte[] src = new byte[bytes.remaining()];
+        bytes.get(src);
+        long size = id == 0 ? Zstd.decompress(buffer, src) : Zstd.decompress(buffer, src, getDictionary(id));
+        if (Zstd.isError(size)) {
+            throw new IllegalStateException("Could not decompress Zstandard frame: " + Zstd.getErrorName(size));
+        }
+        return buffer;
+    }
+
+    /**
+     * Note: The returned stream is not thread safe.
+     */
+    public FaweOutputStream getCompressedOS(OutputStream os, int buffer) throws IOException {
+        Dictionary dictionary = this.dictionary;
+        int id = dictionary == null ? 0 : dictionary.id;
+        os.write(STREAM_MODE);
+        os.write(id >>> 24);
+        os.write(id >>> 16);
+        os.write(id >>> 8);
+        os.write(id);
+        ZstdOutputStream zos = new ZstdOutputStream(new FastBufferedOutputStream(os, buffer), level);
+        if (dictionary != null) {
+            zos.setDict(dictionary.compress);
+        }
+        return new FaweOutputStream(new FastBufferedOutputStream(zos, buffer));
+    }
+
+    /**
+     * Read a stream written by {@link #getCompressedOS(OutputStream, int)}, whose {@link #STREAM_MODE} byte was already read.
+     */
+    static FaweInputStream getCompressedIS(InputStream is, int buffer) throws IOException {
+        int id = (is.read() << 24) + (is.read() << 16) + (is.read() << 8) + is.read();
+        ZstdInputStream zis = new ZstdInputStream(new FastBufferedInputStream(is, buffer));
+        if (id != 0) {
+            zis.setDict(getDictionary(id));
+        }
+        return new FaweInputStream(new FastBufferedInputStream(zis));
+    }
+
+}
@@ -0,0 +1,79 @@
+package com.fastasyncworldedit.core.util.task;
+
+import org.jetbrains.annotations.ApiStatus;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Waits on tasks running in a {@link ForkJoinPool}, letting the pool start another worker while one of its own workers
+ * waits. A task waiting on another task submitted to the same pool can then not keep it from being run.
+ *
+ * @since TODO
+ */
+@ApiStatus.Internal
+public final class ManagedBlocking {
+
+    private ManagedBlocking() {}
+
+    /**
+     * Take the head of a queue, waiting until there is one.
+     *
+     * @param queue the queue
+     * @param <T>   the element type
+     * @return the head of the queue
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        Take<T> take = new Take<>(queue);
+        ForkJoinPool.managedBlock(take);
+        return take.element;
+    }
+
+    /**
+     * Wait until a latch has counted down to zero.
+     *
+     * @param latch the latch
+     * @throws InterruptedException if interrupted while waiting
+     */
+    public static void await(CountDownLatch latch) throws InterruptedException {
+        ForkJoinPool.managedBlock(new ForkJoinPool.ManagedBlocker() {
+            @Override
+            public boolean block() throws InterruptedException {
+                latch.await();
+                return true;
+            }
+
+            @Override
+            public boolean isReleasable() {
+                return latch.getCount() == 0;
+            }
+        });
+    }
+
+    private static final class Take<T> implements ForkJoinPool.ManagedBlocker {
+
+        private final BlockingQueue<T> queue;
+        private T element;
+
+        private Take(BlockingQueue<T> queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public boolean block() throws InterruptedException {
+            if (element == null) {
+                element = queue.take();
+            }
+            return true;
+        }
+
+        @Override
+        public boolean isReleasable() {
+            return element != null || (element = queue.poll()) != null;
+        }
+
+    }
+
+}
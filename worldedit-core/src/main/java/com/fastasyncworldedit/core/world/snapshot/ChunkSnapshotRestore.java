@@ -0,0 +1,394 @@
+package com.fastasyncworldedit.core.world.snapshot;
+
+import com.fastasyncworldedit.core.anvil.MCAChunk;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.fastasyncworldedit.core.util.ExtentTraverser;
+import com.fastasyncworldedit.core.util.NbtUtils;
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.entity.BaseEntity;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector2;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.DataFixer;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.chunk.Chunk;
+import com.sk89q.worldedit.world.storage.ChunkStoreHelper;
+import com.sk89q.worldedit.world.storage.InvalidFormatException;
+import com.sk89q.worldedit.world.storage.MissingChunkException;
+import org.apache.logging.log4j.Logger;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinDoubleTag;
+import org.enginehub.linbus.tree.LinIntTag;
+import org.enginehub.linbus.tree.LinListTag;
+import org.enginehub.linbus.tree.LinStringTag;
+import org.enginehub.linbus.tree.LinTag;
+import org.enginehub.linbus.tree.LinTagType;
+
+import javax.annotation.Nullable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Restores a region from a snapshot a chunk at a time. Snapshot chunks are loaded in parallel on the threads of the
+ * {@link ParallelQueueExtent} of the edit session, and their sections are copied into the chunks of the queue as a whole,
+ * so no block positions are ever collected. This bypasses the extents of the edit session, so it is only used for edit
+ * sessions whose history, limits and region restrictions are applied by the processors of the queue (see
+ * {@link EditSession#isQueueProcessed()}). The mask of the edit session is tested by the restore itself.
+ *
+ * <p>Chunks saved in 1.18 or newer (or upgraded to it by the data fixer of the platform) are decoded straight into block
+ * arrays, older chunks are read a block at a time.</p>
+ *
+ * @since TODO
+ */
+public class ChunkSnapshotRestore {
+
+    private static final Logger LOGGER = LogManagerCompat.getLogger();
+
+    /**
+     * Where the chunks of a snapshot are read from. Called from several threads at once.
+     */
+    @FunctionalInterface
+    public interface ChunkSource {
+
+        /**
+         * Get the tag of a chunk.
+         *
+         * @param position the chunk position
+         * @return the chunk tag
+         * @throws MissingChunkException if the snapshot does not contain the chunk
+         * @throws DataException         if the chunk data is invalid
+         * @throws IOException           if the chunk cannot be read
+         */
+        LinCompoundTag getChunkTag(BlockVector2 position) throws DataException, IOException;
+
+        /**
+         * Get the tag of the entities of a chunk, stored apart from the chunk since 1.17.
+         *
+         * @param position the chunk position
+         * @return the entities tag, or {@code null} if there is none
+         */
+        @Nullable
+        default LinCompoundTag getEntitiesTag(BlockVector2 position) {
+            return null;
+        }
+
+    }
+
+    private final ChunkSource source;
+    private final EditSession editSession;
+    private final Region region;
+    private final boolean restoreBiomes;
+    private final boolean restoreEntities;
+    private final boolean changedSectionsOnly;
+    private final List<BlockVector2> missingChunks = Collections.synchronizedList(new ArrayList<>());
+    private final List<BlockVector2> errorChunks = Collections.synchronizedList(new ArrayList<>());
+    private volatile String lastErrorMessage;
+
+    /**
+     * Create a new chunk restore.
+     *
+     * @param source              where to read the snapshot chunks from
+     * @param editSession         the edit session to restore to, which must be {@link #isSupported(EditSession) supported}
+     * @param region              the region to restore
+     * @param restoreBiomes       if biomes should be restored
+     * @param restoreEntities     if entities should be restored
+     * @param changedSectionsOnly if only sections whose blocks differ from the snapshot should be restored
+     */
+    public ChunkSnapshotRestore(
+            ChunkSource source,
+            EditSession editSession,
+            Region region,
+            boolean restoreBiomes,
+            boolean restoreEntities,
+            boolean changedSectionsOnly
+    ) {
+        this.source = source;
+        this.editSession = editSession;
+        this.region = region;
+        this.restoreBiomes = restoreBiomes;
+        this.restoreEntities = restoreEntities;
+        this.changedSectionsOnly = changedSectionsOnly;
+    }
+
+    @Nullable
+    private static ParallelQueueExtent getParallelQueue(EditSession editSession) {
+        // blocks are only put into a bag on a single thread, and history and limits must not be bypassed
+        if (editSession.getBlockBag() != null || !editSession.isQueueProcessed()) {
+            return null;
+        }
+        return new ExtentTraverser<>(editSession.getExtent()).findAndGet(ParallelQueueExtent.class);
+    }
+
+    /**
+     * Whether an edit session can be restored to by chunk, i.e. if it places its changes through a parallel queue whose
+     * processors record, limit and restrict them.
+     *
+     * @param editSession the edit session
+     * @return if the edit session is supported
+     */
+    public static boolean isSupported(EditSession editSession) {
+        return getParallelQueue(editSession) != null;
+    }
+
+    /**
+     * Restore every chunk of the region, and wait for all of them to be queued.
+     */
+    public void restore() {
+        ParallelQueueExtent queue = getParallelQueue(editSession);
+        if (queue == null) {
+            throw new IllegalStateException("The edit session does not place its changes through a parallel queue");
+        }
+        Mask mask = editSession.getMask();
+        List<Runnable> tasks = new ArrayList<>();
+        for (BlockVector2 position : region.getChunks()) {
+            tasks.add(() -> restoreChunk(queue, position, mask));
+        }
+        queue.applyPartitioned(tasks);
+    }
+
+    private void restoreChunk(ParallelQueueExtent queue, BlockVector2 position, @Nullable Mask mask) {
+        LinCompoundTag tag;
+        try {
+            tag = upgrade(source.getChunkTag(position));
+        } catch (MissingChunkException e) {
+            missingChunks.add(position);
+            return;
+        } catch (DataException | IOException e) {
+            LOGGER.info("Failed to load chunk at {}", position, e);
+            errorChunks.add(position);
+            lastErrorMessage = e.getMessage();
+            return;
+        }
+        IChunk chunk = queue.getExtent().getOrCreateChunk(position.x(), position.z());
+        // masks may keep state while testing, so every chunk tests with its own copy
+        Mask entityMask = restoreEntities && mask != null ? mask.copy() : null;
+        try {
+            MCAChunk snapshot;
+            try {
+                snapshot = MCAChunk.read(tag);
+            } catch (InvalidFormatException e) {
+                // older than 1.18, or with blocks the platform doesn't know
+                restoreBlocks(chunk, ChunkStoreHelper.getChunk(new CompoundTag(tag), () -> {
+                    LinCompoundTag entities = source.getEntitiesTag(position);
+                    return entities == null ? null : new CompoundTag(entities);
+                }), entityMask);
+                return;
+            }
+            if (snapshot == null) {
+                // the chunk was never generated
+                missingChunks.add(position);
+                return;
+            }
+            restoreSections(chunk, snapshot);
+            if (restoreEntities) {
+                restoreEntities(chunk, tag.findListTag("entities", LinTagType.compoundTag()), entityMask);
+                LinCompoundTag entities = source.getEntitiesTag(position);
+                if (entities != null) {
+                    restoreEntities(chunk, entities.findListTag("Entities", LinTagType.compoundTag()), entityMask);
+                }
+            }
+        } catch (DataException e) {
+            LOGGER.info("Failed to load chunk at {}", position, e);
+            errorChunks.add(position);
+            lastErrorMessage = e.getMessage();
+        }
+    }
+
+    /**
+     * Upgrade a chunk saved by an older version, like {@link ChunkStoreHelper#getChunk(CompoundTag)} does.
+     */
+    private static LinCompoundTag upgrade(LinCompoundTag tag) {
+        LinIntTag dataVersion = tag.findTag("DataVersion", LinTagType.intTag());
+        if (dataVersion == null || dataVersion.value() <= 0) {
+            // data fixers don't support MCRegion chunks
+            return tag;
+        }
+        Platform platform = WorldEdit.getInstance().getPlatformManager().queryCapability(Capability.WORLD_EDITING);
+        DataFixer fixer = platform.getDataFixer();
+        if (fixer == null || dataVersion.value() >= platform.getDataVersion()) {
+            return tag;
+        }
+        return fixer.fixUp(DataFixer.FixTypes.CHUNK, tag, dataVersion.value());
+    }
+
+    private void restoreSections(IChunk chunk, MCAChunk snapshot) {
+        int chunkX = chunk.getX() << 4;
+        int chunkZ = chunk.getZ() << 4;
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int minX = Math.max(min.x(), chunkX) - chunkX;
+        int maxX = Math.min(max.x(), chunkX + 15) - chunkX;
+        int minZ = Math.max(min.z(), chunkZ) - chunkZ;
+        int maxZ = Math.min(max.z(), chunkZ + 15) - chunkZ;
+        boolean cuboid = region instanceof CuboidRegion;
+        boolean wholeColumn = cuboid && minX == 0 && maxX == 15 && minZ == 0 && maxZ == 15;
+        int minLayer = Math.max(Math.max(snapshot.getMinSectionPosition(), chunk.getMinSectionPosition()), min.y() >> 4);
+        int maxLayer = Math.min(Math.min(snapshot.getMaxSectionPosition(), chunk.getMaxSectionPosition()), max.y() >> 4);
+        boolean[] restoredLayers = new boolean[maxLayer - minLayer + 1];
+
+        for (int layer = minLayer; layer <= maxLayer; layer++) {
+            char[] blocks = snapshot.load(layer);
+            int minY = Math.max(min.y(), layer << 4);
+            int maxY = Math.min(max.y(), (layer << 4) + 15);
+            char[] restored;
+            if (wholeColumn && minY == layer << 4 && maxY == (layer << 4) + 15) {
+                restored = blocks;
+            } else {
+                // 0 leaves the block as it is
+                restored = new char[4096];
+                for (int y = minY; y <= maxY; y++) {
+                    for (int z = minZ; z <= maxZ; z++) {
+                        int index = (y & 15) << 8 | z << 4;
+                        for (int x = minX; x <= maxX; x++) {
+                            if (cuboid || region.contains(chunkX + x, y, chunkZ + z)) {
+                                restored[index | x] = blocks[index | x];
+                            }
+                        }
+                    }
+                }
+            }
+            if (changedSectionsOnly && !differs(restored, chunk.load(layer))) {
+                continue;
+            }
+            chunk.setBlocks(layer, restored);
+            restoredLayers[layer - minLayer] = true;
+        }
+
+        for (Map.Entry<BlockVector3, FaweCompoundTag> entry : snapshot.tiles().entrySet()) {
+            BlockVector3 position = entry.getKey();
+            int layer = position.y() >> 4;
+            if (layer >= minLayer && layer <= maxLayer && restoredLayers[layer - minLayer]
+                    && region.contains(chunkX + position.x(), position.y(), chunkZ + position.z())) {
+                chunk.tile(position.x(), position.y(), position.z(), entry.getValue());
+            }
+        }
+
+        if (restoreBiomes) {
+            // biomes are stored per 4x4x4 cell
+            int minY = Math.max(min.y(), snapshot.getMinY());
+            int maxY = Math.min(max.y(), snapshot.getMaxY());
+            for (int y = (minY + 3) & ~3; y <= maxY; y += 4) {
+                for (int z = (minZ + 3) & ~3; z <= maxZ; z += 4) {
+                    for (int x = (minX + 3) & ~3; x <= maxX; x += 4) {
+                        if (!cuboid && !region.contains(chunkX + x, y, chunkZ + z)) {
+                            continue;
+                        }
+                        BiomeType biome = snapshot.getBiomeType(x, y, z);
+                        if (biome != null) {
+                            chunk.setBiome(x, y, z, biome);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean differs(char[] restored, char[] current) {
+        for (int i = 0; i < restored.length; i++) {
+            if (restored[i] != 0 && restored[i] != current[i]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void restoreBlocks(IChunk chunk, Chunk snapshot, @Nullable Mask entityMask) throws DataException {
+        int chunkX = chunk.getX() << 4;
+        int chunkZ = chunk.getZ() << 4;
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        int minY = Math.max(min.y(), chunk.getMinY());
+        int maxY = Math.min(max.y(), chunk.getMaxY());
+        for (int x = Math.max(min.x(), chunkX); x <= Math.min(max.x(), chunkX + 15); x++) {
+            for (int z = Math.max(min.z(), chunkZ); z <= Math.min(max.z(), chunkZ + 15); z++) {
+                for (int y = minY; y <= maxY; y++) {
+                    if (!region.contains(x, y, z)) {
+                        continue;
+                    }
+                    BlockVector3 position = BlockVector3.at(x, y, z);
+                    chunk.setBlock(x & 15, y, z & 15, snapshot.getBlock(position));
+                    if (restoreBiomes && (x & 3) == 0 && (y & 3) == 0 && (z & 3) == 0) {
+                        chunk.setBiome(x & 15, y, z & 15, snapshot.getBiome(position));
+                    }
+                }
+            }
+        }
+        if (restoreEntities) {
+            for (BaseEntity entity : snapshot.getEntities()) {
+                LinCompoundTag tag = entity.getNbt();
+                if (tag != null) {
+                    restoreEntity(chunk, tag.toBuilder().putString("id", entity.getType().id()).build(), entityMask);
+                }
+            }
+        }
+    }
+
+    private void restoreEntities(IChunk chunk, @Nullable LinListTag<LinCompoundTag> entities, @Nullable Mask mask) {
+        if (entities != null) {
+            for (LinCompoundTag entity : entities.value()) {
+                restoreEntity(chunk, entity, mask);
+            }
+        }
+    }
+
+    private void restoreEntity(IChunk chunk, LinCompoundTag entity, @Nullable Mask mask) {
+        LinStringTag id = entity.findTag("id", LinTagType.stringTag());
+        LinListTag<LinDoubleTag> pos = entity.findListTag("Pos", LinTagType.doubleTag());
+        if (id == null || pos == null || pos.value().size() != 3) {
+            return;
+        }
+        BlockVector3 position = BlockVector3.at(pos.get(0).value(), pos.get(1).value(), pos.get(2).value());
+        if (!region.contains(position) || mask != null && !mask.test(position)) {
+            return;
+        }
+        // like IChunkExtent#createEntity, with a new UUID so the entity doesn't clash with the one it was copied from
+        Map<String, LinTag<?>> map = new HashMap<>(entity.value());
+        map.put("Id", LinStringTag.of(id.value()));
+        NbtUtils.addUUIDToMap(map, UUID.randomUUID());
+        chunk.entity(FaweCompoundTag.of(LinCompoundTag.of(map)));
+    }
+
+    /**
+     * Get the chunks the snapshot does not contain. {@link #restore()} must have been called already.
+     *
+     * @return a list of chunk positions
+     */
+    public List<BlockVector2> getMissingChunks() {
+        return missingChunks;
+    }
+
+    /**
+     * Get the chunks that could not be loaded for other reasons. {@link #restore()} must have been called already.
+     *
+     * @return a list of chunk positions
+     */
+    public List<BlockVector2> getErrorChunks() {
+        return errorChunks;
+    }
+
+    /**
+     * Get the last error message.
+     *
+     * @return a message, or {@code null} if no chunk failed to load
+     */
+    @Nullable
+    public String getLastErrorMessage() {
+        return lastErrorMessage;
+    }
+
+}
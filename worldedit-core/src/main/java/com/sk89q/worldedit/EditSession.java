@@ -52,6 +52,8 @@
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
 import com.fastasyncworldedit.core.math.MutableVector3;
 import com.fastasyncworldedit.core.math.random.SimplexNoise;
+import com.fastasyncworldedit.core.queue.implementation.ParallelLanes;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
 import com.fastasyncworldedit.core.queue.implementation.SingleThreadQueueExtent;
 import com.fastasyncworldedit.core.queue.implementation.preloader.Preloader;
 import com.fastasyncworldedit.core.util.ExtentTraverser;
@@ -77,6 +79,7 @@
 import com.sk89q.worldedit.extent.world.SurvivalModeExtent;
 import com.sk89q.worldedit.extent.world.WatchdogTickingExtent;
 import com.sk89q.worldedit.function.GroundFunction;
+import com.sk89q.worldedit.function.RegionFunction;
 import com.sk89q.worldedit.function.block.BlockReplace;
 import com.sk89q.worldedit.function.block.Naturalizer;
 import com.sk89q.worldedit.function.block.SnowSimulator;
@@ -97,6 +100,7 @@
 import com.sk89q.worldedit.function.pattern.Pattern;
 import com.sk89q.worldedit.function.pattern.WaterloggedRemover;
 import com.sk89q.worldedit.function.util.RegionOffset;
+import com.sk89q.worldedit.function.visitor.BreadthFirstSearch;
 import com.sk89q.worldedit.function.visitor.DownwardVisitor;
 import com.sk89q.worldedit.function.visitor.FlatRegionVisitor;
 import com.sk89q.worldedit.function.visitor.LayerVisitor;
@@ -169,6 +173,7 @@
 import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -260,6 +265,7 @@ public String getDisplayName() {
     //FAWE start
     private final Relighter relighter;
     private final boolean wnaMode;
+    private final boolean queueProcessed;
     @Nullable
     private final Region[] allowedRegions;
 
@@ -280,6 +286,7 @@ public String getDisplayName() {
         this.history = changeSet != null;
         this.relighter = builder.getRelighter();
         this.wnaMode = builder.isWNAMode();
+        this.queueProcessed = builder.isQueueProcessed();
         if (builder.isTracing()) {
             this.tracingExtents = new ArrayList<>();
             checkNotNull(actor, "A player is required while tracing");
@@ -753,6 +760,18 @@ public boolean hasFastMode() {
     public BlockBag getBlockBag() {
         return this.blockBag;
     }
+
+    /**
+     * Get if the history, limits and region restrictions of this edit session are applied by processors of its queue
+     * rather than by extents wrapping the queue. Only then may chunks be edited directly in the queue, bypassing the
+     * extents of this edit session, without the changes going unrecorded or unlimited.
+     *
+     * @return if changes made directly in the queue are recorded, limited and restricted
+     * @since TODO
+     */
+    public boolean isQueueProcessed() {
+        return this.queueProcessed;
+    }
     //FAWE end
 
     //FAWE start
@@ -1169,7 +1188,8 @@ public void undo(EditSession editSession) {
                 context,
                 ChangeSetExecutor.Type.UNDO,
                 editSession.getBlockBag(),
-                editSession.getLimit().INVENTORY_MODE
+                editSession.getLimit().INVENTORY_MODE,
+                editSession.getParallelQueue(Settings.settings().HISTORY.PARALLEL_UNDO)
         ));
         flushQueue();
         editSession.changes = 1;
@@ -1179,7 +1199,14 @@ public void undo(EditSession editSession) {
     public void setBlocks(ChangeSet changeSet, ChangeSetExecutor.Type type) {
         final UndoContext context = new UndoContext();
         context.setExtent(bypassAll);
-        Operations.completeBlindly(ChangeSetExecutor.create(changeSet, context, type, getBlockBag(), getLimit().INVENTORY_MODE));
+        Operations.completeBlindly(ChangeSetExecutor.create(
+                changeSet,
+                context,
+                type,
+                getBlockBag(),
+                getLimit().INVENTORY_MODE,
+                getParallelQueue(Settings.settings().HISTORY.PARALLEL_UNDO)
+        ));
         flushQueue();
         changes = 1;
     }
@@ -1201,7 +1228,8 @@ public void redo(EditSession editSession) {
                 context,
                 ChangeSetExecutor.Type.REDO,
                 editSession.getBlockBag(),
-                editSession.getLimit().INVENTORY_MODE
+                editSession.getLimit().INVENTORY_MODE,
+                editSession.getParallelQueue(Settings.settings().HISTORY.PARALLEL_UNDO)
         ));
         flushQueue();
         editSession.changes = 1;
@@ -1558,6 +1586,7 @@ public int fillXZ(BlockVector3 origin, Pattern pattern, double radius, int depth
         } else {
             visitor = new DownwardVisitor(mask, replace, origin.y(), (int) (radius * 2 + 1), minY, maxY, this);
         }
+        setParallel(visitor, () -> new BlockReplace(this, pattern.fork()));
         //FAWE end
 
         // Start at the origin
@@ -2126,6 +2155,11 @@ public int drainArea(BlockVector3 origin, double radius, boolean waterlogged, bo
         }
         //FAWE start - provide extent for preloading, min/max y
         RecursiveVisitor visitor = new RecursiveVisitor(mask, replace, (int) (radius * 2 + 1), minY, maxY, this);
+        if (waterlogged) {
+            setParallel(visitor, () -> new BlockReplace(this, new WaterloggedRemover(this)));
+        } else {
+            setParallel(visitor, () -> replace);
+        }
         //FAWE end
 
         // Around the origin in a 3x3 block
@@ -2171,6 +2205,7 @@ public int fixLiquid(BlockVector3 origin, double radius, BlockType fluid) throws
         BlockReplace replace = new BlockReplace(this, fluid.getDefaultState());
         //FAWE start - provide extent for preloading, world min/maxY
         NonRisingVisitor visitor = new NonRisingVisitor(mask, replace, Integer.MAX_VALUE, minY, maxY, this);
+        setParallel(visitor, () -> replace);
         //FAWE end
 
         // Around the origin in a 3x3 block
@@ -2185,6 +2220,25 @@ public int fixLiquid(BlockVector3 origin, double radius, BlockType fluid) throws
         return visitor.getAffected();
     }
 
+    //FAWE start - parallel flood fill and shape generation
+    private void setParallel(BreadthFirstSearch visitor, Supplier<? extends RegionFunction> functions) {
+        if (getParallelQueue(Settings.settings().EXPERIMENTAL.PARALLEL_FLOOD_FILL) != null) {
+            visitor.setParallel(functions);
+        }
+    }
+
+    @Nullable
+    private ParallelQueueExtent getParallelQueue(boolean enabled) {
+        // blocks are only taken from a bag on a single thread, and only parallel queues give each thread its own chunks.
+        // Changes made on other threads are only recorded, limited and restricted if the queue processes them
+        if (!enabled || blockBag != null || !isQueueProcessed()) {
+            return null;
+        }
+        ExtentTraverser<ParallelQueueExtent> traverser = new ExtentTraverser<>(getExtent()).find(ParallelQueueExtent.class);
+        return traverser != null ? traverser.get() : null;
+    }
+    //FAWE end
+
     /**
      * Makes a cylinder.
      *
@@ -3145,20 +3199,60 @@ public int makeShape(
         final Expression expression = Expression.compile(expressionString, "x", "y", "z", "type", "data");
         expression.optimize();
 
-        final Variable typeVariable = expression.getSlots().getVariable("type")
-                .orElseThrow(IllegalStateException::new);
-        final Variable dataVariable = expression.getSlots().getVariable("data")
-                .orElseThrow(IllegalStateException::new);
-
         final WorldEditExpressionEnvironment environment = new WorldEditExpressionEnvironment(this, unit, zero);
         expression.setEnvironment(environment);
 
-        final int[] timedOut = {0};
+        //FAWE start - an expression per lane for parallel generation
+        record ShapeExpression(
+                Expression expression,
+                WorldEditExpressionEnvironment environment,
+                Variable typeVariable,
+                Variable dataVariable
+        ) {
+
+            static ShapeExpression of(Expression expression) {
+                return new ShapeExpression(
+                        expression,
+                        (WorldEditExpressionEnvironment) expression.getEnvironment(),
+                        expression.getSlots().getVariable("type").orElseThrow(IllegalStateException::new),
+                        expression.getSlots().getVariable("data").orElseThrow(IllegalStateException::new)
+                );
+            }
+
+        }
+        final ShapeExpression mainExpression = ShapeExpression.of(expression);
+
+        final AtomicInteger timedOut = new AtomicInteger();
         final ArbitraryShape shape = new ArbitraryShape(region) {
+            // the expression of each lane, only while generating on several lanes
+            private ShapeExpression[] laneExpressions;
+
+            @Override
+            protected void startLanes(int lanes) {
+                ShapeExpression[] expressions = new ShapeExpression[lanes];
+                expressions[0] = mainExpression;
+                for (int i = 1; i < lanes; i++) {
+                    expressions[i] = ShapeExpression.of(expression.clone());
+                }
+                laneExpressions = expressions;
+            }
+
+            @Override
+            protected void endLanes() {
+                laneExpressions = null;
+            }
+
             @Override
             protected BaseBlock getMaterial(int x, int y, int z, BaseBlock defaultMaterial) {
+                final ShapeExpression[] expressions = laneExpressions;
+                final int lane = ParallelLanes.currentLane();
+                final ShapeExpression shapeExpression = expressions != null && lane >= 0 ? expressions[lane] : mainExpression;
+                final Expression expression = shapeExpression.expression();
+                final Variable typeVariable = shapeExpression.typeVariable();
+                final Variable dataVariable = shapeExpression.dataVariable();
                 final Vector3 current = Vector3.at(x, y, z);
-                environment.setCurrentBlock(current);
+                shapeExpression.environment().setCurrentBlock(current);
+                //FAWE end
                 final Vector3 scaled = current.subtract(zero).divide(unit);
 
                 try {
@@ -3186,7 +3280,9 @@ protected BaseBlock getMaterial(int x, int y, int z, BaseBlock defaultMaterial)
                         return defaultMaterial;
                     }
                 } catch (ExpressionTimeoutException e) {
-                    timedOut[0] = timedOut[0] + 1;
+                    //FAWE start
+                    timedOut.incrementAndGet();
+                    //FAWE end
                     return null;
                 } catch (RuntimeException e) {
                     throw e;
@@ -3195,13 +3291,17 @@ protected BaseBlock getMaterial(int x, int y, int z, BaseBlock defaultMaterial)
                 }
             }
         };
-        int changed = shape.generate(this, pattern, hollow);
-        if (timedOut[0] > 0) {
+        //FAWE start
+        int changed = shape.generate(this, pattern, hollow,
+                getParallelQueue(Settings.settings().EXPERIMENTAL.PARALLEL_SHAPE_GENERATION)
+        );
+        if (timedOut.get() > 0) {
             throw new ExpressionTimeoutException(
                     String.format("%d blocks changed. %d blocks took too long to evaluate (increase with //timeout).",
-                            changed, timedOut[0]
+                            changed, timedOut.get()
                     ));
         }
+        //FAWE end
         return changed;
     }
 
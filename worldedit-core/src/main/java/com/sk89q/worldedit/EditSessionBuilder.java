@@ -103,6 +103,7 @@ public final class EditSessionBuilder {
     private Boolean fastMode;
     private Boolean checkMemory;
     private Boolean combineStages;
+    private boolean queueProcessed;
     private EditSessionEvent event;
     private String command;
     private RelightMode relightMode;
@@ -526,6 +527,7 @@ public EditSessionBuilder compile() {
                                 // If the edit uses items from the inventory we can't use a delayed task
                                 && this.blockBag == null;
             }
+            queueProcessed = placeChunks && combineStages;
             extent = this.bypassAll = wrapExtent(extent, eventBus, event, EditSession.Stage.BEFORE_CHANGE);
             this.bypassHistory = this.extent = wrapExtent(bypassAll, eventBus, event, EditSession.Stage.BEFORE_REORDER);
             if (!this.fastMode || this.sideEffectSet.shouldApply(SideEffect.HISTORY) || changeSet != null) {
@@ -728,6 +730,16 @@ public EditSessionBuilder forceWNA() {
         return setDirty();
     }
 
+    /**
+     * If the history, limits and region restrictions of the edit are applied by processors of its queue rather than by
+     * extents wrapping the queue, so chunks edited directly in the queue are still recorded, limited and restricted.
+     *
+     * @since TODO
+     */
+    public boolean isQueueProcessed() {
+        return queueProcessed;
+    }
+
     /**
      * If an {@link EditSessionEvent} has been fired yet
      */
@@ -25,6 +25,8 @@
 import com.sk89q.worldedit.history.changeset.ChangeSet;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Countable;
 import com.sk89q.worldedit.util.Direction;
 import com.sk89q.worldedit.util.Identifiable;
@@ -131,13 +133,8 @@ public synchronized void rollback(
         BlockVector3 top = origin.toBlockPoint().add(radius, radius, radius);
         bot = bot.clampY(world.getMinY(), world.getMaxY());
         top = top.clampY(world.getMinY(), world.getMaxY());
-        // TODO mask the regions bot / top to the bottom and top coord in the allowedRegions
-        // TODO: then mask the edit to the bot / top
-        //        if (allowedRegions.length != 1 || !allowedRegions[0].isGlobal()) {
-        //            finalQueue = new MaskedIQueueExtent(SetQueue.IMP.getNewQueue(fp.getWorld(), true, false), allowedRegions);
-        //        } else {
-        //            finalQueue = SetQueue.IMP.getNewQueue(fp.getWorld(), true, false);
-        //        }
+        // Only the chunks of each edit within the radius are read and changed
+        Region[] regions = new Region[]{new CuboidRegion(world, bot, top)};
         int count = 0;
         UUID finalOther = other;
         long minTime = System.currentTimeMillis() - timeDiff;
@@ -145,9 +142,9 @@ public synchronized void rollback(
             count++;
             RollbackOptimizedHistory edit = supplier.get();
             if (restore) {
-                edit.redo(player);
+                edit.redo(player, regions);
             } else {
-                edit.undo(player);
+                edit.undo(player, regions);
             }
             String path = edit.getWorld().getName() + "/" + finalOther + "-" + edit.getIndex();
             player.print(Caption.of("fawe.worldedit.rollback.rollback.element", path));
@@ -55,7 +55,8 @@ void restore(
             EditSession editSession,
             String snapshotName,
             boolean restoreBiomes,
-            boolean restoreEntities
+            boolean restoreEntities,
+            boolean changedSectionsOnly
             //FAWE end
     ) throws WorldEditException {
         LocalConfiguration config = we.getConfiguration();
@@ -116,7 +117,14 @@ void restore(
         try {
             // Restore snapshot
             //FAWE start - biome and entity restore
-            SnapshotRestore restore = new SnapshotRestore(chunkStore, editSession, region, restoreBiomes, restoreEntities);
+            SnapshotRestore restore = new SnapshotRestore(
+                    chunkStore,
+                    editSession,
+                    region,
+                    restoreBiomes,
+                    restoreEntities,
+                    changedSectionsOnly
+            );
             //FAWE end
 
             restore.restore();
@@ -24,10 +24,12 @@
 import com.fastasyncworldedit.core.event.extent.ActorSaveClipboardEvent;
 import com.fastasyncworldedit.core.extent.clipboard.MultiClipboardHolder;
 import com.fastasyncworldedit.core.extent.clipboard.URIClipboardHolder;
+import com.fastasyncworldedit.core.extent.clipboard.io.FastSchematicReaderV3;
 import com.fastasyncworldedit.core.internal.exception.FaweException;
 import com.fastasyncworldedit.core.math.transform.MutatingOperationTransformHolder;
 import com.fastasyncworldedit.core.util.MainUtil;
 import com.google.common.collect.Multimap;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.LocalConfiguration;
 import com.sk89q.worldedit.LocalSession;
 import com.sk89q.worldedit.WorldEdit;
@@ -46,6 +48,7 @@
 import com.sk89q.worldedit.extent.clipboard.io.share.ClipboardShareDestination;
 import com.sk89q.worldedit.extent.clipboard.io.share.ClipboardShareMetadata;
 import com.sk89q.worldedit.internal.util.LogManagerCompat;
+import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.math.transform.AffineTransform;
 import com.sk89q.worldedit.math.transform.Transform;
 import com.sk89q.worldedit.session.ClipboardHolder;
@@ -349,7 +352,9 @@ public void load(
             @Switch(name = 'r', desc = "Apply random rotation to the clipboard")
                     boolean randomRotate,
             @Switch(name = 'd', desc = "Random rotation is dynamic, changing each use")
-                    boolean dynamicRandom
+                    boolean dynamicRandom,
+            @Switch(name = 'p', desc = "Paste the schematic at your position while reading it, instead of loading it")
+                    boolean paste
             //FAWE end
     ) throws FilenameException {
         LocalConfiguration config = worldEdit.getConfiguration();
@@ -463,6 +468,10 @@ public void load(
                 uri = file.toURI();
             }
             closer.register(in);
+            if (paste) {
+                pasteStreamed(actor, session, format, uri, in, filename);
+                return;
+            }
             format.hold(actor, uri, in);
             if (randomRotate) {
                 setRandomRotateTransform(dynamicRandom, session.getClipboard());
@@ -486,6 +495,34 @@ public void load(
         //FAWE end
     }
 
+    //FAWE start
+    private void pasteStreamed(
+            Actor actor, LocalSession session, ClipboardFormat format, URI uri, InputStream in, String filename
+    ) throws IOException {
+        if (!Settings.settings().CLIPBOARD.STREAMED_PASTE) {
+            actor.print(Caption.of("fawe.worldedit.schematic.schematic.streamed-paste.disabled"));
+            return;
+        }
+        if (!actor.hasPermission("worldedit.clipboard.paste")) {
+            actor.print(Caption.of("fawe.error.no-perm", "worldedit.clipboard.paste"));
+            return;
+        }
+        ClipboardReader reader = format.getReader(uri, in);
+        if (!(reader instanceof FastSchematicReaderV3 streamedReader)) {
+            actor.print(Caption.of("fawe.worldedit.schematic.schematic.streamed-paste.unsupported", TextComponent.of(filename)));
+            return;
+        }
+        BlockVector3 to = session.getPlacementPosition(actor);
+        EditSession editSession = session.createEditSession(actor, "schematic load -p " + filename);
+        try (editSession) {
+            streamedReader.paste(editSession, to, true, false, false);
+        } finally {
+            session.remember(editSession);
+        }
+        actor.print(Caption.of("fawe.worldedit.schematic.schematic.streamed-paste.pasted", TextComponent.of(filename), to));
+    }
+    //FAWE end
+
     @Command(
             name = "save",
             desc = "Save your clipboard into a schematic file"
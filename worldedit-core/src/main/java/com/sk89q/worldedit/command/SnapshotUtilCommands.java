@@ -78,7 +78,9 @@ public void restore(
                     boolean restoreBiomes,
             @Switch(name = 'e', desc = "If entities should be restored. Will cause issues with duplicate entities if all " +
                     "original entities were not removed.")
-                    boolean restoreEntities
+                    boolean restoreEntities,
+            @Switch(name = 'c', desc = "Only restore chunk sections whose blocks differ from the snapshot")
+                    boolean changedSectionsOnly
             //FAWE end
     ) throws WorldEditException, IOException {
         LocalConfiguration config = we.getConfiguration();
@@ -86,7 +88,16 @@ public void restore(
 
         if (config.snapshotRepo != null) {
             //FAWE start - biome and entity restore
-            legacy.restore(actor, world, session, editSession, snapshotName, restoreBiomes, restoreEntities);
+            legacy.restore(
+                    actor,
+                    world,
+                    session,
+                    editSession,
+                    snapshotName,
+                    restoreBiomes,
+                    restoreEntities,
+                    changedSectionsOnly
+            );
             //FAWE end
             return;
         }
@@ -130,7 +141,14 @@ public void restore(
         try {
             // Restore snapshot
             //FAWE start - biome and entity restore
-            SnapshotRestore restore = new SnapshotRestore(snapshot, editSession, region, restoreBiomes, restoreEntities);
+            SnapshotRestore restore = new SnapshotRestore(
+                    snapshot,
+                    editSession,
+                    region,
+                    restoreBiomes,
+                    restoreEntities,
+                    changedSectionsOnly
+            );
             //FAWE end
 
             restore.restore();
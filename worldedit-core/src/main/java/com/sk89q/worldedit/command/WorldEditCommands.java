@@ -24,6 +24,7 @@
 import com.fastasyncworldedit.core.configuration.Caption;
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.limit.FaweLimit;
+import com.fastasyncworldedit.core.queue.implementation.QueueMetrics;
 import com.fastasyncworldedit.core.util.UpdateNotification;
 import com.intellectualsites.paster.IncendoPaster;
 import com.sk89q.worldedit.LocalSession;
@@ -142,6 +143,26 @@ public void threads(Actor actor) throws WorldEditException {
             }
         }
     }
+
+    @Command(
+            name = "queue",
+            desc = "Print the main thread throughput and backlog of the queue"
+    )
+    @CommandPermissions(value = "worldedit.queue", queued = false)
+    public void queue(Actor actor) throws WorldEditException {
+        QueueMetrics metrics = Fawe.instance().getQueueHandler().getMetrics();
+        actor.print(Caption.of(
+                "fawe.info.queue.status",
+                metrics.syncBacklog(),
+                metrics.chunkBacklog(),
+                metrics.whenFreeBacklog(),
+                String.format("%.1f", metrics.budgetMillis()),
+                String.format("%.2f", metrics.chunkApplyMillis()),
+                String.format("%.2f", metrics.taskMillis()),
+                String.format("%.1f", metrics.tasksPerSecond()),
+                metrics.completed()
+        ));
+    }
     //FAWE end
 
     @Command(
@@ -97,7 +97,7 @@ public boolean actPrimary(
             //TODO: Fix below
             //visitor.visit(pos);
             //Operations.completeBlindly(visitor);
-            recurse(server, editSession, world, pos, origin, radius, initialType, visitor.getVisited());
+            recurse(server, editSession, world, pos, origin, radius, initialType, visitor.getVisitedSet());
             //FAWE end
             editSession.flushQueue();
             session.remember(editSession);
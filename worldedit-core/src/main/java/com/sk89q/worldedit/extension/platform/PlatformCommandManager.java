@@ -20,6 +20,8 @@
 package com.sk89q.worldedit.extension.platform;
 
 import com.fastasyncworldedit.core.Fawe;
+import com.fastasyncworldedit.core.command.AnvilCommands;
+import com.fastasyncworldedit.core.command.AnvilCommandsRegistration;
 import com.fastasyncworldedit.core.configuration.Caption;
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extension.platform.binding.Bindings;
@@ -536,6 +538,13 @@ public void registerAllCommands() {
                     HistorySubCommandsRegistration.builder(),
                     new HistorySubCommands(history)
             );
+            registerSubCommands(
+                    "anvil",
+                    ImmutableList.of("/anvil"),
+                    "Commands editing the region files of unloaded worlds",
+                    AnvilCommandsRegistration.builder(),
+                    new AnvilCommands(worldEdit)
+            );
             //FAWE end
             this.registration.register(
                     commandManager,
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.extent.clipboard;
 
+import com.fastasyncworldedit.core.extent.clipboard.SharedClipboardCache;
 import com.fastasyncworldedit.core.extent.clipboard.SimpleClipboard;
 import com.fastasyncworldedit.core.function.visitor.Order;
 import com.fastasyncworldedit.core.math.MutableBlockVector2;
@@ -58,15 +59,19 @@ public class BlockArrayClipboard implements Clipboard {
 
     //FAWE start
     private final Region region;
-    private final Clipboard parent;
+    private volatile Clipboard parent;
     private final BlockVector3 offset;
     private BlockVector3 origin;
+    // the storage is shared with other clipboards while this is set, and copied before any change
+    @Nullable
+    private volatile SharedClipboardCache.Reference shared;
 
     /**
      * Create a new instance. Creates a parent clipboard based on the clipboard settings in settings.yml, with a randomly
      * generated {@link UUID} ID.
      * Depending on settings, parent will be on of:
      * {@link com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard}
+     * {@link com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard}
      * <p>
@@ -81,6 +86,7 @@ public BlockArrayClipboard(Region region) {
     /**
      * Create a new instance, storage-backed by the given clipboard. Clipboard must be of one of the following types:
      * {@link com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard}
+     * {@link com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard}
      * <p>
@@ -103,6 +109,7 @@ public BlockArrayClipboard(SimpleClipboard parent, BlockVector3 offset) {
      * Create a new instance. Creates a parent clipboard based on the clipboard settings in settings.yml.
      * Depending on settings, parent will be on of:
      * {@link com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard}
+     * {@link com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard}
      * <p>
@@ -118,6 +125,7 @@ public BlockArrayClipboard(Region region, UUID clipboardId) {
     /**
      * Create a new instance, storage-backed by the given clipboard. Clipboard must be of one of the following types:
      * {@link com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard}
+     * {@link com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard}
      * {@link com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard}
      * <p>
@@ -135,6 +143,43 @@ public BlockArrayClipboard(Region region, SimpleClipboard parent) {
         this.offset = region.getMinimumPoint();
         this.origin = parent.getOrigin();
     }
+
+    /**
+     * Create a new instance, backed by storage shared with other clipboards. The storage is copied before this clipboard
+     * is changed, and the reference released once it is copied or this clipboard is closed.
+     *
+     * @param region    the bounding region
+     * @param origin    the origin
+     * @param parent    shared storage clipboard
+     * @param reference the reference to the shared storage
+     * @since TODO
+     */
+    public BlockArrayClipboard(Region region, BlockVector3 origin, SimpleClipboard parent, SharedClipboardCache.Reference reference) {
+        this(region, parent);
+        this.origin = origin;
+        this.shared = reference;
+    }
+
+    /**
+     * Get the storage to change, copying it first if it is shared.
+     */
+    private Clipboard getWritableParent() {
+        if (shared != null) {
+            copyShared();
+        }
+        return getParent();
+    }
+
+    private synchronized void copyShared() {
+        SharedClipboardCache.Reference reference = shared;
+        if (reference != null) {
+            Clipboard copy = reference.copy();
+            copy.setOrigin(origin);
+            reference.release();
+            parent = copy;
+            shared = null;
+        }
+    }
     //FAWE end
 
     @Override
@@ -150,7 +195,11 @@ public BlockVector3 getOrigin() {
     @Override
     public void setOrigin(BlockVector3 origin) {
         this.origin = origin;
-        getParent().setOrigin(origin);
+        //FAWE start - shared storage is used by other clipboards with their own origin
+        if (shared == null) {
+            getParent().setOrigin(origin);
+        }
+        //FAWE end
     }
 
     @Override
@@ -205,7 +254,7 @@ public boolean tile(int x, int y, int z, FaweCompoundTag tag) {
         x -= offset.x();
         y -= offset.y();
         z -= offset.z();
-        return getParent().tile(x, y, z, tag);
+        return getWritableParent().tile(x, y, z, tag);
     }
 
 
@@ -219,7 +268,7 @@ public <B extends BlockStateHolder<B>> boolean setBlock(int x, int y, int z, B b
         x -= offset.x();
         y -= offset.y();
         z -= offset.z();
-        return parent.setBlock(x, y, z, block);
+        return getWritableParent().setBlock(x, y, z, block);
     }
 
     @Override
@@ -243,7 +292,7 @@ public boolean setBiome(BlockVector3 position, BiomeType biome) {
         int x = position.x() - offset.x();
         int y = position.y() - offset.y();
         int z = position.z() - offset.z();
-        return getParent().setBiome(x, y, z, biome);
+        return getWritableParent().setBiome(x, y, z, biome);
     }
 
     @Override
@@ -251,7 +300,7 @@ public boolean setBiome(int x, int y, int z, BiomeType biome) {
         x -= offset.x();
         y -= offset.y();
         z -= offset.z();
-        return getParent().setBiome(x, y, z, biome);
+        return getWritableParent().setBiome(x, y, z, biome);
     }
 
     @Override
@@ -303,7 +352,7 @@ public Entity createEntity(Location location, BaseEntity entity) {
                 location.z() - offset.z(),
                 location.getYaw(), location.getPitch()
         );
-        return getParent().createEntity(l, entity);
+        return getWritableParent().createEntity(l, entity);
     }
 
     @Override
@@ -315,7 +364,7 @@ public Entity createEntity(Location location, BaseEntity entity, UUID uuid) {
                 location.z() - offset.z(),
                 location.getYaw(), location.getPitch()
         );
-        return getParent().createEntity(l, entity, uuid);
+        return getWritableParent().createEntity(l, entity, uuid);
     }
 
     @Override
@@ -323,7 +372,7 @@ public void removeEntity(int x, int y, int z, UUID uuid) {
         x -= offset.x();
         y -= offset.y();
         z -= offset.z();
-        getParent().removeEntity(x, y, z, uuid);
+        getWritableParent().removeEntity(x, y, z, uuid);
     }
 
     @Override
@@ -373,26 +422,48 @@ public Iterator<BlockVector3> iterator(Order order) {
 
     @Override
     public BlockVector3 getDimensions() {
-        return this.parent.getDimensions();
+        return getParent().getDimensions();
     }
 
     @Override
     public void removeEntity(Entity entity) {
-        this.parent.removeEntity(entity);
+        //FAWE start - copy shared storage first
+        getWritableParent().removeEntity(entity);
+        //FAWE end
     }
 
     public Clipboard getParent() {
+        //FAWE start - the shared storage of a closed clipboard may be closed
+        Clipboard parent = this.parent;
+        if (parent == null) {
+            throw new IllegalStateException("Clipboard is closed");
+        }
+        //FAWE end
         return parent;
     }
 
     @Override
     public void close() {
+        //FAWE start - shared storage is closed once nothing uses it, so it must no longer be used by this clipboard
+        synchronized (this) {
+            SharedClipboardCache.Reference reference = shared;
+            if (reference != null) {
+                shared = null;
+                parent = null;
+                reference.release();
+                return;
+            }
+            if (parent == null) {
+                return;
+            }
+        }
+        //FAWE end
         this.parent.close();
     }
 
     @Override
     public void flush() {
-        this.parent.flush();
+        getParent().flush();
     }
 
     //FAWE start
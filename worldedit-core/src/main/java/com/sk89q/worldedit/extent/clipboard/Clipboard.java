@@ -22,8 +22,11 @@
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.extent.clipboard.CPUOptimizedClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.DiskOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.MemoryOptimizedClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.LinearClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.ReadOnlyClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard;
 import com.fastasyncworldedit.core.function.visitor.Order;
 import com.fastasyncworldedit.core.queue.Filter;
 import com.fastasyncworldedit.core.util.MaskTraverser;
@@ -99,6 +102,7 @@ static Clipboard create(Region region) {
      * Will be one of the following, depending on settings:
      *  - {@link DiskOptimizedClipboard}
      *  - {@link CPUOptimizedClipboard}
+     *  - {@link SectionedClipboard}
      *  - {@link MemoryOptimizedClipboard}
      *
      * @deprecated Internal use only. Use {@link BlockArrayClipboard#BlockArrayClipboard(Region, UUID)}
@@ -109,6 +113,8 @@ static Clipboard create(Region region, UUID uuid) {
             return new DiskOptimizedClipboard(region, uuid);
         } else if (Settings.settings().CLIPBOARD.COMPRESSION_LEVEL == 0) {
             return new CPUOptimizedClipboard(region);
+        } else if (Settings.settings().CLIPBOARD.USE_SECTIONS) {
+            return new SectionedClipboard(region);
         } else {
             return new MemoryOptimizedClipboard(region);
         }
@@ -381,6 +387,25 @@ default void paste(Extent extent, BlockVector3 to, boolean pasteAir) {
     }
 
     default void paste(Extent extent, BlockVector3 to, boolean pasteAir, boolean pasteEntities, boolean pasteBiomes) {
+        paste(extent, to, pasteAir, pasteEntities, pasteBiomes, true);
+    }
+
+    /**
+     * Paste this clipboard to an extent.
+     *
+     * @param extent        the extent to paste to
+     * @param to            the position to paste the origin of this clipboard at
+     * @param pasteAir      if air should be pasted
+     * @param pasteEntities if entities should be pasted
+     * @param pasteBiomes   if biomes should be pasted
+     * @param pasteSections if the clipboard may be {@link LinearClipboard#pasteSections pasted by chunk section}, which
+     *                      must be {@code false} when pasting as part of another edit, e.g. from a pattern or generator
+     * @since TODO
+     */
+    default void paste(
+            Extent extent, BlockVector3 to, boolean pasteAir, boolean pasteEntities, boolean pasteBiomes,
+            boolean pasteSections
+    ) {
         boolean close = false;
         if (extent instanceof World) {
             close = true;
@@ -404,18 +429,31 @@ default void paste(Extent extent, BlockVector3 to, boolean pasteAir, boolean pas
 
         pasteBiomes &= Clipboard.this.hasBiomes();
 
-        for (BlockVector3 pos : this) {
-            BaseBlock block = pos.getFullBlock(this);
-            int xx = pos.x() + relx;
-            int yy = pos.y() + rely;
-            int zz = pos.z() + relz;
-            if (pasteBiomes) {
-                extent.setBiome(xx, yy, zz, pos.getBiome(this));
-            }
-            if (!pasteAir && block.getBlockType().getMaterial().isAir()) {
-                continue;
+        // Clipboards that support it paste whole chunk sections at once when the extent allows it
+        Clipboard storage = this instanceof BlockArrayClipboard blockArray ? blockArray.getParent() : this;
+        boolean pastedSections = pasteSections && storage instanceof LinearClipboard linear && linear.pasteSections(
+                extent,
+                this.getMinimumPoint().add(relx, rely, relz),
+                pasteAir,
+                pasteBiomes
+        );
+        if (!pastedSections && storage instanceof IndexedSchematicClipboard indexed) {
+            // indexed schematics are read region by region, rather than in the iteration order of the region
+            indexed.pasteRegions(extent, this.getMinimumPoint().add(relx, rely, relz), pasteAir, pasteBiomes);
+        } else if (!pastedSections) {
+            for (BlockVector3 pos : this) {
+                BaseBlock block = pos.getFullBlock(this);
+                int xx = pos.x() + relx;
+                int yy = pos.y() + rely;
+                int zz = pos.z() + relz;
+                if (pasteBiomes) {
+                    extent.setBiome(xx, yy, zz, pos.getBiome(this));
+                }
+                if (!pasteAir && block.getBlockType().getMaterial().isAir()) {
+                    continue;
+                }
+                extent.setBlock(xx, yy, zz, block);
             }
-            extent.setBlock(xx, yy, zz, block);
         }
         // Entity offset is the paste location subtract the clipboard origin (entity's location is already relative to the world origin)
         final int entityOffsetX = to.x() - origin.x();
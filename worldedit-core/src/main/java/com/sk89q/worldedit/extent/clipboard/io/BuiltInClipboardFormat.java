@@ -19,10 +19,13 @@
 
 package com.sk89q.worldedit.extent.clipboard.io;
 
+import com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard;
 import com.fastasyncworldedit.core.extent.clipboard.io.FastSchematicReaderV2;
 import com.fastasyncworldedit.core.extent.clipboard.io.FastSchematicReaderV3;
 import com.fastasyncworldedit.core.extent.clipboard.io.FastSchematicWriterV2;
 import com.fastasyncworldedit.core.extent.clipboard.io.FastSchematicWriterV3;
+import com.fastasyncworldedit.core.extent.clipboard.io.IndexedSchematicReader;
+import com.fastasyncworldedit.core.extent.clipboard.io.IndexedSchematicWriter;
 import com.fastasyncworldedit.core.extent.clipboard.io.schematic.MinecraftStructure;
 import com.fastasyncworldedit.core.extent.clipboard.io.schematic.PNGWriter;
 import com.fastasyncworldedit.core.internal.io.ResettableFileInputStream;
@@ -31,6 +34,7 @@
 import com.sk89q.jnbt.NBTInputStream;
 import com.sk89q.jnbt.NBTOutputStream;
 import com.sk89q.jnbt.NamedTag;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
 import com.sk89q.worldedit.extent.clipboard.io.sponge.SpongeSchematicV1Reader;
 import com.sk89q.worldedit.extent.clipboard.io.sponge.SpongeSchematicV2Reader;
 import com.sk89q.worldedit.extent.clipboard.io.sponge.SpongeSchematicV2Writer;
@@ -51,6 +55,8 @@
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.net.URI;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.Locale;
 import java.util.Set;
@@ -450,6 +456,59 @@ public Set<String> getExplicitFileExtensions() {
         }
     },
 
+    /**
+     * Indexed schematics, split into independently compressed regions read as they are used, so a schematic of any size
+     * is opened without reading its blocks.
+     */
+    INDEXED("indexed", "ischem") {
+        @Override
+        public String getPrimaryFileExtension() {
+            return "ischem";
+        }
+
+        @Override
+        public ClipboardReader getReader(InputStream inputStream) {
+            return new IndexedSchematicReader(inputStream);
+        }
+
+        @Override
+        public ClipboardReader getReader(URI uri, InputStream inputStream) {
+            if ("file".equals(uri.getScheme())) {
+                return new IndexedSchematicReader(inputStream, Path.of(uri));
+            }
+            return getReader(inputStream);
+        }
+
+        @Override
+        public ClipboardWriter getWriter(OutputStream outputStream) {
+            return new IndexedSchematicWriter(outputStream);
+        }
+
+        @Override
+        public void write(OutputStream value, Clipboard clipboard) {
+            // regions are compressed on their own
+            try (ClipboardWriter writer = getWriter(value)) {
+                writer.write(clipboard);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        @Override
+        public boolean isFormat(InputStream inputStream) {
+            try {
+                return new DataInputStream(inputStream).readInt() == IndexedSchematicClipboard.MAGIC;
+            } catch (IOException ignored) {
+            }
+            return false;
+        }
+
+        @Override
+        public Set<String> getExplicitFileExtensions() {
+            return Set.of("ischem");
+        }
+    },
+
     /**
      * Isometric PNG writer. Only supports solid, full-cube blocks and creates a view of the clipboard looking FROM the south
      * east of the clipboard
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.extent.clipboard.io;
 
+import com.fastasyncworldedit.core.extent.clipboard.SharedClipboardCache;
 import com.fastasyncworldedit.core.extent.clipboard.URIClipboardHolder;
 import com.fastasyncworldedit.core.util.MainUtil;
 import com.fastasyncworldedit.core.util.task.RunnableVal;
@@ -131,6 +132,20 @@ default boolean isFormat(InputStream inputStream) {
      */
     Set<String> getExplicitFileExtensions();
 
+    /**
+     * Create a reader for a schematic whose source is known. Formats read lazily may read the source directly, e.g. a
+     * file, instead of the stream.
+     *
+     * @param uri         the source of the schematic
+     * @param inputStream the stream to read the schematic from
+     * @return the reader
+     * @throws IOException thrown on I/O error
+     * @since TODO
+     */
+    default ClipboardReader getReader(URI uri, InputStream inputStream) throws IOException {
+        return getReader(inputStream);
+    }
+
     /**
      * Sets the actor's clipboard.
      *
@@ -144,20 +159,20 @@ default URIClipboardHolder hold(Actor actor, URI uri, InputStream inputStream) t
         checkNotNull(uri);
         checkNotNull(inputStream);
 
-        final ClipboardReader reader = getReader(inputStream);
+        final ClipboardReader reader = getReader(uri, inputStream);
 
         final Clipboard clipboard;
 
         LocalSession session = WorldEdit.getInstance().getSessionManager().get(actor);
         session.setClipboard(null);
-        clipboard = reader.read(actor.getUniqueId());
+        clipboard = SharedClipboardCache.load(uri, () -> reader.read(actor.getUniqueId()));
         URIClipboardHolder holder = new URIClipboardHolder(uri, clipboard);
         session.setClipboard(holder);
         return holder;
     }
 
     default Clipboard load(File file) throws IOException {
-        return load(new FileInputStream(file));
+        return getReader(file.toURI(), new FileInputStream(file)).read();
     }
 
     default Clipboard load(InputStream stream) throws IOException {
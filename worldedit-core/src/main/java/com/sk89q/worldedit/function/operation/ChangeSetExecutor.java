@@ -22,13 +22,19 @@
 import com.fastasyncworldedit.core.configuration.Settings;
 import com.fastasyncworldedit.core.history.changeset.AbstractChangeSet;
 import com.fastasyncworldedit.core.history.changeset.ChangeExchangeCoordinator;
+import com.fastasyncworldedit.core.history.changeset.FaweStreamChangeSet;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.WorldEditException;
 import com.sk89q.worldedit.extent.inventory.BlockBag;
 import com.sk89q.worldedit.history.UndoContext;
 import com.sk89q.worldedit.history.change.Change;
 import com.sk89q.worldedit.history.changeset.ChangeSet;
 
+import javax.annotation.Nullable;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -59,6 +65,8 @@ public void perform(Change change, UndoContext context) {
 
     private final Iterator<Change> iterator;
     private final ChangeExchangeCoordinator changeExchangeCoordinator;
+    private final List<Iterable<Change>> partitions;
+    private final ParallelQueueExtent parallel;
     private final Type type;
     private final UndoContext context;
 
@@ -70,14 +78,31 @@ public void perform(Change change, UndoContext context) {
      * @param context   the undo context
      */
     //FAWE start - BlockBag & inventory
-    private ChangeSetExecutor(ChangeSet changeSet, Type type, UndoContext context, BlockBag blockBag, int inventory) {
+    private ChangeSetExecutor(
+            ChangeSet changeSet,
+            Type type,
+            UndoContext context,
+            BlockBag blockBag,
+            int inventory,
+            @Nullable ParallelQueueExtent parallel
+    ) {
         checkNotNull(changeSet);
         checkNotNull(type);
         checkNotNull(context);
 
         this.type = type;
         this.context = context;
-        if (changeSet instanceof AbstractChangeSet abstractChangeSet) {
+        // Block changes that are stored by chunk may be applied on several threads
+        List<Iterable<Change>> partitions = null;
+        if (changeSet instanceof FaweStreamChangeSet streamChangeSet && parallel != null && (blockBag == null || inventory <= 0)) {
+            partitions = streamChangeSet.getBlockPartitions(type == Type.REDO);
+        }
+        this.partitions = partitions;
+        this.parallel = partitions == null ? null : parallel;
+        if (partitions != null) {
+            this.iterator = ((FaweStreamChangeSet) changeSet).getIterator(type == Type.REDO, false);
+            this.changeExchangeCoordinator = null;
+        } else if (changeSet instanceof AbstractChangeSet abstractChangeSet) {
             if (Settings.settings().EXPERIMENTAL.UNDO_BATCH_SIZE > 0) {
                 this.changeExchangeCoordinator = abstractChangeSet.getCoordinatedChanges(blockBag, inventory, type == Type.REDO);
                 this.iterator = null;
@@ -113,6 +138,22 @@ public Operation resume(RunContext run) throws WorldEditException {
             }
         }
         // FAWE end
+        //FAWE start - block changes partitioned by chunk
+        if (this.partitions != null) {
+            // Blocks are applied and flushed before the tile, entity and biome changes are queued on this thread, so the
+            // tile of a block is never applied before the block itself is set
+            this.parallel.getExtent().flush();
+            List<Runnable> tasks = new ArrayList<>(this.partitions.size());
+            for (Iterable<Change> partition : this.partitions) {
+                tasks.add(() -> {
+                    for (Change change : partition) {
+                        type.perform(change, context);
+                    }
+                });
+            }
+            this.parallel.applyPartitioned(tasks);
+        }
+        //FAWE end
         while (iterator.hasNext()) {
             Change change = iterator.next();
             //FAWE start - types > individual history step
@@ -134,7 +175,32 @@ public static ChangeSetExecutor create(
             BlockBag blockBag,
             int inventory
     ) {
-        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory);
+        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory, null);
+    }
+
+    /**
+     * Create a new undo or redo operation, that applies the block changes of a change set stored by chunk on the lanes of
+     * the given queue. The queue must process the changes made through it, see {@link EditSession#isQueueProcessed()}, as
+     * changes made on other threads are otherwise not limited or restricted.
+     *
+     * @param changeSet the change set
+     * @param context   an undo context
+     * @param type      type of change
+     * @param blockBag  the block bag to take blocks from, or null
+     * @param inventory the inventory mode
+     * @param parallel  the queue to apply block changes on several threads with, or null to apply them on this thread
+     * @return an operation
+     * @since TODO
+     */
+    public static ChangeSetExecutor create(
+            ChangeSet changeSet,
+            UndoContext context,
+            Type type,
+            BlockBag blockBag,
+            int inventory,
+            @Nullable ParallelQueueExtent parallel
+    ) {
+        return new ChangeSetExecutor(changeSet, type, context, blockBag, inventory, parallel);
     }
     //FAWE end
 
@@ -146,7 +212,7 @@ public static ChangeSetExecutor create(
      * @return an operation
      */
     public static ChangeSetExecutor createUndo(ChangeSet changeSet, UndoContext context) {
-        return new ChangeSetExecutor(changeSet, Type.UNDO, context, null, 0);
+        return new ChangeSetExecutor(changeSet, Type.UNDO, context, null, 0, null);
     }
 
     /**
@@ -157,7 +223,7 @@ public static ChangeSetExecutor createUndo(ChangeSet changeSet, UndoContext cont
      * @return an operation
      */
     public static ChangeSetExecutor createRedo(ChangeSet changeSet, UndoContext context) {
-        return new ChangeSetExecutor(changeSet, Type.REDO, context, null, 0);
+        return new ChangeSetExecutor(changeSet, Type.REDO, context, null, 0, null);
     }
 
 }
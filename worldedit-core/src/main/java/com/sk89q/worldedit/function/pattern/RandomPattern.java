@@ -27,6 +27,7 @@
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.world.block.BaseBlock;
 
+import java.util.Collections;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
 import java.util.Map;
@@ -105,6 +106,15 @@ public RandomCollection<Pattern> getCollection() {
         return collection;
     }
 
+    /**
+     * {@return an unmodifiable view of the patterns of this random pattern and their weights}
+     *
+     * @since TODO
+     */
+    public Map<Pattern, Double> getWeights() {
+        return Collections.unmodifiableMap(weights);
+    }
+
     @Override
     public BaseBlock applyBlock(BlockVector3 position) {
         return collection.next(position.x(), position.y(), position.z()).applyBlock(position);
@@ -21,11 +21,14 @@
 
 import com.fastasyncworldedit.core.configuration.Caption;
 import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.math.BitmapBlockVectorSet;
 import com.fastasyncworldedit.core.math.BlockVectorSet;
 import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.fastasyncworldedit.core.queue.implementation.ParallelLanes;
 import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
 import com.fastasyncworldedit.core.queue.implementation.SingleThreadQueueExtent;
 import com.fastasyncworldedit.core.util.ExtentTraverser;
+import com.fastasyncworldedit.core.util.collection.BlockVector3Set;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
 import com.sk89q.worldedit.WorldEdit;
@@ -40,11 +43,13 @@
 import com.sk89q.worldedit.util.formatting.text.Component;
 import com.sk89q.worldedit.util.formatting.text.TextComponent;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
+import java.util.function.Supplier;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 
@@ -93,8 +98,10 @@ public abstract class BreadthFirstSearch implements Operation {
     private final RegionFunction function;
     //FAWE start - allow chunk preloading and BVS > Queue<BV3>, Set<BV3>, List<BV3>
     private final SingleThreadQueueExtent singleQueue;
+    private final ParallelQueueExtent parallelQueue;
+    private Supplier<? extends RegionFunction> parallelFunctions;
     private BlockVectorSet queue = new BlockVectorSet();
-    private BlockVectorSet visited = new BlockVectorSet();
+    private BlockVector3Set visited = new BitmapBlockVectorSet();
     private BlockVector3[] directions;
     //FAWE end
     protected final int minY;
@@ -151,8 +158,10 @@ public BreadthFirstSearch(RegionFunction function, int maxDepth, int minY, int m
         if (extent != null) {
             ExtentTraverser<ParallelQueueExtent> queueTraverser = new ExtentTraverser<>(extent).find(ParallelQueueExtent.class);
             this.singleQueue = queueTraverser != null ? (SingleThreadQueueExtent) queueTraverser.get().getExtent() : null;
+            this.parallelQueue = queueTraverser != null ? queueTraverser.get() : null;
         } else {
             this.singleQueue = null;
+            this.parallelQueue = null;
         }
     }
 
@@ -251,11 +260,52 @@ private void visit(BlockVector3 from, BlockVector3 to) {
     }
 
     //FAWE start
+    /**
+     * Set the set the visited positions are recorded in.
+     *
+     * @param set the set
+     * @deprecated use {@link #setVisited(BlockVector3Set)}
+     */
+    @Deprecated(forRemoval = true, since = "TODO")
     public void setVisited(BlockVectorSet set) {
-        this.visited = set;
+        setVisited((BlockVector3Set) set);
     }
 
+    /**
+     * Get the set the visited positions are recorded in. If the search records them in another kind of set, they are copied
+     * to a new {@link BlockVectorSet} that the search records its visits in from now on.
+     *
+     * @return the visited positions
+     * @deprecated use {@link #getVisitedSet()}
+     */
+    @Deprecated(forRemoval = true, since = "TODO")
     public BlockVectorSet getVisited() {
+        if (!(visited instanceof BlockVectorSet set)) {
+            BlockVectorSet copy = new BlockVectorSet();
+            copy.addAll(visited);
+            visited = set = copy;
+        }
+        return set;
+    }
+
+    /**
+     * Set the set the visited positions are recorded in. Searches record their visits in a {@link BitmapBlockVectorSet}
+     * by default, which parallel searches merge levels into without iterating them.
+     *
+     * @param set the set
+     * @since TODO
+     */
+    public void setVisited(BlockVector3Set set) {
+        this.visited = set;
+    }
+
+    /**
+     * Get the set the visited positions are recorded in.
+     *
+     * @return the visited positions
+     * @since TODO
+     */
+    public BlockVector3Set getVisitedSet() {
         return visited;
     }
 
@@ -266,6 +316,33 @@ public boolean isVisited(BlockVector3 pos) {
     public void setMaxBranch(int maxBranch) {
         this.maxBranch = maxBranch;
     }
+
+    /**
+     * Search level by level on several threads. Each thread applies its own function, created by the given supplier, to the
+     * positions of the chunks assigned to it, and every position of a level is visited before the next level is searched, so
+     * the visited positions and the number affected are the same as when searching sequentially.
+     *
+     * <p>If the extent given at construction is backed by a {@link ParallelQueueExtent}, each thread edits through its own
+     * queue. Otherwise the functions must be thread safe. {@link #isVisitable(BlockVector3, BlockVector3)} must be thread
+     * safe, or keep its state per lane, see {@link #startLanes(int)}. A search with a limited
+     * {@link #setMaxBranch(int) branch count} depends on the order positions are visited in and is always sequential.</p>
+     *
+     * @param functions the supplier of the function of each thread, or null to search sequentially
+     * @since TODO
+     */
+    public void setParallel(@Nullable Supplier<? extends RegionFunction> functions) {
+        this.parallelFunctions = functions;
+    }
+
+    /**
+     * Get if this search runs on several threads, see {@link #setParallel(Supplier)}.
+     *
+     * @return if this search runs on several threads
+     * @since TODO
+     */
+    public boolean isParallel() {
+        return parallelFunctions != null && maxBranch == Integer.MAX_VALUE;
+    }
     //FAWE end
 
     /**
@@ -289,6 +366,12 @@ public int getAffected() {
 
     @Override
     public Operation resume(RunContext run) throws WorldEditException {
+        //FAWE start - parallel search
+        if (isParallel()) {
+            resumeParallel();
+            return null;
+        }
+        //FAWE end
         //FAWE start - directions, visited and preloading
         MutableBlockVector3 mutable = new MutableBlockVector3();
         BlockVector3[] dirs = directions;
@@ -357,7 +440,101 @@ public Operation resume(RunContext run) throws WorldEditException {
         return null;
     }
 
-    //FAWE start
+    //FAWE start - parallel search
+    private void resumeParallel() throws WorldEditException {
+        int threads = Math.max(1, Settings.settings().QUEUE.PARALLEL_THREADS);
+        BlockVector3[] dirs = directions;
+        BitmapBlockVectorSet frontier = new BitmapBlockVectorSet();
+        for (BlockVector3 pos : queue) {
+            frontier.add(pos.x(), pos.y(), pos.z());
+        }
+        queue.clear();
+        try (ParallelLanes lanes = parallelQueue != null ? parallelQueue.createLanes(threads) : ParallelLanes.unbound(threads)) {
+            final int count = lanes.size();
+            final RegionFunction[] functions = new RegionFunction[count];
+            for (int i = 0; i < count; i++) {
+                functions[i] = parallelFunctions.get();
+            }
+            startLanes(count);
+            final BitmapBlockVectorSet[] found = new BitmapBlockVectorSet[count];
+            final int[] applied = new int[count];
+            for (currentDepth = 0; !frontier.isEmpty() && currentDepth <= maxDepth; currentDepth++) {
+                // the visited set is only read while a level is searched, the positions found are added after
+                final BitmapBlockVectorSet level = frontier;
+                lanes.run(lane -> {
+                    RegionFunction function = functions[lane];
+                    BitmapBlockVectorSet next = found[lane] = new BitmapBlockVectorSet();
+                    MutableBlockVector3 from = new MutableBlockVector3();
+                    MutableBlockVector3 to = new MutableBlockVector3();
+                    level.forEach(count, lane, (fx, fy, fz) -> {
+                        try {
+                            if (function.apply(from.setComponents(fx, fy, fz))) {
+                                applied[lane]++;
+                            }
+                        } catch (WorldEditException e) {
+                            throw new RuntimeException(e);
+                        }
+                        for (BlockVector3 direction : dirs) {
+                            int y = fy + direction.y();
+                            if (y < minY || y > maxY) {
+                                continue;
+                            }
+                            int x = fx + direction.x();
+                            int z = fz + direction.z();
+                            if (!visited.contains(x, y, z) && !next.contains(x, y, z)
+                                    && isVisitable(from.setComponents(fx, fy, fz), to.setComponents(x, y, z))) {
+                                next.add(x, y, z);
+                            }
+                        }
+                    });
+                });
+                frontier = new BitmapBlockVectorSet();
+                for (int i = 0; i < count; i++) {
+                    frontier.union(found[i]);
+                    found[i] = null;
+                }
+                if (visited instanceof BitmapBlockVectorSet bitmap) {
+                    bitmap.union(frontier);
+                } else {
+                    frontier.forEach((x, y, z) -> visited.add(x, y, z));
+                }
+                if (currentDepth == maxDepth) {
+                    break;
+                }
+            }
+            for (int value : applied) {
+                affected += value;
+            }
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof WorldEditException worldEditException) {
+                    throw worldEditException;
+                }
+            }
+            throw e;
+        } finally {
+            endLanes();
+        }
+    }
+
+    /**
+     * Called before a parallel search, to create the state {@link #isVisitable(BlockVector3, BlockVector3)} keeps per lane.
+     * It looks up the state of the lane calling it with {@link ParallelLanes#currentLane()}.
+     *
+     * @param lanes the number of lanes
+     * @since TODO
+     */
+    protected void startLanes(int lanes) {
+    }
+
+    /**
+     * Called once a parallel search ended, to drop the state created by {@link #startLanes(int)}.
+     *
+     * @since TODO
+     */
+    protected void endLanes() {
+    }
+
     public int getDepth() {
         return currentDepth;
     }
@@ -19,6 +19,7 @@
 
 package com.sk89q.worldedit.function.visitor;
 
+import com.fastasyncworldedit.core.queue.implementation.ParallelLanes;
 import com.sk89q.worldedit.WorldEdit;
 import com.sk89q.worldedit.extension.platform.Capability;
 import com.sk89q.worldedit.extent.Extent;
@@ -35,6 +36,10 @@
 public class RecursiveVisitor extends BreadthFirstSearch {
 
     private final Mask mask;
+    //FAWE start - parallel search
+    // the mask of each lane, only while searching on several lanes
+    private Mask[] laneMasks;
+    //FAWE end
 
     /**
      * Create a new recursive visitor.
@@ -84,9 +89,30 @@ public RecursiveVisitor(Mask mask, RegionFunction function, int maxDepth, int mi
     }
     //FAWE end
 
+    //FAWE start - parallel search
+    @Override
+    protected void startLanes(int lanes) {
+        Mask[] masks = new Mask[lanes];
+        masks[0] = mask;
+        for (int i = 1; i < lanes; i++) {
+            masks[i] = mask.copy();
+        }
+        laneMasks = masks;
+    }
+
+    @Override
+    protected void endLanes() {
+        laneMasks = null;
+    }
+    //FAWE end
+
     @Override
     protected boolean isVisitable(BlockVector3 from, BlockVector3 to) {
-        return mask.test(to);
+        //FAWE start - each lane of a parallel search tests its own copy of the mask
+        Mask[] masks = laneMasks;
+        int lane = ParallelLanes.currentLane();
+        return (masks != null && lane >= 0 ? masks[lane] : mask).test(to);
+        //FAWE end
     }
 
 }
@@ -26,4 +26,22 @@ public interface CompiledExpression {
 
     Double execute(ExecutionData executionData);
 
+    //FAWE start
+    /**
+     * Execute the expression, requiring a result.
+     *
+     * @param executionData the execution data
+     * @return the result
+     * @throws EvaluationException if the expression does not result in a value
+     * @since TODO
+     */
+    default double evaluate(ExecutionData executionData) {
+        Double result = execute(executionData);
+        if (result == null) {
+            throw new EvaluationException(-1, "Expression must result in a value");
+        }
+        return result;
+    }
+    //FAWE end
+
 }
@@ -19,31 +19,108 @@
 
 package com.sk89q.worldedit.internal.expression;
 
+import java.time.Duration;
 import java.time.Instant;
+import java.util.concurrent.TimeUnit;
 
 import static java.util.Objects.requireNonNull;
 
-public record ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
+//FAWE start - reusable class instead of a record, counter based deadline
+public final class ExecutionData {
+
     /**
      * Special execution context for evaluating constant values. As long as no variables are used, it can be considered
      * constant.
      */
     public static final ExecutionData CONSTANT_EVALUATOR = new ExecutionData(null, null, Instant.MAX);
 
-    @Override
+    /**
+     * The clock is only read on every 64th {@link #checkDeadline()}, loops check once per iteration.
+     */
+    private static final int CLOCK_CHECK_MASK = 63;
+
+    private final SlotTable slots;
+    private final Functions functions;
+    // the deadline given at construction, until the execution data is reused
+    private Instant deadline;
+    private long timeoutNanos;
+    private long startNanos;
+    private boolean started;
+    private int checks;
+
+    public ExecutionData(SlotTable slots, Functions functions, Instant deadline) {
+        this(slots, functions);
+        long timeout;
+        try {
+            timeout = Duration.between(Instant.now(), deadline).toNanos();
+        } catch (ArithmeticException e) {
+            timeout = Long.MAX_VALUE;
+        }
+        this.deadline = deadline;
+        this.timeoutNanos = timeout;
+        this.startNanos = System.nanoTime();
+        this.started = true;
+    }
+
+    /**
+     * Create execution data that is reused for every evaluation, see {@link #resetDeadline(int)}.
+     */
+    ExecutionData(SlotTable slots, Functions functions) {
+        this.slots = slots;
+        this.functions = functions;
+        this.timeoutNanos = Long.MAX_VALUE;
+    }
+
     public SlotTable slots() {
         return requireNonNull(slots, "Cannot use variables in a constant");
     }
 
-    @Override
     public Functions functions() {
         return requireNonNull(functions, "Cannot use functions in a constant");
     }
 
+    /**
+     * Start a new evaluation with the given time limit. The clock only starts with the first {@link #checkDeadline()}, so
+     * evaluations without loops never read it.
+     *
+     * @param timeout the time limit in milliseconds
+     */
+    void resetDeadline(int timeout) {
+        this.deadline = null;
+        this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeout);
+        this.started = false;
+        this.checks = 0;
+    }
+
+    /**
+     * Get the time the current evaluation has to finish by. An evaluation whose clock has not started yet, see
+     * {@link #resetDeadline(int)}, is assumed to start now.
+     *
+     * @return the deadline
+     */
+    public Instant deadline() {
+        if (deadline != null) {
+            return deadline;
+        }
+        if (timeoutNanos == Long.MAX_VALUE) {
+            return Instant.MAX;
+        }
+        long remaining = started ? timeoutNanos - (System.nanoTime() - startNanos) : timeoutNanos;
+        return Instant.now().plusNanos(remaining);
+    }
+
     public void checkDeadline() {
-        if (Instant.now().isAfter(deadline)) {
+        if ((checks++ & CLOCK_CHECK_MASK) != 0) {
+            return;
+        }
+        long now = System.nanoTime();
+        if (!started) {
+            startNanos = now;
+            started = true;
+        } else if (now - startNanos > timeoutNanos) {
             throw new ExpressionTimeoutException("Calculations exceeded time limit.");
         }
     }
 
 }
+//FAWE end
@@ -31,8 +31,7 @@
 import org.antlr.v4.runtime.misc.ParseCancellationException;
 import org.antlr.v4.runtime.tree.ParseTreeWalker;
 
-import java.time.Instant;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Objects;
 import java.util.Set;
@@ -71,8 +70,11 @@ public class Expression implements Cloneable {
     private final List<String> providedSlots;
     private final ExpressionParser.AllStatementsContext root;
     private final Functions functions = Functions.create();
-    private final CompiledExpression compiledExpression;
-    //FAWE start
+    //FAWE start - reused execution data, optimized compilation
+    private final ExecutionData executionData = new ExecutionData(slots, functions);
+    private final LocalSlot.Variable[] providedVariables;
+    private CompiledExpression compiledExpression;
+    private boolean optimized;
     private final String initialExpression;
     //FAWE end
 
@@ -90,14 +92,18 @@ private Expression(String expression, String... variableNames) throws Expression
         slots.putSlot("true", new LocalSlot.Constant(1));
         slots.putSlot("false", new LocalSlot.Constant(0));
 
-        for (String variableName : variableNames) {
-            slots.initVariable(variableName)
+        //FAWE start - keep the variables
+        this.providedSlots = ImmutableList.copyOf(variableNames);
+        this.providedVariables = new LocalSlot.Variable[providedSlots.size()];
+        for (int i = 0; i < providedVariables.length; i++) {
+            String variableName = providedSlots.get(i);
+            providedVariables[i] = slots.initVariable(variableName)
                     .orElseThrow(() -> new ExpressionException(
                             -1,
                             "Tried to overwrite identifier '" + variableName + "'"
                     ));
         }
-        this.providedSlots = ImmutableList.copyOf(variableNames);
+        //FAWE end
 
         CharStream cs = CharStreams.fromString(expression, "<input>");
         ExpressionLexer lexer = new ExpressionLexer(cs);
@@ -125,14 +131,18 @@ private Expression(String expression, Set<String> variableNames) throws Expressi
         slots.putSlot("true", new LocalSlot.Constant(1));
         slots.putSlot("false", new LocalSlot.Constant(0));
 
-        for (String variableName : variableNames) {
-            slots.initVariable(variableName)
+        //FAWE start - keep the variables
+        this.providedSlots = ImmutableList.copyOf(variableNames);
+        this.providedVariables = new LocalSlot.Variable[providedSlots.size()];
+        for (int i = 0; i < providedVariables.length; i++) {
+            String variableName = providedSlots.get(i);
+            providedVariables[i] = slots.initVariable(variableName)
                     .orElseThrow(() -> new ExpressionException(
                             -1,
                             "Tried to overwrite identifier '" + variableName + "'"
                     ));
         }
-        this.providedSlots = ImmutableList.copyOf(variableNames);
+        //FAWE end
 
         CharStream cs = CharStreams.fromString(expression, "<input>");
         ExpressionLexer lexer = new ExpressionLexer(cs);
@@ -157,29 +167,29 @@ public double evaluate(double... values) throws EvaluationException {
     }
 
     public double evaluate(double[] values, int timeout) throws EvaluationException {
+        //FAWE start - reuse the variables and execution data, the compiled expression still boxes the results of its nodes
         for (int i = 0; i < values.length; ++i) {
-            String slotName = providedSlots.get(i);
-            LocalSlot.Variable slot = slots.getVariable(slotName)
-                    .orElseThrow(() -> new EvaluationException(
-                            -1,
-                            "Tried to assign to non-variable " + slotName + "."
-                    ));
-
-            slot.setValue(values[i]);
+            providedVariables[i].setValue(values[i]);
         }
 
-        Instant deadline = Instant.now().plusMillis(timeout);
+        executionData.resetDeadline(timeout);
         // evaluation exceptions are thrown out of this method
-        Double result = compiledExpression.execute(new ExecutionData(slots, functions, deadline));
-        if (result == null) {
-            throw new EvaluationException(-1, "Expression must result in a value");
-        }
-        return result;
+        return compiledExpression.evaluate(executionData);
+        //FAWE end
     }
 
+    //FAWE start
+    /**
+     * Recompile the expression for repeated evaluation. Constant expressions are folded, e.g. {@code sqrt(2) * pi} or the
+     * dead branch of {@code if (false) ...}, and the method handles are inlined into a hidden class.
+     */
     public void optimize() {
-        // TODO optimizing
+        if (!optimized) {
+            compiledExpression = new ExpressionCompiler().compileOptimizedExpression(root, functions, slots);
+            optimized = true;
+        }
     }
+    //FAWE end
 
     @Override
     public String toString() {
@@ -199,9 +209,16 @@ public void setEnvironment(ExpressionEnvironment environment) {
     }
 
     //FAWE start
+    /**
+     * Create a copy of the expression with its own slots and a clone of the environment. The provided variables keep
+     * their order, so values passed to {@link #evaluate(double...)} are assigned the same way.
+     */
     public Expression clone() {
-        Expression expression = new Expression(initialExpression, new HashSet<>(providedSlots));
+        Expression expression = new Expression(initialExpression, new LinkedHashSet<>(providedSlots));
         expression.setEnvironment(getEnvironment().clone());
+        if (optimized) {
+            expression.optimize();
+        }
         return expression;
     }
     //FAWE end
@@ -21,6 +21,7 @@
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
 import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
@@ -35,6 +36,7 @@
 
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
+import java.util.Set;
 import java.util.concurrent.ThreadLocalRandom;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -50,6 +52,28 @@ static Functions create() {
         return new Functions();
     }
 
+    //FAWE start - constant folding
+    private static final Set<String> PURE_FUNCTIONS = ImmutableSet.of(
+            "sin", "cos", "tan", "asin", "acos", "atan",
+            "sinh", "cosh", "tanh", "sqrt", "cbrt", "abs",
+            "ceil", "floor", "rint", "exp", "log", "log10",
+            "ln", "round", "atan2", "min", "max",
+            "perlin", "voronoi", "ridgedmulti"
+    );
+
+    /**
+     * Check if a function only depends on its arguments and has no side effects, so calls with constant arguments can be
+     * evaluated while compiling.
+     *
+     * @param name the name of the function
+     * @return if the function is pure
+     * @since TODO
+     */
+    public static boolean isPure(String name) {
+        return PURE_FUNCTIONS.contains(name);
+    }
+    //FAWE end
+
     private static final MethodHandle DOUBLE_VALUE;
 
     static {
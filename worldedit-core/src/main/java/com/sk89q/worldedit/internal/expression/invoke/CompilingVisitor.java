@@ -26,6 +26,7 @@
 import com.sk89q.worldedit.internal.expression.ExpressionHelper;
 import com.sk89q.worldedit.internal.expression.Functions;
 import com.sk89q.worldedit.internal.expression.LocalSlot;
+import com.sk89q.worldedit.internal.expression.SlotTable;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectLinkedOpenHashMap;
 import it.unimi.dsi.fastutil.doubles.Double2ObjectMap;
 import org.antlr.v4.runtime.CommonToken;
@@ -35,10 +36,13 @@
 import org.antlr.v4.runtime.tree.RuleNode;
 import org.antlr.v4.runtime.tree.TerminalNode;
 
+import javax.annotation.Nullable;
 import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.function.DoubleBinaryOperator;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -87,11 +91,44 @@ class CompilingVisitor extends ExpressionBaseVisitor<MethodHandle> {
      * value passed in. EVERY handle returned from an overridden method must be of the first type.
      */
     private final Functions functions;
+    //FAWE start - constant folding
+    @Nullable
+    private final SlotTable constantSlots;
+    // handles that always return the same value without side effects
+    private final Map<MethodHandle, Double> constants = new IdentityHashMap<>();
+    //FAWE end
 
     CompilingVisitor(Functions functions) {
+        //FAWE start
+        this(functions, null);
+    }
+
+    /**
+     * Create a visitor that folds constant expressions if {@code constantSlots} is given: constant operations, branches
+     * with a constant condition and pure functions with constant arguments are evaluated while compiling. Identifiers
+     * naming a {@link LocalSlot.Constant} of {@code constantSlots} are constant.
+     */
+    CompilingVisitor(Functions functions, @Nullable SlotTable constantSlots) {
         this.functions = functions;
+        this.constantSlots = constantSlots;
+        //FAWE end
+    }
+
+    //FAWE start - constant folding
+    private MethodHandle constantHandle(double value) {
+        MethodHandle handle = ExpressionHandles.dropData(MethodHandles.constant(Double.class, value));
+        if (constantSlots != null) {
+            constants.put(handle, value);
+        }
+        return handle;
     }
 
+    @Nullable
+    private Double constantValue(MethodHandle handle) {
+        return constants.get(handle);
+    }
+    //FAWE end
+
     private Token extractToken(ParserRuleContext ctx) {
         List<TerminalNode> children = ctx.children.stream()
                 .filter(TerminalNode.class::isInstance)
@@ -128,6 +165,11 @@ private MethodHandle evaluateForNamedValue(ParserRuleContext ctx, String name) {
         );
         // now pass `result` into `guard`
         MethodHandle result = evaluate(ctx).handle();
+        //FAWE start - constants are never null
+        if (constantValue(result) != null) {
+            return result;
+        }
+        //FAWE end
         return MethodHandles.collectArguments(guard, 0, result);
     }
 
@@ -136,7 +178,12 @@ private MethodHandle evaluateForValue(ParserRuleContext ctx) {
     }
 
     private MethodHandle evaluateBoolean(ParserRuleContext boolExpression) {
-        MethodHandle value = evaluateForNamedValue(boolExpression, "a boolean");
+        //FAWE start
+        return toBoolean(evaluateForNamedValue(boolExpression, "a boolean"));
+    }
+
+    private MethodHandle toBoolean(MethodHandle value) {
+        //FAWE end
         // Pass `value` into converter, returns (ExecutionData)boolean;
         return MethodHandles.collectArguments(
                 DOUBLE_TO_BOOL, 0, value
@@ -148,9 +195,17 @@ private MethodHandle evaluateConditional(
             ParserRuleContext trueBranch,
             ParserRuleContext falseBranch
     ) {
+        //FAWE start - only compile the taken branch of a constant condition
+        MethodHandle value = evaluateForNamedValue(condition, "a boolean");
+        Double constant = constantValue(value);
+        if (constant != null) {
+            ParserRuleContext branch = constant != 0 ? trueBranch : falseBranch;
+            return branch == null ? NULL_DOUBLE : evaluate(branch).handle();
+        }
+        //FAWE end
         // easiest one of the bunch
         return MethodHandles.guardWithTest(
-                evaluateBoolean(condition),
+                toBoolean(value),
                 trueBranch == null ? NULL_DOUBLE : evaluate(trueBranch).handle(),
                 falseBranch == null ? NULL_DOUBLE : evaluate(falseBranch).handle()
         );
@@ -307,6 +362,12 @@ public MethodHandle visitPlusMinusExpr(ExpressionParser.PlusMinusExprContext ctx
             case PLUS:
                 return value;
             case MINUS:
+                //FAWE start
+                Double constant = constantValue(value);
+                if (constant != null) {
+                    return constantHandle(-constant);
+                }
+                //FAWE end
                 return ExpressionHandles.call(data ->
                         -(double) ExpressionHandles.standardInvoke(value, data)
                 );
@@ -316,7 +377,14 @@ public MethodHandle visitPlusMinusExpr(ExpressionParser.PlusMinusExprContext ctx
 
     @Override
     public MethodHandle visitNotExpr(ExpressionParser.NotExprContext ctx) {
-        MethodHandle expr = evaluateBoolean(ctx.expr);
+        //FAWE start
+        MethodHandle value = evaluateForNamedValue(ctx.expr, "a boolean");
+        Double constant = constantValue(value);
+        if (constant != null) {
+            return constantHandle(ExpressionHandles.boolToDouble(constant == 0));
+        }
+        MethodHandle expr = toBoolean(value);
+        //FAWE end
         return ExpressionHandles.call(data ->
                 ExpressionHandles.boolToDouble(!(boolean) ExpressionHandles.standardInvoke(expr, data))
         );
@@ -325,6 +393,12 @@ public MethodHandle visitNotExpr(ExpressionParser.NotExprContext ctx) {
     @Override
     public MethodHandle visitComplementExpr(ExpressionParser.ComplementExprContext ctx) {
         MethodHandle expr = evaluateForValue(ctx.expr);
+        //FAWE start
+        Double constant = constantValue(expr);
+        if (constant != null) {
+            return constantHandle((double) ~(long) (double) constant);
+        }
+        //FAWE end
         // Looks weird. In order:
         // - Convert back to double from following long
         // - Convert to long from double value
@@ -336,7 +410,14 @@ public MethodHandle visitComplementExpr(ExpressionParser.ComplementExprContext c
 
     @Override
     public MethodHandle visitConditionalAndExpr(ExpressionParser.ConditionalAndExprContext ctx) {
-        MethodHandle left = evaluateBoolean(ctx.left);
+        //FAWE start
+        MethodHandle leftValue = evaluateForNamedValue(ctx.left, "a boolean");
+        Double constant = constantValue(leftValue);
+        if (constant != null) {
+            return constant != 0 ? evaluateForValue(ctx.right) : constantHandle(ExpressionHandles.boolToDouble(false));
+        }
+        MethodHandle left = toBoolean(leftValue);
+        //FAWE end
         MethodHandle right = evaluateForValue(ctx.right);
         return MethodHandles.guardWithTest(
                 left,
@@ -350,6 +431,12 @@ public MethodHandle visitConditionalAndExpr(ExpressionParser.ConditionalAndExprC
     @Override
     public MethodHandle visitConditionalOrExpr(ExpressionParser.ConditionalOrExprContext ctx) {
         MethodHandle left = evaluateForValue(ctx.left);
+        //FAWE start
+        Double constant = constantValue(left);
+        if (constant != null) {
+            return constant != 0 ? left : evaluateForValue(ctx.right);
+        }
+        //FAWE end
         MethodHandle right = evaluateForValue(ctx.right);
         // Inject left as primary condition, on failure take right with data parameter
         // logic = (Double,ExecutionData)Double
@@ -380,6 +467,13 @@ private MethodHandle evaluateBinary(
     ) {
         MethodHandle mhLeft = evaluateForValue(left);
         MethodHandle mhRight = evaluateForValue(right);
+        //FAWE start
+        Double constantLeft = constantValue(mhLeft);
+        Double constantRight = constantValue(mhRight);
+        if (constantLeft != null && constantRight != null) {
+            return constantHandle(op.applyAsDouble(constantLeft, constantRight));
+        }
+        //FAWE end
         // Map two data args to two double args, then evaluate op
         MethodHandle doubleData = MethodHandles.filterArguments(
                 CALL_BINARY_OP.bindTo(op), 0,
@@ -500,6 +594,12 @@ private static boolean almostEqual2sComplement(double a, double b) {
     public MethodHandle visitPostfixExpr(ExpressionParser.PostfixExprContext ctx) {
         MethodHandle value = evaluateForValue(ctx.expr);
         if (ctx.op.getType() == EXCLAMATION_MARK) {
+            //FAWE start
+            Double constant = constantValue(value);
+            if (constant != null) {
+                return constantHandle(factorial(constant));
+            }
+            //FAWE end
             return ExpressionHandles.call(data ->
                     factorial((double) ExpressionHandles.standardInvoke(value, data))
             );
@@ -582,9 +682,15 @@ public MethodHandle visitFunctionCall(ExpressionParser.FunctionCallContext ctx)
         MethodHandle handle = ExpressionHelper.resolveFunction(functions, ctx);
         String fnName = ctx.name.getText();
         MethodHandle[] arguments = new MethodHandle[ctx.args.size()];
+        //FAWE start
+        boolean constantArguments = true;
+        //FAWE end
         for (int i = 0; i < arguments.length; i++) {
             ExpressionParser.ExpressionContext arg = ctx.args.get(i);
             MethodHandle transformed = getArgument(fnName, handle.type(), i, arg);
+            //FAWE start
+            constantArguments &= constantValue(transformed) != null;
+            //FAWE end
             Class<?> ptype = handle.type().parameterType(i);
             Class<?> rtype = transformed.type().returnType();
             if (ptype != rtype && ptype.isAssignableFrom(rtype)) {
@@ -597,9 +703,22 @@ public MethodHandle visitFunctionCall(ExpressionParser.FunctionCallContext ctx)
         MethodHandle manyData = MethodHandles.filterArguments(handle, 0, arguments);
         // Collapse every data into one argument
         int[] permutation = new int[arguments.length];
-        return MethodHandles.permuteArguments(
+        //FAWE start - evaluate pure functions with constant arguments once
+        MethodHandle call = MethodHandles.permuteArguments(
                 manyData, ExpressionHandles.COMPILED_EXPRESSION_SIG, permutation
         );
+        if (constantArguments && constantSlots != null && Functions.isPure(fnName)) {
+            try {
+                Double value = (Double) ExpressionHandles.constantInvoke(call);
+                if (value != null) {
+                    return constantHandle(value);
+                }
+            } catch (EvaluationException ignored) {
+                // leave the error to the evaluation
+            }
+        }
+        return call;
+        //FAWE end
     }
 
     // MH: (ExecutionData)T; (depends on target)
@@ -625,14 +744,20 @@ private MethodHandle getArgument(String fnName, MethodType type, int i, ParserRu
 
     @Override
     public MethodHandle visitConstantExpression(ExpressionParser.ConstantExpressionContext ctx) {
-        return ExpressionHandles.dropData(
-                MethodHandles.constant(Double.class, Double.parseDouble(ctx.getText()))
-        );
+        //FAWE start
+        return constantHandle(Double.parseDouble(ctx.getText()));
+        //FAWE end
     }
 
     @Override
     public MethodHandle visitIdExpr(ExpressionParser.IdExprContext ctx) {
         Token source = ctx.source;
+        //FAWE start
+        if (constantSlots != null
+                && constantSlots.getSlot(source.getText()).orElse(null) instanceof LocalSlot.Constant constant) {
+            return constantHandle(constant.value());
+        }
+        //FAWE end
         return ExpressionHandles.call(data -> ExpressionHandles.getSlotValue(data, source));
     }
 
@@ -678,9 +803,11 @@ private MethodHandle aggregateHandleResult(MethodHandle oldResult, MethodHandle
 
         // Execute `oldResult` but ignore its return value, then execute result and return that.
         // If either result is `defaultResult`, it's bogus, so just skip it
-        if (oldResult == DEFAULT_RESULT) {
+        //FAWE start - a constant has no side effects, so it can be skipped too
+        if (oldResult == DEFAULT_RESULT || constantValue(oldResult) != null) {
             return result;
         }
+        //FAWE end
         if (result == DEFAULT_RESULT) {
             return oldResult;
         }
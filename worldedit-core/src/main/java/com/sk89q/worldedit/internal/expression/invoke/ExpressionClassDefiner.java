@@ -0,0 +1,246 @@
+package com.sk89q.worldedit.internal.expression.invoke;
+
+import com.sk89q.worldedit.internal.expression.CompiledExpression;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Defines a hidden class implementing {@link CompiledExpression} for a compiled expression. The class loads the method
+ * handles from its class data as dynamic constants and invokes them exactly, so the JIT compiler sees them as constants and
+ * can inline the whole method handle tree into {@link CompiledExpression#execute} and the primitive
+ * {@link CompiledExpression#evaluate}, instead of calling through the captured, non-constant handle of a lambda.
+ *
+ * <p>The class file is the same for every expression and only written once; the handles are the class data of every
+ * hidden class defined from it. The handles are those of the expression tree, whose nodes result in a boxed
+ * {@link Double}, so this does not make evaluating the tree free of allocations by itself.</p>
+ */
+final class ExpressionClassDefiner {
+
+    private static final String EXECUTION_DATA = "Lcom/sk89q/worldedit/internal/expression/ExecutionData;";
+    private static final String EXECUTE_DESCRIPTOR = "(" + EXECUTION_DATA + ")Ljava/lang/Double;";
+    private static final String EVALUATE_DESCRIPTOR = "(" + EXECUTION_DATA + ")D";
+    private static final byte[] CLASS_BYTES = writeClass();
+
+    private ExpressionClassDefiner() {
+    }
+
+    /**
+     * Define a compiled expression from its handles.
+     *
+     * @param execute the {@code (ExecutionData)Double} handle of the expression
+     * @param evaluate the {@code (ExecutionData)double} handle of the expression
+     * @return the compiled expression
+     * @throws ReflectiveOperationException if the class cannot be defined or instantiated
+     */
+    static CompiledExpression define(MethodHandle execute, MethodHandle evaluate) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup().defineHiddenClassWithClassData(
+                CLASS_BYTES,
+                List.of(execute, evaluate),
+                true
+        );
+        return (CompiledExpression) lookup.lookupClass().getDeclaredConstructor().newInstance();
+    }
+
+    private static byte[] writeClass() {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classInfo("com/sk89q/worldedit/internal/expression/invoke/CompiledExpressionClass");
+        int superClass = pool.classInfo("java/lang/Object");
+        int compiledExpression = pool.classInfo("com/sk89q/worldedit/internal/expression/CompiledExpression");
+        int code = pool.utf8("Code");
+        int superConstructor = pool.methodRef(superClass, "<init>", "()V");
+        int methodHandle = pool.classInfo("java/lang/invoke/MethodHandle");
+        int invokeExecute = pool.methodRef(methodHandle, "invokeExact", EXECUTE_DESCRIPTOR);
+        int invokeEvaluate = pool.methodRef(methodHandle, "invokeExact", EVALUATE_DESCRIPTOR);
+        int classDataAt = pool.methodHandle(pool.methodRef(
+                pool.classInfo("java/lang/invoke/MethodHandles"),
+                "classDataAt",
+                "(Ljava/lang/invoke/MethodHandles$Lookup;Ljava/lang/String;Ljava/lang/Class;I)Ljava/lang/Object;"
+        ));
+        // classDataAt requires the constants to be named _
+        int executeHandle = pool.dynamic(0, "_", "Ljava/lang/invoke/MethodHandle;");
+        int evaluateHandle = pool.dynamic(1, "_", "Ljava/lang/invoke/MethodHandle;");
+        int bootstrapMethods = pool.utf8("BootstrapMethods");
+        int[] bootstrapArguments = {pool.integer(0), pool.integer(1)};
+        int constructorName = pool.utf8("<init>");
+        int constructorDescriptor = pool.utf8("()V");
+        int executeName = pool.utf8("execute");
+        int executeDescriptor = pool.utf8(EXECUTE_DESCRIPTOR);
+        int evaluateName = pool.utf8("evaluate");
+        int evaluateDescriptor = pool.utf8(EVALUATE_DESCRIPTOR);
+
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream(1024);
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(0xCAFEBABE);
+            out.writeShort(0);
+            // Java 17, dynamic constants need 55 or newer, no branches so no stack map frames
+            out.writeShort(61);
+            pool.write(out);
+            // ACC_FINAL | ACC_SUPER
+            out.writeShort(0x0030);
+            out.writeShort(thisClass);
+            out.writeShort(superClass);
+            out.writeShort(1);
+            out.writeShort(compiledExpression);
+            // fields
+            out.writeShort(0);
+            out.writeShort(3);
+            // public <init>() { super(); }
+            writeMethod(out, 0x0001, constructorName, constructorDescriptor, code, 1, 1, new byte[]{
+                    0x2A, // aload_0
+                    (byte) 0xB7, (byte) (superConstructor >> 8), (byte) superConstructor, // invokespecial
+                    (byte) 0xB1 // return
+            });
+            // public final Double execute(ExecutionData data) { return (Double) EXECUTE.invokeExact(data); }
+            writeMethod(out, 0x0011, executeName, executeDescriptor, code, 2, 2, new byte[]{
+                    0x13, (byte) (executeHandle >> 8), (byte) executeHandle, // ldc_w
+                    0x2B, // aload_1
+                    (byte) 0xB6, (byte) (invokeExecute >> 8), (byte) invokeExecute, // invokevirtual
+                    (byte) 0xB0 // areturn
+            });
+            // public final double evaluate(ExecutionData data) { return (double) EVALUATE.invokeExact(data); }
+            writeMethod(out, 0x0011, evaluateName, evaluateDescriptor, code, 2, 2, new byte[]{
+                    0x13, (byte) (evaluateHandle >> 8), (byte) evaluateHandle, // ldc_w
+                    0x2B, // aload_1
+                    (byte) 0xB6, (byte) (invokeEvaluate >> 8), (byte) invokeEvaluate, // invokevirtual
+                    (byte) 0xAF // dreturn
+            });
+            // attributes
+            out.writeShort(1);
+            out.writeShort(bootstrapMethods);
+            out.writeInt(2 + bootstrapArguments.length * 6);
+            out.writeShort(bootstrapArguments.length);
+            for (int argument : bootstrapArguments) {
+                out.writeShort(classDataAt);
+                out.writeShort(1);
+                out.writeShort(argument);
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static void writeMethod(
+            DataOutputStream out,
+            int access,
+            int name,
+            int descriptor,
+            int codeAttribute,
+            int maxStack,
+            int maxLocals,
+            byte[] code
+    ) throws IOException {
+        out.writeShort(access);
+        out.writeShort(name);
+        out.writeShort(descriptor);
+        out.writeShort(1);
+        out.writeShort(codeAttribute);
+        out.writeInt(12 + code.length);
+        out.writeShort(maxStack);
+        out.writeShort(maxLocals);
+        out.writeInt(code.length);
+        out.write(code);
+        // exception table and attributes
+        out.writeShort(0);
+        out.writeShort(0);
+    }
+
+    /**
+     * The few constant pool entries needed by the class, deduplicated.
+     */
+    private static final class ConstantPool {
+
+        private static final int UTF8 = 1;
+        private static final int INTEGER = 3;
+        private static final int CLASS = 7;
+        private static final int METHOD_REF = 10;
+        private static final int NAME_AND_TYPE = 12;
+        private static final int METHOD_HANDLE = 15;
+        private static final int DYNAMIC = 17;
+        private static final int REF_INVOKE_STATIC = 6;
+
+        private final List<byte[]> entries = new ArrayList<>();
+        private final Map<String, Integer> indices = new HashMap<>();
+
+        private int add(String key, byte[] entry) {
+            return indices.computeIfAbsent(key, k -> {
+                entries.add(entry);
+                return entries.size();
+            });
+        }
+
+        private static byte[] entry(int tag, int... values) {
+            byte[] entry = new byte[1 + values.length * 2];
+            entry[0] = (byte) tag;
+            for (int i = 0; i < values.length; i++) {
+                entry[1 + i * 2] = (byte) (values[i] >> 8);
+                entry[2 + i * 2] = (byte) values[i];
+            }
+            return entry;
+        }
+
+        int utf8(String value) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream out = new DataOutputStream(bytes)) {
+                out.writeByte(UTF8);
+                out.writeUTF(value);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return add("utf8:" + value, bytes.toByteArray());
+        }
+
+        int integer(int value) {
+            return add("int:" + value, new byte[]{
+                    INTEGER, (byte) (value >> 24), (byte) (value >> 16), (byte) (value >> 8), (byte) value
+            });
+        }
+
+        int classInfo(String name) {
+            return add("class:" + name, entry(CLASS, utf8(name)));
+        }
+
+        int nameAndType(String name, String descriptor) {
+            return add("nat:" + name + descriptor, entry(NAME_AND_TYPE, utf8(name), utf8(descriptor)));
+        }
+
+        int methodRef(int owner, String name, String descriptor) {
+            return add(
+                    "method:" + owner + "." + name + descriptor,
+                    entry(METHOD_REF, owner, nameAndType(name, descriptor))
+            );
+        }
+
+        int methodHandle(int methodRef) {
+            byte[] entry = {METHOD_HANDLE, REF_INVOKE_STATIC, (byte) (methodRef >> 8), (byte) methodRef};
+            return add("handle:" + methodRef, entry);
+        }
+
+        int dynamic(int bootstrapMethod, String name, String descriptor) {
+            return add(
+                    "dynamic:" + bootstrapMethod + name + descriptor,
+                    entry(DYNAMIC, bootstrapMethod, nameAndType(name, descriptor))
+            );
+        }
+
+        void write(DataOutputStream out) throws IOException {
+            out.writeShort(entries.size() + 1);
+            for (byte[] entry : entries) {
+                out.write(entry);
+            }
+        }
+
+    }
+
+}
@@ -22,6 +22,7 @@
 import com.sk89q.worldedit.antlr.ExpressionParser;
 import com.sk89q.worldedit.internal.expression.CompiledExpression;
 import com.sk89q.worldedit.internal.expression.Functions;
+import com.sk89q.worldedit.internal.expression.SlotTable;
 
 import java.lang.invoke.LambdaConversionException;
 import java.lang.invoke.LambdaMetafactory;
@@ -67,16 +68,56 @@ public CompiledExpression compileExpression(
             ExpressionParser.AllStatementsContext root,
             Functions functions
     ) {
-        MethodHandle invokable = root.accept(new CompilingVisitor(functions));
+        //FAWE start
+        return toCompiledExpression(compileHandle(root, new CompilingVisitor(functions)));
+    }
+
+    /**
+     * Compile an expression for repeated evaluation: constant expressions are folded and the result is a hidden class
+     * that the JIT compiler can inline the method handles into. Each node of the tree still results in a nullable
+     * {@link Double}, as statements have no value, so nodes box their results unless the JIT compiler eliminates the boxes
+     * of the inlined tree; {@link CompiledExpression#evaluate} only saves unboxing the result at the root.
+     *
+     * @param root the expression
+     * @param functions the functions of the expression
+     * @param slots the slots of the expression, its constants are folded
+     * @return the compiled expression
+     * @since TODO
+     */
+    public CompiledExpression compileOptimizedExpression(
+            ExpressionParser.AllStatementsContext root,
+            Functions functions,
+            SlotTable slots
+    ) {
+        MethodHandle invokable = compileHandle(root, new CompilingVisitor(functions, slots));
+        try {
+            return ExpressionClassDefiner.define(
+                    invokable,
+                    MethodHandles.filterReturnValue(invokable, ExpressionHandles.REQUIRE_RESULT)
+            );
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // fall back to the lambda if the hidden class cannot be defined
+            return toCompiledExpression(invokable);
+        }
+    }
+
+    private static MethodHandle compileHandle(ExpressionParser.AllStatementsContext root, CompilingVisitor visitor) {
+        MethodHandle invokable = root.accept(visitor);
+        //FAWE end
         // catch ReturnExpression and substitute its result
         invokable = MethodHandles.catchException(
                 invokable,
                 ReturnException.class,
                 ExpressionHandles.RETURN_EXCEPTION_GET_RESULT
         );
-        MethodHandle finalInvokable = invokable;
+        //FAWE start
+        return invokable;
+    }
+
+    private static CompiledExpression toCompiledExpression(MethodHandle invokable) {
+        //FAWE end
         return (CompiledExpression) ExpressionHandles.safeInvoke(
-                HANDLE_TO_CE_CONVERTER, h -> h.invoke(finalInvokable)
+                HANDLE_TO_CE_CONVERTER, h -> h.invoke(invokable)
         );
     }
 
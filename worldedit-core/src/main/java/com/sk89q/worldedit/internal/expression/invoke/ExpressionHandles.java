@@ -73,6 +73,10 @@ class ExpressionHandles {
     static final MethodHandle NEW_RETURN_EXCEPTION;
     // (ReturnException)Double;
     static final MethodHandle RETURN_EXCEPTION_GET_RESULT;
+    //FAWE start
+    // (Double)double;
+    static final MethodHandle REQUIRE_RESULT;
+    //FAWE end
 
     static final MethodHandle NULL_DOUBLE = dropData(constant(Double.class, null));
 
@@ -130,6 +134,11 @@ class ExpressionHandles {
             RETURN_EXCEPTION_GET_RESULT = lookup.findVirtual(ReturnException.class,
                     "getResult", methodType(Double.class)
             );
+            //FAWE start
+            REQUIRE_RESULT = lookup.findStatic(ExpressionHandles.class, "requireResult",
+                    methodType(double.class, Double.class)
+            );
+            //FAWE end
         } catch (NoSuchMethodException | IllegalAccessException e) {
             throw new IllegalStateException(e);
         }
@@ -265,6 +274,15 @@ static double boolToDouble(boolean bool) {
         return bool ? 1 : 0;
     }
 
+    //FAWE start
+    private static double requireResult(Double result) {
+        if (result == null) {
+            throw new EvaluationException(-1, "Expression must result in a value");
+        }
+        return result;
+    }
+    //FAWE end
+
     /**
      * Encapsulate the given code into a MethodHandle.
      */
@@ -19,13 +19,21 @@
 
 package com.sk89q.worldedit.regions.shape;
 
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.math.MutableBlockVector3;
+import com.fastasyncworldedit.core.queue.implementation.ParallelLanes;
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.function.pattern.Pattern;
+import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.world.block.BaseBlock;
 
+import javax.annotation.Nullable;
+import java.util.concurrent.atomic.AtomicInteger;
+
 /**
  * Generates solid and hollow shapes according to materials returned by the
  * {@link #getMaterial} method.
@@ -98,66 +106,177 @@ public int generate(EditSession editSession, Pattern pattern, boolean hollow) th
         int affected = 0;
 
         for (BlockVector3 position : getExtent()) {
-            int x = position.x();
-            int y = position.y();
-            int z = position.z();
-
-            if (!hollow) {
-                BaseBlock material = getMaterial(x, y, z, pattern.applyBlock(position));
-                if (material != null && editSession.setBlock(position, material)) {
-                    ++affected;
-                }
-
-                continue;
+            //FAWE start - moved to generate(EditSession, Pattern, boolean, BlockVector3)
+            if (generate(editSession, pattern, hollow, position)) {
+                ++affected;
             }
+            //FAWE end
+        }
 
-            BaseBlock material = getMaterial(x, y, z, pattern.applyBlock(position));
-            if (material == null) {
-                final int index = (y - cacheOffsetY) + (z - cacheOffsetZ) * cacheSizeY + (x - cacheOffsetX) * cacheSizeY * cacheSizeZ;
-                cache[index] = -1;
-                continue;
-            }
+        return affected;
+    }
 
-            boolean draw = false;
-            do {
-                if (!isInsideCached(x + 1, y, z, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x - 1, y, z, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y, z + 1, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y, z - 1, pattern)) {
-                    draw = true;
-                    break;
-                }
-                if (!isInsideCached(x, y + 1, z, pattern)) {
-                    draw = true;
-                    break;
+    //FAWE start - parallel generation
+    /**
+     * Generates the shape on several threads if a parallel queue is given. The region is split into chunks, every chunk is
+     * generated by a single thread editing through its own queue. {@link #getMaterial} must be safe to call from several
+     * threads at the same time, or keep its state per lane, see {@link #startLanes(int)}. The pattern is
+     * {@linkplain Pattern#fork() forked} for every thread.
+     *
+     * @param editSession   The EditSession to use.
+     * @param pattern       The pattern to generate default materials from.
+     * @param hollow        Specifies whether to generate a hollow shape.
+     * @param parallelQueue The parallel queue of the EditSession, or null to generate on the current thread.
+     * @return number of affected blocks.
+     * @throws MaxChangedBlocksException if the maximum blocks changed is exceeded
+     * @since TODO
+     */
+    public int generate(EditSession editSession, Pattern pattern, boolean hollow, @Nullable ParallelQueueExtent parallelQueue)
+            throws MaxChangedBlocksException {
+        if (parallelQueue == null) {
+            return generate(editSession, pattern, hollow);
+        }
+        final BlockVector2[] chunks = extent.getChunks().toArray(new BlockVector2[0]);
+        final int threads = Math.min(chunks.length, Settings.settings().QUEUE.PARALLEL_THREADS);
+        if (threads <= 1) {
+            return generate(editSession, pattern, hollow);
+        }
+        final Pattern[] patterns = new Pattern[threads];
+        patterns[0] = pattern;
+        for (int i = 1; i < threads; i++) {
+            patterns[i] = pattern.fork();
+        }
+        final int[] affected = new int[threads];
+        // chunks are taken in turn, so threads finishing cheap chunks early take on more
+        final AtomicInteger nextChunk = new AtomicInteger();
+        startLanes(threads);
+        try (ParallelLanes lanes = parallelQueue.createLanes(threads)) {
+            lanes.run(lane -> {
+                MutableBlockVector3 position = new MutableBlockVector3();
+                int index;
+                while ((index = nextChunk.getAndIncrement()) < chunks.length) {
+                    affected[lane] += generateChunk(editSession, patterns[lane], hollow, chunks[index], position);
                 }
-                if (!isInsideCached(x, y - 1, z, pattern)) {
-                    draw = true;
-                    break;
+            });
+        } catch (RuntimeException e) {
+            for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+                if (cause instanceof MaxChangedBlocksException maxChangedBlocksException) {
+                    throw maxChangedBlocksException;
                 }
-            } while (false);
-
-            if (!draw) {
-                continue;
             }
+            throw e;
+        } finally {
+            endLanes();
+        }
+        int total = 0;
+        for (int value : affected) {
+            total += value;
+        }
+        return total;
+    }
 
-            if (editSession.setBlock(position, material)) {
-                ++affected;
+    /**
+     * Called before the shape is generated on several lanes, to create the state {@link #getMaterial} keeps per lane. It
+     * looks up the state of the lane calling it with {@link ParallelLanes#currentLane()}.
+     *
+     * @param lanes the number of lanes
+     * @since TODO
+     */
+    protected void startLanes(int lanes) {
+    }
+
+    /**
+     * Called once the shape was generated on several lanes, to drop the state created by {@link #startLanes(int)}.
+     *
+     * @since TODO
+     */
+    protected void endLanes() {
+    }
+
+    private int generateChunk(
+            EditSession editSession,
+            Pattern pattern,
+            boolean hollow,
+            BlockVector2 chunk,
+            MutableBlockVector3 position
+    ) {
+        BlockVector3 min = extent.getMinimumPoint();
+        BlockVector3 max = extent.getMaximumPoint();
+        int minX = Math.max(min.x(), chunk.x() << 4);
+        int maxX = Math.min(max.x(), (chunk.x() << 4) + 15);
+        int minZ = Math.max(min.z(), chunk.z() << 4);
+        int maxZ = Math.min(max.z(), (chunk.z() << 4) + 15);
+        int affected = 0;
+        // y innermost, like the cache
+        for (int x = minX; x <= maxX; x++) {
+            for (int z = minZ; z <= maxZ; z++) {
+                for (int y = min.y(); y <= max.y(); y++) {
+                    if (!extent.contains(x, y, z)) {
+                        continue;
+                    }
+                    try {
+                        if (generate(editSession, pattern, hollow, position.setComponents(x, y, z))) {
+                            affected++;
+                        }
+                    } catch (MaxChangedBlocksException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
             }
         }
-
         return affected;
     }
 
+    private boolean generate(EditSession editSession, Pattern pattern, boolean hollow, BlockVector3 position)
+            throws MaxChangedBlocksException {
+        int x = position.x();
+        int y = position.y();
+        int z = position.z();
+
+        if (!hollow) {
+            BaseBlock material = getMaterial(x, y, z, pattern.applyBlock(position));
+            return material != null && editSession.setBlock(position, material);
+        }
+
+        BaseBlock material = getMaterial(x, y, z, pattern.applyBlock(position));
+        if (material == null) {
+            final int index = (y - cacheOffsetY) + (z - cacheOffsetZ) * cacheSizeY + (x - cacheOffsetX) * cacheSizeY * cacheSizeZ;
+            cache[index] = -1;
+            return false;
+        }
+
+        boolean draw = false;
+        do {
+            if (!isInsideCached(x + 1, y, z, pattern)) {
+                draw = true;
+                break;
+            }
+            if (!isInsideCached(x - 1, y, z, pattern)) {
+                draw = true;
+                break;
+            }
+            if (!isInsideCached(x, y, z + 1, pattern)) {
+                draw = true;
+                break;
+            }
+            if (!isInsideCached(x, y, z - 1, pattern)) {
+                draw = true;
+                break;
+            }
+            if (!isInsideCached(x, y + 1, z, pattern)) {
+                draw = true;
+                break;
+            }
+            if (!isInsideCached(x, y - 1, z, pattern)) {
+                draw = true;
+                break;
+            }
+        } while (false);
+
+        return draw && editSession.setBlock(position, material);
+    }
+    //FAWE end
+
     private boolean isInsideCached(int x, int y, int z, Pattern pattern) {
         final int index = (y - cacheOffsetY) + (z - cacheOffsetZ) * cacheSizeY + (x - cacheOffsetX) * cacheSizeY * cacheSizeZ;
 
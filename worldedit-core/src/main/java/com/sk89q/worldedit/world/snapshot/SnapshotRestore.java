@@ -19,16 +19,17 @@
 
 package com.sk89q.worldedit.world.snapshot;
 
-import com.fastasyncworldedit.core.math.LocalBlockVectorSet;
+import com.fastasyncworldedit.core.world.snapshot.ChunkSnapshotRestore;
+import com.sk89q.jnbt.CompoundTag;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.DataException;
+import com.sk89q.worldedit.world.World;
 import com.sk89q.worldedit.world.chunk.Chunk;
 import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
@@ -42,9 +43,7 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
 import java.util.Set;
 
 /**
@@ -54,8 +53,9 @@ public class SnapshotRestore {
 
     private static final Logger LOGGER = LogManager.getLogger();
 
-    //FAWE start - Set instead of ArrayList
-    private final Map<BlockVector2, Set<BlockVector3>> neededChunks = new LinkedHashMap<>();
+    //FAWE start - restore by chunk, without collecting positions
+    private final Set<BlockVector2> neededChunks;
+    private final boolean changedSectionsOnly;
     //FAWE end
     private final ChunkStore chunkStore;
     private final EditSession editSession;
@@ -95,70 +95,40 @@ public SnapshotRestore(
             Region region,
             boolean restoreBiomes,
             boolean restoreEntities
+    ) {
+        this(chunkStore, editSession, region, restoreBiomes, restoreEntities, false);
+    }
+
+    /**
+     * Construct the snapshot restore operation.
+     *
+     * @param chunkStore          The {@link ChunkStore} to restore from
+     * @param editSession         The {@link EditSession} to restore to
+     * @param region              The {@link Region} to restore to
+     * @param restoreBiomes       If biomes should be restored
+     * @param restoreEntities     If entities should be restored
+     * @param changedSectionsOnly If only chunk sections whose blocks differ from the snapshot should be restored. Only
+     *                            applies when restoring by chunk, see {@link ChunkSnapshotRestore}
+     * @since TODO
+     */
+    public SnapshotRestore(
+            ChunkStore chunkStore,
+            EditSession editSession,
+            Region region,
+            boolean restoreBiomes,
+            boolean restoreEntities,
+            boolean changedSectionsOnly
     ) {
         this.chunkStore = chunkStore;
         this.editSession = editSession;
         this.restoreBiomes = restoreBiomes;
         this.restoreEntities = restoreEntities;
         this.region = region;
-
-        if (region instanceof CuboidRegion) {
-            findNeededCuboidChunks(region);
-        } else {
-            findNeededChunks(region);
-        }
+        this.changedSectionsOnly = changedSectionsOnly;
+        this.neededChunks = region.getChunks();
     }
     //FAWE end
 
-    /**
-     * Find needed chunks in the axis-aligned bounding box of the region.
-     *
-     * @param region The {@link Region} to iterate
-     */
-    private void findNeededCuboidChunks(Region region) {
-        BlockVector3 min = region.getMinimumPoint();
-        BlockVector3 max = region.getMaximumPoint();
-
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (int x = min.x(); x <= max.x(); ++x) {
-            for (int y = min.y(); y <= max.y(); ++y) {
-                for (int z = min.z(); z <= max.z(); ++z) {
-                    BlockVector3 pos = BlockVector3.at(x, y, z);
-                    checkAndAddBlock(pos);
-                }
-            }
-        }
-    }
-
-    /**
-     * Find needed chunks in the region.
-     *
-     * @param region The {@link Region} to iterate
-     */
-    private void findNeededChunks(Region region) {
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (BlockVector3 pos : region) {
-            checkAndAddBlock(pos);
-        }
-    }
-
-    private void checkAndAddBlock(BlockVector3 pos) {
-        if (editSession.getMask() != null && !editSession.getMask().test(pos)) {
-            return;
-        }
-
-        BlockVector2 chunkPos = ChunkStore.toChunk(pos);
-
-        // Unidentified chunk
-        if (!neededChunks.containsKey(chunkPos)) {
-            neededChunks.put(chunkPos, new LocalBlockVectorSet());
-        }
-
-        neededChunks.get(chunkPos).add(pos);
-    }
-
     /**
      * Get the number of chunks that are needed.
      *
@@ -178,9 +148,40 @@ public void restore() throws MaxChangedBlocksException {
         missingChunks = new ArrayList<>();
         errorChunks = new ArrayList<>();
 
+        //FAWE start - restore by chunk through the queue of the edit session
+        if (ChunkSnapshotRestore.isSupported(editSession)) {
+            World world = editSession.getWorld();
+            ChunkSnapshotRestore restore = new ChunkSnapshotRestore(
+                    new ChunkSnapshotRestore.ChunkSource() {
+                        @Override
+                        public LinCompoundTag getChunkTag(BlockVector2 position) throws DataException, IOException {
+                            return chunkStore.getChunkTag(position, world).toLinTag();
+                        }
+
+                        @Override
+                        public LinCompoundTag getEntitiesTag(BlockVector2 position) {
+                            CompoundTag tag = chunkStore.getEntitiesTag(position, world);
+                            return tag == null ? null : tag.toLinTag();
+                        }
+                    },
+                    editSession,
+                    region,
+                    restoreBiomes,
+                    restoreEntities,
+                    changedSectionsOnly
+            );
+            restore.restore();
+            missingChunks.addAll(restore.getMissingChunks());
+            errorChunks.addAll(restore.getErrorChunks());
+            lastErrorMessage = restore.getLastErrorMessage();
+            return;
+        }
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        //FAWE end
+
         // Now let's start restoring!
-        for (Map.Entry<BlockVector2, Set<BlockVector3>> entry : neededChunks.entrySet()) {
-            BlockVector2 chunkPos = entry.getKey();
+        for (BlockVector2 chunkPos : neededChunks) {
             Chunk chunk;
 
             try {
@@ -188,16 +189,28 @@ public void restore() throws MaxChangedBlocksException {
                 // Good, the chunk could be at least loaded
 
                 // Now just copy blocks!
-                for (BlockVector3 pos : entry.getValue()) {
-                    try {
-                        editSession.setBlock(pos, chunk.getBlock(pos));
-                        //FAWE start - biome and entity restore
-                        if (restoreBiomes && (pos.x() & 3) == 0 && (pos.y() & 3) == 0 && (pos.z() & 3) == 0) {
-                            editSession.setBiome(pos, chunk.getBiome(pos));
+                //FAWE start - iterate the part of the region within the chunk
+                int chunkX = chunkPos.x() << 4;
+                int chunkZ = chunkPos.z() << 4;
+                for (int x = Math.max(min.x(), chunkX); x <= Math.min(max.x(), chunkX + 15); x++) {
+                    for (int z = Math.max(min.z(), chunkZ); z <= Math.min(max.z(), chunkZ + 15); z++) {
+                        for (int y = min.y(); y <= max.y(); y++) {
+                            if (!region.contains(x, y, z)) {
+                                continue;
+                            }
+                            BlockVector3 pos = BlockVector3.at(x, y, z);
+                            //FAWE end
+                            try {
+                                editSession.setBlock(pos, chunk.getBlock(pos));
+                                //FAWE start - biome and entity restore
+                                if (restoreBiomes && (pos.x() & 3) == 0 && (pos.y() & 3) == 0 && (pos.z() & 3) == 0) {
+                                    editSession.setBiome(pos, chunk.getBiome(pos));
+                                }
+                                //FAWE end
+                            } catch (DataException e) {
+                                // this is a workaround: just ignore for now
+                            }
                         }
-                        //FAWE end
-                    } catch (DataException e) {
-                        // this is a workaround: just ignore for now
                     }
                 }
                 //FAWE start - biome and entity restore
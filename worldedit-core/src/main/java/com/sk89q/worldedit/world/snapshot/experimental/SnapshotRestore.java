@@ -19,17 +19,16 @@
 
 package com.sk89q.worldedit.world.snapshot.experimental;
 
+import com.fastasyncworldedit.core.world.snapshot.ChunkSnapshotRestore;
 import com.sk89q.worldedit.EditSession;
 import com.sk89q.worldedit.MaxChangedBlocksException;
 import com.sk89q.worldedit.entity.BaseEntity;
 import com.sk89q.worldedit.math.BlockVector2;
 import com.sk89q.worldedit.math.BlockVector3;
-import com.sk89q.worldedit.regions.CuboidRegion;
 import com.sk89q.worldedit.regions.Region;
 import com.sk89q.worldedit.util.Location;
 import com.sk89q.worldedit.world.DataException;
 import com.sk89q.worldedit.world.chunk.Chunk;
-import com.sk89q.worldedit.world.storage.ChunkStore;
 import com.sk89q.worldedit.world.storage.MissingChunkException;
 import org.enginehub.linbus.tree.LinCompoundTag;
 import org.enginehub.linbus.tree.LinDoubleTag;
@@ -39,16 +38,19 @@
 
 import java.io.IOException;
 import java.util.ArrayList;
-import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.Set;
 
 /**
  * A snapshot restore operation.
  */
 public class SnapshotRestore {
 
-    private final Map<BlockVector2, ArrayList<BlockVector3>> neededChunks = new LinkedHashMap<>();
+    //FAWE start - restore by chunk, without collecting positions
+    private final Set<BlockVector2> neededChunks;
+    private final Region region;
+    private final boolean changedSectionsOnly;
+    //FAWE end
     private final Snapshot snapshot;
     private final EditSession editSession;
     //FAWE start - biome and entity restore
@@ -87,67 +89,38 @@ public SnapshotRestore(
             boolean restoreBiomes,
             boolean restoreEntities
     ) {
-        this.snapshot = snapshot;
-        this.editSession = editSession;
-        this.restoreBiomes = restoreBiomes;
-        this.restoreEntities = restoreEntities;
-
-        if (region instanceof CuboidRegion) {
-            findNeededCuboidChunks(region);
-        } else {
-            findNeededChunks(region);
-        }
-    }
-    //FAWE end
-
-    /**
-     * Find needed chunks in the axis-aligned bounding box of the region.
-     *
-     * @param region The {@link Region} to iterate
-     */
-    private void findNeededCuboidChunks(Region region) {
-        BlockVector3 min = region.getMinimumPoint();
-        BlockVector3 max = region.getMaximumPoint();
-
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (int x = min.x(); x <= max.x(); ++x) {
-            for (int y = min.y(); y <= max.y(); ++y) {
-                for (int z = min.z(); z <= max.z(); ++z) {
-                    BlockVector3 pos = BlockVector3.at(x, y, z);
-                    checkAndAddBlock(pos);
-                }
-            }
-        }
+        this(snapshot, editSession, region, restoreBiomes, restoreEntities, false);
     }
 
     /**
-     * Find needed chunks in the region.
+     * Construct the snapshot restore operation.
      *
-     * @param region The {@link Region} to iterate
+     * @param snapshot            The {@link Snapshot} to restore from
+     * @param editSession         The {@link EditSession} to restore to
+     * @param region              The {@link Region} to restore to
+     * @param restoreBiomes       If biomes should be restored
+     * @param restoreEntities     If entities should be restored
+     * @param changedSectionsOnly If only chunk sections whose blocks differ from the snapshot should be restored. Only
+     *                            applies when restoring by chunk, see {@link ChunkSnapshotRestore}
+     * @since TODO
      */
-    private void findNeededChunks(Region region) {
-        // First, we need to group points by chunk so that we only need
-        // to keep one chunk in memory at any given moment
-        for (BlockVector3 pos : region) {
-            checkAndAddBlock(pos);
-        }
-    }
-
-    private void checkAndAddBlock(BlockVector3 pos) {
-        if (editSession.getMask() != null && !editSession.getMask().test(pos)) {
-            return;
-        }
-
-        BlockVector2 chunkPos = ChunkStore.toChunk(pos);
-
-        // Unidentified chunk
-        if (!neededChunks.containsKey(chunkPos)) {
-            neededChunks.put(chunkPos, new ArrayList<>());
-        }
-
-        neededChunks.get(chunkPos).add(pos);
+    public SnapshotRestore(
+            Snapshot snapshot,
+            EditSession editSession,
+            Region region,
+            boolean restoreBiomes,
+            boolean restoreEntities,
+            boolean changedSectionsOnly
+    ) {
+        this.snapshot = snapshot;
+        this.editSession = editSession;
+        this.restoreBiomes = restoreBiomes;
+        this.restoreEntities = restoreEntities;
+        this.region = region;
+        this.changedSectionsOnly = changedSectionsOnly;
+        this.neededChunks = region.getChunks();
     }
+    //FAWE end
 
     /**
      * Get the number of chunks that are needed.
@@ -168,9 +141,28 @@ public void restore() throws MaxChangedBlocksException {
         missingChunks = new ArrayList<>();
         errorChunks = new ArrayList<>();
 
+        //FAWE start - restore by chunk through the queue of the edit session
+        if (ChunkSnapshotRestore.isSupported(editSession)) {
+            ChunkSnapshotRestore restore = new ChunkSnapshotRestore(
+                    position -> snapshot.getChunkTag(position.toBlockVector3()).toLinTag(),
+                    editSession,
+                    region,
+                    restoreBiomes,
+                    restoreEntities,
+                    changedSectionsOnly
+            );
+            restore.restore();
+            missingChunks.addAll(restore.getMissingChunks());
+            errorChunks.addAll(restore.getErrorChunks());
+            lastErrorMessage = restore.getLastErrorMessage();
+            return;
+        }
+        BlockVector3 min = region.getMinimumPoint();
+        BlockVector3 max = region.getMaximumPoint();
+        //FAWE end
+
         // Now let's start restoring!
-        for (Map.Entry<BlockVector2, ArrayList<BlockVector3>> entry : neededChunks.entrySet()) {
-            BlockVector2 chunkPos = entry.getKey();
+        for (BlockVector2 chunkPos : neededChunks) {
             Chunk chunk;
 
             try {
@@ -179,16 +171,28 @@ public void restore() throws MaxChangedBlocksException {
                 // Good, the chunk could be at least loaded
 
                 // Now just copy blocks!
-                for (BlockVector3 pos : entry.getValue()) {
-                    try {
-                        editSession.setBlock(pos, chunk.getBlock(pos));
-                        //FAWE start - biome and entity restore
-                        if (restoreBiomes && (pos.x() & 3) == 0 && (pos.y() & 3) == 0 && (pos.z() & 3) == 0) {
-                            editSession.setBiome(pos, chunk.getBiome(pos));
+                //FAWE start - iterate the part of the region within the chunk
+                int chunkX = chunkPos.x() << 4;
+                int chunkZ = chunkPos.z() << 4;
+                for (int x = Math.max(min.x(), chunkX); x <= Math.min(max.x(), chunkX + 15); x++) {
+                    for (int z = Math.max(min.z(), chunkZ); z <= Math.min(max.z(), chunkZ + 15); z++) {
+                        for (int y = min.y(); y <= max.y(); y++) {
+                            if (!region.contains(x, y, z)) {
+                                continue;
+                            }
+                            BlockVector3 pos = BlockVector3.at(x, y, z);
+                            //FAWE end
+                            try {
+                                editSession.setBlock(pos, chunk.getBlock(pos));
+                                //FAWE start - biome and entity restore
+                                if (restoreBiomes && (pos.x() & 3) == 0 && (pos.y() & 3) == 0 && (pos.z() & 3) == 0) {
+                                    editSession.setBiome(pos, chunk.getBiome(pos));
+                                }
+                                //FAWE end
+                            } catch (DataException e) {
+                                // this is a workaround: just ignore for now
+                            }
                         }
-                        //FAWE end
-                    } catch (DataException e) {
-                        // this is a workaround: just ignore for now
                     }
                 }
                 //FAWE start - biome and entity restore
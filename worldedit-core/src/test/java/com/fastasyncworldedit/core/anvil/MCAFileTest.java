@@ -0,0 +1,122 @@
+package com.fastasyncworldedit.core.anvil;
+
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinTagType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that chunks written to a {@link MCAFile} read back the same, across reallocation, deletion and reopening.
+ */
+class MCAFileTest {
+
+    @TempDir
+    Path folder;
+
+    private Path emptyRegionFile() throws IOException {
+        Path path = folder.resolve("r.-1.2.mca");
+        Files.write(path, new byte[8192]);
+        return path;
+    }
+
+    /**
+     * A chunk tag with {@code size} bytes that don't compress, so it spans a known number of sectors.
+     */
+    private static LinCompoundTag chunk(int id, int size) {
+        byte[] data = new byte[size];
+        new Random(id).nextBytes(data);
+        return LinCompoundTag.builder().putInt("id", id).putByteArray("data", data).build();
+    }
+
+    private static void assertChunk(LinCompoundTag expected, LinCompoundTag actual) {
+        assertEquals(expected.getTag("id", LinTagType.intTag()).value(), actual.getTag("id", LinTagType.intTag()).value());
+        assertArrayEquals(
+                expected.getTag("data", LinTagType.byteArrayTag()).value(),
+                actual.getTag("data", LinTagType.byteArrayTag()).value()
+        );
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Path path = emptyRegionFile();
+        LinCompoundTag first = chunk(1, 3000);
+        LinCompoundTag second = chunk(2, 10000);
+        try (MCAFile file = new MCAFile(path)) {
+            assertEquals(-1, file.getRegionX());
+            assertEquals(2, file.getRegionZ());
+            assertTrue(file.isEmpty());
+            file.writeChunk(0, 0, first);
+            file.writeChunk(31, 31, second);
+            assertChunk(first, file.readChunk(0, 0));
+            assertChunk(second, file.readChunk(31, 31));
+            assertNull(file.readChunk(5, 5));
+        }
+        try (MCAFile file = new MCAFile(path)) {
+            assertTrue(file.hasChunk(0, 0));
+            assertTrue(file.hasChunk(31, 31));
+            assertFalse(file.hasChunk(5, 5));
+            assertChunk(first, file.readChunk(0, 0));
+            assertChunk(second, file.readChunk(31, 31));
+        }
+    }
+
+    @Test
+    void testReallocation() throws IOException {
+        Path path = emptyRegionFile();
+        LinCompoundTag second = chunk(2, 3000);
+        try (MCAFile file = new MCAFile(path)) {
+            file.writeChunk(0, 0, chunk(1, 3000));
+            file.writeChunk(1, 0, second);
+            // Grows past its sectors, so it must move without overwriting the next chunk
+            LinCompoundTag grown = chunk(3, 20000);
+            file.writeChunk(0, 0, grown);
+            assertChunk(grown, file.readChunk(0, 0));
+            assertChunk(second, file.readChunk(1, 0));
+            // Fits in the sectors freed by the first chunk
+            LinCompoundTag third = chunk(4, 3000);
+            file.writeChunk(2, 0, third);
+            assertChunk(third, file.readChunk(2, 0));
+            assertChunk(grown, file.readChunk(0, 0));
+            assertChunk(second, file.readChunk(1, 0));
+        }
+        try (MCAFile file = new MCAFile(path)) {
+            assertChunk(second, file.readChunk(1, 0));
+        }
+    }
+
+    @Test
+    void testDeleteAndTruncate() throws IOException {
+        Path path = emptyRegionFile();
+        LinCompoundTag first = chunk(1, 3000);
+        try (MCAFile file = new MCAFile(path)) {
+            file.writeChunk(0, 0, first);
+            file.writeChunk(1, 0, chunk(2, 50000));
+        }
+        long size = Files.size(path);
+        try (MCAFile file = new MCAFile(path)) {
+            assertTrue(file.deleteChunk(1, 0));
+            assertFalse(file.deleteChunk(1, 0));
+            assertFalse(file.hasChunk(1, 0));
+            assertFalse(file.isEmpty());
+        }
+        assertTrue(Files.size(path) < size);
+        assertEquals(0, Files.size(path) % 4096);
+        try (MCAFile file = new MCAFile(path)) {
+            assertChunk(first, file.readChunk(0, 0));
+            assertTrue(file.deleteChunk(0, 0));
+            assertTrue(file.isEmpty());
+        }
+    }
+
+}
@@ -0,0 +1,164 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.sk89q.jnbt.CompoundTag;
+import com.sk89q.jnbt.IntTag;
+import com.sk89q.jnbt.StringTag;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockTypesCache;
+import org.junit.jupiter.api.Test;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that blocks, block entities and biomes written to a {@link SectionedClipboard} read back the same, across
+ * section boundaries and palette growth, and that it is only pasted by section into supported edit sessions.
+ */
+class SectionedClipboardTest {
+
+    // not a multiple of 16 in any direction, so the last sections are partial
+    private static final BlockVector3 SIZE = BlockVector3.at(37, 21, 18);
+
+    private static SectionedClipboard clipboard() {
+        return new SectionedClipboard(new CuboidRegion(BlockVector3.at(-5, -64, 100), BlockVector3.at(-5, -64, 100)
+                .add(SIZE).subtract(1, 1, 1)));
+    }
+
+    private static BlockState state(int ordinal) {
+        BlockState state = mock();
+        when(state.getOrdinal()).thenReturn(ordinal);
+        return state;
+    }
+
+    @Test
+    void testBlocksRoundTrip() {
+        SectionedClipboard clipboard = clipboard();
+        // enough distinct states in the first section for it to outgrow its palette
+        Random random = new Random(1);
+        char[] expected = new char[SIZE.x() * SIZE.y() * SIZE.z()];
+        Map<Integer, BlockState> states = new HashMap<>();
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    int ordinal;
+                    if (x < 16 && y < 16 && z < 16) {
+                        ordinal = 1 + random.nextInt(400);
+                    } else if (x < 32) {
+                        ordinal = 1 + random.nextInt(5);
+                    } else {
+                        // a single state, and some blocks never set
+                        if (random.nextBoolean()) {
+                            continue;
+                        }
+                        ordinal = 7;
+                    }
+                    expected[clipboard.getIndex(x, y, z)] = (char) ordinal;
+                    clipboard.setBlock(x, y, z, states.computeIfAbsent(ordinal, SectionedClipboardTest::state));
+                }
+            }
+        }
+
+        char[] row = new char[SIZE.x()];
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                clipboard.readOrdinals(0, y, z, SIZE.x(), row);
+                for (int x = 0; x < SIZE.x(); x++) {
+                    char ordinal = expected[clipboard.getIndex(x, y, z)];
+                    if (ordinal == 0) {
+                        ordinal = BlockTypesCache.ReservedIDs.__RESERVED__;
+                    }
+                    assertEquals(ordinal, row[x], x + " " + y + " " + z);
+                }
+                // rows starting within a section read the same
+                char[] offset = new char[SIZE.x() - 9];
+                clipboard.readOrdinals(9, y, z, offset.length, offset);
+                for (int i = 0; i < offset.length; i++) {
+                    assertEquals(row[9 + i], offset[i]);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testTilesRoundTrip() {
+        SectionedClipboard clipboard = clipboard();
+        CompoundTag sign = new CompoundTag(Map.of("id", new StringTag("minecraft:oak_sign")));
+        BaseBlock block = mock();
+        when(block.getOrdinal()).thenReturn(42);
+        when(block.hasNbtData()).thenReturn(true);
+        when(block.getNbtData()).thenReturn(sign);
+        clipboard.setBlock(36, 20, 17, block);
+        clipboard.setBlock(16, 0, 0, block);
+
+        char[] row = new char[1];
+        clipboard.readOrdinals(36, 20, 17, 1, row);
+        assertEquals(42, row[0]);
+        Collection<CompoundTag> tiles = clipboard.getTileEntities();
+        assertEquals(2, tiles.size());
+        boolean found = false;
+        for (CompoundTag tile : tiles) {
+            assertEquals("minecraft:oak_sign", ((StringTag) tile.getValue().get("id")).getValue());
+            if (((IntTag) tile.getValue().get("x")).getValue() == 36) {
+                assertEquals(20, ((IntTag) tile.getValue().get("y")).getValue());
+                assertEquals(17, ((IntTag) tile.getValue().get("z")).getValue());
+                found = true;
+            }
+        }
+        assertTrue(found);
+    }
+
+    @Test
+    void testBiomesRoundTrip() {
+        SectionedClipboard clipboard = clipboard();
+        assertFalse(clipboard.hasBiomes());
+        BiomeType plains = mock();
+        when(plains.getInternalId()).thenReturn(1);
+        BiomeType desert = mock();
+        when(desert.getInternalId()).thenReturn(200);
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    clipboard.setBiome(x, y, z, x >= 32 || z >= 16 ? desert : plains);
+                }
+            }
+        }
+        assertTrue(clipboard.hasBiomes());
+        int[] biomes = new int[SIZE.x() * SIZE.y() * SIZE.z()];
+        clipboard.streamBiomes((index, biome) -> biomes[index] = biome);
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    int expected = x >= 32 || z >= 16 ? 200 : 1;
+                    assertEquals(expected, biomes[clipboard.getIndex(x, y, z)], x + " " + y + " " + z);
+                }
+            }
+        }
+    }
+
+    @Test
+    void testPastesSectionsOnlyIntoQueueProcessedEditSessions() {
+        SectionedClipboard clipboard = clipboard();
+        assertTrue(clipboard.supportsParallelReads());
+        assertFalse(clipboard.pasteSections(mock(Extent.class), BlockVector3.ZERO, true, true));
+
+        EditSession editSession = mock();
+        when(editSession.isQueueProcessed()).thenReturn(false);
+        when(editSession.getExtent()).thenReturn(mock(Extent.class));
+        assertFalse(clipboard.pasteSections(editSession, BlockVector3.ZERO, true, true));
+    }
+
+}
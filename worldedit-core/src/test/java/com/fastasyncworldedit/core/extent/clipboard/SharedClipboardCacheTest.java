@@ -0,0 +1,183 @@
+package com.fastasyncworldedit.core.extent.clipboard;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.extent.clipboard.Clipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that the clipboards of a schematic loaded by a {@link SharedClipboardCache} share its storage until changed,
+ * and that the storage is only closed once every clipboard reading it is closed or unreachable.
+ */
+class SharedClipboardCacheTest {
+
+    private static final CuboidRegion REGION = new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(1, 1, 1));
+
+    private boolean useDisk;
+    private boolean shareSchematics;
+    private boolean useSections;
+    private int compressionLevel;
+    private final AtomicInteger loads = new AtomicInteger();
+    private SimpleClipboard storage;
+    private URI uri;
+
+    @TempDir
+    Path folder;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        useDisk = Settings.settings().CLIPBOARD.USE_DISK;
+        shareSchematics = Settings.settings().CLIPBOARD.SHARE_SCHEMATICS;
+        useSections = Settings.settings().CLIPBOARD.USE_SECTIONS;
+        compressionLevel = Settings.settings().CLIPBOARD.COMPRESSION_LEVEL;
+        Settings.settings().CLIPBOARD.USE_DISK = false;
+        Settings.settings().CLIPBOARD.SHARE_SCHEMATICS = true;
+        // copies are sectioned clipboards
+        Settings.settings().CLIPBOARD.USE_SECTIONS = true;
+        Settings.settings().CLIPBOARD.COMPRESSION_LEVEL = 1;
+
+        Path path = folder.resolve("shared.schem");
+        Files.writeString(path, "schematic");
+        uri = path.toUri();
+
+        BaseBlock block = mock();
+        when(block.getOrdinal()).thenReturn(5);
+        storage = mock();
+        when(storage.getRegion()).thenReturn(REGION);
+        when(storage.getOrigin()).thenReturn(BlockVector3.ZERO);
+        when(storage.getDimensions()).thenReturn(REGION.getDimensions());
+        when(storage.getWidth()).thenReturn(2);
+        when(storage.getHeight()).thenReturn(2);
+        when(storage.getLength()).thenReturn(2);
+        when(storage.getFullBlock(anyInt(), anyInt(), anyInt())).thenReturn(block);
+    }
+
+    @AfterEach
+    void tearDown() {
+        SharedClipboardCache.clearUnused();
+        Settings.settings().CLIPBOARD.USE_DISK = useDisk;
+        Settings.settings().CLIPBOARD.SHARE_SCHEMATICS = shareSchematics;
+        Settings.settings().CLIPBOARD.USE_SECTIONS = useSections;
+        Settings.settings().CLIPBOARD.COMPRESSION_LEVEL = compressionLevel;
+    }
+
+    private BlockArrayClipboard load() throws IOException {
+        Clipboard clipboard = SharedClipboardCache.load(uri, () -> {
+            loads.incrementAndGet();
+            return storage;
+        });
+        return assertInstanceOf(BlockArrayClipboard.class, clipboard);
+    }
+
+    @Test
+    void testCopyOnWrite() throws IOException {
+        BlockArrayClipboard first = load();
+        BlockArrayClipboard second = load();
+        assertEquals(1, loads.get());
+        assertSame(storage, first.getParent());
+        assertSame(storage, second.getParent());
+
+        BaseBlock changed = mock();
+        when(changed.getOrdinal()).thenReturn(9);
+        first.setBlock(BlockVector3.at(1, 0, 0), changed);
+
+        // only the changed clipboard reads its own copy
+        SectionedClipboard copy = assertInstanceOf(SectionedClipboard.class, first.getParent());
+        assertSame(storage, second.getParent());
+        verify(storage, never()).setBlock(anyInt(), anyInt(), anyInt(), any());
+        char[] row = new char[2];
+        copy.readOrdinals(0, 0, 0, 2, row);
+        assertEquals(5, row[0]);
+        assertEquals(9, row[1]);
+
+        // the copy holds no reference anymore, so the storage is unused once the other clipboard is closed
+        second.close();
+        SharedClipboardCache.clearUnused();
+        verify(storage).close();
+        first.close();
+    }
+
+    @Test
+    void testClosesStorageOnceUnused() throws IOException {
+        BlockArrayClipboard first = load();
+        BlockArrayClipboard second = load();
+
+        first.close();
+        // closing twice releases the reference once
+        first.close();
+        SharedClipboardCache.clearUnused();
+        verify(storage, never()).close();
+        assertSame(storage, second.getParent());
+
+        // unused schematics are kept to be shared again
+        second.close();
+        BlockArrayClipboard third = load();
+        assertEquals(1, loads.get());
+        assertSame(storage, third.getParent());
+        third.close();
+        verify(storage, never()).close();
+
+        SharedClipboardCache.clearUnused();
+        verify(storage).close();
+        load().close();
+        assertEquals(2, loads.get());
+    }
+
+    @Test
+    void testClosedClipboardFails() throws IOException {
+        BlockArrayClipboard first = load();
+        BlockArrayClipboard second = load();
+        first.close();
+
+        // the storage of a closed clipboard may be closed, so it is neither read nor copied
+        assertThrows(IllegalStateException.class, first::getParent);
+        assertThrows(IllegalStateException.class, () -> first.getBlock(BlockVector3.ZERO));
+        assertThrows(IllegalStateException.class, () -> first.setBlock(BlockVector3.ZERO, mock(BaseBlock.class)));
+        assertSame(storage, second.getParent());
+        second.close();
+    }
+
+    @Test
+    void testUnreachableClipboardReleases() throws IOException, InterruptedException {
+        AtomicBoolean closed = new AtomicBoolean();
+        doAnswer(invocation -> {
+            closed.set(true);
+            return null;
+        }).when(storage).close();
+        // e.g. the clipboard of a holder that was dropped without being closed
+        load();
+        for (int i = 0; i < 100 && !closed.get(); i++) {
+            System.gc();
+            Thread.sleep(10);
+            SharedClipboardCache.clearUnused();
+        }
+        assertTrue(closed.get());
+    }
+
+}
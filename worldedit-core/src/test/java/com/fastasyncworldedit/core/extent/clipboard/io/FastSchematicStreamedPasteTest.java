@@ -0,0 +1,205 @@
+package com.fastasyncworldedit.core.extent.clipboard.io;
+
+import com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard;
+import com.fastasyncworldedit.core.nbt.FaweCompoundTag;
+import com.sk89q.jnbt.NBTOutputStream;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.event.platform.PlatformsRegisteredEvent;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.regions.Region;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.registry.BlockMaterial;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinTagType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that a schematic written by a {@link FastSchematicWriterV3} and pasted by
+ * {@link FastSchematicReaderV3#paste(Extent, BlockVector3, boolean, boolean, boolean)} while it is read places the same
+ * blocks, block entities and biomes as pasting the clipboard it was written from.
+ */
+class FastSchematicStreamedPasteTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    private static final List<String> BLOCKS = List.of(
+            "minecraft:air",
+            "minecraft:cave_air",
+            "minecraft:void_air",
+            "minecraft:stone",
+            "minecraft:oak_sign",
+            "minecraft:chest"
+    );
+
+    private static final BlockVector3 SIZE = BlockVector3.at(20, 18, 17);
+    private static final BlockVector3 MIN = BlockVector3.at(-7, 60, 30);
+    private static final BlockVector3 ORIGIN = MIN.add(3, 0, 3);
+
+    private static BiomeType plains;
+    private static BiomeType desert;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        BlockRegistry blockRegistry = mock();
+        when(blockRegistry.values()).thenReturn(BLOCKS);
+        when(blockRegistry.getMaterial(any(BlockType.class))).thenAnswer(invocation -> {
+            String id = invocation.<BlockType>getArgument(0).id();
+            BlockMaterial material = mock();
+            when(material.isAir()).thenReturn(id.endsWith("air"));
+            when(material.isTile()).thenReturn(id.equals("minecraft:oak_sign") || id.equals("minecraft:chest"));
+            when(material.hasContainer()).thenReturn(id.equals("minecraft:chest"));
+            return material;
+        });
+        Registries registries = mock();
+        when(registries.getBlockRegistry()).thenReturn(blockRegistry);
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(registries);
+        when(MOCKED_PLATFORM.getId()).thenReturn("mock");
+        when(MOCKED_PLATFORM.getPlatformName()).thenReturn("Mock");
+        when(MOCKED_PLATFORM.getPlatformVersion()).thenReturn("1");
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(Map.of(
+                Capability.GAME_HOOKS, Preference.NORMAL,
+                Capability.CONFIGURATION, Preference.NORMAL,
+                Capability.WORLD_EDITING, Preference.NORMAL
+        ));
+        when(MOCKED_PLATFORM.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        WorldEdit.getInstance().getPlatformManager().register(MOCKED_PLATFORM);
+        WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
+
+        plains = biome("minecraft:plains");
+        desert = biome("minecraft:desert");
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+    }
+
+    private static BiomeType biome(String id) {
+        BiomeType biome = BiomeType.REGISTRY.get(id);
+        if (biome == null) {
+            biome = BiomeType.REGISTRY.register(id, new BiomeType(id));
+        }
+        return biome;
+    }
+
+    private static BlockState expectedBlock(int x, int y, int z) {
+        if (x == SIZE.x() - 1 && y == SIZE.y() - 1 && z == SIZE.z() - 1) {
+            return BlockTypes.get("minecraft:oak_sign").getDefaultState();
+        }
+        return (x + y + z) % 3 == 0 ? BlockTypes.get("minecraft:stone").getDefaultState() : BlockTypes.AIR.getDefaultState();
+    }
+
+    private static BiomeType expectedBiome(int x, int y, int z) {
+        return x >= 16 ? desert : plains;
+    }
+
+    private Path write() throws IOException {
+        CuboidRegion region = new CuboidRegion(MIN, MIN.add(SIZE).subtract(BlockVector3.ONE));
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region, new SectionedClipboard(region));
+        clipboard.setOrigin(ORIGIN);
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    BlockVector3 position = MIN.add(x, y, z);
+                    BlockState state = expectedBlock(x, y, z);
+                    if (state.getMaterial().isTile()) {
+                        LinCompoundTag tile = LinCompoundTag.builder()
+                                .putString("id", "minecraft:sign")
+                                .putString("Text", "streamed")
+                                .build();
+                        clipboard.setBlock(position, state.toBaseBlock(LazyReference.computed(tile)));
+                    } else {
+                        clipboard.setBlock(position, state);
+                    }
+                    clipboard.setBiome(position, expectedBiome(x, y, z));
+                }
+            }
+        }
+        Path path = folder.resolve("streamed.schem");
+        try (FastSchematicWriterV3 writer = new FastSchematicWriterV3(new NBTOutputStream(
+                new GZIPOutputStream(Files.newOutputStream(path))))) {
+            writer.write(clipboard);
+        }
+        return path;
+    }
+
+    @Test
+    void testPastesWhileReading() throws IOException {
+        Path path = write();
+        Extent extent = mock();
+        BlockVector3 to = BlockVector3.at(100, -20, -100);
+        Region pasted;
+        try (FastSchematicReaderV3 reader = new FastSchematicReaderV3(new FileInputStream(path.toFile()))) {
+            pasted = reader.paste(extent, to, false, true, false);
+        }
+
+        // where pasting the clipboard with its origin at the position places its blocks
+        BlockVector3 min = to.add(MIN.subtract(ORIGIN));
+        assertEquals(min, pasted.getMinimumPoint());
+        assertEquals(min.add(SIZE).subtract(BlockVector3.ONE), pasted.getMaximumPoint());
+        int stone = 0;
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    BlockState state = expectedBlock(x, y, z);
+                    if (state.getBlockType() == BlockTypes.get("minecraft:stone")) {
+                        verify(extent).setBlock(min.x() + x, min.y() + y, min.z() + z, state);
+                        stone++;
+                    }
+                    verify(extent).setBiome(min.x() + x, min.y() + y, min.z() + z, expectedBiome(x, y, z));
+                }
+            }
+        }
+        BlockState stoneState = BlockTypes.get("minecraft:stone").getDefaultState();
+        verify(extent, times(stone)).setBlock(anyInt(), anyInt(), anyInt(), eq(stoneState));
+        // air is not pasted
+        verify(extent, never()).setBlock(anyInt(), anyInt(), anyInt(), eq(BlockTypes.AIR.getDefaultState()));
+
+        BlockVector3 sign = min.add(SIZE).subtract(BlockVector3.ONE);
+        verify(extent).setBlock(sign.x(), sign.y(), sign.z(), BlockTypes.get("minecraft:oak_sign").getDefaultState());
+        verify(extent).tile(eq(sign.x()), eq(sign.y()), eq(sign.z()), argThat((FaweCompoundTag tag) ->
+                "streamed".equals(tag.linTag().getTag("Text", LinTagType.stringTag()).value())));
+    }
+
+}
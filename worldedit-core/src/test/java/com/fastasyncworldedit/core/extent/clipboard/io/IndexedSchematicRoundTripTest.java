@@ -0,0 +1,228 @@
+package com.fastasyncworldedit.core.extent.clipboard.io;
+
+import com.fastasyncworldedit.core.extent.clipboard.IndexedSchematicClipboard;
+import com.fastasyncworldedit.core.extent.clipboard.SectionedClipboard;
+import com.sk89q.worldedit.LocalConfiguration;
+import com.sk89q.worldedit.WorldEdit;
+import com.sk89q.worldedit.event.platform.PlatformsRegisteredEvent;
+import com.sk89q.worldedit.extension.platform.Capability;
+import com.sk89q.worldedit.extension.platform.Platform;
+import com.sk89q.worldedit.extension.platform.Preference;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.clipboard.BlockArrayClipboard;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import com.sk89q.worldedit.util.concurrency.LazyReference;
+import com.sk89q.worldedit.world.biome.BiomeType;
+import com.sk89q.worldedit.world.block.BaseBlock;
+import com.sk89q.worldedit.world.block.BlockState;
+import com.sk89q.worldedit.world.block.BlockStateHolder;
+import com.sk89q.worldedit.world.block.BlockType;
+import com.sk89q.worldedit.world.block.BlockTypes;
+import com.sk89q.worldedit.world.registry.BlockMaterial;
+import com.sk89q.worldedit.world.registry.BlockRegistry;
+import com.sk89q.worldedit.world.registry.Registries;
+import org.enginehub.linbus.tree.LinCompoundTag;
+import org.enginehub.linbus.tree.LinTagType;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that a clipboard written by an {@link IndexedSchematicWriter} reads back the same from an
+ * {@link IndexedSchematicClipboard}, including block entities of blocks without a container, biomes and the partial regions
+ * at the edges of the schematic.
+ */
+class IndexedSchematicRoundTripTest {
+
+    private static final Platform MOCKED_PLATFORM = mock(Platform.class);
+    private static final List<String> BLOCKS = List.of(
+            "minecraft:air",
+            "minecraft:cave_air",
+            "minecraft:void_air",
+            "minecraft:stone",
+            "minecraft:oak_sign",
+            "minecraft:chest"
+    );
+
+    // not a multiple of 16 in any direction, so the regions at the edges are partial
+    private static final BlockVector3 SIZE = BlockVector3.at(20, 18, 17);
+    private static final BlockVector3 MIN = BlockVector3.at(-7, 60, 30);
+
+    private static BiomeType plains;
+    private static BiomeType desert;
+
+    @TempDir
+    Path folder;
+
+    @BeforeAll
+    static void setupFakePlatform() {
+        BlockRegistry blockRegistry = mock();
+        when(blockRegistry.values()).thenReturn(BLOCKS);
+        when(blockRegistry.getMaterial(any(BlockType.class))).thenAnswer(invocation -> {
+            String id = invocation.<BlockType>getArgument(0).id();
+            BlockMaterial material = mock();
+            when(material.isAir()).thenReturn(id.endsWith("air"));
+            when(material.isTile()).thenReturn(id.equals("minecraft:oak_sign") || id.equals("minecraft:chest"));
+            when(material.hasContainer()).thenReturn(id.equals("minecraft:chest"));
+            return material;
+        });
+        Registries registries = mock();
+        when(registries.getBlockRegistry()).thenReturn(blockRegistry);
+        when(MOCKED_PLATFORM.getRegistries()).thenReturn(registries);
+        when(MOCKED_PLATFORM.getCapabilities()).thenReturn(Map.of(
+                Capability.GAME_HOOKS, Preference.NORMAL,
+                Capability.CONFIGURATION, Preference.NORMAL,
+                Capability.WORLD_EDITING, Preference.NORMAL
+        ));
+        when(MOCKED_PLATFORM.getConfiguration()).thenReturn(new LocalConfiguration() {
+            @Override
+            public void load() {
+            }
+        });
+        WorldEdit.getInstance().getPlatformManager().register(MOCKED_PLATFORM);
+        WorldEdit.getInstance().getEventBus().post(new PlatformsRegisteredEvent());
+
+        plains = biome("minecraft:plains");
+        desert = biome("minecraft:desert");
+    }
+
+    @AfterAll
+    static void tearDownFakePlatform() {
+        WorldEdit.getInstance().getPlatformManager().unregister(MOCKED_PLATFORM);
+    }
+
+    private static BiomeType biome(String id) {
+        BiomeType biome = BiomeType.REGISTRY.get(id);
+        if (biome == null) {
+            biome = BiomeType.REGISTRY.register(id, new BiomeType(id));
+        }
+        return biome;
+    }
+
+    private static BlockState expectedBlock(int x, int y, int z) {
+        if (x == SIZE.x() - 1 && y == SIZE.y() - 1 && z == SIZE.z() - 1) {
+            return BlockTypes.get("minecraft:oak_sign").getDefaultState();
+        }
+        if (x == 1 && y == 1 && z == 1) {
+            return BlockTypes.get("minecraft:chest").getDefaultState();
+        }
+        return (x + y + z) % 3 == 0 ? BlockTypes.get("minecraft:stone").getDefaultState() : BlockTypes.AIR.getDefaultState();
+    }
+
+    private static BiomeType expectedBiome(int x, int y, int z) {
+        return x >= 16 || y >= 16 ? desert : plains;
+    }
+
+    private static LinCompoundTag tile(String text) {
+        return LinCompoundTag.builder().putString("Text", text).build();
+    }
+
+    private static String text(BaseBlock block) {
+        assertNotNull(block.getNbt(), block.toString());
+        return block.getNbt().getTag("Text", LinTagType.stringTag()).value();
+    }
+
+    private Path write() throws IOException {
+        CuboidRegion region = new CuboidRegion(MIN, MIN.add(SIZE).subtract(BlockVector3.ONE));
+        BlockArrayClipboard clipboard = new BlockArrayClipboard(region, new SectionedClipboard(region));
+        clipboard.setOrigin(MIN.add(3, 0, 3));
+        for (int y = 0; y < SIZE.y(); y++) {
+            for (int z = 0; z < SIZE.z(); z++) {
+                for (int x = 0; x < SIZE.x(); x++) {
+                    BlockVector3 position = MIN.add(x, y, z);
+                    BlockState state = expectedBlock(x, y, z);
+                    if (state.getMaterial().isTile()) {
+                        clipboard.setBlock(position, state.toBaseBlock(LazyReference.computed(tile(state.getBlockType().id()))));
+                    } else {
+                        clipboard.setBlock(position, state);
+                    }
+                    clipboard.setBiome(position, expectedBiome(x, y, z));
+                }
+            }
+        }
+        Path path = folder.resolve("clipboard.indexed");
+        try (OutputStream out = Files.newOutputStream(path);
+             IndexedSchematicWriter writer = new IndexedSchematicWriter(out)) {
+            writer.write(clipboard);
+        }
+        return path;
+    }
+
+    private static IndexedSchematicClipboard open(Path path) throws IOException {
+        return IndexedSchematicClipboard.open(FileChannel.open(path, StandardOpenOption.READ));
+    }
+
+    @Test
+    void testRoundTrip() throws IOException {
+        Path path = write();
+        try (IndexedSchematicClipboard clipboard = open(path)) {
+            assertEquals(SIZE, clipboard.getDimensions());
+            assertEquals(MIN, clipboard.getSchematicRegion().getMinimumPoint());
+            assertTrue(clipboard.hasBiomes());
+            for (int y = 0; y < SIZE.y(); y++) {
+                for (int z = 0; z < SIZE.z(); z++) {
+                    for (int x = 0; x < SIZE.x(); x++) {
+                        String at = x + " " + y + " " + z;
+                        assertEquals(expectedBlock(x, y, z), clipboard.getBlock(x, y, z), at);
+                        assertEquals(expectedBiome(x, y, z), clipboard.getBiomeType(x, y, z), at);
+                        BaseBlock block = clipboard.getFullBlock(x, y, z);
+                        if (!block.getBlockType().getMaterial().isTile()) {
+                            assertNull(block.getNbt(), at);
+                        }
+                    }
+                }
+            }
+            // the sign has no container, and is in the partial region in the corner of the schematic
+            assertEquals("minecraft:oak_sign", text(clipboard.getFullBlock(SIZE.x() - 1, SIZE.y() - 1, SIZE.z() - 1)));
+            assertEquals("minecraft:chest", text(clipboard.getFullBlock(1, 1, 1)));
+        }
+    }
+
+    @Test
+    void testPasteRegions() throws IOException {
+        Path path = write();
+        Extent extent = mock();
+        BlockVector3 to = BlockVector3.at(100, 0, -100);
+        try (IndexedSchematicClipboard clipboard = open(path)) {
+            clipboard.pasteRegions(extent, to, false, true);
+        }
+        verify(extent).setBlock(
+                eq(to.x() + SIZE.x() - 1),
+                eq(to.y() + SIZE.y() - 1),
+                eq(to.z() + SIZE.z() - 1),
+                argThat((BlockStateHolder<?> block) -> block instanceof BaseBlock base && base.getNbt() != null
+                        && text(base).equals("minecraft:oak_sign"))
+        );
+        verify(extent).setBlock(eq(to.x() + 1), eq(to.y() + 1), eq(to.z() + 1), argThat((BlockStateHolder<?> block) ->
+                block instanceof BaseBlock base && base.getNbt() != null && text(base).equals("minecraft:chest")));
+        // air is not pasted
+        verify(extent, never()).setBlock(eq(to.x() + 1), eq(to.y()), eq(to.z()), any());
+        verify(extent).setBiome(to.x() + SIZE.x() - 1, to.y(), to.z(), desert);
+        verify(extent).setBiome(to.x(), to.y() + SIZE.y() - 1, to.z() + SIZE.z() - 1, desert);
+        verify(extent).setBiome(to.x(), to.y(), to.z(), plains);
+    }
+
+}
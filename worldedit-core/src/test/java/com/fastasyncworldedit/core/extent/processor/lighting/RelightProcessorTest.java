@@ -0,0 +1,87 @@
+package com.fastasyncworldedit.core.extent.processor.lighting;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.queue.IChunk;
+import com.fastasyncworldedit.core.queue.IChunkGet;
+import com.fastasyncworldedit.core.queue.IChunkSet;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that a {@link RelightProcessor} queues the chunks each {@link RelightMode} relights.
+ */
+class RelightProcessorTest {
+
+    private int mode;
+    private Relighter relighter;
+    private IChunk chunk;
+    private IChunkGet get;
+    private IChunkSet set;
+
+    @BeforeEach
+    void setUp() {
+        mode = Settings.settings().LIGHTING.MODE;
+        relighter = mock();
+        chunk = mock();
+        when(chunk.getX()).thenReturn(3);
+        when(chunk.getZ()).thenReturn(-2);
+        when(chunk.getBitMask()).thenReturn(0b100);
+        get = mock();
+        when(get.getSectionCount()).thenReturn(4);
+        when(get.getMinSectionPosition()).thenReturn(-1);
+        when(get.getMaxSectionPosition()).thenReturn(2);
+        set = mock();
+    }
+
+    @AfterEach
+    void tearDown() {
+        Settings.settings().LIGHTING.MODE = mode;
+    }
+
+    private void process(RelightMode mode) {
+        Settings.settings().LIGHTING.MODE = mode.getMode();
+        new RelightProcessor(relighter).processSet(chunk, get, set);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RelightMode.class, names = {"OPTIMAL", "STREAMED"})
+    void testQueuesChangedChunks(RelightMode mode) {
+        when(set.hasSection(1)).thenReturn(true);
+        process(mode);
+        // the sections above the highest changed one are skipped
+        verify(relighter).addChunk(3, -2, new byte[]{0, 0, 0, Relighter.SkipReason.AIR}, 0b100);
+    }
+
+    @ParameterizedTest
+    @EnumSource(value = RelightMode.class, names = {"OPTIMAL", "STREAMED"})
+    void testSkipsUnchangedChunks(RelightMode mode) {
+        process(mode);
+        verify(relighter, never()).addChunk(anyInt(), anyInt(), any(), anyInt());
+    }
+
+    @Test
+    void testQueuesAllChunks() {
+        process(RelightMode.ALL);
+        verify(relighter).addChunk(eq(3), eq(-2), isNull(), eq(0b100));
+    }
+
+    @Test
+    void testQueuesNothingWithoutRelighting() {
+        when(set.hasSection(1)).thenReturn(true);
+        process(RelightMode.NONE);
+        verify(relighter, never()).addChunk(anyInt(), anyInt(), any(), anyInt());
+    }
+
+}
@@ -0,0 +1,69 @@
+package com.fastasyncworldedit.core.internal.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Verifies that a {@link ReadAheadInputStream} reads the same bytes as its parent, and reports its errors to the reader.
+ */
+class ReadAheadInputStreamTest {
+
+    @Test
+    void testReadsParent() throws IOException {
+        byte[] data = new byte[1_000_003];
+        new Random(1).nextBytes(data);
+        try (ReadAheadInputStream in = new ReadAheadInputStream(new ByteArrayInputStream(data), ForkJoinPool.commonPool())) {
+            assertEquals(data[0] & 0xFF, in.read());
+            byte[] read = new byte[data.length];
+            read[0] = data[0];
+            assertEquals(data.length - 1, in.readNBytes(read, 1, data.length - 1));
+            assertArrayEquals(data, read);
+            assertEquals(-1, in.read());
+            assertEquals(-1, in.read(new byte[1], 0, 1));
+        }
+    }
+
+    @Test
+    void testCloseBeforeEnd() throws IOException {
+        ReadAheadInputStream in = new ReadAheadInputStream(new InputStream() {
+            @Override
+            public int read() {
+                return 1;
+            }
+        }, ForkJoinPool.commonPool());
+        assertEquals(1, in.read());
+        // Stops the task still reading the endless parent
+        in.close();
+        assertEquals(-1, in.read());
+    }
+
+    @Test
+    void testError() {
+        InputStream failing = new InputStream() {
+            private int remaining = 10;
+
+            @Override
+            public int read() throws IOException {
+                if (remaining-- <= 0) {
+                    throw new IOException("failed");
+                }
+                return 0;
+            }
+        };
+        assertThrows(IOException.class, () -> {
+            try (ReadAheadInputStream in = new ReadAheadInputStream(failing, ForkJoinPool.commonPool())) {
+                in.readAllBytes();
+            }
+        });
+    }
+
+}
@@ -0,0 +1,147 @@
+package com.fastasyncworldedit.core.math;
+
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that a {@link BitmapBlockVectorSet} behaves as a set of positions across section, chunk and negative coordinate
+ * boundaries.
+ */
+class BitmapBlockVectorSetTest {
+
+    private static final List<BlockVector3> BOUNDARIES = List.of(
+            BlockVector3.at(0, 0, 0),
+            BlockVector3.at(-1, -1, -1),
+            BlockVector3.at(15, 15, 15),
+            BlockVector3.at(16, 16, 16),
+            BlockVector3.at(-16, -16, -16),
+            BlockVector3.at(-17, -65, -17),
+            BlockVector3.at(15, -64, -16),
+            BlockVector3.at(30_000_000, 319, -30_000_000)
+    );
+
+    @Test
+    void testAddContains() {
+        BitmapBlockVectorSet set = new BitmapBlockVectorSet();
+        for (BlockVector3 pos : BOUNDARIES) {
+            assertFalse(set.contains(pos.x(), pos.y(), pos.z()), pos.toString());
+            assertTrue(set.add(pos.x(), pos.y(), pos.z()), pos.toString());
+            assertFalse(set.add(pos), pos.toString());
+        }
+        assertEquals(BOUNDARIES.size(), set.size());
+        for (BlockVector3 pos : BOUNDARIES) {
+            assertTrue(set.contains(pos), pos.toString());
+            // neighbours in the same and adjacent sections were never added
+            assertFalse(set.contains(pos.x() + 1, pos.y(), pos.z()), pos.toString());
+            assertFalse(set.contains(pos.x(), pos.y() - 1, pos.z()), pos.toString());
+            assertFalse(set.contains(pos.x(), pos.y(), pos.z() - 1), pos.toString());
+        }
+    }
+
+    @Test
+    void testRemove() {
+        BitmapBlockVectorSet set = new BitmapBlockVectorSet();
+        set.addAll(BOUNDARIES);
+        for (BlockVector3 pos : BOUNDARIES) {
+            assertTrue(set.remove(pos.x(), pos.y(), pos.z()), pos.toString());
+            assertFalse(set.remove(pos), pos.toString());
+            assertFalse(set.contains(pos), pos.toString());
+        }
+        assertEquals(0, set.size());
+        assertTrue(set.isEmpty());
+        assertFalse(set.iterator().hasNext());
+    }
+
+    @Test
+    void testIterate() {
+        Set<BlockVector3> expected = random(1, 2000);
+        BitmapBlockVectorSet set = new BitmapBlockVectorSet();
+        set.addAll(expected);
+        assertEquals(expected.size(), set.size());
+
+        Set<BlockVector3> iterated = new HashSet<>();
+        for (BlockVector3 pos : set) {
+            assertTrue(iterated.add(pos), pos.toString());
+        }
+        assertEquals(expected, iterated);
+
+        Set<BlockVector3> visited = new HashSet<>();
+        set.forEach((x, y, z) -> assertTrue(visited.add(BlockVector3.at(x, y, z))));
+        assertEquals(expected, visited);
+    }
+
+    @ParameterizedTest
+    @ValueSource(ints = {1, 2, 3, 8})
+    void testPartitionedForEach(int partitions) {
+        Set<BlockVector3> expected = random(2, 5000);
+        BitmapBlockVectorSet set = new BitmapBlockVectorSet();
+        set.addAll(expected);
+        Set<BlockVector3> visited = new HashSet<>();
+        for (int partition = 0; partition < partitions; partition++) {
+            Set<Long> chunks = new HashSet<>();
+            set.forEach(partitions, partition, (x, y, z) -> {
+                // each position is visited by exactly one partition
+                assertTrue(visited.add(BlockVector3.at(x, y, z)));
+                chunks.add(((long) (x >> 4) << 32) | ((z >> 4) & 0xFFFFFFFFL));
+            });
+            for (int other = 0; other < partitions; other++) {
+                if (other != partition) {
+                    // and so is each chunk
+                    set.forEach(partitions, other, (x, y, z) -> assertFalse(chunks.contains(
+                            ((long) (x >> 4) << 32) | ((z >> 4) & 0xFFFFFFFFL))));
+                }
+            }
+        }
+        assertEquals(expected, visited);
+    }
+
+    @Test
+    void testUnionIntersection() {
+        Set<BlockVector3> first = random(3, 3000);
+        Set<BlockVector3> second = random(4, 3000);
+        BitmapBlockVectorSet a = new BitmapBlockVectorSet();
+        a.addAll(first);
+        BitmapBlockVectorSet b = new BitmapBlockVectorSet();
+        b.addAll(second);
+
+        BitmapBlockVectorSet union = a.copy();
+        assertTrue(union.union(b));
+        Set<BlockVector3> expectedUnion = new HashSet<>(first);
+        expectedUnion.addAll(second);
+        assertEquals(expectedUnion.size(), union.size());
+        assertEquals(expectedUnion, new HashSet<>(union));
+        assertFalse(union.union(b));
+
+        BitmapBlockVectorSet intersection = a.copy();
+        assertTrue(intersection.intersection(b));
+        Set<BlockVector3> expectedIntersection = new HashSet<>(first);
+        expectedIntersection.retainAll(second);
+        assertEquals(expectedIntersection.size(), intersection.size());
+        assertEquals(expectedIntersection, new HashSet<>(intersection));
+
+        // the copies did not change the original
+        assertEquals(first, new HashSet<>(a));
+    }
+
+    // random positions around the origin, spanning negative coordinates and several sections and chunks
+    private static Set<BlockVector3> random(long seed, int count) {
+        Random random = new Random(seed);
+        Set<BlockVector3> positions = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            positions.add(BlockVector3.at(random.nextInt(80) - 40, random.nextInt(80) - 72, random.nextInt(80) - 40));
+        }
+        return positions;
+    }
+
+}
@@ -0,0 +1,78 @@
+package com.fastasyncworldedit.core.queue.implementation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that a {@link TickBudget} adapts to how long ticks take and only starts the tasks expected to fit in it.
+ */
+class TickBudgetTest {
+
+    private static final long START = TimeUnit.SECONDS.toNanos(1);
+    private static final long TARGET = ms(50);
+
+    @Test
+    void testShrinksByOverrun() {
+        TickBudget budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, TARGET);
+        assertEquals(ms(10), budget.getBudget());
+        budget.startTick(START + ms(54), -1, TARGET, TARGET);
+        assertEquals(ms(6), budget.getBudget());
+    }
+
+    @Test
+    void testGrowsWithinTarget() {
+        TickBudget budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, TARGET);
+        budget.startTick(START + ms(50), -1, TARGET, TARGET);
+        assertEquals(ms(11), budget.getBudget());
+    }
+
+    @Test
+    void testReportedTickDuration() {
+        TickBudget budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, TARGET);
+        // a reported tick duration is used over the time between ticks, which includes the time waited for the next tick
+        budget.startTick(START + ms(50), ms(20), ms(15), TARGET);
+        assertEquals(ms(5), budget.getBudget());
+        budget.startTick(START + ms(100), ms(12), ms(15), TARGET);
+        assertEquals(ms(6), budget.getBudget());
+    }
+
+    @Test
+    void testClamped() {
+        TickBudget budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, TARGET);
+        budget.startTick(START + ms(500), -1, TARGET, TARGET);
+        assertEquals(TickBudget.MIN_BUDGET, budget.getBudget());
+
+        budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, ms(5));
+        assertEquals(ms(5), budget.getBudget());
+    }
+
+    @Test
+    void testFits() {
+        TickBudget budget = new TickBudget();
+        budget.startTick(START, -1, TARGET, TARGET);
+        // the first task of a tick always fits
+        assertTrue(budget.fits(START + ms(100), true));
+        budget.record(ms(11), true);
+        assertFalse(budget.fits(START + ms(100), true));
+        // chunk applies are now expected to take 3ms, other tasks still 1ms
+        assertEquals(ms(3), budget.getChunkCost(), 1);
+        assertFalse(budget.fits(START + ms(8), true));
+        assertTrue(budget.fits(START + ms(8), false));
+        assertEquals(1, budget.getCompleted());
+    }
+
+    private static long ms(long millis) {
+        return TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+}
@@ -0,0 +1,62 @@
+package com.fastasyncworldedit.core.world.snapshot;
+
+import com.fastasyncworldedit.core.queue.implementation.ParallelQueueExtent;
+import com.sk89q.worldedit.EditSession;
+import com.sk89q.worldedit.extent.Extent;
+import com.sk89q.worldedit.extent.inventory.BlockBag;
+import com.sk89q.worldedit.math.BlockVector3;
+import com.sk89q.worldedit.regions.CuboidRegion;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Verifies that snapshots are only restored by chunk into edit sessions whose history and limits would not be bypassed.
+ */
+class ChunkSnapshotRestoreTest {
+
+    private static EditSession editSession(boolean queueProcessed, boolean parallel, boolean blockBag) {
+        EditSession editSession = mock();
+        when(editSession.isQueueProcessed()).thenReturn(queueProcessed);
+        when(editSession.getExtent()).thenReturn(parallel ? mock(ParallelQueueExtent.class) : mock(Extent.class));
+        when(editSession.getBlockBag()).thenReturn(blockBag ? mock(BlockBag.class) : null);
+        return editSession;
+    }
+
+    @Test
+    void testSupportedWhenQueueProcessed() {
+        assertTrue(ChunkSnapshotRestore.isSupported(editSession(true, true, false)));
+    }
+
+    @Test
+    void testUnsupportedWhenHistoryOrLimitsAreExtents() {
+        EditSession editSession = editSession(false, true, false);
+        assertFalse(ChunkSnapshotRestore.isSupported(editSession));
+        ChunkSnapshotRestore restore = new ChunkSnapshotRestore(
+                position -> {
+                    throw new AssertionError("No chunk should be read");
+                },
+                editSession,
+                new CuboidRegion(BlockVector3.ZERO, BlockVector3.at(15, 15, 15)),
+                false,
+                false,
+                false
+        );
+        assertThrows(IllegalStateException.class, restore::restore);
+    }
+
+    @Test
+    void testUnsupportedWithBlockBag() {
+        assertFalse(ChunkSnapshotRestore.isSupported(editSession(true, true, true)));
+    }
+
+    @Test
+    void testUnsupportedWithoutParallelQueue() {
+        assertFalse(ChunkSnapshotRestore.isSupported(editSession(true, false, false)));
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.sk89q.worldedit.function.visitor;
+
+import com.fastasyncworldedit.core.configuration.Settings;
+import com.fastasyncworldedit.core.util.collection.BlockVector3Set;
+import com.sk89q.worldedit.function.RegionFunction;
+import com.sk89q.worldedit.function.mask.Mask;
+import com.sk89q.worldedit.function.operation.Operations;
+import com.sk89q.worldedit.math.BlockVector3;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that a parallel {@link BreadthFirstSearch} visits the same positions as a sequential one.
+ */
+class ParallelFloodFillTest {
+
+    private static final int MIN_Y = -64;
+    private static final int MAX_Y = 319;
+    private static final BlockVector3 ORIGIN = BlockVector3.at(3, 40, -7);
+
+    /**
+     * A cave: every position within a sphere, except for a fixed pseudo random fifth of them.
+     */
+    private record CaveMask(int radius) implements Mask {
+
+        @Override
+        public boolean test(BlockVector3 vector) {
+            int x = vector.x() - ORIGIN.x();
+            int y = vector.y() - ORIGIN.y();
+            int z = vector.z() - ORIGIN.z();
+            if (x * x + y * y + z * z > radius * radius) {
+                return false;
+            }
+            int hash = (x * 73856093) ^ (y * 19349663) ^ (z * 83492791);
+            return Math.floorMod(hash, 5) != 0;
+        }
+
+        @Override
+        public Mask copy() {
+            return this;
+        }
+
+    }
+
+    /**
+     * A cave mask that counts its copies and fails if a copy is tested by more than one thread at a time.
+     */
+    private static final class CopiedCaveMask implements Mask {
+
+        private final Mask cave = new CaveMask(40);
+        private final AtomicInteger copies;
+        private final AtomicInteger testing = new AtomicInteger();
+
+        private CopiedCaveMask(AtomicInteger copies) {
+            this.copies = copies;
+        }
+
+        @Override
+        public boolean test(BlockVector3 vector) {
+            if (testing.getAndIncrement() != 0) {
+                throw new IllegalStateException("Tested by several threads");
+            }
+            try {
+                return cave.test(vector);
+            } finally {
+                testing.decrementAndGet();
+            }
+        }
+
+        @Override
+        public Mask copy() {
+            copies.incrementAndGet();
+            return new CopiedCaveMask(copies);
+        }
+
+    }
+
+    private record Result(int affected, Set<BlockVector3> applied, Set<BlockVector3> visited) {
+
+    }
+
+    private static Result search(boolean downward, int maxDepth, boolean parallel) {
+        Set<BlockVector3> applied = ConcurrentHashMap.newKeySet();
+        RegionFunction function = position -> applied.add(position.toImmutable());
+        Mask mask = new CaveMask(40);
+        RecursiveVisitor visitor = downward
+                ? new DownwardVisitor(mask, function, ORIGIN.y(), maxDepth, MIN_Y, MAX_Y)
+                : new RecursiveVisitor(mask, function, maxDepth, MIN_Y, MAX_Y);
+        if (parallel) {
+            visitor.setParallel(() -> function);
+            assertTrue(visitor.isParallel());
+        }
+        visitor.visit(ORIGIN);
+        Operations.completeBlindly(visitor);
+        Set<BlockVector3> visited = new HashSet<>();
+        BlockVector3Set set = visitor.getVisitedSet();
+        visited.addAll(set);
+        assertEquals(set.size(), visited.size());
+        return new Result(visitor.getAffected(), applied, visited);
+    }
+
+    @ParameterizedTest(name = "maxDepth={0}")
+    @ValueSource(ints = {0, 1, 7, 30, Integer.MAX_VALUE})
+    void parallelVisitsLikeSequential(int maxDepth) {
+        Result sequential = search(false, maxDepth, false);
+        Result parallel = search(false, maxDepth, true);
+        assertEquals(sequential.affected(), parallel.affected());
+        assertEquals(sequential.applied(), parallel.applied());
+        assertEquals(sequential.visited(), parallel.visited());
+    }
+
+    @ParameterizedTest(name = "maxDepth={0}")
+    @ValueSource(ints = {1, 30, Integer.MAX_VALUE})
+    void parallelDownwardVisitsLikeSequential(int maxDepth) {
+        Result sequential = search(true, maxDepth, false);
+        Result parallel = search(true, maxDepth, true);
+        assertEquals(sequential.affected(), parallel.affected());
+        assertEquals(sequential.applied(), parallel.applied());
+        assertEquals(sequential.visited(), parallel.visited());
+    }
+
+    @ParameterizedTest(name = "maxDepth={0}")
+    @ValueSource(ints = {7, Integer.MAX_VALUE})
+    void parallelIsDeterministic(int maxDepth) {
+        Result first = search(false, maxDepth, true);
+        for (int i = 0; i < 4; i++) {
+            Result next = search(false, maxDepth, true);
+            assertEquals(first.affected(), next.affected());
+            assertEquals(first.applied(), next.applied());
+            assertEquals(first.visited(), next.visited());
+        }
+    }
+
+    @Test
+    void parallelCopiesMaskPerLane() {
+        AtomicInteger copies = new AtomicInteger();
+        Mask mask = new CopiedCaveMask(copies);
+        RegionFunction function = position -> true;
+        RecursiveVisitor visitor = new RecursiveVisitor(mask, function, Integer.MAX_VALUE, MIN_Y, MAX_Y);
+        visitor.setParallel(() -> function);
+        visitor.visit(ORIGIN);
+        Operations.completeBlindly(visitor);
+        // the first lane tests the mask itself, every other lane a copy made for this search only
+        int lanes = Math.max(1, Settings.settings().QUEUE.PARALLEL_THREADS);
+        assertEquals(lanes - 1, copies.get());
+        assertEquals(search(false, Integer.MAX_VALUE, false).affected(), visitor.getAffected());
+    }
+
+}
@@ -36,6 +36,7 @@
 import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.DynamicTest.dynamicTest;
+import static org.mockito.Mockito.mock;
 
 class ExpressionTest extends BaseExpressionTest {
 
@@ -449,6 +450,28 @@ public void testTimeout() {
         assertTrue(e.getMessage().contains("Calculations exceeded time limit"));
     }
 
+    @Test
+    void testConstantFolding() {
+        checkTestCase("x = sqrt(4) * pi; x", 2 * Math.PI);
+        checkTestCase("1; 2; min(3, 1 + 1, 4)", 2);
+        checkTestCase("x = 2; if (!true) x = 3; x", 2);
+        checkTestCase("(1 || 0) + (0 && 1) + ~~5 + 3!", 12);
+        Expression expression = compile("a * (2 ^ 3) + -(1 - 4) + pi - pi", "a");
+        assertEquals(19, expression.evaluate(2), 0);
+        assertEquals(11, expression.evaluate(1), 0);
+        Expression unoptimized = Expression.compile("a * (2 ^ 3) + -(1 - 4) + pi - pi", "a");
+        assertEquals(unoptimized.evaluate(3), expression.evaluate(3), 0);
+    }
+
+    @Test
+    void testCloneKeepsVariableOrder() {
+        Expression expression = compile("x * 10000 + y * 1000 + z * 100 + type * 10 + data", "x", "y", "z", "type", "data");
+        expression.setEnvironment(mock(ExpressionEnvironment.class));
+        Expression clone = expression.clone();
+        assertEquals(12345, clone.evaluate(1, 2, 3, 4, 5), 0);
+        assertEquals(12345, expression.evaluate(1, 2, 3, 4, 5), 0);
+    }
+
     @Test
     public void testRound() {
         checkTestCase("round(1.3)", 1);
@@ -0,0 +1,78 @@
+package com.sk89q.worldedit.internal.expression.invoke;
+
+import com.sk89q.worldedit.internal.expression.CompiledExpression;
+import com.sk89q.worldedit.internal.expression.EvaluationException;
+import com.sk89q.worldedit.internal.expression.ExecutionData;
+import com.sk89q.worldedit.internal.expression.LocalSlot;
+import com.sk89q.worldedit.internal.expression.SlotTable;
+import org.junit.jupiter.api.Test;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Verifies that the hidden classes defined by {@link ExpressionClassDefiner} invoke the handles they are defined from.
+ */
+class ExpressionClassDefinerTest {
+
+    private static Double twice(ExecutionData data) {
+        return data.slots().getSlotValue("x").orElseThrow() * 2;
+    }
+
+    private static Double nothing(ExecutionData data) {
+        return null;
+    }
+
+    private static CompiledExpression define(String name) throws ReflectiveOperationException {
+        MethodHandle execute = MethodHandles.lookup().findStatic(
+                ExpressionClassDefinerTest.class,
+                name,
+                ExpressionHandles.COMPILED_EXPRESSION_SIG
+        );
+        return ExpressionClassDefiner.define(
+                execute,
+                MethodHandles.filterReturnValue(execute, ExpressionHandles.REQUIRE_RESULT)
+        );
+    }
+
+    private static ExecutionData data(double x) {
+        SlotTable slots = new SlotTable();
+        slots.putSlot("x", new LocalSlot.Variable(x));
+        return new ExecutionData(slots, null, Instant.MAX);
+    }
+
+    @Test
+    void testInvokesHandles() throws ReflectiveOperationException {
+        CompiledExpression expression = define("twice");
+        assertTrue(expression.getClass().isHidden());
+        assertEquals(7.0, expression.execute(data(3.5)));
+        assertEquals(-3, expression.evaluate(data(-1.5)), 0);
+    }
+
+    @Test
+    void testRequiresResult() throws ReflectiveOperationException {
+        CompiledExpression expression = define("nothing");
+        assertNull(expression.execute(data(1)));
+        assertThrows(EvaluationException.class, () -> expression.evaluate(data(1)));
+    }
+
+    @Test
+    void testClassPerExpression() throws ReflectiveOperationException {
+        CompiledExpression first = define("twice");
+        CompiledExpression second = define("nothing");
+        // the class file is shared, the handles are the class data of each class
+        assertNotSame(first.getClass(), second.getClass());
+        String name = first.getClass().getName();
+        assertTrue(second.getClass().getName().startsWith(name.substring(0, name.indexOf('/'))));
+        assertEquals(4.0, first.execute(data(2)));
+        assertNull(second.execute(data(2)));
+    }
+
+}